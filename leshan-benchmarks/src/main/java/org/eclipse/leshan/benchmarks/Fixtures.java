@@ -0,0 +1,148 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mMultipleResource;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Realistic data used by benchmarks.
+ */
+public class Fixtures {
+
+    public static final LwM2mModel MODEL = new StaticModel(ObjectLoader.loadDefault());
+
+    /**
+     * A LWM2M node to encode or decode with the path it is targeting.
+     */
+    public enum Node {
+        /** A Device object instance (/3/0) as returned by a Read request. */
+        DEVICE(new LwM2mPath(3, 0), device()),
+        /** A Firmware Update object instance (/5/0) with a 1KB package. */
+        FIRMWARE(new LwM2mPath(5, 0), firmware()),
+        /** A multiple resource (/3/0/7) with 100 instances. */
+        MULTIPLE_RESOURCE(new LwM2mPath(3, 0, 7), multipleResource(100));
+
+        public final LwM2mPath path;
+        public final LwM2mNode node;
+
+        private Node(LwM2mPath path, LwM2mNode node) {
+            this.path = path;
+            this.node = node;
+        }
+    }
+
+    public static LwM2mObjectInstance device() {
+        Map<Integer, Long> powerSources = new HashMap<>();
+        powerSources.put(0, 1l);
+        powerSources.put(1, 5l);
+        Map<Integer, Long> voltages = new HashMap<>();
+        voltages.put(0, 3800l);
+        voltages.put(1, 5000l);
+        Map<Integer, Long> errorCodes = new HashMap<>();
+        errorCodes.put(0, 0l);
+
+        return new LwM2mObjectInstance(0, new LwM2mResource[] { //
+                LwM2mSingleResource.newStringResource(0, "Leshan Demo Device"),
+                LwM2mSingleResource.newStringResource(1, "Model 500"),
+                LwM2mSingleResource.newStringResource(2, "LT-500-000-0001"),
+                LwM2mSingleResource.newStringResource(3, "1.0.0"),
+                LwM2mMultipleResource.newIntegerResource(6, powerSources),
+                LwM2mMultipleResource.newIntegerResource(7, voltages),
+                LwM2mSingleResource.newIntegerResource(9, 87),
+                LwM2mSingleResource.newIntegerResource(10, 15_000),
+                LwM2mMultipleResource.newIntegerResource(11, errorCodes),
+                LwM2mSingleResource.newDateResource(13, new Date(1_600_000_000_000l)),
+                LwM2mSingleResource.newStringResource(14, "+02"),
+                LwM2mSingleResource.newStringResource(15, "Europe/Paris"),
+                LwM2mSingleResource.newStringResource(16, "U"),
+                LwM2mSingleResource.newStringResource(17, "Demo"),
+                LwM2mSingleResource.newStringResource(18, "1.0.1"),
+                LwM2mSingleResource.newStringResource(19, "1.0.2"),
+                LwM2mSingleResource.newIntegerResource(20, 1),
+                LwM2mSingleResource.newIntegerResource(21, 65_536) });
+    }
+
+    public static LwM2mObjectInstance firmware() {
+        byte[] firmwarePackage = new byte[1024];
+        for (int i = 0; i < firmwarePackage.length; i++) {
+            firmwarePackage[i] = (byte) i;
+        }
+        Map<Integer, Long> protocols = new HashMap<>();
+        protocols.put(0, 0l);
+        protocols.put(1, 1l);
+
+        return new LwM2mObjectInstance(0, new LwM2mResource[] { //
+                LwM2mSingleResource.newBinaryResource(0, firmwarePackage),
+                LwM2mSingleResource.newStringResource(1, "coaps://firmware.example.com/devices/model500/1.0.1.bin"),
+                LwM2mSingleResource.newIntegerResource(3, 0), //
+                LwM2mSingleResource.newIntegerResource(5, 0),
+                LwM2mSingleResource.newStringResource(6, "model500-firmware"),
+                LwM2mSingleResource.newStringResource(7, "1.0.1"), //
+                LwM2mMultipleResource.newIntegerResource(8, protocols),
+                LwM2mSingleResource.newIntegerResource(9, 2) });
+    }
+
+    public static LwM2mMultipleResource multipleResource(int nbInstances) {
+        Map<Integer, Long> values = new HashMap<>();
+        for (int i = 0; i < nbInstances; i++) {
+            values.put(i, 3000l + i);
+        }
+        return LwM2mMultipleResource.newIntegerResource(7, values);
+    }
+
+    /**
+     * @return a registration with the given number of object links (in addition to the root path), the same data is
+     *         always returned for the same index.
+     */
+    public static Registration registration(int index, int nbLinks) {
+        Link[] links = new Link[nbLinks + 1];
+        links[0] = new Link("/", "rt", "\"oma.lwm2m\"", "ct", "\"60 110 112 11542 11543\"");
+        for (int i = 1; i <= nbLinks; i++) {
+            if (i % 2 == 0) {
+                links[i] = new Link("/" + (3300 + i) + "/0", "ver", "1.1");
+            } else {
+                links[i] = new Link("/" + (3300 + i) + "/0");
+            }
+        }
+        try {
+            // spread clients over all available ports and over several addresses
+            Identity identity = Identity.unsecure(
+                    InetAddress.getByAddress(new byte[] { 10, (byte) (index >> 16), 0, 1 }), index & 0xFFFF);
+            return new Registration.Builder("reg-" + index, "urn:imei:" + (359072060000000l + index), identity)
+                    .objectLinks(links).extractDataFromObjectLink(true).registrationDate(new Date())
+                    .lastUpdate(new Date()).build();
+        } catch (UnknownHostException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.client;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.notification.NotificationManager;
+import org.eclipse.leshan.client.notification.NotificationSender;
+import org.eclipse.leshan.client.resource.LwM2mObjectTree;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.Identity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dispatch of a resource change by the {@link NotificationManager} of a gateway client which has
+ * <code>observations</code> observed sensors under the same object. The changed sensor is not observed, so only the
+ * search of impacted observations is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationDispatchBenchmark {
+
+    private static final int OBJECT_ID = 3303;
+    private static final int SENSOR_VALUE = 5700;
+
+    @Param({ "10", "1000", "10000" })
+    public int observations;
+
+    private NotificationManager manager;
+    private int changedInstance;
+
+    @Setup
+    public void setup() {
+        manager = new NotificationManager(new LwM2mObjectTree(null));
+        ServerIdentity server = new ServerIdentity(Identity.unsecure(new InetSocketAddress("localhost", 5683)), 1l);
+        for (int i = 0; i < observations; i++) {
+            manager.notificationSent(server, new LwM2mPath(OBJECT_ID, i, SENSOR_VALUE),
+                    LwM2mSingleResource.newFloatResource(SENSOR_VALUE, 21.5d), new NotificationSender() {
+                        @Override
+                        public void sendNotification() {
+                        }
+                    });
+        }
+        changedInstance = observations;
+    }
+
+    @TearDown
+    public void tearDown() {
+        manager.destroy();
+    }
+
+    @Benchmark
+    public void resourceChanged() {
+        manager.resourceChanged(OBJECT_ID, changedInstance, SENSOR_VALUE);
+    }
+}
@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.client;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.eclipse.leshan.client.resource.BaseInstanceEnabler;
+import org.eclipse.leshan.client.resource.LwM2mInstanceEnabler;
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.resource.ObjectEnabler;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Concurrent reads on the instances of one object of a client, as done by a gateway exposing sub-devices as instances
+ * of the same object : each thread reads its own instance whose read takes <code>readLatencyInUs</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class ObjectEnablerReadBenchmark {
+
+    private static final int OBJECT_ID = 3303;
+    private static final int SENSOR_VALUE = 5700;
+
+    @Param({ "0", "100" })
+    public long readLatencyInUs;
+
+    private LwM2mObjectEnabler objectEnabler;
+    private final AtomicInteger nextInstance = new AtomicInteger();
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        private ReadRequest request;
+
+        @Setup
+        public void setup(ObjectEnablerReadBenchmark benchmark) {
+            request = new ReadRequest(OBJECT_ID, benchmark.nextInstance.getAndIncrement(), SENSOR_VALUE);
+        }
+    }
+
+    @Setup
+    public void setup() {
+        ObjectModel model = new ObjectModel(OBJECT_ID, "Temperature", "", "1.0", true, false,
+                new ResourceModel(SENSOR_VALUE, "Sensor Value", Operations.R, false, true, Type.FLOAT, "", "Cel", ""));
+        Map<Integer, LwM2mInstanceEnabler> instances = new HashMap<>();
+        for (int i = 0; i < 16; i++) {
+            instances.put(i, new SubDevice(i, TimeUnit.MICROSECONDS.toNanos(readLatencyInUs)));
+        }
+        objectEnabler = new ObjectEnabler(OBJECT_ID, model, instances, null, ContentFormat.DEFAULT);
+    }
+
+    @Benchmark
+    public ReadResponse read(ThreadState state) {
+        return objectEnabler.read(ServerIdentity.SYSTEM, state.request);
+    }
+
+    public static class SubDevice extends BaseInstanceEnabler {
+
+        private final long latencyInNs;
+
+        public SubDevice(int id, long latencyInNs) {
+            super(id);
+            this.latencyInNs = latencyInNs;
+        }
+
+        @Override
+        public ReadResponse read(ServerIdentity identity, int resourceId) {
+            if (latencyInNs > 0) {
+                // value is fetched from the sub-device
+                LockSupport.parkNanos(latencyInNs);
+            }
+            return ReadResponse.success(resourceId, 21.5d);
+        }
+    }
+}
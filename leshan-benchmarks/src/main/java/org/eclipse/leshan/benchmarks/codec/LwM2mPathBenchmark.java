@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing and formatting of {@link LwM2mPath}, done for each request, response and notification.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LwM2mPathBenchmark {
+
+    @Param({ "/3", "/3/0", "/3/0/13", "/3442/0/110/1" })
+    public String path;
+
+    private LwM2mPath lwm2mPath;
+
+    @Setup
+    public void setup() {
+        lwm2mPath = new LwM2mPath(path);
+    }
+
+    @Benchmark
+    public LwM2mPath parse() {
+        return new LwM2mPath(path);
+    }
+
+    @Benchmark
+    public LwM2mPath valueOf() {
+        return LwM2mPath.valueOf(path);
+    }
+
+    @Benchmark
+    public String format() {
+        return lwm2mPath.toString();
+    }
+
+    @Benchmark
+    public int ids() {
+        int ids = lwm2mPath.getObjectIdAsInt();
+        if (!lwm2mPath.isObject()) {
+            ids += lwm2mPath.getObjectInstanceIdAsInt();
+            if (!lwm2mPath.isObjectInstance()) {
+                ids += lwm2mPath.getResourceIdAsInt();
+                if (lwm2mPath.isResourceInstance()) {
+                    ids += lwm2mPath.getResourceInstanceIdAsInt();
+                }
+            }
+        }
+        return ids;
+    }
+
+    @Benchmark
+    public LwM2mPath append() {
+        return lwm2mPath.isResourceInstance() ? lwm2mPath : lwm2mPath.append(1);
+    }
+
+    @Benchmark
+    public LwM2mPath appendString() {
+        return lwm2mPath.isResourceInstance() ? lwm2mPath : lwm2mPath.append("/1");
+    }
+}
@@ -0,0 +1,98 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.model.VersionedModelProvider;
+import org.eclipse.leshan.server.registration.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of {@link Fixtures.Node} with the {@link DefaultLwM2mEncoder} and {@link DefaultLwM2mDecoder}
+ * for each content format supporting several resources.
+ * <p>
+ * Nodes are encoded and decoded with a static model or with the model of a registration as done by a server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeCodecBenchmark {
+
+    @Param({ "TLV", "JSON", "SENML_JSON", "SENML_CBOR" })
+    public String format;
+
+    @Param({ "DEVICE", "FIRMWARE", "MULTIPLE_RESOURCE" })
+    public Fixtures.Node node;
+
+    @Param({ "STATIC", "REGISTRATION" })
+    public String model;
+
+    private final LwM2mEncoder encoder = new DefaultLwM2mEncoder();
+    private final LwM2mDecoder decoder = new DefaultLwM2mDecoder();
+    private ContentFormat contentFormat;
+    private LwM2mModel lwm2mModel;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        contentFormat = ContentFormat.fromName(format);
+        if (model.equals("STATIC")) {
+            lwm2mModel = Fixtures.MODEL;
+        } else {
+            Registration registration = new Registration.Builder("reg", "endpoint",
+                    Identity.unsecure(new InetSocketAddress(5683)))
+                            .objectLinks(new Link[] { new Link("/3/0"), new Link("/5/0") })
+                            .extractDataFromObjectLink(true).build();
+            lwm2mModel = new VersionedModelProvider(Fixtures.MODEL.getObjectModels()).getObjectModel(registration);
+        }
+        encoded = encoder.encode(node.node, contentFormat, node.path, lwm2mModel);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return encoder.encode(node.node, contentFormat, node.path, lwm2mModel);
+    }
+
+    @Benchmark
+    public LwM2mNode decode() {
+        return decoder.decode(encoded, contentFormat, node.path, lwm2mModel);
+    }
+}
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.codec;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.senml.SenMLDecoder;
+import org.eclipse.leshan.senml.SenMLEncoder;
+import org.eclipse.leshan.senml.SenMLException;
+import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.cbor.jackson.SenMLCborJacksonEncoderDecoder;
+import org.eclipse.leshan.senml.cbor.streaming.SenMLCborStreamingEncoderDecoder;
+import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of the SenML-CBOR representation of {@link Fixtures.Node} with each SenML-CBOR
+ * implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SenMLCborBenchmark {
+
+    @Param({ "upokecenter", "jackson", "streaming" })
+    public String implementation;
+
+    @Param({ "DEVICE", "FIRMWARE", "MULTIPLE_RESOURCE" })
+    public Fixtures.Node node;
+
+    private SenMLEncoder encoder;
+    private SenMLDecoder decoder;
+    private SenMLPack pack;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() throws SenMLException {
+        switch (implementation) {
+        case "upokecenter":
+            SenMLCborUpokecenterEncoderDecoder upokecenter = new SenMLCborUpokecenterEncoderDecoder();
+            encoder = upokecenter;
+            decoder = upokecenter;
+            break;
+        case "jackson":
+            SenMLCborJacksonEncoderDecoder jackson = new SenMLCborJacksonEncoderDecoder();
+            encoder = jackson;
+            decoder = jackson;
+            break;
+        case "streaming":
+            SenMLCborStreamingEncoderDecoder streaming = new SenMLCborStreamingEncoderDecoder();
+            encoder = streaming;
+            decoder = streaming;
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown implementation " + implementation);
+        }
+        encoded = new DefaultLwM2mEncoder().encode(node.node, ContentFormat.SENML_CBOR, node.path, Fixtures.MODEL);
+        pack = decoder.fromSenML(encoded);
+    }
+
+    @Benchmark
+    public byte[] encode() throws SenMLException {
+        return encoder.toSenML(pack);
+    }
+
+    @Benchmark
+    public SenMLPack decode() throws SenMLException {
+        return decoder.fromSenML(encoded);
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.model;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loading of a models folder at startup : 20 copies of each embedded DDF file (280 files) are loaded without cache and
+ * with an up to date model cache file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObjectLoaderBenchmark {
+
+    private static final String[] DDF_FILES = new String[] { "0-1_0.xml", "0-1_1.xml", "1-1_0.xml", "1-1_1.xml",
+                            "2-1_0.xml", "3-1_0.xml", "3-1_1.xml", "4-1_0.xml", "4-1_1.xml", "4-1_2.xml", "5-1_0.xml",
+                            "6.xml", "7.xml", "21-1_0.xml" };
+    private static final int NB_COPIES = 20;
+
+    @Param({ "false", "true" })
+    public boolean validate;
+
+    private File modelsDir;
+    private File cacheFile;
+
+    @Setup
+    public void setup() throws IOException {
+        modelsDir = File.createTempFile("models", "");
+        modelsDir.delete();
+        modelsDir.mkdir();
+        for (int i = 0; i < NB_COPIES; i++) {
+            for (String ddfFile : DDF_FILES) {
+                copy("/models/" + ddfFile, new File(modelsDir, i + "-" + ddfFile));
+            }
+        }
+        cacheFile = File.createTempFile("models", ".cache");
+        cacheFile.delete();
+        ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, validate);
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (File file : modelsDir.listFiles()) {
+            file.delete();
+        }
+        modelsDir.delete();
+        cacheFile.delete();
+    }
+
+    @Benchmark
+    public List<ObjectModel> loadObjectsFromDir() {
+        return ObjectLoader.loadObjectsFromDir(modelsDir, validate);
+    }
+
+    @Benchmark
+    public List<ObjectModel> loadObjectsFromDirWithCache() {
+        return ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, validate);
+    }
+
+    private static void copy(String resource, File file) throws IOException {
+        try (InputStream in = ObjectLoaderBenchmark.class.getResourceAsStream(resource);
+                OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.server.model.VersionedModelProvider;
+import org.eclipse.leshan.server.registration.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Model resolution done by a server for each request sent and each notification received : get the model of a
+ * registration then the model of each of its objects.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VersionedModelProviderBenchmark {
+
+    @Param({ "2", "20" })
+    public int nbObjects;
+
+    private VersionedModelProvider provider;
+    private Registration[] registrations;
+    private int next;
+
+    @Setup
+    public void setup() {
+        provider = new VersionedModelProvider(Fixtures.MODEL.getObjectModels());
+        // registrations of devices with the same firmware
+        List<Link> links = new ArrayList<>();
+        for (ObjectModel objectModel : Fixtures.MODEL.getObjectModels()) {
+            if (links.size() < nbObjects) {
+                links.add(new Link("/" + objectModel.id, "ver", objectModel.version));
+            }
+        }
+        registrations = new Registration[100];
+        for (int i = 0; i < registrations.length; i++) {
+            registrations[i] = new Registration.Builder(Fixtures.registration(i, 0))
+                    .objectLinks(links.toArray(new Link[links.size()])).extractDataFromObjectLink(true).build();
+        }
+    }
+
+    @Benchmark
+    public ObjectModel getObjectModels() {
+        Registration registration = registrations[next++ % registrations.length];
+        LwM2mModel model = provider.getObjectModel(registration);
+        ObjectModel result = null;
+        for (Integer objectId : registration.getSupportedObject().keySet()) {
+            result = model.getObjectModel(objectId);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.request;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.server.californium.request.CoapRequestBuilder;
+import org.eclipse.leshan.server.californium.request.LwM2mResponseBuilder;
+import org.eclipse.leshan.server.registration.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Conversion of LWM2M requests to CoAP requests with {@link CoapRequestBuilder} and of CoAP responses to LWM2M
+ * responses with {@link LwM2mResponseBuilder}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequestBuildingBenchmark {
+
+    private final LwM2mEncoder encoder = new DefaultLwM2mEncoder();
+    private final LwM2mDecoder decoder = new DefaultLwM2mDecoder();
+    private final Registration registration = Fixtures.registration(0, 20);
+
+    private ReadRequest readRequest;
+    private WriteRequest writeRequest;
+    private Request coapReadRequest;
+    private Response coapReadResponse;
+
+    @Setup
+    public void setup() {
+        readRequest = new ReadRequest(ContentFormat.TLV, 3, 0);
+        writeRequest = new WriteRequest(WriteRequest.Mode.UPDATE, ContentFormat.TLV, 3, 0,
+                LwM2mSingleResource.newStringResource(14, "+02"),
+                LwM2mSingleResource.newStringResource(15, "Europe/Paris"));
+
+        coapReadRequest = buildCoapRequest(readRequest);
+        coapReadResponse = new Response(ResponseCode.CONTENT);
+        coapReadResponse.getOptions().setContentFormat(ContentFormat.TLV_CODE);
+        coapReadResponse.setPayload(encoder.encode(Fixtures.device(), ContentFormat.TLV, readRequest.getPath(),
+                Fixtures.MODEL));
+    }
+
+    private Request buildCoapRequest(ReadRequest request) {
+        CoapRequestBuilder builder = newCoapRequestBuilder();
+        builder.visit(request);
+        return builder.getRequest();
+    }
+
+    private CoapRequestBuilder newCoapRequestBuilder() {
+        return new CoapRequestBuilder(registration.getIdentity(), registration.getRootPath(), registration.getId(),
+                registration.getEndpoint(), Fixtures.MODEL, encoder, false, null);
+    }
+
+    @Benchmark
+    public Request buildReadRequest() {
+        return buildCoapRequest(readRequest);
+    }
+
+    @Benchmark
+    public Request buildWriteRequest() {
+        CoapRequestBuilder builder = newCoapRequestBuilder();
+        builder.visit(writeRequest);
+        return builder.getRequest();
+    }
+
+    @Benchmark
+    public ReadResponse buildReadResponse() {
+        LwM2mResponseBuilder<ReadResponse> builder = new LwM2mResponseBuilder<>(coapReadRequest, coapReadResponse,
+                registration.getEndpoint(), Fixtures.MODEL, decoder);
+        builder.visit(readRequest);
+        return builder.getResponse();
+    }
+}
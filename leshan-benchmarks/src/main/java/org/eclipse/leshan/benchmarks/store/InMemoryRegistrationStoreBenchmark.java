@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.store;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
+import org.eclipse.leshan.server.californium.registration.ConcurrentInMemoryRegistrationStore;
+import org.eclipse.leshan.server.californium.registration.InMemoryRegistrationStore;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Operations of {@link InMemoryRegistrationStore} and {@link ConcurrentInMemoryRegistrationStore} on a store
+ * containing a lot of registrations. Use JMH <code>-t</code> option to measure contention.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryRegistrationStoreBenchmark {
+
+    @Param({ "InMemoryRegistrationStore", "ConcurrentInMemoryRegistrationStore" })
+    public String storeType;
+
+    @Param({ "100000" })
+    public int nbRegistrations;
+
+    private CaliforniumRegistrationStore store;
+    private Registration[] registrations;
+
+    @Setup
+    public void setup() {
+        if ("InMemoryRegistrationStore".equals(storeType)) {
+            store = new InMemoryRegistrationStore();
+        } else {
+            store = new ConcurrentInMemoryRegistrationStore();
+        }
+
+        registrations = new Registration[nbRegistrations];
+        for (int i = 0; i < nbRegistrations; i++) {
+            registrations[i] = Fixtures.registration(i, 10);
+            store.addRegistration(registrations[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ((Destroyable) store).destroy();
+    }
+
+    private Registration anyRegistration() {
+        return registrations[ThreadLocalRandom.current().nextInt(nbRegistrations)];
+    }
+
+    @Benchmark
+    public Registration getRegistrationByEndpoint() {
+        return store.getRegistrationByEndpoint(anyRegistration().getEndpoint());
+    }
+
+    @Benchmark
+    public Registration getRegistrationByIdentity() {
+        return store.getRegistrationByIdentity(anyRegistration().getIdentity());
+    }
+
+    @Benchmark
+    public UpdatedRegistration updateRegistration() {
+        Registration registration = anyRegistration();
+        return store.updateRegistration(
+                new RegistrationUpdate(registration.getId(), registration.getIdentity(), 3600l, null, null, null, null));
+    }
+
+    @Benchmark
+    public Deregistration register() {
+        // registering again an endpoint replaces its previous registration
+        return store.addRegistration(anyRegistration());
+    }
+}
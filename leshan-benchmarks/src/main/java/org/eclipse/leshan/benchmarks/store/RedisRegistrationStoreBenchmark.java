@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.store;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.server.redis.RedisRegistrationStore;
+import org.eclipse.leshan.server.redis.SingleInstanceJedisLock;
+import org.eclipse.leshan.server.redis.serialization.CompactRegistrationStoreSerDes;
+import org.eclipse.leshan.server.redis.serialization.JsonRegistrationStoreSerDes;
+import org.eclipse.leshan.server.redis.serialization.RegistrationStoreSerDes;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+import redis.embedded.RedisServer;
+
+/**
+ * Operations of {@link RedisRegistrationStore} against a local embedded Redis server, with each serialization format
+ * and with or without near cache.
+ * <p>
+ * Absolute numbers mostly measure the loopback network, compare them between implementations only.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RedisRegistrationStoreBenchmark {
+
+    @Param({ "JSON", "COMPACT" })
+    public String serDes;
+
+    @Param({ "false", "true" })
+    public boolean nearCache;
+
+    @Param({ "1000" })
+    public int nbRegistrations;
+
+    @Param({ "6390" })
+    public int redisPort;
+
+    private RedisServer redisServer;
+    private JedisPool pool;
+    private RedisRegistrationStore store;
+    private Registration[] registrations;
+
+    @Setup
+    public void setup() throws IOException {
+        redisServer = new RedisServer(redisPort);
+        redisServer.start();
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(64);
+        pool = new JedisPool(poolConfig, "localhost", redisPort);
+        try (Jedis jedis = pool.getResource()) {
+            jedis.flushAll();
+        }
+
+        RegistrationStoreSerDes registrationSerDes = "COMPACT".equals(serDes) ? new CompactRegistrationStoreSerDes()
+                : new JsonRegistrationStoreSerDes();
+        store = new RedisRegistrationStore(pool, Executors.newSingleThreadScheduledExecutor(),
+                RedisRegistrationStore.DEFAULT_CLEAN_PERIOD, RedisRegistrationStore.DEFAULT_GRACE_PERIOD,
+                RedisRegistrationStore.DEFAULT_CLEAN_LIMIT, new SingleInstanceJedisLock(), registrationSerDes);
+        if (nearCache) {
+            store.enableNearCache(nbRegistrations, 1, TimeUnit.MINUTES);
+        }
+        store.start();
+
+        registrations = new Registration[nbRegistrations];
+        for (int i = 0; i < nbRegistrations; i++) {
+            registrations[i] = Fixtures.registration(i, 10);
+            store.addRegistration(registrations[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        store.destroy();
+        pool.destroy();
+        redisServer.stop();
+    }
+
+    private Registration anyRegistration() {
+        return registrations[ThreadLocalRandom.current().nextInt(nbRegistrations)];
+    }
+
+    @Benchmark
+    public Registration getRegistration() {
+        return store.getRegistration(anyRegistration().getId());
+    }
+
+    @Benchmark
+    public Registration getRegistrationByEndpoint() {
+        return store.getRegistrationByEndpoint(anyRegistration().getEndpoint());
+    }
+
+    @Benchmark
+    public UpdatedRegistration updateRegistration() {
+        Registration registration = anyRegistration();
+        return store.updateRegistration(
+                new RegistrationUpdate(registration.getId(), registration.getIdentity(), 3600l, null, null, null, null));
+    }
+}
@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.benchmarks.store;
+
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.benchmarks.Fixtures;
+import org.eclipse.leshan.server.redis.serialization.CompactRegistrationStoreSerDes;
+import org.eclipse.leshan.server.redis.serialization.JsonRegistrationStoreSerDes;
+import org.eclipse.leshan.server.redis.serialization.RegistrationStoreSerDes;
+import org.eclipse.leshan.server.registration.Registration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Serialization of registrations stored in Redis, with JSON and compact formats, for registrations with more or less
+ * object links.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RegistrationSerDesBenchmark {
+
+    @Param({ "JSON", "COMPACT" })
+    public String serDes;
+
+    @Param({ "5", "40", "200" })
+    public int nbObjectLinks;
+
+    private RegistrationStoreSerDes registrationSerDes;
+    private Registration registration;
+    private byte[] serialized;
+
+    @Setup
+    public void setup() {
+        registrationSerDes = "COMPACT".equals(serDes) ? new CompactRegistrationStoreSerDes()
+                : new JsonRegistrationStoreSerDes();
+        registration = Fixtures.registration(0, nbObjectLinks);
+        serialized = registrationSerDes.serializeRegistration(registration);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return registrationSerDes.serializeRegistration(registration);
+    }
+
+    @Benchmark
+    public Registration deserialize() {
+        return registrationSerDes.deserializeRegistration(serialized);
+    }
+}
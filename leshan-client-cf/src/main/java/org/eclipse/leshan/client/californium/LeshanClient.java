@@ -41,6 +41,7 @@ import org.eclipse.leshan.client.californium.object.ObjectResource;
 import org.eclipse.leshan.client.californium.request.CaliforniumLwM2mRequestSender;
 import org.eclipse.leshan.client.engine.RegistrationEngine;
 import org.eclipse.leshan.client.engine.RegistrationEngineFactory;
+import org.eclipse.leshan.client.notification.NotificationManager;
 import org.eclipse.leshan.client.observer.LwM2mClientObserver;
 import org.eclipse.leshan.client.observer.LwM2mClientObserverAdapter;
 import org.eclipse.leshan.client.observer.LwM2mClientObserverDispatcher;
@@ -56,6 +57,7 @@ import org.eclipse.leshan.core.californium.EndpointFactory;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
 import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
 import org.eclipse.leshan.core.request.ContentFormat;
@@ -83,6 +85,7 @@ public class LeshanClient implements LwM2mClient {
     private final CaliforniumEndpointsManager endpointsManager;
 
     private LwM2mObjectTree objectTree;
+    private NotificationManager notificationManager;
     private final BootstrapHandler bootstrapHandler;
     private final LwM2mRootEnabler rootEnabler;
     private final LwM2mEncoder encoder;
@@ -124,6 +127,7 @@ public class LeshanClient implements LwM2mClient {
 
         objectTree = createObjectTree(objectEnablers);
         rootEnabler = createRootEnabler(objectTree);
+        notificationManager = createNotificationManager(objectTree, sharedExecutor);
         this.decoder = decoder;
         this.encoder = encoder;
         observers = createClientObserverDispatcher();
@@ -139,7 +143,8 @@ public class LeshanClient implements LwM2mClient {
         coapServer = createCoapServer(coapConfig, sharedExecutor);
         coapServer.add(createBootstrapResource(engine, endpointsManager, bootstrapHandler));
         endpointsManager.setCoapServer(coapServer);
-        linkObjectTreeToCoapServer(coapServer, engine, endpointsManager, objectTree, encoder, decoder);
+        linkObjectTreeToCoapServer(coapServer, engine, endpointsManager, objectTree, encoder, decoder,
+                notificationManager);
         createRegistrationUpdateHandler(engine, endpointsManager, bootstrapHandler, objectTree);
 
         coapApi = new CoapAPI();
@@ -164,6 +169,11 @@ public class LeshanClient implements LwM2mClient {
         return observer;
     }
 
+    protected NotificationManager createNotificationManager(LwM2mObjectTree objectTree,
+            ScheduledExecutorService sharedExecutor) {
+        return new NotificationManager(objectTree, sharedExecutor);
+    }
+
     protected BootstrapHandler createBoostrapHandler(LwM2mObjectTree objectTree, BootstrapConsistencyChecker checker) {
         return new BootstrapHandler(objectTree.getObjectEnablers(), checker);
     }
@@ -194,12 +204,12 @@ public class LeshanClient implements LwM2mClient {
 
     protected void linkObjectTreeToCoapServer(final CoapServer coapServer, final RegistrationEngine registrationEngine,
             final CaliforniumEndpointsManager endpointsManager, LwM2mObjectTree objectTree,
-            final LwM2mEncoder encoder, final LwM2mDecoder decoder) {
+            final LwM2mEncoder encoder, final LwM2mDecoder decoder, final NotificationManager notificationManager) {
 
         // Create CoAP resources for each lwm2m Objects.
         for (LwM2mObjectEnabler enabler : objectTree.getObjectEnablers().values()) {
             CoapResource clientObject = createObjectResource(enabler, registrationEngine, endpointsManager, encoder,
-                    decoder);
+                    decoder, notificationManager);
             coapServer.add(clientObject);
         }
 
@@ -208,7 +218,7 @@ public class LeshanClient implements LwM2mClient {
             @Override
             public void objectAdded(LwM2mObjectEnabler object) {
                 CoapResource clientObject = createObjectResource(object, registrationEngine, endpointsManager, encoder,
-                        decoder);
+                        decoder, notificationManager);
                 coapServer.add(clientObject);
             }
 
@@ -224,8 +234,10 @@ public class LeshanClient implements LwM2mClient {
     }
 
     protected CoapResource createObjectResource(LwM2mObjectEnabler enabler, RegistrationEngine registrationEngine,
-            CaliforniumEndpointsManager endpointsManager, LwM2mEncoder encoder, LwM2mDecoder decoder) {
-        return new ObjectResource(enabler, registrationEngine, endpointsManager, encoder, decoder);
+            CaliforniumEndpointsManager endpointsManager, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            NotificationManager notificationManager) {
+        return new ObjectResource(enabler, registrationEngine, endpointsManager, encoder, decoder,
+                notificationManager);
     }
 
     protected CoapResource createBootstrapResource(RegistrationEngine registrationEngine,
@@ -288,6 +300,7 @@ public class LeshanClient implements LwM2mClient {
         engine.destroy(deregister);
         endpointsManager.destroy();
         requestSender.destroy();
+        notificationManager.destroy();
         objectTree.destroy();
 
         LOG.info("Leshan client destroyed.");
@@ -320,7 +333,7 @@ public class LeshanClient implements LwM2mClient {
         Validate.notEmpty(paths);
 
         Map<LwM2mPath, LwM2mNode> collectedData = collectData(server, paths);
-        return requestSender.send(server, new SendRequest(format, collectedData, null), 2000);
+        return requestSender.send(server, new SendRequest(format, collectedData, null), timeoutInMs);
     }
 
     @Override
@@ -332,7 +345,27 @@ public class LeshanClient implements LwM2mClient {
         Validate.notNull(onError);
 
         Map<LwM2mPath, LwM2mNode> collectedData = collectData(server, paths);
-        requestSender.send(server, new SendRequest(format, collectedData, null), 2000, onResponse, onError);
+        requestSender.send(server, new SendRequest(format, collectedData, null), timeoutInMs, onResponse, onError);
+    }
+
+    @Override
+    public SendResponse sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data,
+            long timeoutInMs) throws InterruptedException {
+        Validate.notNull(server);
+        Validate.notNull(data);
+
+        return requestSender.send(server, new SendRequest(format, data), timeoutInMs);
+    }
+
+    @Override
+    public void sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data, long timeoutInMs,
+            ResponseCallback<SendResponse> onResponse, ErrorCallback onError) {
+        Validate.notNull(server);
+        Validate.notNull(data);
+        Validate.notNull(onResponse);
+        Validate.notNull(onError);
+
+        requestSender.send(server, new SendRequest(format, data), timeoutInMs, onResponse, onError);
     }
 
     private Map<LwM2mPath, LwM2mNode> collectData(ServerIdentity server, List<String> paths) {
@@ -374,6 +407,7 @@ public class LeshanClient implements LwM2mClient {
     /**
      * Add listener to observe client lifecycle (bootstrap, register, update, deregister).
      */
+    @Override
     public void addObserver(LwM2mClientObserver observer) {
         observers.addObserver(observer);
     }
@@ -381,6 +415,7 @@ public class LeshanClient implements LwM2mClient {
     /**
      * Remove the given {@link LwM2mClientObserver}.
      */
+    @Override
     public void removeObserver(LwM2mClientObserver observer) {
         observers.removeObserver(observer);
     }
@@ -397,6 +432,7 @@ public class LeshanClient implements LwM2mClient {
     /**
      * @return All the registered Server indexed by the corresponding registration id;
      */
+    @Override
     public Map<String, ServerIdentity> getRegisteredServers() {
         return engine.getRegisteredServers();
     }
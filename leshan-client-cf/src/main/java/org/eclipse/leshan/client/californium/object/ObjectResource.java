@@ -22,15 +22,23 @@ package org.eclipse.leshan.client.californium.object;
 import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toCoapResponseCode;
 
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.MediaTypeRegistry;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.network.Exchange;
+import org.eclipse.californium.core.observe.ObserveNotificationOrderer;
+import org.eclipse.californium.core.observe.ObserveRelation;
+import org.eclipse.californium.core.observe.ObserveRelationFilter;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.californium.core.server.resources.Resource;
 import org.eclipse.leshan.client.californium.CaliforniumEndpointsManager;
 import org.eclipse.leshan.client.californium.LwM2mClientCoapResource;
 import org.eclipse.leshan.client.engine.RegistrationEngine;
+import org.eclipse.leshan.client.notification.NotificationManager;
+import org.eclipse.leshan.client.notification.NotificationSender;
 import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
 import org.eclipse.leshan.client.resource.listener.ObjectListener;
 import org.eclipse.leshan.client.servers.ServerIdentity;
@@ -82,14 +90,18 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
     protected final LwM2mObjectEnabler nodeEnabler;
     protected final LwM2mEncoder encoder;
     protected final LwM2mDecoder decoder;
+    protected final NotificationManager notificationManager;
+    private final ObserveNotificationOrderer notificationOrderer = new ObserveNotificationOrderer();
 
     public ObjectResource(LwM2mObjectEnabler nodeEnabler, RegistrationEngine registrationEngine,
-            CaliforniumEndpointsManager endpointsManager, LwM2mEncoder encoder, LwM2mDecoder decoder) {
+            CaliforniumEndpointsManager endpointsManager, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            NotificationManager notificationManager) {
         super(Integer.toString(nodeEnabler.getId()), registrationEngine, endpointsManager);
         this.nodeEnabler = nodeEnabler;
         this.nodeEnabler.addListener(this);
         this.encoder = encoder;
         this.decoder = decoder;
+        this.notificationManager = notificationManager;
         setObservable(true);
     }
 
@@ -142,12 +154,19 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
                 ObserveRequest observeRequest = new ObserveRequest(requestedContentFormat, URI, coapRequest);
                 ObserveResponse response = nodeEnabler.observe(identity, observeRequest);
                 if (response.getCode() == org.eclipse.leshan.core.ResponseCode.CONTENT) {
-                    LwM2mPath path = new LwM2mPath(URI);
+                    LwM2mPath path = LwM2mPath.valueOf(URI);
                     LwM2mNode content = response.getContent();
                     LwM2mModel model = new StaticModel(nodeEnabler.getObjectModel());
                     ContentFormat format = getContentFormat(observeRequest, requestedContentFormat);
                     exchange.respond(ResponseCode.CONTENT, encoder.encode(content, format, path, model),
                             format.getCode());
+
+                    // observe response or notification was sent, let notification manager schedule the next one.
+                    ObserveRelation relation = exchange.advanced().getRelation();
+                    if (relation != null && relation.isEstablished() && !relation.isCanceled()) {
+                        notificationManager.notificationSent(identity, path, content,
+                                new RelationNotificationSender(relation));
+                    }
                     return;
                 } else {
                     exchange.respond(toCoapResponseCode(response.getCode()), response.getErrorMessage());
@@ -162,7 +181,7 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
                             coapRequest);
                     BootstrapReadResponse response = nodeEnabler.read(identity, readRequest);
                     if (response.getCode() == org.eclipse.leshan.core.ResponseCode.CONTENT) {
-                        LwM2mPath path = new LwM2mPath(URI);
+                        LwM2mPath path = LwM2mPath.valueOf(URI);
                         LwM2mNode content = response.getContent();
                         LwM2mModel model = new StaticModel(nodeEnabler.getObjectModel());
                         ContentFormat format = getContentFormat(readRequest, requestedContentFormat);
@@ -178,7 +197,7 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
                     ReadRequest readRequest = new ReadRequest(requestedContentFormat, URI, coapRequest);
                     ReadResponse response = nodeEnabler.read(identity, readRequest);
                     if (response.getCode() == org.eclipse.leshan.core.ResponseCode.CONTENT) {
-                        LwM2mPath path = new LwM2mPath(URI);
+                        LwM2mPath path = LwM2mPath.valueOf(URI);
                         LwM2mNode content = response.getContent();
                         LwM2mModel model = new StaticModel(nodeEnabler.getObjectModel());
                         ContentFormat format = getContentFormat(readRequest, requestedContentFormat);
@@ -217,7 +236,12 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
         AttributeSet attributes = null;
         if (coapRequest.getOptions().getURIQueryCount() != 0) {
             List<String> uriQueries = coapRequest.getOptions().getUriQuery();
-            attributes = AttributeSet.parse(uriQueries);
+            try {
+                attributes = AttributeSet.parse(uriQueries);
+            } catch (IllegalArgumentException e) {
+                handleInvalidRequest(coapExchange, e.getMessage());
+                return;
+            }
         }
 
         // Manage Write Attributes Request
@@ -227,13 +251,14 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
             if (response.getCode().isError()) {
                 coapExchange.respond(toCoapResponseCode(response.getCode()), response.getErrorMessage());
             } else {
+                notificationManager.writeAttributes(identity, LwM2mPath.valueOf(URI), attributes);
                 coapExchange.respond(toCoapResponseCode(response.getCode()));
             }
             return;
         }
         // Manage Write and Bootstrap Write Request (replace)
         else {
-            LwM2mPath path = new LwM2mPath(URI);
+            LwM2mPath path = LwM2mPath.valueOf(URI);
 
             if (!coapExchange.getRequestOptions().hasContentFormat()) {
                 handleInvalidRequest(coapExchange, "Content Format is mandatory");
@@ -285,7 +310,7 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
         String URI = exchange.getRequestOptions().getUriPathString();
         Request coapRequest = exchange.advanced().getRequest();
 
-        LwM2mPath path = new LwM2mPath(URI);
+        LwM2mPath path = LwM2mPath.valueOf(URI);
 
         // Manage Execute Request
         if (path.isResource()) {
@@ -425,17 +450,50 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
         return this;
     }
 
+    /**
+     * Send a notification for a single relation.
+     * <p>
+     * Unlike {@link #changed(ObserveRelationFilter)} which evaluates a filter against all the observe relations of
+     * this resource, only the given relation is notified. Observe numbers are handled by this resource (see
+     * {@link #checkObserveRelation(Exchange, Response)}) as {@link #changed()} is not used.
+     */
+    protected void notifyRelation(final ObserveRelation relation) {
+        if (relation.isCanceled())
+            return;
+
+        notificationOrderer.getNextObserveNumber();
+        Executor executor = getExecutor();
+        if (executor == null) {
+            relation.notifyObservers();
+        } else {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    relation.notifyObservers();
+                }
+            });
+        }
+    }
+
     @Override
-    public void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourceIds) {
-        // notify CoAP layer than resources changes, this will send observe notification if an observe relationship
-        // exits.
-        changed(new ResourceObserveFilter(object.getId() + ""));
-        changed(new ResourceObserveFilter(object.getId() + "/" + instanceId));
-        for (int resourceId : resourceIds) {
-            changed(new ResourceObserveFilter(object.getId() + "/" + instanceId + "/" + resourceId));
+    public void checkObserveRelation(Exchange exchange, Response response) {
+        super.checkObserveRelation(exchange, response);
+        if (response.getOptions().hasObserve()) {
+            response.getOptions().setObserve(notificationOrderer.getCurrent());
         }
     }
 
+    @Override
+    public void removeObserveRelation(ObserveRelation relation) {
+        super.removeObserveRelation(relation);
+        notificationManager.removeObservation(new RelationNotificationSender(relation));
+    }
+
+    @Override
+    public void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourceIds) {
+        // notifications are sent by the notification manager according to the attributes of each observation.
+    }
+
     @Override
     public void objectInstancesAdded(LwM2mObjectEnabler object, int... instanceIds) {
     }
@@ -443,4 +501,35 @@ public class ObjectResource extends LwM2mClientCoapResource implements ObjectLis
     @Override
     public void objectInstancesRemoved(LwM2mObjectEnabler object, int... instanceIds) {
     }
+
+    /**
+     * Send notification for a given observe relation of this resource. Senders of the same relation are equal.
+     */
+    protected class RelationNotificationSender implements NotificationSender {
+
+        private final ObserveRelation relation;
+
+        public RelationNotificationSender(ObserveRelation relation) {
+            this.relation = relation;
+        }
+
+        @Override
+        public void sendNotification() {
+            notifyRelation(relation);
+        }
+
+        @Override
+        public int hashCode() {
+            return relation.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj)
+                return true;
+            if (!(obj instanceof RelationNotificationSender))
+                return false;
+            return relation == ((RelationNotificationSender) obj).relation;
+        }
+    }
 }
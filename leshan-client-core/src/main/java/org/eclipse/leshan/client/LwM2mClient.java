@@ -16,10 +16,14 @@
 package org.eclipse.leshan.client;
 
 import java.util.List;
+import java.util.Map;
 
+import org.eclipse.leshan.client.observer.LwM2mClientObserver;
 import org.eclipse.leshan.client.resource.LwM2mObjectTree;
+import org.eclipse.leshan.client.send.DataCollector;
 import org.eclipse.leshan.client.send.NoDataException;
 import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.exception.InvalidRequestException;
@@ -145,8 +149,76 @@ public interface LwM2mClient {
     void sendData(ServerIdentity server, ContentFormat format, List<String> paths, long timeoutInMs,
             ResponseCallback<SendResponse> responseCallback, ErrorCallback errorCallback);
 
+    /**
+     * Send already collected Data synchronously to a LWM2M Server.
+     * <p>
+     * Unlike {@link #sendData(ServerIdentity, ContentFormat, List, long)}, values are not read from the
+     * {@link LwM2mObjectTree}, they can have been collected at different times (see {@link DataCollector}).
+     * 
+     * @param server to which data must be send
+     * @param format {@link ContentFormat} to use. It MUST be {@link ContentFormat#SENML_CBOR} or
+     *        {@link ContentFormat#SENML_JSON}
+     * @param data the values to send with their time-stamp.
+     * @param timeoutInMs The global timeout to wait in milliseconds (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout)
+     * @return the LWM2M response. The response can be <code>null</code> if the timeout expires (see
+     *         https://github.com/eclipse/leshan/wiki/Request-Timeout).
+     * 
+     * @throws InterruptedException if the thread was interrupted.
+     * @throws InvalidRequestException if send request can not be created.
+     * @throws CodecException if request payload can not be encoded.
+     * @throws RequestRejectedException if the request is rejected by foreign peer.
+     * @throws RequestCanceledException if the request is cancelled.
+     * @throws SendFailedException if the request can not be sent. E.g. error at CoAP or DTLS/UDP layer.
+     * @throws InvalidResponseException if the response received is malformed.
+     * @throws UnconnectedPeerException if client is not connected (no dtls connection available).
+     */
+    SendResponse sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data, long timeoutInMs)
+            throws InterruptedException;
+
+    /**
+     * Send already collected Data asynchronously to a LWM2M Server.
+     * <p>
+     * Unlike {@link #sendData(ServerIdentity, ContentFormat, List, long, ResponseCallback, ErrorCallback)}, values are
+     * not read from the {@link LwM2mObjectTree}, they can have been collected at different times (see
+     * {@link DataCollector}).
+     * <p>
+     * {@link ResponseCallback} and {@link ErrorCallback} are exclusively called.
+     * 
+     * @param server to which data must be send
+     * @param format {@link ContentFormat} to use. It MUST be {@link ContentFormat#SENML_CBOR} or
+     *        {@link ContentFormat#SENML_JSON}
+     * @param data the values to send with their time-stamp.
+     * @param timeoutInMs The global timeout to wait in milliseconds (see
+     *        https://github.com/eclipse/leshan/wiki/Request-Timeout)
+     * @param responseCallback a callback called when a response is received (successful or error response). This
+     *        callback MUST NOT be null.
+     * @param errorCallback a callback called when an error or exception occurred when response is received (see
+     *        {@link #sendData(ServerIdentity, ContentFormat, List, long, ResponseCallback, ErrorCallback)}). This
+     *        callback MUST NOT be null.
+     * @throws CodecException if request payload can not be encoded.
+     * @throws InvalidRequestException if send request can not be created.
+     */
+    void sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data, long timeoutInMs,
+            ResponseCallback<SendResponse> responseCallback, ErrorCallback errorCallback);
+
     /**
      * @return the {@link LwM2mObjectTree} containing all the object implemented by this client.
      */
     LwM2mObjectTree getObjectTree();
+
+    /**
+     * @return All the registered Server indexed by the corresponding registration id;
+     */
+    Map<String, ServerIdentity> getRegisteredServers();
+
+    /**
+     * Add listener to observe client lifecycle (bootstrap, register, update, deregister).
+     */
+    void addObserver(LwM2mClientObserver observer);
+
+    /**
+     * Remove the given {@link LwM2mClientObserver}.
+     */
+    void removeObserver(LwM2mClientObserver observer);
 }
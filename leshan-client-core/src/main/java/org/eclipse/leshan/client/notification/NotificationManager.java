@@ -0,0 +1,646 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.resource.LwM2mObjectTree;
+import org.eclipse.leshan.client.resource.listener.ObjectsListener;
+import org.eclipse.leshan.client.resource.listener.ObjectsListenerAdapter;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.attributes.Attribute;
+import org.eclipse.leshan.core.attributes.AttributeSet;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Decides when notifications must be sent for the observations of a LWM2M client, according to the notification
+ * attributes written by LWM2M servers with the Write-Attributes operation.
+ * <p>
+ * Attributes are stored by server and by path, and are inherited from object to object instance and from object
+ * instance to resource. When a resource changes, the impacted observations are evaluated :
+ * <ul>
+ * <li>changes are coalesced until <code>pmin</code> seconds have elapsed since the last notification,</li>
+ * <li>a notification is sent when no notification was sent during <code>pmax</code> seconds,</li>
+ * <li>when <code>gt</code>, <code>lt</code> or <code>st</code> are defined for a numerical resource, a change is
+ * notified only if the value crossed one of the thresholds or moved of at least <code>st</code> since the last
+ * notified value.</li>
+ * </ul>
+ * When <code>pmin</code> or <code>pmax</code> is not defined, the "Default Minimum Period" or "Default Maximum Period"
+ * of the Server object instance of the server is used. Those default periods are read once and cached until the Server
+ * object changes.
+ * <p>
+ * The transport layer is in charge of sending notifications, it registers an observation by calling
+ * {@link #notificationSent(ServerIdentity, LwM2mPath, LwM2mNode, NotificationSender)} each time a response is sent
+ * for it (the observe response and each notification) and unregisters it with
+ * {@link #removeObservation(NotificationSender)}.
+ */
+public class NotificationManager implements Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(NotificationManager.class);
+
+    private final LwM2mObjectTree objectTree;
+    private final ObjectsListener treeListener;
+    private final ScheduledExecutorService executor;
+    private final boolean attachedExecutor;
+
+    // attributes written by each server indexed by path
+    private final Map<ServerIdentity, Map<LwM2mPath, AttributeSet>> attributes = new HashMap<>();
+    private final Map<NotificationSender, ObservationState> observations = new HashMap<>();
+    // observations indexed by observed path, resource instance observations are indexed by their resource path.
+    private final Map<LwM2mPath, Set<ObservationState>> observationsByPath = new HashMap<>();
+    // default periods read from the Server object instance of each server, indexed by short server id. Cleared each
+    // time the Server object changes, the version prevents to cache periods read before a change.
+    private final Map<Long, DefaultPeriods> defaultPeriods = new HashMap<>();
+    private long defaultPeriodsVersion = 0;
+
+    public NotificationManager(LwM2mObjectTree objectTree) {
+        this(objectTree, null);
+    }
+
+    /**
+     * @param objectTree the objects of the client.
+     * @param executor the executor used to evaluate changes and to schedule notifications. If <code>null</code> a
+     *        single thread executor is created and destroyed with this manager.
+     */
+    public NotificationManager(LwM2mObjectTree objectTree, ScheduledExecutorService executor) {
+        Validate.notNull(objectTree);
+        this.objectTree = objectTree;
+        if (executor == null) {
+            this.executor = createScheduledExecutor();
+            this.attachedExecutor = true;
+        } else {
+            this.executor = executor;
+            this.attachedExecutor = false;
+        }
+
+        treeListener = new ObjectsListenerAdapter() {
+            @Override
+            public void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourceIds) {
+                serverObjectChanged(object);
+                NotificationManager.this.resourceChanged(object.getId(), instanceId, resourceIds);
+            }
+
+            @Override
+            public void objectInstancesAdded(LwM2mObjectEnabler object, int... instanceIds) {
+                serverObjectChanged(object);
+            }
+
+            @Override
+            public void objectInstancesRemoved(LwM2mObjectEnabler object, int... instanceIds) {
+                serverObjectChanged(object);
+                for (int instanceId : instanceIds) {
+                    removeAttributes(new LwM2mPath(object.getId(), instanceId));
+                }
+            }
+
+            @Override
+            public void objectAdded(LwM2mObjectEnabler object) {
+                serverObjectChanged(object);
+            }
+
+            @Override
+            public void objectRemoved(LwM2mObjectEnabler object) {
+                serverObjectChanged(object);
+                removeAttributes(new LwM2mPath(object.getId()));
+            }
+        };
+        objectTree.addListener(treeListener);
+    }
+
+    protected ScheduledExecutorService createScheduledExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("NotificationManager#%d"));
+    }
+
+    /**
+     * Store attributes written by a server on the given path.
+     * <p>
+     * Attributes with a value replace the previous value of the same attribute, attributes without value are removed.
+     * Attributes are expected to be validated for the level of the path.
+     */
+    public void writeAttributes(ServerIdentity server, LwM2mPath path, AttributeSet newAttributes) {
+        Validate.notNull(server);
+        Validate.notNull(path);
+        Validate.notNull(newAttributes);
+
+        List<ObservationState> impacted = new ArrayList<>();
+        synchronized (this) {
+            Map<LwM2mPath, AttributeSet> serverAttributes = attributes.get(server);
+            if (serverAttributes == null) {
+                serverAttributes = new HashMap<>();
+                attributes.put(server, serverAttributes);
+            }
+
+            Map<String, Attribute> merged = new LinkedHashMap<>();
+            AttributeSet previous = serverAttributes.get(path);
+            if (previous != null) {
+                for (Attribute attribute : previous.getAttributes()) {
+                    merged.put(attribute.getCoRELinkParam(), attribute);
+                }
+            }
+            for (Attribute attribute : newAttributes.getAttributes()) {
+                if (attribute.getValue() == null) {
+                    merged.remove(attribute.getCoRELinkParam());
+                } else {
+                    merged.put(attribute.getCoRELinkParam(), attribute);
+                }
+            }
+
+            if (merged.isEmpty()) {
+                serverAttributes.remove(path);
+                if (serverAttributes.isEmpty()) {
+                    attributes.remove(server);
+                }
+            } else {
+                serverAttributes.put(path, new AttributeSet(merged.values()));
+            }
+
+            for (ObservationState observation : observations.values()) {
+                if (observation.server.equals(server) && observation.path.startWith(path)) {
+                    impacted.add(observation);
+                }
+            }
+        }
+
+        // new maximum period applies to current observations
+        for (final ObservationState observation : impacted) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    scheduleMaxPeriod(observation);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return the attributes written by the server on this exact path or <code>null</code> if there is none.
+     */
+    public synchronized AttributeSet getAttributes(ServerIdentity server, LwM2mPath path) {
+        Map<LwM2mPath, AttributeSet> serverAttributes = attributes.get(server);
+        return serverAttributes == null ? null : serverAttributes.get(path);
+    }
+
+    private synchronized void removeAttributes(LwM2mPath removedPath) {
+        for (Iterator<Map<LwM2mPath, AttributeSet>> it = attributes.values().iterator(); it.hasNext();) {
+            Map<LwM2mPath, AttributeSet> serverAttributes = it.next();
+            for (Iterator<LwM2mPath> paths = serverAttributes.keySet().iterator(); paths.hasNext();) {
+                if (paths.next().startWith(removedPath)) {
+                    paths.remove();
+                }
+            }
+            if (serverAttributes.isEmpty()) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Must be called each time a response is sent for an observation : the response to the observe request and each
+     * notification. The first call registers the observation.
+     *
+     * @param server the server which observes the node.
+     * @param path the path of the observed node.
+     * @param value the value sent to the server.
+     * @param sender the sender used to send next notifications, which identifies the observation.
+     */
+    public void notificationSent(ServerIdentity server, LwM2mPath path, LwM2mNode value, NotificationSender sender) {
+        ObservationState observation;
+        synchronized (this) {
+            observation = observations.get(sender);
+            if (observation == null || !observation.server.equals(server) || !observation.path.equals(path)) {
+                if (observation != null) {
+                    observation.cancel();
+                    unindex(observation);
+                }
+                observation = new ObservationState(server, path, sender);
+                observations.put(sender, observation);
+                index(observation);
+            }
+            // sent value is up to date, no need to send pending changes
+            observation.cancelPendingNotification();
+            observation.lastNotification = currentTime();
+            observation.lastValue = toDouble(value);
+        }
+        scheduleMaxPeriod(observation);
+    }
+
+    /**
+     * Remove an observation, no more notification will be sent with this sender.
+     */
+    public synchronized void removeObservation(NotificationSender sender) {
+        ObservationState observation = observations.remove(sender);
+        if (observation != null) {
+            observation.cancel();
+            unindex(observation);
+        }
+    }
+
+    private void index(ObservationState observation) {
+        LwM2mPath key = indexKey(observation.path);
+        Set<ObservationState> indexed = observationsByPath.get(key);
+        if (indexed == null) {
+            indexed = new HashSet<>();
+            observationsByPath.put(key, indexed);
+        }
+        indexed.add(observation);
+    }
+
+    private void unindex(ObservationState observation) {
+        LwM2mPath key = indexKey(observation.path);
+        Set<ObservationState> indexed = observationsByPath.get(key);
+        if (indexed != null) {
+            indexed.remove(observation);
+            if (indexed.isEmpty()) {
+                observationsByPath.remove(key);
+            }
+        }
+    }
+
+    private static LwM2mPath indexKey(LwM2mPath path) {
+        return path.isResourceInstance() ? path.toResourcePath() : path;
+    }
+
+    private void collectObservations(LwM2mPath path, Set<ObservationState> impacted) {
+        Set<ObservationState> indexed = observationsByPath.get(path);
+        if (indexed != null) {
+            impacted.addAll(indexed);
+        }
+    }
+
+    /**
+     * Evaluate observations impacted by a change of resources. This is called automatically for changes notified by
+     * the object tree.
+     */
+    public void resourceChanged(int objectId, int instanceId, int... resourceIds) {
+        Set<ObservationState> impacted = new HashSet<>();
+        synchronized (this) {
+            if (observationsByPath.isEmpty()) {
+                return;
+            }
+            // only observations of the object, of the instance or of a changed resource are impacted
+            collectObservations(new LwM2mPath(objectId), impacted);
+            collectObservations(new LwM2mPath(objectId, instanceId), impacted);
+            for (int resourceId : resourceIds) {
+                collectObservations(new LwM2mPath(objectId, instanceId, resourceId), impacted);
+            }
+        }
+
+        // changes are evaluated asynchronously as values must be read, which is not possible in the thread of the
+        // change which could hold the lock of an object enabler.
+        for (final ObservationState observation : impacted) {
+            execute(new Runnable() {
+                @Override
+                public void run() {
+                    evaluateChange(observation);
+                }
+            });
+        }
+    }
+
+    private void evaluateChange(ObservationState observation) {
+        NotificationAttributes notificationAttributes = resolveAttributes(observation.server, observation.path);
+        Double value = notificationAttributes.hasValueConditions() ? readNumericalValue(observation.path) : null;
+
+        synchronized (this) {
+            if (observations.get(observation.sender) != observation || observation.pendingNotification != null) {
+                // observation removed or changes already waiting for minimum period.
+                return;
+            }
+            if (!notificationAttributes.valueConditionsSatisfied(observation.lastValue, value)) {
+                return;
+            }
+            long delay = notificationAttributes.pmin - (currentTime() - observation.lastNotification);
+            if (delay > 0) {
+                observation.pendingNotification = schedule(new NotificationTask(observation), delay);
+                return;
+            }
+        }
+        sendNotification(observation);
+    }
+
+    private void sendNotification(ObservationState observation) {
+        synchronized (this) {
+            if (observations.get(observation.sender) != observation) {
+                return;
+            }
+            // next maximum period is scheduled when the notification is sent
+            observation.cancel();
+            observation.lastNotification = currentTime();
+        }
+        try {
+            observation.sender.sendNotification();
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to send notification for {}", observation.path, e);
+        }
+    }
+
+    private void scheduleMaxPeriod(ObservationState observation) {
+        NotificationAttributes notificationAttributes = resolveAttributes(observation.server, observation.path);
+        synchronized (this) {
+            if (observations.get(observation.sender) != observation) {
+                return;
+            }
+            observation.cancelMaxPeriodTask();
+            // maximum period is ignored if it is lesser than minimum period
+            if (notificationAttributes.pmax > 0 && notificationAttributes.pmax >= notificationAttributes.pmin) {
+                long delay = notificationAttributes.pmax - (currentTime() - observation.lastNotification);
+                observation.maxPeriodTask = schedule(new NotificationTask(observation), Math.max(delay, 0));
+            }
+        }
+    }
+
+    private NotificationAttributes resolveAttributes(ServerIdentity server, LwM2mPath path) {
+        AttributeSet merged = new AttributeSet();
+        synchronized (this) {
+            Map<LwM2mPath, AttributeSet> serverAttributes = attributes.get(server);
+            if (serverAttributes != null) {
+                // attributes are inherited from object to instance and from instance to resource
+                merged = merged.merge(serverAttributes.get(path.toObjectPath()));
+                if (!path.isObject()) {
+                    merged = merged.merge(serverAttributes.get(path.toObjectInstancePath()));
+                }
+                if (path.isResource() || path.isResourceInstance()) {
+                    merged = merged.merge(serverAttributes.get(path.toResourcePath()));
+                }
+                if (path.isResourceInstance()) {
+                    merged = merged.merge(serverAttributes.get(path));
+                }
+            }
+        }
+
+        Map<String, Object> values = merged.getMap();
+        Long pmin = (Long) values.get(Attribute.MINIMUM_PERIOD);
+        Long pmax = (Long) values.get(Attribute.MAXIMUM_PERIOD);
+        if (pmin == null || pmax == null) {
+            DefaultPeriods defaults = getDefaultPeriods(server);
+            if (pmin == null)
+                pmin = defaults.pmin;
+            if (pmax == null)
+                pmax = defaults.pmax;
+        }
+        return new NotificationAttributes(pmin, pmax, (Double) values.get(Attribute.GREATER_THAN),
+                (Double) values.get(Attribute.LESSER_THAN), (Double) values.get(Attribute.STEP));
+    }
+
+    private DefaultPeriods getDefaultPeriods(ServerIdentity server) {
+        if (server.getId() == null) {
+            return DefaultPeriods.NONE;
+        }
+        long version;
+        synchronized (this) {
+            DefaultPeriods cached = defaultPeriods.get(server.getId());
+            if (cached != null) {
+                return cached;
+            }
+            version = defaultPeriodsVersion;
+        }
+
+        DefaultPeriods periods = DefaultPeriods.NONE;
+        LwM2mObjectInstance serverInstance = readServerInstance(server);
+        if (serverInstance != null) {
+            periods = new DefaultPeriods(getLongValue(serverInstance, 2), // default min period
+                    getLongValue(serverInstance, 3)); // default max period
+        }
+
+        synchronized (this) {
+            if (version == defaultPeriodsVersion) {
+                defaultPeriods.put(server.getId(), periods);
+            }
+        }
+        return periods;
+    }
+
+    private void serverObjectChanged(LwM2mObjectEnabler object) {
+        if (object.getId() == LwM2mId.SERVER) {
+            synchronized (this) {
+                defaultPeriods.clear();
+                defaultPeriodsVersion++;
+            }
+        }
+    }
+
+    private LwM2mObjectInstance readServerInstance(ServerIdentity server) {
+        LwM2mObjectEnabler serverEnabler = objectTree.getObjectEnabler(LwM2mId.SERVER);
+        if (server.getId() == null || serverEnabler == null) {
+            return null;
+        }
+        for (Integer instanceId : serverEnabler.getAvailableInstanceIds()) {
+            ReadResponse response = serverEnabler.read(ServerIdentity.SYSTEM,
+                    new ReadRequest(LwM2mId.SERVER, instanceId));
+            if (response.isSuccess() && response.getContent() instanceof LwM2mObjectInstance) {
+                LwM2mObjectInstance instance = (LwM2mObjectInstance) response.getContent();
+                if (server.getId().equals(getLongValue(instance, LwM2mId.SRV_SERVER_ID))) {
+                    return instance;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Long getLongValue(LwM2mObjectInstance instance, int resourceId) {
+        LwM2mResource resource = instance.getResource(resourceId);
+        if (resource != null && !resource.isMultiInstances() && resource.getValue() instanceof Long) {
+            return (Long) resource.getValue();
+        }
+        return null;
+    }
+
+    private Double readNumericalValue(LwM2mPath path) {
+        LwM2mObjectEnabler enabler = objectTree.getObjectEnabler(path.getObjectIdAsInt());
+        if (enabler == null || !(path.isResource() || path.isResourceInstance())) {
+            return null;
+        }
+        ReadResponse response = enabler.read(ServerIdentity.SYSTEM, new ReadRequest(null, path, null));
+        return response.isSuccess() ? toDouble(response.getContent()) : null;
+    }
+
+    private static Double toDouble(LwM2mNode node) {
+        Object value = null;
+        if (node instanceof LwM2mSingleResource) {
+            value = ((LwM2mSingleResource) node).getValue();
+        } else if (node instanceof LwM2mResourceInstance) {
+            value = ((LwM2mResourceInstance) node).getValue();
+        }
+        return value instanceof Number ? ((Number) value).doubleValue() : null;
+    }
+
+    protected long currentTime() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Notification task rejected, manager is probably destroyed", e);
+        }
+    }
+
+    private ScheduledFuture<?> schedule(Runnable task, long delayInMs) {
+        try {
+            return executor.schedule(task, delayInMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Notification task rejected, manager is probably destroyed", e);
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        objectTree.removedListener(treeListener);
+        synchronized (this) {
+            for (ObservationState observation : observations.values()) {
+                observation.cancel();
+            }
+            observations.clear();
+            observationsByPath.clear();
+            attributes.clear();
+            defaultPeriods.clear();
+        }
+        if (attachedExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private class NotificationTask implements Runnable {
+
+        private final ObservationState observation;
+
+        public NotificationTask(ObservationState observation) {
+            this.observation = observation;
+        }
+
+        @Override
+        public void run() {
+            sendNotification(observation);
+        }
+    }
+
+    private static class ObservationState {
+
+        private final ServerIdentity server;
+        private final LwM2mPath path;
+        private final NotificationSender sender;
+
+        // state of the last notification, guarded by the manager.
+        private long lastNotification;
+        private Double lastValue;
+        private ScheduledFuture<?> pendingNotification;
+        private ScheduledFuture<?> maxPeriodTask;
+
+        public ObservationState(ServerIdentity server, LwM2mPath path, NotificationSender sender) {
+            this.server = server;
+            this.path = path;
+            this.sender = sender;
+        }
+
+        public void cancelPendingNotification() {
+            if (pendingNotification != null) {
+                pendingNotification.cancel(false);
+                pendingNotification = null;
+            }
+        }
+
+        public void cancelMaxPeriodTask() {
+            if (maxPeriodTask != null) {
+                maxPeriodTask.cancel(false);
+                maxPeriodTask = null;
+            }
+        }
+
+        public void cancel() {
+            cancelPendingNotification();
+            cancelMaxPeriodTask();
+        }
+    }
+
+    private static class DefaultPeriods {
+
+        private static final DefaultPeriods NONE = new DefaultPeriods(null, null);
+
+        // periods in seconds, null if not defined
+        private final Long pmin;
+        private final Long pmax;
+
+        public DefaultPeriods(Long pmin, Long pmax) {
+            this.pmin = pmin;
+            this.pmax = pmax;
+        }
+    }
+
+    private static class NotificationAttributes {
+
+        // periods in milliseconds, 0 if not defined
+        private final long pmin;
+        private final long pmax;
+        private final Double gt;
+        private final Double lt;
+        private final Double st;
+
+        public NotificationAttributes(Long pmin, Long pmax, Double gt, Double lt, Double st) {
+            this.pmin = pmin == null ? 0 : TimeUnit.SECONDS.toMillis(pmin);
+            this.pmax = pmax == null ? 0 : TimeUnit.SECONDS.toMillis(pmax);
+            this.gt = gt;
+            this.lt = lt;
+            this.st = st;
+        }
+
+        public boolean hasValueConditions() {
+            return gt != null || lt != null || st != null;
+        }
+
+        public boolean valueConditionsSatisfied(Double lastValue, Double value) {
+            if (!hasValueConditions() || lastValue == null || value == null)
+                return true;
+            // value crossed "greater than" threshold
+            if (gt != null && (lastValue > gt) != (value > gt))
+                return true;
+            // value crossed "lesser than" threshold
+            if (lt != null && (lastValue < lt) != (value < lt))
+                return true;
+            // value moved of at least "step" since last notification
+            if (st != null && Math.abs(value - lastValue) >= st)
+                return true;
+            return false;
+        }
+    }
+}
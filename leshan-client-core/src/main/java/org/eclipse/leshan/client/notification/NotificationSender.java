@@ -0,0 +1,33 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+/**
+ * Sends a notification for a given observation.
+ * <p>
+ * An instance is created by the transport layer for each observation and registered to the
+ * {@link NotificationManager} which decides when a notification should be sent.
+ */
+public interface NotificationSender {
+
+    /**
+     * Send a new notification containing the current value of the observed node.
+     * <p>
+     * This method should not block. Once the notification is sent, {@link NotificationManager#notificationSent} is
+     * expected to be called.
+     */
+    void sendNotification();
+}
@@ -33,6 +33,8 @@ import org.eclipse.leshan.client.servers.ServerIdentity;
 import org.eclipse.leshan.client.util.LinkFormatHelper;
 import org.eclipse.leshan.core.Link;
 import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.attributes.AssignationLevel;
+import org.eclipse.leshan.core.attributes.Attribute;
 import org.eclipse.leshan.core.model.ObjectModel;
 import org.eclipse.leshan.core.model.ResourceModel;
 import org.eclipse.leshan.core.node.LwM2mObjectInstance;
@@ -68,6 +70,12 @@ import org.eclipse.leshan.core.response.WriteResponse;
 /**
  * A abstract implementation of {@link LwM2mObjectEnabler}. It could be use as base for any {@link LwM2mObjectEnabler}
  * implementation.
+ * <p>
+ * Operations which could modify the object (Create, Write, Delete, Execute) are synchronized on this enabler, so
+ * <code>doCreate</code>, <code>doWrite</code>, <code>doDelete</code> and <code>doExecute</code> are never called
+ * concurrently. Read, Observe, Discover and Write-Attributes are not synchronized : <code>doRead</code>,
+ * <code>doObserve</code>, <code>doDiscover</code> and <code>doWriteAttributes</code> can be called concurrently, with
+ * each other and with modifying operations.
  */
 public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
 
@@ -89,12 +97,12 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized int getId() {
+    public int getId() {
         return id;
     }
 
     @Override
-    public synchronized ObjectModel getObjectModel() {
+    public ObjectModel getObjectModel() {
         return objectModel;
     }
 
@@ -145,7 +153,7 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized ReadResponse read(ServerIdentity identity, ReadRequest request) {
+    public ReadResponse read(ServerIdentity identity, ReadRequest request) {
         LwM2mPath path = request.getPath();
 
         // read is not supported for bootstrap
@@ -362,19 +370,62 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized WriteAttributesResponse writeAttributes(ServerIdentity identity,
+    public WriteAttributesResponse writeAttributes(ServerIdentity identity,
             WriteAttributesRequest request) {
-        // execute is not supported for bootstrap
+        // write attributes is not supported for bootstrap
         if (identity.isLwm2mBootstrapServer()) {
             return WriteAttributesResponse.methodNotAllowed();
         }
-        // TODO should be implemented here to be available for all object enabler
-        // This should be a not implemented error, but this is not defined in the spec.
-        return WriteAttributesResponse.internalServerError("not implemented");
+
+        if (id == LwM2mId.SECURITY) {
+            return WriteAttributesResponse.notFound();
+        }
+
+        // check the target exists
+        LwM2mPath path = request.getPath();
+        AssignationLevel level;
+        if (path.isObject()) {
+            level = AssignationLevel.OBJECT;
+        } else if (path.isObjectInstance()) {
+            if (!getAvailableInstanceIds().contains(path.getObjectInstanceId()))
+                return WriteAttributesResponse.notFound();
+            level = AssignationLevel.INSTANCE;
+        } else if (path.isResource()) {
+            if (!getAvailableInstanceIds().contains(path.getObjectInstanceId()))
+                return WriteAttributesResponse.notFound();
+            if (!getAvailableResourceIds(path.getObjectInstanceId()).contains(path.getResourceId()))
+                return WriteAttributesResponse.notFound();
+            level = AssignationLevel.RESOURCE;
+        } else {
+            return WriteAttributesResponse.badRequest("write attributes is not supported on resource instance");
+        }
+
+        // check attributes can be written at this level
+        for (Attribute attribute : request.getAttributes().getAttributes()) {
+            if (!attribute.isWritable()) {
+                return WriteAttributesResponse
+                        .badRequest(String.format("Attribute '%s' is not writable", attribute.getCoRELinkParam()));
+            }
+        }
+        try {
+            request.getAttributes().validate(level);
+        } catch (IllegalArgumentException e) {
+            return WriteAttributesResponse.badRequest(e.getMessage());
+        }
+
+        return doWriteAttributes(identity, request);
+    }
+
+    /**
+     * Called when valid attributes are written on an existing node. Attributes are stored and applied by the
+     * transport layer, so by default this just accepts the request.
+     */
+    protected WriteAttributesResponse doWriteAttributes(ServerIdentity identity, WriteAttributesRequest request) {
+        return WriteAttributesResponse.success();
     }
 
     @Override
-    public synchronized DiscoverResponse discover(ServerIdentity identity, DiscoverRequest request) {
+    public DiscoverResponse discover(ServerIdentity identity, DiscoverRequest request) {
 
         if (identity.isLwm2mBootstrapServer()) {
             // discover is not supported for bootstrap
@@ -424,7 +475,7 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized BootstrapDiscoverResponse discover(ServerIdentity identity, BootstrapDiscoverRequest request) {
+    public BootstrapDiscoverResponse discover(ServerIdentity identity, BootstrapDiscoverRequest request) {
 
         if (!identity.isLwm2mBootstrapServer()) {
             return BootstrapDiscoverResponse.badRequest("not a bootstrap server");
@@ -445,7 +496,7 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized ObserveResponse observe(ServerIdentity identity, ObserveRequest request) {
+    public ObserveResponse observe(ServerIdentity identity, ObserveRequest request) {
         LwM2mPath path = request.getPath();
 
         // observe is not supported for bootstrap
@@ -502,12 +553,12 @@ public abstract class BaseObjectEnabler implements LwM2mObjectEnabler {
     }
 
     @Override
-    public synchronized void beginTransaction(byte level) {
+    public void beginTransaction(byte level) {
         transactionalListener.beginTransaction(level);
     }
 
     @Override
-    public synchronized void endTransaction(byte level) {
+    public void endTransaction(byte level) {
         transactionalListener.endTransaction(level);
     }
 
@@ -20,10 +20,11 @@ package org.eclipse.leshan.client.resource;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.eclipse.leshan.client.LwM2mClient;
 import org.eclipse.leshan.client.servers.ServerIdentity;
@@ -64,6 +65,9 @@ import org.eclipse.leshan.core.response.WriteResponse;
  * A specific implementation of {@link LwM2mObjectEnabler} which matchs each LWM2M instance concept to a
  * {@link LwM2mInstanceEnabler} java instance.
  * <p>
+ * Requests targeting different instances are handled concurrently, but calls to a {@link LwM2mInstanceEnabler} are
+ * serialized by a private lock of its instance id : an instance handles one request at a time.
+ * <p>
  * Implementing a {@link LwM2mInstanceEnabler} then creating an {@link ObjectEnabler} with {@link ObjectsInitializer} is
  * the easier way to implement LWM2M object in Leshan client.
  */
@@ -73,10 +77,13 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
     protected LwM2mInstanceEnablerFactory instanceFactory;
     protected ContentFormat defaultContentFormat;
 
+    // private locks by instance id, a lock is kept for each id ever used as instance ids are bounded
+    private final ConcurrentMap<Integer, Object> instanceLocks = new ConcurrentHashMap<>();
+
     public ObjectEnabler(int id, ObjectModel objectModel, Map<Integer, LwM2mInstanceEnabler> instances,
             LwM2mInstanceEnablerFactory instanceFactory, ContentFormat defaultContentFormat) {
         super(id, objectModel);
-        this.instances = new HashMap<>(instances);
+        this.instances = new ConcurrentHashMap<>(instances);
         this.instanceFactory = instanceFactory;
         this.defaultContentFormat = defaultContentFormat;
         for (Entry<Integer, LwM2mInstanceEnabler> entry : this.instances.entrySet()) {
@@ -86,17 +93,19 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
     }
 
     @Override
-    public synchronized List<Integer> getAvailableInstanceIds() {
+    public List<Integer> getAvailableInstanceIds() {
         List<Integer> ids = new ArrayList<>(instances.keySet());
         Collections.sort(ids);
         return ids;
     }
 
     @Override
-    public synchronized List<Integer> getAvailableResourceIds(int instanceId) {
+    public List<Integer> getAvailableResourceIds(int instanceId) {
         LwM2mInstanceEnabler instanceEnabler = instances.get(instanceId);
         if (instanceEnabler != null) {
-            return instanceEnabler.getAvailableResourceIds(getObjectModel());
+            synchronized (lockOf(instanceId)) {
+                return instanceEnabler.getAvailableResourceIds(getObjectModel());
+            }
         } else {
             return Collections.emptyList();
         }
@@ -108,7 +117,7 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         fireInstancesAdded(instanceId);
     }
 
-    public synchronized LwM2mInstanceEnabler getInstance(int instanceId) {
+    public LwM2mInstanceEnabler getInstance(int instanceId) {
         return instances.get(instanceId);
     }
 
@@ -199,8 +208,11 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         // Manage Object case
         if (path.isObject()) {
             List<LwM2mObjectInstance> lwM2mObjectInstances = new ArrayList<>();
-            for (LwM2mInstanceEnabler instance : instances.values()) {
-                ReadResponse response = instance.read(identity);
+            for (Entry<Integer, LwM2mInstanceEnabler> instance : instances.entrySet()) {
+                ReadResponse response;
+                synchronized (lockOf(instance.getKey())) {
+                    response = instance.getValue().read(identity);
+                }
                 if (response.isSuccess()) {
                     lwM2mObjectInstances.add((LwM2mObjectInstance) response.getContent());
                 }
@@ -213,17 +225,20 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         if (instance == null)
             return ReadResponse.notFound();
 
-        if (path.getResourceId() == null) {
-            return instance.read(identity);
-        }
+        // requests are handled concurrently, but an instance handles one request at a time.
+        synchronized (lockOf(path.getObjectInstanceIdAsInt())) {
+            if (path.getResourceId() == null) {
+                return instance.read(identity);
+            }
 
-        // Manage Resource case
-        if (path.getResourceInstanceId() == null) {
-            return instance.read(identity, path.getResourceId());
-        }
+            // Manage Resource case
+            if (path.getResourceInstanceId() == null) {
+                return instance.read(identity, path.getResourceIdAsInt());
+            }
 
-        // Manage Resource Instance case
-        return instance.read(identity, path.getResourceId(), path.getResourceInstanceId());
+            // Manage Resource Instance case
+            return instance.read(identity, path.getResourceIdAsInt(), path.getResourceInstanceIdAsInt());
+        }
     }
 
     @Override
@@ -241,8 +256,11 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         // Manage Object case
         if (path.isObject()) {
             List<LwM2mObjectInstance> lwM2mObjectInstances = new ArrayList<>();
-            for (LwM2mInstanceEnabler instance : instances.values()) {
-                ReadResponse response = instance.observe(identity);
+            for (Entry<Integer, LwM2mInstanceEnabler> instance : instances.entrySet()) {
+                ReadResponse response;
+                synchronized (lockOf(instance.getKey())) {
+                    response = instance.getValue().observe(identity);
+                }
                 if (response.isSuccess()) {
                     lwM2mObjectInstances.add((LwM2mObjectInstance) response.getContent());
                 }
@@ -255,12 +273,14 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         if (instance == null)
             return ObserveResponse.notFound();
 
-        if (path.getResourceId() == null) {
-            return instance.observe(identity);
-        }
+        synchronized (lockOf(path.getObjectInstanceIdAsInt())) {
+            if (path.getResourceId() == null) {
+                return instance.observe(identity);
+            }
 
-        // Manage Resource case
-        return instance.observe(identity, path.getResourceId());
+            // Manage Resource case
+            return instance.observe(identity, path.getResourceIdAsInt());
+        }
     }
 
     @Override
@@ -272,19 +292,21 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         if (instance == null)
             return WriteResponse.notFound();
 
-        if (path.isObjectInstance()) {
-            return instance.write(identity, request.isReplaceRequest(), (LwM2mObjectInstance) request.getNode());
-        }
+        synchronized (lockOf(path.getObjectInstanceIdAsInt())) {
+            if (path.isObjectInstance()) {
+                return instance.write(identity, request.isReplaceRequest(), (LwM2mObjectInstance) request.getNode());
+            }
 
-        // Manage Resource case
-        if (path.getResourceInstanceId() == null) {
-            return instance.write(identity, request.isReplaceRequest(), path.getResourceId(),
-                    (LwM2mResource) request.getNode());
-        }
+            // Manage Resource case
+            if (path.getResourceInstanceId() == null) {
+                return instance.write(identity, request.isReplaceRequest(), path.getResourceId(),
+                        (LwM2mResource) request.getNode());
+            }
 
-        // Manage Resource Instance case
-        return instance.write(identity, false, path.getResourceId(), path.getResourceInstanceId(),
-                ((LwM2mResourceInstance) request.getNode()));
+            // Manage Resource Instance case
+            return instance.write(identity, false, path.getResourceId(), path.getResourceInstanceId(),
+                    ((LwM2mResourceInstance) request.getNode()));
+        }
     }
 
     @Override
@@ -325,7 +347,9 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
             doCreate(identity, new CreateRequest(path.getObjectId(),
                     new LwM2mObjectInstance(path.getObjectInstanceId(), resource)));
         } else {
-            instanceEnabler.write(identity, true, path.getResourceId(), resource);
+            synchronized (lockOf(path.getObjectInstanceIdAsInt())) {
+                instanceEnabler.write(identity, true, path.getResourceId(), resource);
+            }
         }
         return BootstrapWriteResponse.success();
     }
@@ -337,14 +361,18 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         if (instance == null) {
             return ExecuteResponse.notFound();
         }
-        return instance.execute(identity, path.getResourceId(), request.getParameters());
+        synchronized (lockOf(path.getObjectInstanceIdAsInt())) {
+            return instance.execute(identity, path.getResourceIdAsInt(), request.getParameters());
+        }
     }
 
     @Override
     protected DeleteResponse doDelete(ServerIdentity identity, DeleteRequest request) {
         LwM2mInstanceEnabler deletedInstance = instances.remove(request.getPath().getObjectInstanceId());
         if (deletedInstance != null) {
-            deletedInstance.onDelete(identity);
+            synchronized (lockOf(request.getPath().getObjectInstanceIdAsInt())) {
+                deletedInstance.onDelete(identity);
+            }
             fireInstancesRemoved(deletedInstance.getId());
             return DeleteResponse.success();
         }
@@ -375,7 +403,6 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
                 fireInstancesRemoved(instanceIds);
                 return BootstrapDeleteResponse.success();
             } else {
-                instances.clear();
                 // fired instances removed
                 int[] instanceIds = new int[instances.size()];
                 int i = 0;
@@ -383,6 +410,7 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
                     instanceIds[i] = instance.getKey();
                     i++;
                 }
+                instances.clear();
                 fireInstancesRemoved(instanceIds);
 
                 return BootstrapDeleteResponse.success();
@@ -405,6 +433,17 @@ public class ObjectEnabler extends BaseObjectEnabler implements Destroyable, Sta
         return BootstrapDeleteResponse.badRequest(String.format("unexcepted path %s", request.getPath()));
     }
 
+    private Object lockOf(int instanceId) {
+        Object lock = instanceLocks.get(instanceId);
+        if (lock == null) {
+            lock = new Object();
+            Object previous = instanceLocks.putIfAbsent(instanceId, lock);
+            if (previous != null)
+                lock = previous;
+        }
+        return lock;
+    }
+
     protected void listenInstance(LwM2mInstanceEnabler instance, final int instanceId) {
         instance.addResourceChangedListener(new ResourceChangedListener() {
             @Override
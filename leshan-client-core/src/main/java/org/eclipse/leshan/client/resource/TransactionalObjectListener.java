@@ -19,6 +19,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.eclipse.leshan.client.resource.listener.ObjectListener;
 import org.slf4j.Logger;
@@ -28,7 +29,8 @@ import org.slf4j.LoggerFactory;
  * An {@link ObjectListener} which is able to store notification during transaction and raise all grouped event at the
  * end of the transaction.
  * <p>
- * This class is not threadsafe.
+ * This class is threadsafe : events raised by any thread during a transaction are stored, and events are fired to inner
+ * listeners without holding the lock of this listener.
  */
 public class TransactionalObjectListener implements ObjectListener {
 
@@ -40,7 +42,7 @@ public class TransactionalObjectListener implements ObjectListener {
     protected Map<Integer, List<Integer>> resourcesChangedByInstance = new HashMap<>();
 
     protected LwM2mObjectEnabler objectEnabler;
-    protected List<ObjectListener> innerListeners = new ArrayList<ObjectListener>();
+    protected List<ObjectListener> innerListeners = new CopyOnWriteArrayList<ObjectListener>();
 
     public TransactionalObjectListener(LwM2mObjectEnabler objectEnabler) {
         this.objectEnabler = objectEnabler;
@@ -62,7 +64,7 @@ public class TransactionalObjectListener implements ObjectListener {
      * 
      * @param level the transaction level, a not 0 positive integer.
      */
-    public void beginTransaction(byte level) {
+    public synchronized void beginTransaction(byte level) {
         if (level <= 0) {
             throw new IllegalArgumentException("level must be > 0.");
         }
@@ -79,24 +81,35 @@ public class TransactionalObjectListener implements ObjectListener {
     }
 
     public void endTransaction(byte level) {
-        if (currentLevel == level) {
-            try {
-                fireStoredEvents();
-            } catch (Exception e) {
-                LOG.warn("Exception raised when we fired Event about object {}", objectEnabler.getId(), e);
+        List<Integer> added;
+        List<Integer> removed;
+        Map<Integer, List<Integer>> changed;
+        synchronized (this) {
+            if (currentLevel != level) {
+                return;
             }
-            instancesAdded.clear();
-            instancesRemoved.clear();
-            resourcesChangedByInstance.clear();
+            added = instancesAdded;
+            removed = instancesRemoved;
+            changed = resourcesChangedByInstance;
+            instancesAdded = new ArrayList<>();
+            instancesRemoved = new ArrayList<>();
+            resourcesChangedByInstance = new HashMap<>();
             currentLevel = 0;
         }
+
+        try {
+            fireStoredEvents(added, removed, changed);
+        } catch (Exception e) {
+            LOG.warn("Exception raised when we fired Event about object {}", objectEnabler.getId(), e);
+        }
     }
 
-    protected boolean inTransaction() {
+    protected synchronized boolean inTransaction() {
         return currentLevel > 0;
     }
 
-    protected void fireStoredEvents() {
+    protected void fireStoredEvents(List<Integer> instancesAdded, List<Integer> instancesRemoved,
+            Map<Integer, List<Integer>> resourcesChangedByInstance) {
         if (!instancesAdded.isEmpty())
             fireObjectInstancesAdded(toIntArray(instancesAdded));
         if (!instancesRemoved.isEmpty())
@@ -109,50 +122,56 @@ public class TransactionalObjectListener implements ObjectListener {
 
     @Override
     public void objectInstancesAdded(LwM2mObjectEnabler object, int... instanceIds) {
-        if (!inTransaction()) {
-            fireObjectInstancesAdded(instanceIds);
-        } else {
-            // store additions
-            for (int instanceId : instanceIds) {
-                if (instancesRemoved.contains(instanceId)) {
-                    instancesRemoved.remove(instanceId);
-                } else if (!instancesAdded.contains(instanceId)) {
-                    instancesAdded.add(instanceId);
+        synchronized (this) {
+            if (inTransaction()) {
+                // store additions
+                for (int instanceId : instanceIds) {
+                    if (instancesRemoved.contains(instanceId)) {
+                        instancesRemoved.remove((Integer) instanceId);
+                    } else if (!instancesAdded.contains(instanceId)) {
+                        instancesAdded.add(instanceId);
+                    }
                 }
+                return;
             }
         }
+        fireObjectInstancesAdded(instanceIds);
     }
 
     @Override
     public void objectInstancesRemoved(LwM2mObjectEnabler object, int... instanceIds) {
-        if (!inTransaction()) {
-            fireObjectInstancesRemoved(instanceIds);
-        } else {
-            // store deletion
-            for (int instanceId : instanceIds) {
-                if (instancesAdded.contains(instanceId)) {
-                    instancesAdded.remove(instanceId);
-                } else if (!instancesRemoved.contains(instanceId)) {
-                    instancesRemoved.add(instanceId);
+        synchronized (this) {
+            if (inTransaction()) {
+                // store deletion
+                for (int instanceId : instanceIds) {
+                    if (instancesAdded.contains(instanceId)) {
+                        instancesAdded.remove((Integer) instanceId);
+                    } else if (!instancesRemoved.contains(instanceId)) {
+                        instancesRemoved.add(instanceId);
+                    }
                 }
+                return;
             }
         }
+        fireObjectInstancesRemoved(instanceIds);
     }
 
     @Override
     public void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourcesIds) {
-        if (!inTransaction()) {
-            fireResourcesChanged(instanceId, resourcesIds);
-        } else {
-            List<Integer> resourcesChanged = resourcesChangedByInstance.get(instanceId);
-            if (resourcesChanged == null) {
-                resourcesChanged = new ArrayList<Integer>();
-                resourcesChangedByInstance.put(instanceId, resourcesChanged);
-            }
-            for (int resourceId : resourcesIds) {
-                resourcesChanged.add(resourceId);
+        synchronized (this) {
+            if (inTransaction()) {
+                List<Integer> resourcesChanged = resourcesChangedByInstance.get(instanceId);
+                if (resourcesChanged == null) {
+                    resourcesChanged = new ArrayList<Integer>();
+                    resourcesChangedByInstance.put(instanceId, resourcesChanged);
+                }
+                for (int resourceId : resourcesIds) {
+                    resourcesChanged.add(resourceId);
+                }
+                return;
             }
         }
+        fireResourcesChanged(instanceId, resourcesIds);
     }
 
     protected int[] toIntArray(List<Integer> list) {
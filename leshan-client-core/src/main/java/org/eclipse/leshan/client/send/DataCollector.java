@@ -0,0 +1,591 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.LwM2mClient;
+import org.eclipse.leshan.client.observer.LwM2mClientObserver;
+import org.eclipse.leshan.client.observer.LwM2mClientObserverAdapter;
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.resource.RootEnabler;
+import org.eclipse.leshan.client.resource.listener.ObjectsListener;
+import org.eclipse.leshan.client.resource.listener.ObjectsListenerAdapter;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.ReadCompositeRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.RegisterRequest;
+import org.eclipse.leshan.core.request.UpdateRequest;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.ReadCompositeResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.SendResponse;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects time-stamped values of resources and sends them to a LWM2M server in batches with the "Send" operation.
+ * <p>
+ * Values are collected :
+ * <ul>
+ * <li>on demand with {@link #collect(List)} which reads the current values of the given paths,</li>
+ * <li>each time a watched resource changes (see {@link #watch(LwM2mPath...)}),</li>
+ * <li>or directly with {@link #record(LwM2mPath, LwM2mNode)}, e.g. for values which are not in the object tree.</li>
+ * </ul>
+ * Values are kept in a bounded ring buffer : when it is full, the oldest value is dropped. They are sent in one "Send"
+ * request :
+ * <ul>
+ * <li>when <code>flushSize</code> values are collected,</li>
+ * <li>when the oldest value is older than <code>maxAge</code>,</li>
+ * <li>when the client registers or updates its registration, so when the server is reachable again,</li>
+ * <li>or on demand with {@link #flush()}.</li>
+ * </ul>
+ * When values can not be sent or when the server answers with a server error (5.xx), they are kept for the next flush.
+ * Values rejected with a client error (4.xx) are dropped as sending them again would fail the same way. If a storage
+ * file is configured, values kept are also saved in it (encoded in SenML CBOR) and loaded back by the next collector
+ * created with the same file, so they survive a restart of the client.
+ * <p>
+ * Use {@link DataCollectorBuilder} to create a collector.
+ */
+public class DataCollector implements Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DataCollector.class);
+
+    private final LwM2mClient client;
+    private final ContentFormat format;
+    private final int flushSize;
+    private final long maxAgeInMs;
+    private final long timeoutInMs;
+    private final Long serverId;
+    private final File storage;
+    private final LwM2mEncoder encoder;
+    private final LwM2mDecoder decoder;
+    private final ScheduledExecutorService executor;
+    private final boolean attachedExecutor;
+
+    private final Set<LwM2mPath> watchedPaths = new CopyOnWriteArraySet<>();
+    // changed paths waiting to be read
+    private final Set<LwM2mPath> pendingReads = Collections.newSetFromMap(new ConcurrentHashMap<LwM2mPath, Boolean>());
+    private final ObjectsListener treeListener;
+    private final LwM2mClientObserver clientObserver;
+    private final Object storageLock = new Object();
+
+    // ring buffer of collected values, guarded by this.
+    private final CollectedValue[] buffer;
+    private int first;
+    private int count;
+    private boolean flushing;
+    private ScheduledFuture<?> ageFlushTask;
+
+    protected DataCollector(LwM2mClient client, ContentFormat format, int capacity, int flushSize, long maxAgeInMs,
+            long timeoutInMs, Long serverId, File storage, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            ScheduledExecutorService executor) {
+        Validate.notNull(client);
+        Validate.notNull(encoder);
+        Validate.notNull(decoder);
+        Validate.isTrue(capacity > 0, "capacity must be greater than 0");
+        Validate.isTrue(flushSize > 0, "flush size must be greater than 0");
+        this.client = client;
+        this.format = format;
+        this.flushSize = flushSize;
+        this.maxAgeInMs = maxAgeInMs;
+        this.timeoutInMs = timeoutInMs;
+        this.serverId = serverId;
+        this.storage = storage;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.buffer = new CollectedValue[capacity];
+        if (executor == null) {
+            this.executor = createScheduledExecutor();
+            this.attachedExecutor = true;
+        } else {
+            this.executor = executor;
+            this.attachedExecutor = false;
+        }
+
+        // values not sent by a previous collector
+        load();
+        synchronized (this) {
+            if (count > 0) {
+                scheduleAgeFlush();
+            }
+        }
+
+        treeListener = new ObjectsListenerAdapter() {
+            @Override
+            public void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourceIds) {
+                DataCollector.this.resourceChanged(object, instanceId, resourceIds);
+            }
+        };
+        client.getObjectTree().addListener(treeListener);
+
+        // server is reachable : send pending values
+        clientObserver = new LwM2mClientObserverAdapter() {
+            @Override
+            public void onRegistrationSuccess(ServerIdentity server, RegisterRequest request, String registrationID) {
+                executeFlush();
+            }
+
+            @Override
+            public void onUpdateSuccess(ServerIdentity server, UpdateRequest request) {
+                executeFlush();
+            }
+        };
+        client.addObserver(clientObserver);
+    }
+
+    protected ScheduledExecutorService createScheduledExecutor() {
+        return Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("DataCollector#%d"));
+    }
+
+    /**
+     * Record a value each time a resource matching one of the given paths changes. An object instance path matches all
+     * the resources of the instance.
+     */
+    public void watch(LwM2mPath... paths) {
+        for (LwM2mPath path : paths) {
+            Validate.isTrue(path.isObjectInstance() || path.isResource(),
+                    "only object instance or resource path can be watched");
+            watchedPaths.add(path);
+        }
+    }
+
+    /**
+     * Stop recording values of the given paths on change.
+     */
+    public void unwatch(LwM2mPath... paths) {
+        for (LwM2mPath path : paths) {
+            watchedPaths.remove(path);
+        }
+    }
+
+    /**
+     * Read the current values of the given paths and record them with the current time.
+     * 
+     * @throws NoDataException if no value can be read.
+     */
+    public void collect(List<String> paths) {
+        Validate.notEmpty(paths);
+        long timestamp = currentTimeInSeconds();
+
+        // format is not really used as this is an internal call, see LeshanClient
+        ContentFormat readFormat = ContentFormat.SENML_CBOR;
+        ReadCompositeResponse response = new RootEnabler(client.getObjectTree()).read(ServerIdentity.SYSTEM,
+                new ReadCompositeRequest(readFormat, readFormat, paths));
+        if (!response.isSuccess()) {
+            throw new NoDataException("Unable to collect data for %s : %s / %s", paths, response.getCode(),
+                    response.getErrorMessage());
+        }
+        List<CollectedValue> values = new ArrayList<>();
+        for (Entry<LwM2mPath, LwM2mNode> entry : response.getContent().entrySet()) {
+            if (entry.getValue() != null) {
+                values.add(new CollectedValue(timestamp, entry.getKey(), entry.getValue()));
+            }
+        }
+        if (values.isEmpty()) {
+            throw new NoDataException("No data collected for %s", paths);
+        }
+        add(values);
+    }
+
+    /**
+     * Record the value of a node with the current time.
+     */
+    public void record(LwM2mPath path, LwM2mNode node) {
+        record(currentTimeInSeconds(), path, node);
+    }
+
+    /**
+     * Record the value of a node at the given time.
+     * 
+     * @param timestamp the time of the value in seconds since Epoch.
+     */
+    public void record(long timestamp, LwM2mPath path, LwM2mNode node) {
+        Validate.notNull(path);
+        Validate.notNull(node);
+        List<CollectedValue> values = new ArrayList<>(1);
+        values.add(new CollectedValue(timestamp, path, node));
+        add(values);
+    }
+
+    /**
+     * @return the number of values waiting to be sent.
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Send all the collected values in one "Send" request to the registered server. Nothing is sent if there is no
+     * registered server or if a previous flush is still in progress.
+     */
+    public void flush() {
+        flush(true);
+    }
+
+    /**
+     * @param persistIfOffline true to save values in storage file if there is no registered server. This is not done
+     *        for flushes triggered by size to avoid to rewrite the file for each new value.
+     */
+    private void flush(boolean persistIfOffline) {
+        final List<CollectedValue> values;
+        final ServerIdentity server;
+        synchronized (this) {
+            if (flushing || count == 0) {
+                return;
+            }
+            server = getServer();
+            if (server == null) {
+                values = null;
+            } else {
+                values = drain();
+                flushing = true;
+                cancelAgeFlush();
+            }
+        }
+        if (values == null) {
+            LOG.debug("No registered server to send collected data, data is kept");
+            if (persistIfOffline) {
+                persist();
+            }
+            return;
+        }
+
+        try {
+            client.sendData(server, format, toNodes(values), timeoutInMs, new ResponseCallback<SendResponse>() {
+                @Override
+                public void onResponse(SendResponse response) {
+                    if (response.getCode().isServerError()) {
+                        // server could not handle data, it could be able to later
+                        LOG.debug("Unable to send collected data to {} : {} {}, data is kept", server,
+                                response.getCode(), response.getErrorMessage());
+                        flushed(values);
+                        return;
+                    }
+                    if (response.isFailure()) {
+                        LOG.warn("Collected data rejected by server {} : {} {}, data is dropped", server,
+                                response.getCode(), response.getErrorMessage());
+                    }
+                    flushed(null);
+                }
+            }, new ErrorCallback() {
+                @Override
+                public void onError(Exception e) {
+                    LOG.debug("Unable to send collected data to {}, data is kept", server, e);
+                    flushed(values);
+                }
+            });
+        } catch (RuntimeException e) {
+            LOG.warn("Unable to send collected data to {}, data is dropped", server, e);
+            flushed(null);
+        }
+    }
+
+    protected ServerIdentity getServer() {
+        for (ServerIdentity server : client.getRegisteredServers().values()) {
+            if (serverId == null || serverId.equals(server.getId())) {
+                return server;
+            }
+        }
+        return null;
+    }
+
+    protected long currentTimeInSeconds() {
+        return TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis());
+    }
+
+    private void flushed(List<CollectedValue> notSent) {
+        boolean flushAgain;
+        synchronized (this) {
+            flushing = false;
+            if (notSent != null) {
+                // values not sent are older than values collected meanwhile
+                List<CollectedValue> values = new ArrayList<>(notSent);
+                values.addAll(drain());
+                for (CollectedValue value : values) {
+                    insert(value);
+                }
+            }
+            flushAgain = notSent == null && count >= flushSize;
+            if (count > 0) {
+                scheduleAgeFlush();
+            }
+        }
+        if (notSent != null || storage != null && storage.exists()) {
+            persist();
+        }
+        if (flushAgain) {
+            executeFlush();
+        }
+    }
+
+    private void resourceChanged(LwM2mObjectEnabler object, int instanceId, int... resourceIds) {
+        if (watchedPaths.isEmpty()) {
+            return;
+        }
+        boolean instanceWatched = watchedPaths.contains(new LwM2mPath(object.getId(), instanceId));
+        for (int resourceId : resourceIds) {
+            final LwM2mPath path = new LwM2mPath(object.getId(), instanceId, resourceId);
+            // changes of a path already waiting to be read are coalesced, the read gets the latest value
+            if ((instanceWatched || watchedPaths.contains(path)) && pendingReads.add(path)) {
+                // value is read asynchronously as the thread of the change could hold the lock of an object enabler.
+                execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        // a change from now needs a new read
+                        pendingReads.remove(path);
+                        LwM2mObjectEnabler enabler = client.getObjectTree().getObjectEnabler(path.getObjectId());
+                        if (enabler != null) {
+                            // time-stamp of the value actually read
+                            long timestamp = currentTimeInSeconds();
+                            ReadResponse response = enabler.read(ServerIdentity.SYSTEM,
+                                    new ReadRequest(null, path, null));
+                            if (response.isSuccess()) {
+                                record(timestamp, path, response.getContent());
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    private void add(List<CollectedValue> values) {
+        boolean flushNow;
+        synchronized (this) {
+            for (CollectedValue value : values) {
+                insert(value);
+            }
+            flushNow = !flushing && count >= flushSize;
+            if (!flushNow && ageFlushTask == null) {
+                scheduleAgeFlush();
+            }
+        }
+        if (flushNow) {
+            executeFlush();
+        }
+    }
+
+    // must be called holding the lock
+    private void insert(CollectedValue value) {
+        if (count == buffer.length) {
+            LOG.debug("Collected data buffer is full, oldest value of {} is dropped", buffer[first].path);
+            buffer[first] = value;
+            first = (first + 1) % buffer.length;
+        } else {
+            buffer[(first + count) % buffer.length] = value;
+            count++;
+        }
+    }
+
+    // must be called holding the lock
+    private List<CollectedValue> snapshot() {
+        List<CollectedValue> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(buffer[(first + i) % buffer.length]);
+        }
+        return values;
+    }
+
+    // must be called holding the lock
+    private List<CollectedValue> drain() {
+        List<CollectedValue> values = snapshot();
+        for (int i = 0; i < count; i++) {
+            buffer[(first + i) % buffer.length] = null;
+        }
+        first = 0;
+        count = 0;
+        return values;
+    }
+
+    // must be called holding the lock
+    private void scheduleAgeFlush() {
+        if (ageFlushTask == null && maxAgeInMs > 0) {
+            try {
+                ageFlushTask = executor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (DataCollector.this) {
+                            ageFlushTask = null;
+                        }
+                        flush(true);
+                        // retry later if there was no server to flush
+                        synchronized (DataCollector.this) {
+                            if (!flushing && count > 0) {
+                                scheduleAgeFlush();
+                            }
+                        }
+                    }
+                }, maxAgeInMs, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                LOG.debug("Flush task rejected, collector is probably destroyed", e);
+            }
+        }
+    }
+
+    // must be called holding the lock
+    private void cancelAgeFlush() {
+        if (ageFlushTask != null) {
+            ageFlushTask.cancel(false);
+            ageFlushTask = null;
+        }
+    }
+
+    private void executeFlush() {
+        execute(new Runnable() {
+            @Override
+            public void run() {
+                flush(false);
+            }
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Task rejected, collector is probably destroyed", e);
+        }
+    }
+
+    private static TimestampedLwM2mNodes toNodes(List<CollectedValue> values) {
+        TimestampedLwM2mNodes.Builder builder = new TimestampedLwM2mNodes.Builder();
+        for (CollectedValue value : values) {
+            builder.put(value.timestamp, value.path, value.node);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Save values waiting to be sent in the storage file, or delete it if there is none.
+     */
+    private void persist() {
+        if (storage == null) {
+            return;
+        }
+        List<CollectedValue> values;
+        synchronized (this) {
+            values = snapshot();
+        }
+
+        synchronized (storageLock) {
+            if (values.isEmpty()) {
+                if (storage.exists() && !storage.delete()) {
+                    LOG.warn("Unable to delete collected data file {}", storage);
+                }
+                return;
+            }
+            File tmpFile = new File(storage.getPath() + ".tmp");
+            try {
+                byte[] content = encoder.encodeTimestampedNodes(toNodes(values), ContentFormat.SENML_CBOR,
+                        client.getObjectTree().getModel());
+                try (OutputStream out = new FileOutputStream(tmpFile)) {
+                    out.write(content);
+                }
+                if ((storage.exists() && !storage.delete()) || !tmpFile.renameTo(storage)) {
+                    LOG.warn("Unable to replace collected data file {}", storage);
+                }
+            } catch (IOException | CodecException e) {
+                LOG.warn("Unable to save collected data in {}", storage, e);
+            }
+        }
+    }
+
+    private void load() {
+        if (storage == null || !storage.exists()) {
+            return;
+        }
+        synchronized (storageLock) {
+            try (InputStream in = new FileInputStream(storage)) {
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                byte[] chunk = new byte[4096];
+                int read;
+                while ((read = in.read(chunk)) != -1) {
+                    content.write(chunk, 0, read);
+                }
+                decoder.decodeTimestampedData(content.toByteArray(), ContentFormat.SENML_CBOR, null,
+                        client.getObjectTree().getModel(), new TimestampedNodeHandler() {
+                            @Override
+                            public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                                synchronized (DataCollector.this) {
+                                    insert(new CollectedValue(node.getTimestamp(), path, node.getNode()));
+                                }
+                            }
+                        });
+                LOG.debug("{} collected values loaded from {}", size(), storage);
+            } catch (IOException | CodecException e) {
+                LOG.warn("Unable to load collected data from {}", storage, e);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        client.getObjectTree().removedListener(treeListener);
+        client.removeObserver(clientObserver);
+        synchronized (this) {
+            cancelAgeFlush();
+        }
+        persist();
+        if (attachedExecutor) {
+            executor.shutdownNow();
+        }
+    }
+
+    private static class CollectedValue {
+
+        private final Long timestamp;
+        private final LwM2mPath path;
+        private final LwM2mNode node;
+
+        public CollectedValue(Long timestamp, LwM2mPath path, LwM2mNode node) {
+            this.timestamp = timestamp;
+            this.path = path;
+            this.node = node;
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import java.io.File;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.leshan.client.LwM2mClient;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Helper class to build and configure a {@link DataCollector}.
+ */
+public class DataCollectorBuilder {
+
+    private final LwM2mClient client;
+    private ContentFormat format = ContentFormat.SENML_CBOR;
+    private int capacity = 1000;
+    private int flushSize = 100;
+    private long maxAgeInMs = 60000;
+    private long timeoutInMs = 10000;
+    private Long serverId;
+    private File storage;
+    private LwM2mEncoder encoder;
+    private LwM2mDecoder decoder;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param client the client used to read values and to send them.
+     */
+    public DataCollectorBuilder(LwM2mClient client) {
+        Validate.notNull(client);
+        this.client = client;
+    }
+
+    /**
+     * Set the {@link ContentFormat} used to send data, {@link ContentFormat#SENML_CBOR} by default.
+     */
+    public DataCollectorBuilder setFormat(ContentFormat format) {
+        this.format = format;
+        return this;
+    }
+
+    /**
+     * Set the maximum number of values kept in memory, 1000 by default. When it is reached, the oldest value is
+     * dropped.
+     */
+    public DataCollectorBuilder setCapacity(int capacity) {
+        this.capacity = capacity;
+        return this;
+    }
+
+    /**
+     * Set the number of values which triggers a "Send" request, 100 by default.
+     */
+    public DataCollectorBuilder setFlushSize(int flushSize) {
+        this.flushSize = flushSize;
+        return this;
+    }
+
+    /**
+     * Set the maximum time a value waits before to be sent, 60s by default. 0 means values are sent only when flush
+     * size is reached or when the client registers or updates its registration.
+     */
+    public DataCollectorBuilder setMaxAgeInMs(long maxAgeInMs) {
+        this.maxAgeInMs = maxAgeInMs;
+        return this;
+    }
+
+    /**
+     * Set the timeout of "Send" requests, 10s by default.
+     */
+    public DataCollectorBuilder setTimeoutInMs(long timeoutInMs) {
+        this.timeoutInMs = timeoutInMs;
+        return this;
+    }
+
+    /**
+     * Set the short server ID of the server to send data to. By default data is sent to the first registered server.
+     */
+    public DataCollectorBuilder setServerId(Long serverId) {
+        this.serverId = serverId;
+        return this;
+    }
+
+    /**
+     * Set the file used to save values which can not be sent, no file is used by default.
+     */
+    public DataCollectorBuilder setStorage(File storage) {
+        this.storage = storage;
+        return this;
+    }
+
+    /**
+     * Set the {@link LwM2mEncoder} used to save values in storage, {@link DefaultLwM2mEncoder} by default.
+     */
+    public DataCollectorBuilder setEncoder(LwM2mEncoder encoder) {
+        this.encoder = encoder;
+        return this;
+    }
+
+    /**
+     * Set the {@link LwM2mDecoder} used to load values from storage, {@link DefaultLwM2mDecoder} by default.
+     */
+    public DataCollectorBuilder setDecoder(LwM2mDecoder decoder) {
+        this.decoder = decoder;
+        return this;
+    }
+
+    /**
+     * Set the executor used to read changed values and to schedule flushes. If not set, a single thread executor is
+     * created and destroyed with the collector.
+     */
+    public DataCollectorBuilder setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    public DataCollector build() {
+        if (format == null || !(format.equals(ContentFormat.SENML_CBOR) || format.equals(ContentFormat.SENML_JSON))) {
+            throw new IllegalStateException("Content format MUST be SenML_CBOR or SenML_JSON but was " + format);
+        }
+        if (encoder == null)
+            encoder = new DefaultLwM2mEncoder();
+        if (decoder == null)
+            decoder = new DefaultLwM2mDecoder();
+
+        return createDataCollector(client, format, capacity, flushSize, maxAgeInMs, timeoutInMs, serverId, storage,
+                encoder, decoder, executor);
+    }
+
+    /**
+     * Create the <code>DataCollector</code>.
+     * <p>
+     * You can extend <code>DataCollectorBuilder</code> and override this method to create a new builder which will be
+     * able to build an extended <code>DataCollector</code>.
+     */
+    protected DataCollector createDataCollector(LwM2mClient client, ContentFormat format, int capacity, int flushSize,
+            long maxAgeInMs, long timeoutInMs, Long serverId, File storage, LwM2mEncoder encoder,
+            LwM2mDecoder decoder, ScheduledExecutorService executor) {
+        return new DataCollector(client, format, capacity, flushSize, maxAgeInMs, timeoutInMs, serverId, storage,
+                encoder, decoder, executor);
+    }
+}
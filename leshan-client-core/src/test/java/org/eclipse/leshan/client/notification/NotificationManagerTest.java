@@ -0,0 +1,256 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.notification;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.object.Server;
+import org.eclipse.leshan.client.resource.BaseInstanceEnabler;
+import org.eclipse.leshan.client.resource.LwM2mObjectTree;
+import org.eclipse.leshan.client.resource.ObjectsInitializer;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.attributes.AttributeSet;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NotificationManagerTest {
+
+    private static final int BATTERY_LEVEL = 9;
+    private static final LwM2mPath BATTERY_LEVEL_PATH = new LwM2mPath(LwM2mId.DEVICE, 0, BATTERY_LEVEL);
+
+    private final ServerIdentity server = new ServerIdentity(
+            Identity.unsecure(new InetSocketAddress("localhost", 5683)), 123l);
+    private TestDevice device;
+    private Server serverInstance;
+    private NotificationManager manager;
+
+    @Before
+    public void setup() {
+        device = new TestDevice();
+        serverInstance = new Server(123, 300);
+        ObjectsInitializer initializer = new ObjectsInitializer();
+        initializer.setInstancesForObject(LwM2mId.DEVICE, device);
+        initializer.setInstancesForObject(LwM2mId.SERVER, serverInstance);
+        manager = new NotificationManager(
+                new LwM2mObjectTree(null, initializer.create(LwM2mId.DEVICE, LwM2mId.SERVER)));
+    }
+
+    @After
+    public void destroy() {
+        manager.destroy();
+    }
+
+    @Test
+    public void notify_each_change_without_attributes() throws InterruptedException {
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+        device.setBatteryLevel(40);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void notify_changes_of_observed_instance() throws InterruptedException {
+        TestSender sender = observe(new LwM2mPath(LwM2mId.DEVICE, 0));
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void no_notification_for_changes_of_other_paths() throws InterruptedException {
+        TestSender resourceSender = observe(new LwM2mPath(LwM2mId.DEVICE, 0, 0));
+        TestSender instanceSender = observe(new LwM2mPath(LwM2mId.DEVICE, 1));
+        TestSender objectSender = observe(new LwM2mPath(LwM2mId.DEVICE));
+
+        device.setBatteryLevel(50);
+        assertTrue(objectSender.waitForNotification(1, TimeUnit.SECONDS));
+        assertTrue(resourceSender.noNotification(200, TimeUnit.MILLISECONDS));
+        assertTrue(instanceSender.noNotification(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void notify_changes_of_resource_for_observed_resource_instance() throws InterruptedException {
+        TestSender sender = observe(new LwM2mPath(LwM2mId.DEVICE, 0, BATTERY_LEVEL, 0));
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void coalesce_changes_until_minimum_period() throws InterruptedException {
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("pmin=1"));
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        device.setBatteryLevel(40);
+        device.setBatteryLevel(30);
+        assertTrue(sender.waitForNotification(2, TimeUnit.SECONDS));
+        assertEquals(30l, sender.lastValue);
+        assertTrue(sender.noNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void minimum_period_is_inherited_from_object() throws InterruptedException {
+        manager.writeAttributes(server, new LwM2mPath(LwM2mId.DEVICE), AttributeSet.parse("pmin=1"));
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.noNotification(500, TimeUnit.MILLISECONDS));
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void default_minimum_period_is_updated_when_server_object_changes() throws InterruptedException {
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+
+        serverInstance.write(ServerIdentity.SYSTEM, false, 2, LwM2mSingleResource.newIntegerResource(2, 1));
+        device.setBatteryLevel(40);
+        assertTrue(sender.noNotification(500, TimeUnit.MILLISECONDS));
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void notify_at_maximum_period_without_change() throws InterruptedException {
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("pmax=1"));
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        assertTrue(sender.noNotification(500, TimeUnit.MILLISECONDS));
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+        // next maximum period starts with the notification
+        assertTrue(sender.waitForNotification(2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void notify_only_changes_greater_than_step() throws InterruptedException {
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("st=10"));
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(95);
+        assertTrue(sender.noNotification(200, TimeUnit.MILLISECONDS));
+        device.setBatteryLevel(85);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+        assertEquals(85l, sender.lastValue);
+    }
+
+    @Test
+    public void notify_only_when_threshold_is_crossed() throws InterruptedException {
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("lt=20"));
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.noNotification(200, TimeUnit.MILLISECONDS));
+        device.setBatteryLevel(10);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+        device.setBatteryLevel(5);
+        assertTrue(sender.noNotification(200, TimeUnit.MILLISECONDS));
+        device.setBatteryLevel(30);
+        assertTrue(sender.waitForNotification(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void no_notification_after_observation_removed() throws InterruptedException {
+        TestSender sender = observe(BATTERY_LEVEL_PATH);
+        manager.removeObservation(sender);
+
+        device.setBatteryLevel(50);
+        assertTrue(sender.noNotification(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void attribute_without_value_is_removed() {
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("pmin=10", "pmax=60"));
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("pmin"));
+
+        AttributeSet attributes = manager.getAttributes(server, BATTERY_LEVEL_PATH);
+        assertNotNull(attributes);
+        assertEquals(AttributeSet.parse("pmax=60"), attributes);
+
+        manager.writeAttributes(server, BATTERY_LEVEL_PATH, AttributeSet.parse("pmax"));
+        assertNull(manager.getAttributes(server, BATTERY_LEVEL_PATH));
+    }
+
+    private TestSender observe(LwM2mPath path) {
+        TestSender sender = new TestSender(path);
+        // initial observe response
+        manager.notificationSent(server, path, LwM2mSingleResource.newIntegerResource(BATTERY_LEVEL,
+                device.batteryLevel), sender);
+        return sender;
+    }
+
+    private class TestSender implements NotificationSender {
+
+        private final LwM2mPath path;
+        private final Semaphore notifications = new Semaphore(0);
+        private volatile Object lastValue;
+
+        public TestSender(LwM2mPath path) {
+            this.path = path;
+        }
+
+        @Override
+        public void sendNotification() {
+            // as transport layer, read current value and report sent notification
+            lastValue = device.batteryLevel;
+            manager.notificationSent(server, path, LwM2mSingleResource.newIntegerResource(BATTERY_LEVEL,
+                    device.batteryLevel), this);
+            notifications.release();
+        }
+
+        public boolean waitForNotification(long timeout, TimeUnit unit) throws InterruptedException {
+            return notifications.tryAcquire(timeout, unit);
+        }
+
+        public boolean noNotification(long timeout, TimeUnit unit) throws InterruptedException {
+            return !notifications.tryAcquire(timeout, unit);
+        }
+    }
+
+    public static class TestDevice extends BaseInstanceEnabler {
+
+        private volatile long batteryLevel = 100;
+
+        public void setBatteryLevel(long batteryLevel) {
+            this.batteryLevel = batteryLevel;
+            fireResourcesChange(BATTERY_LEVEL);
+        }
+
+        @Override
+        public ReadResponse read(ServerIdentity identity, int resourceid) {
+            if (resourceid == BATTERY_LEVEL) {
+                return ReadResponse.success(resourceid, batteryLevel);
+            }
+            return super.read(identity, resourceid);
+        }
+    }
+}
@@ -0,0 +1,382 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.send;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.LwM2mClient;
+import org.eclipse.leshan.client.observer.LwM2mClientObserver;
+import org.eclipse.leshan.client.resource.BaseInstanceEnabler;
+import org.eclipse.leshan.client.resource.LwM2mObjectTree;
+import org.eclipse.leshan.client.resource.ObjectsInitializer;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.exception.SendFailedException;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.response.SendResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class DataCollectorTest {
+
+    private static final int BATTERY_LEVEL = 9;
+    private static final LwM2mPath BATTERY_LEVEL_PATH = new LwM2mPath(LwM2mId.DEVICE, 0, BATTERY_LEVEL);
+    private static final long T0 = 1_600_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private TestDevice device;
+    private TestClient client;
+    private DataCollector collector;
+
+    @Before
+    public void setup() {
+        device = new TestDevice();
+        ObjectsInitializer initializer = new ObjectsInitializer();
+        initializer.setInstancesForObject(LwM2mId.DEVICE, device);
+        client = new TestClient(new LwM2mObjectTree(null, initializer.create(LwM2mId.DEVICE)));
+    }
+
+    @After
+    public void destroy() {
+        if (collector != null) {
+            collector.destroy();
+        }
+    }
+
+    @Test
+    public void send_collected_values_when_flush_size_is_reached() throws InterruptedException {
+        client.register();
+        collector = new DataCollectorBuilder(client).setFlushSize(3).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.record(T0 + 10, BATTERY_LEVEL_PATH, battery(90));
+        assertNull(client.sent.poll(200, TimeUnit.MILLISECONDS));
+        collector.record(T0 + 20, BATTERY_LEVEL_PATH, battery(80));
+
+        TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertEquals(Arrays.asList(T0, T0 + 10, T0 + 20), Arrays.asList(sent.getTimestamps().toArray()));
+        assertEquals(battery(90), sent.getNodesAt(T0 + 10).get(BATTERY_LEVEL_PATH));
+        assertEquals(0, collector.size());
+    }
+
+    @Test
+    public void send_collected_values_when_oldest_value_is_too_old() throws InterruptedException {
+        client.register();
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(200).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertEquals(battery(100), sent.getNodesAt(T0).get(BATTERY_LEVEL_PATH));
+    }
+
+    @Test
+    public void send_collected_values_when_client_registers() throws InterruptedException {
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.flush();
+        assertNull(client.sent.poll(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, collector.size());
+
+        client.register();
+        assertNotNull(client.sent.poll(1, TimeUnit.SECONDS));
+        assertEquals(0, collector.size());
+    }
+
+    @Test
+    public void oldest_values_are_dropped_when_buffer_is_full() throws InterruptedException {
+        collector = new DataCollectorBuilder(client).setCapacity(2).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.record(T0 + 10, BATTERY_LEVEL_PATH, battery(90));
+        collector.record(T0 + 20, BATTERY_LEVEL_PATH, battery(80));
+        assertEquals(2, collector.size());
+
+        client.register();
+        TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertEquals(Arrays.asList(T0 + 10, T0 + 20), Arrays.asList(sent.getTimestamps().toArray()));
+    }
+
+    @Test
+    public void values_are_kept_when_send_fails() {
+        client.register();
+        client.failing = true;
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.flush();
+        assertEquals(1, collector.size());
+    }
+
+    @Test
+    public void values_are_kept_when_server_fails_to_handle_them() throws InterruptedException {
+        client.register();
+        client.response = SendResponse.internalServerError("database unavailable");
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.flush();
+        assertNotNull(client.sent.poll(1, TimeUnit.SECONDS));
+        assertEquals(1, collector.size());
+    }
+
+    @Test
+    public void values_are_dropped_when_server_rejects_them() throws InterruptedException {
+        client.register();
+        client.response = SendResponse.badRequest("invalid data");
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).build();
+
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.flush();
+        assertNotNull(client.sent.poll(1, TimeUnit.SECONDS));
+        assertEquals(0, collector.size());
+    }
+
+    @Test
+    public void values_are_saved_and_loaded_from_storage() throws InterruptedException {
+        File storage = new File(folder.getRoot(), "collected-data");
+        collector = new DataCollectorBuilder(client).setStorage(storage).setMaxAgeInMs(0).build();
+        collector.record(T0, BATTERY_LEVEL_PATH, battery(100));
+        collector.record(T0 + 10, BATTERY_LEVEL_PATH, battery(90));
+        collector.destroy();
+        assertTrue(storage.exists());
+
+        collector = new DataCollectorBuilder(client).setStorage(storage).setMaxAgeInMs(0).build();
+        assertEquals(2, collector.size());
+
+        client.register();
+        TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertEquals(battery(100), sent.getNodesAt(T0).get(BATTERY_LEVEL_PATH));
+        assertEquals(battery(90), sent.getNodesAt(T0 + 10).get(BATTERY_LEVEL_PATH));
+        assertFalse(storage.exists());
+    }
+
+    @Test
+    public void record_changes_of_watched_resources() throws InterruptedException {
+        client.register();
+        collector = new DataCollectorBuilder(client).setFlushSize(1).build();
+        collector.watch(BATTERY_LEVEL_PATH);
+
+        device.setBatteryLevel(50);
+        TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertEquals(battery(50), sent.getNodes().get(BATTERY_LEVEL_PATH));
+
+        collector.unwatch(BATTERY_LEVEL_PATH);
+        device.setBatteryLevel(40);
+        assertNull(client.sent.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void changes_waiting_to_be_read_are_coalesced() throws Exception {
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        try {
+            collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).setExecutor(executor).build();
+            collector.watch(BATTERY_LEVEL_PATH);
+
+            // changes while the collector executor is busy
+            final CountDownLatch busy = new CountDownLatch(1);
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        busy.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            device.setBatteryLevel(50);
+            device.setBatteryLevel(40);
+            device.setBatteryLevel(30);
+            busy.countDown();
+            executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                }
+            }).get(1, TimeUnit.SECONDS);
+
+            assertEquals(1, collector.size());
+            client.register();
+            TimestampedLwM2mNodes sent = client.sent.poll(1, TimeUnit.SECONDS);
+            assertNotNull(sent);
+            assertEquals(battery(30), sent.getNodes().get(BATTERY_LEVEL_PATH));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void collect_current_values() {
+        collector = new DataCollectorBuilder(client).setMaxAgeInMs(0).build();
+
+        collector.collect(Arrays.asList(BATTERY_LEVEL_PATH.toString()));
+        assertEquals(1, collector.size());
+    }
+
+    private static LwM2mSingleResource battery(long level) {
+        return LwM2mSingleResource.newIntegerResource(BATTERY_LEVEL, level);
+    }
+
+    private static class TestClient implements LwM2mClient {
+
+        private final LwM2mObjectTree objectTree;
+        private final Map<String, ServerIdentity> servers = new ConcurrentHashMap<>();
+        private final List<LwM2mClientObserver> observers = new CopyOnWriteArrayList<>();
+        private final BlockingQueue<TimestampedLwM2mNodes> sent = new LinkedBlockingQueue<>();
+        private volatile boolean failing;
+        private volatile SendResponse response = SendResponse.success();
+
+        public TestClient(LwM2mObjectTree objectTree) {
+            this.objectTree = objectTree;
+        }
+
+        public void register() {
+            ServerIdentity server = new ServerIdentity(Identity.unsecure(new InetSocketAddress("localhost", 5683)),
+                    123l);
+            servers.put("reg", server);
+            for (LwM2mClientObserver observer : observers) {
+                observer.onRegistrationSuccess(server, null, "reg");
+            }
+        }
+
+        @Override
+        public void sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data,
+                long timeoutInMs, ResponseCallback<SendResponse> responseCallback, ErrorCallback errorCallback) {
+            if (failing) {
+                errorCallback.onError(new SendFailedException("server unreachable"));
+            } else {
+                responseCallback.onResponse(response);
+                sent.add(data);
+            }
+        }
+
+        @Override
+        public SendResponse sendData(ServerIdentity server, ContentFormat format, TimestampedLwM2mNodes data,
+                long timeoutInMs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SendResponse sendData(ServerIdentity server, ContentFormat format, List<String> paths,
+                long timeoutInMs) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void sendData(ServerIdentity server, ContentFormat format, List<String> paths, long timeoutInMs,
+                ResponseCallback<SendResponse> responseCallback, ErrorCallback errorCallback) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public LwM2mObjectTree getObjectTree() {
+            return objectTree;
+        }
+
+        @Override
+        public Map<String, ServerIdentity> getRegisteredServers() {
+            return servers;
+        }
+
+        @Override
+        public void addObserver(LwM2mClientObserver observer) {
+            observers.add(observer);
+        }
+
+        @Override
+        public void removeObserver(LwM2mClientObserver observer) {
+            observers.remove(observer);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop(boolean deregister) {
+        }
+
+        @Override
+        public void destroy(boolean deregister) {
+        }
+
+        @Override
+        public void triggerRegistrationUpdate() {
+        }
+
+        @Override
+        public void triggerRegistrationUpdate(ServerIdentity server) {
+        }
+
+        @Override
+        public boolean triggerClientInitiatedBootstrap(boolean deregister) {
+            return false;
+        }
+    }
+
+    public static class TestDevice extends BaseInstanceEnabler {
+
+        private volatile long batteryLevel = 100;
+
+        public void setBatteryLevel(long batteryLevel) {
+            this.batteryLevel = batteryLevel;
+            fireResourcesChange(BATTERY_LEVEL);
+        }
+
+        @Override
+        public ReadResponse read(ServerIdentity identity, int resourceid) {
+            if (resourceid == BATTERY_LEVEL) {
+                return ReadResponse.success(resourceid, batteryLevel);
+            }
+            return super.read(identity, resourceid);
+        }
+    }
+}
@@ -17,9 +17,14 @@
  *******************************************************************************/
 package org.eclipse.leshan.client.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.Callable;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.eclipse.leshan.client.resource.BaseInstanceEnabler;
@@ -27,7 +32,10 @@ import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
 import org.eclipse.leshan.client.resource.ObjectsInitializer;
 import org.eclipse.leshan.client.servers.ServerIdentity;
 import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.ResponseCode;
 import org.eclipse.leshan.core.request.DeleteRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.response.ReadResponse;
 import org.junit.Test;
 
 public class ObjectEnablerTest {
@@ -43,10 +51,93 @@ public class ObjectEnablerTest {
         assertTrue("callback delete should have been called", instanceEnabler.waitForDelete(2, TimeUnit.SECONDS));
     }
 
+    @Test
+    public void slow_read_does_not_block_other_instances() throws Exception {
+        ObjectsInitializer initializer = new ObjectsInitializer();
+        SlowInstanceEnabler slowInstance = new SlowInstanceEnabler(0);
+        initializer.setInstancesForObject(LwM2mId.ACCESS_CONTROL, slowInstance, new TestInstanceEnabler(1));
+        final LwM2mObjectEnabler objectEnabler = initializer.create(LwM2mId.ACCESS_CONTROL);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // start a read of instance 0 which blocks until released
+            Future<ReadResponse> slowRead = executor.submit(new Callable<ReadResponse>() {
+                @Override
+                public ReadResponse call() throws Exception {
+                    return objectEnabler.read(ServerIdentity.SYSTEM, new ReadRequest(LwM2mId.ACCESS_CONTROL, 0));
+                }
+            });
+            assertTrue("slow read should have started", slowInstance.started.await(2, TimeUnit.SECONDS));
+
+            // instance 1 can be read meanwhile
+            ReadResponse response = objectEnabler.read(ServerIdentity.SYSTEM,
+                    new ReadRequest(LwM2mId.ACCESS_CONTROL, 1));
+            assertEquals(ResponseCode.CONTENT, response.getCode());
+
+            slowInstance.release.countDown();
+            assertEquals(ResponseCode.CONTENT, slowRead.get(2, TimeUnit.SECONDS).getCode());
+        } finally {
+            slowInstance.release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void requests_do_not_lock_instance_enabler() throws Exception {
+        ObjectsInitializer initializer = new ObjectsInitializer();
+        TestInstanceEnabler instanceEnabler = new TestInstanceEnabler(0);
+        initializer.setInstancesForObject(LwM2mId.ACCESS_CONTROL, instanceEnabler);
+        final LwM2mObjectEnabler objectEnabler = initializer.create(LwM2mId.ACCESS_CONTROL);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // an instance enabler implementation can use its own monitor without blocking requests
+            synchronized (instanceEnabler) {
+                Future<ReadResponse> read = executor.submit(new Callable<ReadResponse>() {
+                    @Override
+                    public ReadResponse call() throws Exception {
+                        return objectEnabler.read(ServerIdentity.SYSTEM, new ReadRequest(LwM2mId.ACCESS_CONTROL, 0));
+                    }
+                });
+                assertEquals(ResponseCode.CONTENT, read.get(2, TimeUnit.SECONDS).getCode());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public static class SlowInstanceEnabler extends BaseInstanceEnabler {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        public SlowInstanceEnabler(int id) {
+            super(id);
+        }
+
+        @Override
+        public ReadResponse read(ServerIdentity identity) {
+            started.countDown();
+            try {
+                release.await(2, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.read(identity);
+        }
+    }
+
     public static class TestInstanceEnabler extends BaseInstanceEnabler {
 
         CountDownLatch onDelete = new CountDownLatch(1);
 
+        public TestInstanceEnabler() {
+        }
+
+        public TestInstanceEnabler(int id) {
+            super(id);
+        }
+
         @Override
         public void onDelete(ServerIdentity identity) {
             onDelete.countDown();
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.io.IOException;
+import java.net.BindException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.core.util.Validate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Multiplexes the UDP sockets of all simulated clients over a few I/O threads.
+ * <p>
+ * An unsecured LWM2M client is identified by the server using its address, so each simulated client needs its own
+ * socket. Sockets are non blocking {@link DatagramChannel}s connected to the server and registered on one of the
+ * {@link Selector}s, each of them being handled by a single thread. Sockets are bound to the given local addresses in
+ * turn : as the number of ephemeral ports is limited for each address (about 28000 by default on Linux), several local
+ * addresses (e.g. 127.0.0.1, 127.0.0.2 ...) are needed to simulate more clients.
+ */
+public class DatagramMultiplexer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DatagramMultiplexer.class);
+
+    // big enough for any CoAP message without blockwise transfer
+    private static final int MAX_DATAGRAM_SIZE = 2048;
+
+    /**
+     * Receives datagrams of a socket, called from an I/O thread so it should not block.
+     */
+    public interface Receiver {
+        void receive(byte[] datagram);
+    }
+
+    private final IoThread[] ioThreads;
+    private final List<InetAddress> localAddresses;
+    private final SimulatorStats stats;
+    private final AtomicInteger nextThread = new AtomicInteger();
+    private volatile int currentAddress = 0;
+
+    public DatagramMultiplexer(int threadCount, List<InetAddress> localAddresses, SimulatorStats stats)
+            throws IOException {
+        Validate.isTrue(threadCount > 0, "thread count must be greater than 0");
+        Validate.isTrue(!localAddresses.isEmpty(), "at least one local address is needed");
+        this.localAddresses = new ArrayList<>(localAddresses);
+        this.stats = stats;
+        this.ioThreads = new IoThread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            ioThreads[i] = new IoThread("Simulator IO#" + i, Selector.open());
+        }
+    }
+
+    public void start() {
+        for (IoThread thread : ioThreads) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Open a new socket connected to the given peer.
+     *
+     * @param peer the address of the server.
+     * @param receiver the receiver of datagrams sent by the server.
+     * @return the opened channel
+     * @throws IOException if no socket could be bound on any of the local addresses.
+     */
+    public DatagramChannel open(InetSocketAddress peer, Receiver receiver) throws IOException {
+        DatagramChannel channel = bind();
+        try {
+            channel.configureBlocking(false);
+            channel.connect(peer);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        ioThreads[Math.abs(nextThread.getAndIncrement() % ioThreads.length)].register(channel, receiver);
+        return channel;
+    }
+
+    private DatagramChannel bind() throws IOException {
+        // try the current local address, then the next ones when no more port is available.
+        int first = currentAddress;
+        for (int i = 0; i < localAddresses.size(); i++) {
+            int index = (first + i) % localAddresses.size();
+            DatagramChannel channel = DatagramChannel.open();
+            try {
+                channel.socket().bind(new InetSocketAddress(localAddresses.get(index), 0));
+                currentAddress = index;
+                return channel;
+            } catch (BindException e) {
+                channel.close();
+                LOG.debug("Unable to bind a socket on {}", localAddresses.get(index), e);
+            }
+        }
+        throw new BindException("No port available on local addresses " + localAddresses);
+    }
+
+    /**
+     * Send a datagram without blocking.
+     *
+     * @return false if the datagram was dropped.
+     */
+    public boolean send(DatagramChannel channel, byte[] datagram) {
+        try {
+            if (channel.write(ByteBuffer.wrap(datagram)) > 0) {
+                return true;
+            }
+        } catch (ClosedChannelException e) {
+            // client is stopped
+        } catch (IOException e) {
+            LOG.debug("Unable to send datagram from {}", channel.socket().getLocalSocketAddress(), e);
+        }
+        stats.droppedDatagram();
+        return false;
+    }
+
+    public void close(DatagramChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOG.debug("Unable to close socket", e);
+        }
+    }
+
+    public void stop() throws InterruptedException {
+        for (IoThread thread : ioThreads) {
+            thread.interrupt();
+            thread.selector.wakeup();
+        }
+        for (IoThread thread : ioThreads) {
+            thread.join();
+            try {
+                thread.selector.close();
+            } catch (IOException e) {
+                LOG.debug("Unable to close selector", e);
+            }
+        }
+    }
+
+    private class IoThread extends Thread {
+
+        private final Selector selector;
+        // channels can only be registered from the selector thread without blocking
+        private final Queue<Registration> registrations = new ConcurrentLinkedQueue<>();
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_DATAGRAM_SIZE);
+
+        public IoThread(String name, Selector selector) {
+            super(name);
+            this.selector = selector;
+        }
+
+        public void register(DatagramChannel channel, Receiver receiver) {
+            registrations.add(new Registration(channel, receiver));
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            while (!isInterrupted()) {
+                try {
+                    selector.select();
+                    Registration registration;
+                    while ((registration = registrations.poll()) != null) {
+                        try {
+                            registration.channel.register(selector, SelectionKey.OP_READ, registration.receiver);
+                        } catch (ClosedChannelException e) {
+                            // client already stopped
+                        }
+                    }
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        if (key.isValid() && key.isReadable()) {
+                            read((DatagramChannel) key.channel(), (Receiver) key.attachment());
+                        }
+                    }
+                } catch (IOException e) {
+                    LOG.error("Unexpected I/O error in {}", getName(), e);
+                }
+            }
+        }
+
+        private void read(DatagramChannel channel, Receiver receiver) {
+            try {
+                while (true) {
+                    buffer.clear();
+                    if (channel.read(buffer) <= 0) {
+                        return;
+                    }
+                    buffer.flip();
+                    byte[] datagram = new byte[buffer.remaining()];
+                    buffer.get(datagram);
+                    receiver.receive(datagram);
+                }
+            } catch (IOException e) {
+                // e.g. ICMP port unreachable when the server is not started
+                LOG.debug("Unable to read datagram on {}", channel.socket().getLocalSocketAddress(), e);
+            }
+        }
+    }
+
+    private static class Registration {
+        private final DatagramChannel channel;
+        private final Receiver receiver;
+
+        public Registration(DatagramChannel channel, Receiver receiver) {
+            this.channel = channel;
+            this.receiver = receiver;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toCoapResponseCode;
+
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
+import org.eclipse.californium.core.coap.MediaTypeRegistry;
+import org.eclipse.californium.core.coap.OptionSet;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.DiscoverRequest;
+import org.eclipse.leshan.core.request.ExecuteRequest;
+import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.request.WriteRequest.Mode;
+import org.eclipse.leshan.core.request.exception.InvalidRequestException;
+import org.eclipse.leshan.core.response.DiscoverResponse;
+import org.eclipse.leshan.core.response.ExecuteResponse;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.WriteResponse;
+
+/**
+ * Handles the requests sent by the server to a simulated client.
+ * <p>
+ * This is a stripped down version of the client object resources without any CoAP stack : read, observe, discover,
+ * write and execute are supported, write attributes are accepted but ignored, create and delete are not allowed. A
+ * single instance is shared by all simulated clients.
+ */
+public class DownlinkRequestHandler {
+
+    private final ServerIdentity server;
+    private final LwM2mEncoder encoder;
+    private final LwM2mDecoder decoder;
+    private final LwM2mModel model;
+
+    public DownlinkRequestHandler(ServerIdentity server, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            LwM2mModel model) {
+        this.server = server;
+        this.encoder = encoder;
+        this.decoder = decoder;
+        this.model = model;
+    }
+
+    /**
+     * Handle a request sent by the server.
+     *
+     * @return the response to send, type, MID and token are not set.
+     */
+    public Response handle(VirtualClient client, Request coapRequest) {
+        OptionSet options = coapRequest.getOptions();
+        String uri = options.getUriPathString();
+        try {
+            LwM2mPath path = LwM2mPath.valueOf(uri);
+            if (path.isRoot()) {
+                return errorResponse(ResponseCode.NOT_FOUND, null);
+            }
+            LwM2mObjectEnabler enabler = client.getObjectEnabler(path.getObjectId());
+            if (enabler == null) {
+                return errorResponse(ResponseCode.NOT_FOUND, null);
+            }
+
+            switch (coapRequest.getCode()) {
+            case GET:
+                return handleGet(client, enabler, coapRequest, path);
+            case PUT:
+                if (options.getURIQueryCount() != 0) {
+                    // write attributes, notifications are sent at the simulator pace anyway
+                    return new Response(ResponseCode.CHANGED);
+                }
+                return handleWrite(enabler, coapRequest, path, Mode.REPLACE);
+            case POST:
+                if (path.isResource()) {
+                    byte[] payload = coapRequest.getPayload();
+                    ExecuteResponse response = enabler.execute(server,
+                            new ExecuteRequest(uri, payload.length != 0 ? new String(payload) : null, coapRequest));
+                    return emptyResponse(response);
+                } else if (path.isObjectInstance()) {
+                    return handleWrite(enabler, coapRequest, path, Mode.UPDATE);
+                }
+                return errorResponse(ResponseCode.METHOD_NOT_ALLOWED, null);
+            default:
+                return errorResponse(ResponseCode.METHOD_NOT_ALLOWED, null);
+            }
+        } catch (InvalidRequestException | IllegalArgumentException e) {
+            return errorResponse(ResponseCode.BAD_REQUEST, e.getMessage());
+        } catch (CodecException e) {
+            return errorResponse(ResponseCode.BAD_REQUEST, "Unable to decode payload: " + e.getMessage());
+        }
+    }
+
+    private Response handleGet(VirtualClient client, LwM2mObjectEnabler enabler, Request coapRequest,
+            LwM2mPath path) {
+        OptionSet options = coapRequest.getOptions();
+        String uri = path.toString();
+
+        // discover
+        if (options.getAccept() == MediaTypeRegistry.APPLICATION_LINK_FORMAT) {
+            DiscoverResponse response = enabler.discover(server, new DiscoverRequest(uri, coapRequest));
+            if (response.isFailure()) {
+                return errorResponse(response);
+            }
+            Response coapResponse = new Response(toCoapResponseCode(response.getCode()));
+            coapResponse.setPayload(Link.serialize(response.getObjectLinks()));
+            coapResponse.getOptions().setContentFormat(MediaTypeRegistry.APPLICATION_LINK_FORMAT);
+            return coapResponse;
+        }
+
+        ContentFormat format = null;
+        if (options.hasAccept()) {
+            format = ContentFormat.fromCode(options.getAccept());
+            if (!encoder.isSupported(format)) {
+                return errorResponse(ResponseCode.NOT_ACCEPTABLE, null);
+            }
+        }
+
+        // observe
+        if (options.hasObserve() && options.getObserve() == 0) {
+            ObserveRequest request = new ObserveRequest(format, uri, coapRequest);
+            ObserveResponse response = enabler.observe(server, request);
+            if (response.isFailure()) {
+                return errorResponse(response);
+            }
+            format = format != null ? format : enabler.getDefaultEncodingFormat(request);
+            Response coapResponse = contentResponse(response.getContent(), format, path);
+            coapResponse.getOptions().setObserve(client.addObservation(coapRequest.getTokenBytes(), path, format));
+            return coapResponse;
+        }
+        if (options.hasObserve()) {
+            // observe cancellation, answered as a read
+            client.removeObservation(coapRequest.getTokenBytes());
+        }
+
+        // read
+        ReadRequest request = new ReadRequest(format, uri, coapRequest);
+        ReadResponse response = enabler.read(server, request);
+        if (response.isFailure()) {
+            return errorResponse(response);
+        }
+        return contentResponse(response.getContent(), format != null ? format
+                : enabler.getDefaultEncodingFormat(request), path);
+    }
+
+    private Response handleWrite(LwM2mObjectEnabler enabler, Request coapRequest, LwM2mPath path, Mode mode) {
+        OptionSet options = coapRequest.getOptions();
+        if (!options.hasContentFormat()) {
+            return errorResponse(ResponseCode.BAD_REQUEST, "Content Format is mandatory");
+        }
+        ContentFormat format = ContentFormat.fromCode(options.getContentFormat());
+        if (!decoder.isSupported(format)) {
+            return errorResponse(ResponseCode.UNSUPPORTED_CONTENT_FORMAT, null);
+        }
+        LwM2mNode node = decoder.decode(coapRequest.getPayload(), format, path, model);
+        WriteResponse response = enabler.write(server,
+                new WriteRequest(mode, format, path.toString(), node, coapRequest));
+        return emptyResponse(response);
+    }
+
+    /**
+     * Read the current value of an observed node and create the matching notification.
+     *
+     * @return the notification to send, type, MID, token and observe option are not set.
+     */
+    public Response notification(VirtualClient client, LwM2mPath path, ContentFormat format) {
+        LwM2mObjectEnabler enabler = client.getObjectEnabler(path.getObjectId());
+        ObserveResponse response = enabler.observe(server, new ObserveRequest(format, path.toString()));
+        if (response.isFailure()) {
+            return errorResponse(response);
+        }
+        return contentResponse(response.getContent(), format, path);
+    }
+
+    private Response contentResponse(LwM2mNode content, ContentFormat format, LwM2mPath path) {
+        Response coapResponse = new Response(ResponseCode.CONTENT);
+        coapResponse.setPayload(encoder.encode(content, format, path, model));
+        coapResponse.getOptions().setContentFormat(format.getCode());
+        return coapResponse;
+    }
+
+    private Response emptyResponse(LwM2mResponse response) {
+        if (response.isFailure()) {
+            return errorResponse(response);
+        }
+        return new Response(toCoapResponseCode(response.getCode()));
+    }
+
+    private Response errorResponse(LwM2mResponse response) {
+        return errorResponse(toCoapResponseCode(response.getCode()), response.getErrorMessage());
+    }
+
+    private Response errorResponse(ResponseCode code, String message) {
+        Response coapResponse = new Response(code);
+        if (message != null) {
+            coapResponse.setPayload(message);
+            coapResponse.getOptions().setContentFormat(MediaTypeRegistry.TEXT_PLAIN);
+        }
+        return coapResponse;
+    }
+}
@@ -0,0 +1,318 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.DefaultParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Option.Builder;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.eclipse.leshan.core.LwM2m;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.server.californium.LeshanServer;
+import org.eclipse.leshan.server.californium.LeshanServerBuilder;
+import org.eclipse.leshan.server.model.VersionedModelProvider;
+import org.eclipse.leshan.server.observation.ObservationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationListener;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.send.SendListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Command line tool running a {@link Simulator} against a LWM2M server and reporting latencies of each operation.
+ * <p>
+ * When no server URL is given, a local Leshan server is started in the same JVM. This local server observes a resource
+ * of each registered client so notifications are part of the load.
+ */
+public class LeshanClientSimulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LeshanClientSimulator.class);
+
+    private static final String USAGE = "java -jar leshan-client-simulator.jar [OPTION]\n\n";
+    private static final String DEFAULT_OBSERVED_PATH = "/3303/0/5700";
+
+    // counters of the local server
+    private static final AtomicLong serverNotifications = new AtomicLong();
+    private static final AtomicLong serverSentData = new AtomicLong();
+
+    public static void main(String[] args) {
+        Options options = new Options();
+
+        final StringBuilder localAddressChapter = new StringBuilder();
+        localAddressChapter.append("\n Each simulated client uses its own socket and a local address provides about");
+        localAddressChapter.append("\n 28000 ports (see /proc/sys/net/ipv4/ip_local_port_range on Linux). To simulate");
+        localAddressChapter.append("\n 100000 clients against a local server, use several loopback addresses:");
+        localAddressChapter.append("\n -lh 127.0.0.1 127.0.0.2 127.0.0.3 127.0.0.4");
+        localAddressChapter.append("\n The limit of open files (ulimit -n) must be raised accordingly.");
+        localAddressChapter.append("\n Default: the loopback address.");
+
+        options.addOption("h", "help", false, "Display help information.");
+        options.addOption("u", true,
+                "Set the LWM2M server URL (host:port).\n Default: a local server is started on the loopback address.");
+        options.addOption("n", true, "The number of simulated clients.\n Default: 1000.");
+        options.addOption("ep", true, "The prefix of endpoint names.\n Default: simulator-");
+        options.addOption("l", true, "The registration lifetime in seconds.\n Default: 300s.");
+        options.addOption("r", true, "The number of registrations (and deregistrations) by second.\n Default: 100.");
+        options.addOption("up", true, "The period of registration updates in seconds, 0 to disable.\n Default: 60s.");
+        options.addOption("np", true, "The period of notifications in seconds, 0 to disable.\n Default: 10s.");
+        options.addOption("sp", true, "The period of send operations in seconds, 0 to disable.\n Default: 60s.");
+        options.addOption("d", true,
+                "The duration of the simulation in seconds, 0 to run until the process is stopped.\n Default: 60s.");
+        options.addOption("rp", true, "The period of reports in seconds.\n Default: 10s.");
+        options.addOption("io", true, "The number of threads handling sockets.\n Default: 2.");
+        options.addOption("w", true, "The number of threads handling messages and periodic tasks.\n"
+                + " Default: the number of processors.");
+        Builder lh = Option.builder("lh");
+        lh.desc("The local addresses of client sockets." + localAddressChapter);
+        lh.hasArgs();
+        options.addOption(lh.build());
+        Builder obs = Option.builder("obs");
+        obs.desc(String.format(
+                "The paths observed by the local server on each registration, ignored if -u is used.\n Default: %s",
+                DEFAULT_OBSERVED_PATH));
+        obs.hasArgs();
+        options.addOption(obs.build());
+
+        HelpFormatter formatter = new HelpFormatter();
+        formatter.setWidth(120);
+        formatter.setOptionComparator(null);
+
+        // Parse arguments
+        CommandLine cl;
+        try {
+            cl = new DefaultParser().parse(options, args);
+        } catch (ParseException e) {
+            System.err.println("Parsing failed.  Reason: " + e.getMessage());
+            formatter.printHelp(USAGE, options);
+            return;
+        }
+
+        // Print help
+        if (cl.hasOption("help")) {
+            formatter.printHelp(USAGE, options);
+            return;
+        }
+
+        // Abort if unexpected options
+        if (cl.getArgs().length > 0) {
+            System.err.println("Unexpected option or arguments : " + cl.getArgList());
+            formatter.printHelp(USAGE, options);
+            return;
+        }
+
+        try {
+            SimulatorBuilder builder = new SimulatorBuilder();
+            if (cl.hasOption("n"))
+                builder.setClientCount(Integer.parseInt(cl.getOptionValue("n")));
+            if (cl.hasOption("ep"))
+                builder.setEndpointPrefix(cl.getOptionValue("ep"));
+            if (cl.hasOption("l"))
+                builder.setLifetime(Long.parseLong(cl.getOptionValue("l")));
+            if (cl.hasOption("r"))
+                builder.setRegisterRate(Integer.parseInt(cl.getOptionValue("r")));
+            if (cl.hasOption("up"))
+                builder.setUpdatePeriod(Long.parseLong(cl.getOptionValue("up")));
+            if (cl.hasOption("np"))
+                builder.setNotifyPeriod(Long.parseLong(cl.getOptionValue("np")));
+            if (cl.hasOption("sp"))
+                builder.setSendPeriod(Long.parseLong(cl.getOptionValue("sp")));
+            if (cl.hasOption("io"))
+                builder.setIoThreads(Integer.parseInt(cl.getOptionValue("io")));
+            if (cl.hasOption("w")) {
+                ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+                        Integer.parseInt(cl.getOptionValue("w")), new NamedThreadFactory("Simulator worker#%d"));
+                executor.setRemoveOnCancelPolicy(true);
+                builder.setExecutor(executor);
+            }
+            if (cl.hasOption("lh")) {
+                List<InetAddress> localAddresses = new ArrayList<>();
+                for (String address : cl.getOptionValues("lh")) {
+                    localAddresses.add(InetAddress.getByName(address));
+                }
+                builder.setLocalAddresses(localAddresses);
+            }
+            long duration = cl.hasOption("d") ? Long.parseLong(cl.getOptionValue("d")) : 60;
+            long reportPeriod = cl.hasOption("rp") ? Long.parseLong(cl.getOptionValue("rp")) : 10;
+
+            // server
+            LeshanServer localServer = null;
+            if (cl.hasOption("u")) {
+                String url = cl.getOptionValue("u");
+                int separator = url.lastIndexOf(':');
+                if (separator < 0) {
+                    builder.setServerAddress(new InetSocketAddress(url, LwM2m.DEFAULT_COAP_PORT));
+                } else {
+                    builder.setServerAddress(new InetSocketAddress(url.substring(0, separator),
+                            Integer.parseInt(url.substring(separator + 1))));
+                }
+            } else {
+                String[] observedPaths = cl.hasOption("obs") ? cl.getOptionValues("obs")
+                        : new String[] { DEFAULT_OBSERVED_PATH };
+                localServer = createLocalServer(observedPaths);
+                localServer.start();
+                builder.setServerAddress(localServer.getUnsecuredAddress());
+            }
+
+            run(builder.build(), localServer, duration, reportPeriod);
+        } catch (Exception e) {
+            System.err.println("Unable to run simulation: " + e.getMessage());
+            LOG.error("Unable to run simulation", e);
+            System.exit(-1);
+        }
+    }
+
+    private static void run(final Simulator simulator, final LeshanServer localServer, long duration,
+            long reportPeriod) throws InterruptedException {
+        final CountDownLatch done = new CountDownLatch(1);
+        final CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread() {
+            @Override
+            public void run() {
+                // deregister clients on Ctrl-C
+                done.countDown();
+                try {
+                    stopped.await(2, TimeUnit.MINUTES);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        ScheduledExecutorService reporter = new ScheduledThreadPoolExecutor(1,
+                new NamedThreadFactory("Simulator report"));
+        reporter.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                report(simulator);
+            }
+        }, reportPeriod, reportPeriod, TimeUnit.SECONDS);
+
+        simulator.start();
+        if (duration > 0) {
+            done.await(duration, TimeUnit.SECONDS);
+        } else {
+            done.await();
+        }
+
+        System.out.println("Stopping simulation...");
+        if (!simulator.stop(2, TimeUnit.MINUTES)) {
+            System.out.println("Some clients are still not deregistered.");
+        }
+        reporter.shutdownNow();
+        report(simulator);
+        simulator.destroy();
+        if (localServer != null) {
+            localServer.destroy();
+        }
+        stopped.countDown();
+    }
+
+    private static void report(Simulator simulator) {
+        simulator.getStats().print(System.out);
+        System.out.println(String.format("local server received %d notifications and %d sent data",
+                serverNotifications.get(), serverSentData.get()));
+        System.out.println();
+    }
+
+    static LeshanServer createLocalServer(final String[] observedPaths) throws Exception {
+        List<ObjectModel> models = new ArrayList<>(ObjectLoader.loadDefault());
+        models.addAll(ObjectLoader.loadDdfResources("/models/", new String[] { "3303.xml" }));
+
+        LeshanServerBuilder builder = new LeshanServerBuilder();
+        builder.setLocalAddress(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        builder.disableSecuredEndpoint();
+        builder.setObjectModelProvider(new VersionedModelProvider(models));
+        final LeshanServer server = builder.build();
+
+        server.getRegistrationService().addListener(new RegistrationListener() {
+            @Override
+            public void registered(Registration registration, Registration previousReg,
+                    Collection<Observation> previousObservations) {
+                for (String path : observedPaths) {
+                    server.send(registration, new ObserveRequest(path), new ResponseCallback<ObserveResponse>() {
+                        @Override
+                        public void onResponse(ObserveResponse response) {
+                        }
+                    }, new ErrorCallback() {
+                        @Override
+                        public void onError(Exception e) {
+                            LOG.debug("Unable to observe client", e);
+                        }
+                    });
+                }
+            }
+
+            @Override
+            public void updated(RegistrationUpdate update, Registration updatedReg, Registration previousReg) {
+            }
+
+            @Override
+            public void unregistered(Registration registration, Collection<Observation> observations,
+                    boolean expired, Registration newReg) {
+            }
+        });
+        server.getObservationService().addListener(new ObservationListener() {
+            @Override
+            public void newObservation(Observation observation, Registration registration) {
+            }
+
+            @Override
+            public void cancelled(Observation observation) {
+            }
+
+            @Override
+            public void onResponse(Observation observation, Registration registration, ObserveResponse response) {
+                serverNotifications.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Observation observation, Registration registration, Exception error) {
+            }
+        });
+        server.getSendService().addListener(new SendListener() {
+            @Override
+            public void dataReceived(Registration registration, Map<String, LwM2mNode> data, SendRequest request) {
+                serverSentData.incrementAndGet();
+            }
+        });
+        return server;
+    }
+}
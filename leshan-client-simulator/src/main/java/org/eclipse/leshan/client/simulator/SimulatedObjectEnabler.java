@@ -0,0 +1,163 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.client.resource.BaseObjectEnabler;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.node.LwM2mMultipleResource;
+import org.eclipse.leshan.core.node.LwM2mObject;
+import org.eclipse.leshan.core.node.LwM2mObjectInstance;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.request.ExecuteRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteRequest;
+import org.eclipse.leshan.core.response.ExecuteResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.WriteResponse;
+import org.eclipse.leshan.core.util.datatype.ULong;
+
+/**
+ * A lightweight {@link BaseObjectEnabler} with a single instance (id 0) which does not store any value.
+ * <p>
+ * Values of readable resources are generated at read time from the current time and a per-client seed, so thousands of
+ * simulated clients can expose the same objects with different and evolving values using only a few bytes each.
+ * Resources with a fixed value (e.g. the short server id of the Server object) can be given at creation, the map is
+ * expected to be shared by all clients. Writes and executions are accepted but ignored.
+ */
+public class SimulatedObjectEnabler extends BaseObjectEnabler {
+
+    private static final int INSTANCE_ID = 0;
+    // period of generated numeric values
+    private static final long PERIOD_IN_SEC = 600;
+
+    private final long seed;
+    private final Map<Integer, Object> fixedValues;
+
+    /**
+     * @param model the model of the simulated object.
+     * @param seed a value specific to the client, used to generate different values for each client.
+     * @param fixedValues values of resources which must not be generated, by resource id.
+     */
+    public SimulatedObjectEnabler(ObjectModel model, long seed, Map<Integer, Object> fixedValues) {
+        super(model.id, model);
+        this.seed = seed;
+        this.fixedValues = fixedValues;
+    }
+
+    @Override
+    public List<Integer> getAvailableInstanceIds() {
+        return Collections.singletonList(INSTANCE_ID);
+    }
+
+    @Override
+    protected ReadResponse doRead(ServerIdentity identity, ReadRequest request) {
+        LwM2mPath path = request.getPath();
+        long now = System.currentTimeMillis();
+
+        if (path.isObject()) {
+            return ReadResponse.success(new LwM2mObject(id, readInstance(now)));
+        }
+        if (path.getObjectInstanceId() != INSTANCE_ID) {
+            return ReadResponse.notFound();
+        }
+        if (path.isObjectInstance()) {
+            return ReadResponse.success(readInstance(now));
+        }
+
+        // resource or resource instance, readability was checked by BaseObjectEnabler
+        LwM2mResource resource = readResource(objectModel.resources.get(path.getResourceId()), now);
+        if (path.isResource()) {
+            return ReadResponse.success(resource);
+        }
+        LwM2mResourceInstance instance = resource.getInstance(path.getResourceInstanceId());
+        if (instance == null) {
+            return ReadResponse.notFound();
+        }
+        return ReadResponse.success(instance);
+    }
+
+    private LwM2mObjectInstance readInstance(long now) {
+        List<LwM2mResource> resources = new ArrayList<>();
+        for (ResourceModel resourceModel : objectModel.resources.values()) {
+            if (resourceModel.operations.isReadable()) {
+                resources.add(readResource(resourceModel, now));
+            }
+        }
+        return new LwM2mObjectInstance(INSTANCE_ID, resources);
+    }
+
+    private LwM2mResource readResource(ResourceModel resourceModel, long now) {
+        Object value = fixedValues.get(resourceModel.id);
+        if (value == null) {
+            value = generateValue(resourceModel, now);
+        }
+        if (resourceModel.multiple) {
+            return LwM2mMultipleResource.newResource(resourceModel.id, Collections.singletonMap(0, value),
+                    resourceModel.type);
+        }
+        return LwM2mSingleResource.newResource(resourceModel.id, value, resourceModel.type);
+    }
+
+    private Object generateValue(ResourceModel resourceModel, long now) {
+        long seconds = now / 1000;
+        switch (resourceModel.type) {
+        case STRING:
+            return resourceModel.name + " " + seed;
+        case INTEGER:
+            return (seed + seconds) % 101;
+        case UNSIGNED_INTEGER:
+            return ULong.valueOf((seed + seconds) % 101);
+        case FLOAT:
+            // a sinusoid between 15 and 25
+            double angle = 2 * Math.PI * ((seed + seconds) % PERIOD_IN_SEC) / PERIOD_IN_SEC;
+            return Math.round((20 + 5 * Math.sin(angle)) * 100) / 100d;
+        case BOOLEAN:
+            return (seed + seconds / PERIOD_IN_SEC) % 2 == 0;
+        case TIME:
+            return new Date(seconds * 1000);
+        case OPAQUE:
+            return new byte[] { (byte) (seed >> 24), (byte) (seed >> 16), (byte) (seed >> 8), (byte) seed };
+        case OBJLNK:
+            return new ObjectLink();
+        default:
+            throw new IllegalStateException(
+                    String.format("Unable to generate value of type %s for resource %d/%d", resourceModel.type, id,
+                            resourceModel.id));
+        }
+    }
+
+    @Override
+    protected WriteResponse doWrite(ServerIdentity identity, WriteRequest request) {
+        return WriteResponse.success();
+    }
+
+    @Override
+    protected ExecuteResponse doExecute(ServerIdentity identity, ExecuteRequest request) {
+        return ExecuteResponse.success();
+    }
+}
@@ -0,0 +1,257 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Simulates a large number of LWM2M clients against a single server, see {@link SimulatorBuilder}.
+ * <p>
+ * Clients are started progressively at the registration rate. Once registered, each client sends its updates, its
+ * notifications and its data at a fixed period with a random initial delay, so the load is spread uniformly. Latencies
+ * of each operation are collected in {@link SimulatorStats}.
+ */
+public class Simulator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(Simulator.class);
+
+    // period of the task starting clients
+    private static final long RAMP_UP_TICK = 10;
+
+    private final InetSocketAddress serverAddress;
+    private final ServerIdentity serverIdentity;
+    private final int clientCount;
+    private final String endpointPrefix;
+    private final long lifetime;
+    private final int registerRate;
+    private final long updatePeriod;
+    private final long notifyPeriod;
+    private final long sendPeriod;
+    private final long registerRetryDelay;
+    private final List<ObjectModel> objectModels;
+    private final Map<Integer, Map<Integer, Object>> fixedValues;
+    private final List<LwM2mPath> sentPaths;
+    private final LwM2mModel model;
+    private final LwM2mEncoder encoder;
+    private final DownlinkRequestHandler downlinkRequestHandler;
+    private final ScheduledExecutorService executor;
+    private final DatagramMultiplexer multiplexer;
+    private final SimulatorStats stats;
+
+    private final List<VirtualClient> clients = new ArrayList<>();
+    private final AtomicInteger activeClients = new AtomicInteger();
+    private ScheduledFuture<?> rampUp;
+    private long startNanos;
+
+    public Simulator(InetSocketAddress serverAddress, ServerIdentity serverIdentity, int clientCount,
+            String endpointPrefix, long lifetime, int registerRate, long updatePeriod, long notifyPeriod,
+            long sendPeriod, long registerRetryDelay, List<ObjectModel> objectModels,
+            Map<Integer, Map<Integer, Object>> fixedValues, List<LwM2mPath> sentPaths, LwM2mModel model,
+            LwM2mEncoder encoder, DownlinkRequestHandler downlinkRequestHandler, ScheduledExecutorService executor,
+            DatagramMultiplexer multiplexer, SimulatorStats stats) {
+        this.serverAddress = serverAddress;
+        this.serverIdentity = serverIdentity;
+        this.clientCount = clientCount;
+        this.endpointPrefix = endpointPrefix;
+        this.lifetime = lifetime;
+        this.registerRate = registerRate;
+        this.updatePeriod = updatePeriod;
+        this.notifyPeriod = notifyPeriod;
+        this.sendPeriod = sendPeriod;
+        this.registerRetryDelay = registerRetryDelay;
+        this.objectModels = objectModels;
+        this.fixedValues = fixedValues;
+        this.sentPaths = sentPaths;
+        this.model = model;
+        this.encoder = encoder;
+        this.downlinkRequestHandler = downlinkRequestHandler;
+        this.executor = executor;
+        this.multiplexer = multiplexer;
+        this.stats = stats;
+    }
+
+    /**
+     * Start the I/O threads then start the clients at the registration rate.
+     */
+    public synchronized void start() {
+        multiplexer.start();
+        startNanos = System.nanoTime();
+        rampUp = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                startClients();
+            }
+        }, 0, RAMP_UP_TICK, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void startClients() {
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) + RAMP_UP_TICK;
+        long target = Math.min(clientCount, elapsed * registerRate / 1000);
+        while (clients.size() < target) {
+            int index = clients.size();
+            VirtualClient client = new VirtualClient(this, index, endpointPrefix + index, createObjectEnablers(index));
+            clients.add(client);
+            activeClients.incrementAndGet();
+            try {
+                client.start();
+            } catch (IOException e) {
+                LOG.error("Unable to start client {}, no more client will be started", client.getEndpoint(), e);
+                activeClients.decrementAndGet();
+                clients.remove(index);
+                rampUp.cancel(false);
+                return;
+            }
+        }
+        if (clients.size() == clientCount) {
+            rampUp.cancel(false);
+        }
+    }
+
+    protected List<LwM2mObjectEnabler> createObjectEnablers(int index) {
+        List<LwM2mObjectEnabler> enablers = new ArrayList<>(objectModels.size());
+        for (ObjectModel objectModel : objectModels) {
+            Map<Integer, Object> values = fixedValues.get(objectModel.id);
+            enablers.add(new SimulatedObjectEnabler(objectModel, index,
+                    values == null ? Collections.<Integer, Object> emptyMap() : values));
+        }
+        return enablers;
+    }
+
+    /**
+     * Stop starting new clients and deregister all clients at the registration rate.
+     *
+     * @param timeout the maximum time to wait for deregistrations.
+     * @param unit the unit of the timeout.
+     * @return true if all clients were stopped before the timeout.
+     */
+    public boolean stop(long timeout, TimeUnit unit) throws InterruptedException {
+        List<VirtualClient> started;
+        synchronized (this) {
+            if (rampUp != null)
+                rampUp.cancel(false);
+            started = new ArrayList<>(clients);
+        }
+
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int batch = Math.max(1, (int) (registerRate * RAMP_UP_TICK / 1000));
+        for (int i = 0; i < started.size(); i++) {
+            started.get(i).stop();
+            if (i % batch == batch - 1) {
+                Thread.sleep(RAMP_UP_TICK);
+            }
+        }
+
+        boolean stopped;
+        synchronized (activeClients) {
+            long remaining;
+            while (activeClients.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                TimeUnit.NANOSECONDS.timedWait(activeClients, remaining);
+            }
+            stopped = activeClients.get() == 0;
+        }
+        return stopped;
+    }
+
+    /**
+     * Release all the resources, {@link #stop(long, TimeUnit)} should be called before to deregister clients.
+     */
+    public void destroy() throws InterruptedException {
+        executor.shutdownNow();
+        multiplexer.stop();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    void clientStopped(VirtualClient client) {
+        synchronized (activeClients) {
+            activeClients.decrementAndGet();
+            activeClients.notifyAll();
+        }
+    }
+
+    public SimulatorStats getStats() {
+        return stats;
+    }
+
+    public ScheduledExecutorService getExecutor() {
+        return executor;
+    }
+
+    DatagramMultiplexer getMultiplexer() {
+        return multiplexer;
+    }
+
+    InetSocketAddress getServerAddress() {
+        return serverAddress;
+    }
+
+    ServerIdentity getServerIdentity() {
+        return serverIdentity;
+    }
+
+    DownlinkRequestHandler getDownlinkRequestHandler() {
+        return downlinkRequestHandler;
+    }
+
+    LwM2mEncoder getEncoder() {
+        return encoder;
+    }
+
+    LwM2mModel getModel() {
+        return model;
+    }
+
+    long getLifetime() {
+        return lifetime;
+    }
+
+    long getUpdatePeriod() {
+        return updatePeriod;
+    }
+
+    long getNotifyPeriod() {
+        return notifyPeriod;
+    }
+
+    long getSendPeriod() {
+        return sendPeriod;
+    }
+
+    long getRegisterRetryDelay() {
+        return registerRetryDelay;
+    }
+
+    List<LwM2mPath> getSentPaths() {
+        return sentPaths;
+    }
+}
@@ -0,0 +1,277 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.client.servers.ServerIdentity;
+import org.eclipse.leshan.core.LwM2m;
+import org.eclipse.leshan.core.LwM2mId;
+import org.eclipse.leshan.core.model.InvalidDDFFileException;
+import org.eclipse.leshan.core.model.InvalidModelException;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Helper class to build and configure a {@link Simulator}.
+ * <p>
+ * Simulated clients expose a Server (1), a Device (3) and a Temperature (3303) object. By default, they update their
+ * registration every minute, notify each observation every 10 seconds and send their battery level and temperature
+ * every minute.
+ */
+public class SimulatorBuilder {
+
+    private static final int TEMPERATURE = 3303;
+
+    private InetSocketAddress serverAddress;
+    private int clientCount = 1000;
+    private String endpointPrefix = "simulator-";
+    private long lifetime = 300;
+    private int registerRate = 100;
+    private long updatePeriod = 60;
+    private long notifyPeriod = 10;
+    private long sendPeriod = 60;
+    private long registerRetryDelay = 10;
+    private long shortServerId = 123;
+    private List<InetAddress> localAddresses;
+    private int ioThreads = 2;
+    private ScheduledExecutorService executor;
+    private LwM2mEncoder encoder;
+    private LwM2mDecoder decoder;
+
+    /**
+     * Set the address of the LWM2M server. Default: localhost:5683.
+     */
+    public SimulatorBuilder setServerAddress(InetSocketAddress serverAddress) {
+        this.serverAddress = serverAddress;
+        return this;
+    }
+
+    /**
+     * Set the number of simulated clients.
+     */
+    public SimulatorBuilder setClientCount(int clientCount) {
+        this.clientCount = clientCount;
+        return this;
+    }
+
+    /**
+     * Set the prefix of endpoint names, the index of the client is appended to it.
+     */
+    public SimulatorBuilder setEndpointPrefix(String endpointPrefix) {
+        this.endpointPrefix = endpointPrefix;
+        return this;
+    }
+
+    /**
+     * Set the registration lifetime in seconds.
+     */
+    public SimulatorBuilder setLifetime(long lifetimeInSec) {
+        this.lifetime = lifetimeInSec;
+        return this;
+    }
+
+    /**
+     * Set the number of clients started (registered) per second. Clients are deregistered at the same rate.
+     */
+    public SimulatorBuilder setRegisterRate(int registrationsPerSec) {
+        this.registerRate = registrationsPerSec;
+        return this;
+    }
+
+    /**
+     * Set the period in seconds of registration updates of each client, 0 to disable updates.
+     */
+    public SimulatorBuilder setUpdatePeriod(long periodInSec) {
+        this.updatePeriod = periodInSec;
+        return this;
+    }
+
+    /**
+     * Set the period in seconds of notifications for each observation, 0 to disable notifications.
+     */
+    public SimulatorBuilder setNotifyPeriod(long periodInSec) {
+        this.notifyPeriod = periodInSec;
+        return this;
+    }
+
+    /**
+     * Set the period in seconds of send operations of each client, 0 to disable send.
+     */
+    public SimulatorBuilder setSendPeriod(long periodInSec) {
+        this.sendPeriod = periodInSec;
+        return this;
+    }
+
+    /**
+     * Set the maximum delay in seconds before a client retries a failed registration.
+     */
+    public SimulatorBuilder setRegisterRetryDelay(long delayInSec) {
+        this.registerRetryDelay = delayInSec;
+        return this;
+    }
+
+    /**
+     * Set the short server id reported by the Server object.
+     */
+    public SimulatorBuilder setShortServerId(long shortServerId) {
+        this.shortServerId = shortServerId;
+        return this;
+    }
+
+    /**
+     * Set the local addresses on which client sockets are bound. Default: the loopback address.
+     * <p>
+     * About 28000 clients can be simulated by local address with default Linux settings.
+     */
+    public SimulatorBuilder setLocalAddresses(List<InetAddress> localAddresses) {
+        this.localAddresses = localAddresses;
+        return this;
+    }
+
+    /**
+     * Set the number of threads handling sockets. Default: 2.
+     */
+    public SimulatorBuilder setIoThreads(int ioThreads) {
+        this.ioThreads = ioThreads;
+        return this;
+    }
+
+    /**
+     * Set the executor running periodic tasks of clients and processing received messages. Default: a pool with a
+     * thread by processor.
+     */
+    public SimulatorBuilder setExecutor(ScheduledExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+    /**
+     * Set the encoder used to encode responses, notifications and sent data.
+     */
+    public SimulatorBuilder setEncoder(LwM2mEncoder encoder) {
+        this.encoder = encoder;
+        return this;
+    }
+
+    /**
+     * Set the decoder used to decode write requests.
+     */
+    public SimulatorBuilder setDecoder(LwM2mDecoder decoder) {
+        this.decoder = decoder;
+        return this;
+    }
+
+    public Simulator build() {
+        Validate.isTrue(clientCount > 0, "client count must be greater than 0");
+        Validate.isTrue(registerRate > 0, "register rate must be greater than 0");
+        Validate.isTrue(updatePeriod < lifetime, "update period must be smaller than lifetime");
+
+        if (serverAddress == null)
+            serverAddress = new InetSocketAddress(InetAddress.getLoopbackAddress(), LwM2m.DEFAULT_COAP_PORT);
+        if (localAddresses == null)
+            localAddresses = Arrays.asList(InetAddress.getLoopbackAddress());
+        if (encoder == null)
+            encoder = new DefaultLwM2mEncoder();
+        if (decoder == null)
+            decoder = new DefaultLwM2mDecoder();
+        if (executor == null) {
+            ScheduledThreadPoolExecutor pool = new ScheduledThreadPoolExecutor(
+                    Runtime.getRuntime().availableProcessors(), new NamedThreadFactory("Simulator worker#%d"));
+            // tasks of deregistered clients must not stay in the queue
+            pool.setRemoveOnCancelPolicy(true);
+            executor = pool;
+        }
+
+        // models
+        List<ObjectModel> models = new ArrayList<>(ObjectLoader.loadDefault());
+        try {
+            models.addAll(ObjectLoader.loadDdfResources("/models/", new String[] { TEMPERATURE + ".xml" }));
+        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+            throw new IllegalStateException("Unable to load temperature model", e);
+        }
+        LwM2mModel model = new StaticModel(models);
+        List<ObjectModel> objectModels = Arrays.asList(model.getObjectModel(LwM2mId.SERVER),
+                model.getObjectModel(LwM2mId.DEVICE), model.getObjectModel(TEMPERATURE));
+
+        // values which are not generated, shared by all clients
+        Map<Integer, Map<Integer, Object>> fixedValues = new HashMap<>();
+        Map<Integer, Object> serverValues = new HashMap<>();
+        serverValues.put(LwM2mId.SRV_SERVER_ID, shortServerId);
+        serverValues.put(LwM2mId.SRV_LIFETIME, lifetime);
+        // notification storing when disabled or offline
+        serverValues.put(6, false);
+        serverValues.put(LwM2mId.SRV_BINDING, "U");
+        fixedValues.put(LwM2mId.SERVER, serverValues);
+        Map<Integer, Object> deviceValues = new HashMap<>();
+        deviceValues.put(0, "Eclipse Leshan");
+        deviceValues.put(1, "Client Simulator");
+        // error code : no error
+        deviceValues.put(11, 0l);
+        deviceValues.put(LwM2mId.DVC_SUPPORTED_BINDING, "U");
+        fixedValues.put(LwM2mId.DEVICE, deviceValues);
+
+        // battery level and temperature
+        List<LwM2mPath> sentPaths = Arrays.asList(new LwM2mPath(LwM2mId.DEVICE, 0, 9),
+                new LwM2mPath(TEMPERATURE, 0, 5700));
+
+        ServerIdentity serverIdentity = new ServerIdentity(Identity.unsecure(serverAddress), shortServerId);
+        SimulatorStats stats = new SimulatorStats();
+        DatagramMultiplexer multiplexer;
+        try {
+            multiplexer = new DatagramMultiplexer(ioThreads, localAddresses, stats);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create socket selectors", e);
+        }
+
+        return createSimulator(serverAddress, serverIdentity, clientCount, endpointPrefix, lifetime, registerRate,
+                TimeUnit.SECONDS.toMillis(updatePeriod), TimeUnit.SECONDS.toMillis(notifyPeriod),
+                TimeUnit.SECONDS.toMillis(sendPeriod), TimeUnit.SECONDS.toMillis(registerRetryDelay), objectModels,
+                fixedValues, sentPaths, model, encoder,
+                new DownlinkRequestHandler(serverIdentity, encoder, decoder, model), executor, multiplexer, stats);
+    }
+
+    protected Simulator createSimulator(InetSocketAddress serverAddress, ServerIdentity serverIdentity,
+            int clientCount, String endpointPrefix, long lifetime, int registerRate, long updatePeriod,
+            long notifyPeriod, long sendPeriod, long registerRetryDelay, List<ObjectModel> objectModels,
+            Map<Integer, Map<Integer, Object>> fixedValues, List<LwM2mPath> sentPaths, LwM2mModel model,
+            LwM2mEncoder encoder, DownlinkRequestHandler downlinkRequestHandler, ScheduledExecutorService executor,
+            DatagramMultiplexer multiplexer, SimulatorStats stats) {
+        return new Simulator(serverAddress, serverIdentity, clientCount, endpointPrefix, lifetime, registerRate,
+                updatePeriod, notifyPeriod, sendPeriod, registerRetryDelay, objectModels, fixedValues, sentPaths, model,
+                encoder, downlinkRequestHandler, executor, multiplexer, stats);
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and latency histograms collected by a {@link Simulator}.
+ * <p>
+ * For each {@link Operation}, the latency is the time between the first transmission of the request and the reception
+ * of its response (or of the acknowledgement for notifications), retransmissions included.
+ */
+public class SimulatorStats {
+
+    /**
+     * Counters and latencies of one {@link Operation}.
+     */
+    public static class OperationStats {
+        private final LatencyHistogram latencies = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+
+        public void success(long startNanos) {
+            latencies.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        }
+
+        public void failure() {
+            failures.incrementAndGet();
+        }
+
+        public void timeout() {
+            timeouts.incrementAndGet();
+        }
+
+        public LatencyHistogram getLatencies() {
+            return latencies;
+        }
+
+        public long getSuccesses() {
+            return latencies.getCount();
+        }
+
+        public long getFailures() {
+            return failures.get();
+        }
+
+        public long getTimeouts() {
+            return timeouts.get();
+        }
+    }
+
+    private final Map<Operation, OperationStats> operations = new EnumMap<>(Operation.class);
+    private final AtomicLong registeredClients = new AtomicLong();
+    private final AtomicLong downlinkRequests = new AtomicLong();
+    private final AtomicLong retransmissions = new AtomicLong();
+    private final AtomicLong droppedDatagrams = new AtomicLong();
+    private final long startNanos = System.nanoTime();
+
+    public SimulatorStats() {
+        for (Operation operation : Operation.values()) {
+            operations.put(operation, new OperationStats());
+        }
+    }
+
+    public OperationStats get(Operation operation) {
+        return operations.get(operation);
+    }
+
+    /**
+     * @param delta +1 when a client get registered, -1 when it is not registered anymore.
+     */
+    public void registeredClients(int delta) {
+        registeredClients.addAndGet(delta);
+    }
+
+    public long getRegisteredClients() {
+        return registeredClients.get();
+    }
+
+    /**
+     * Count a request received from the server (read, observe, write, execute ...).
+     */
+    public void downlinkRequest() {
+        downlinkRequests.incrementAndGet();
+    }
+
+    public long getDownlinkRequests() {
+        return downlinkRequests.get();
+    }
+
+    public void retransmission() {
+        retransmissions.incrementAndGet();
+    }
+
+    public long getRetransmissions() {
+        return retransmissions.get();
+    }
+
+    /**
+     * Count a datagram which could not be sent because the socket send buffer was full.
+     */
+    public void droppedDatagram() {
+        droppedDatagrams.incrementAndGet();
+    }
+
+    public long getDroppedDatagrams() {
+        return droppedDatagrams.get();
+    }
+
+    /**
+     * Print a report of the collected statistics, latencies are in milliseconds.
+     */
+    public void print(PrintStream out) {
+        out.println(String.format("[%ds] registered clients: %d, server requests: %d, retransmissions: %d, dropped: %d",
+                TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos), getRegisteredClients(),
+                getDownlinkRequests(), getRetransmissions(), getDroppedDatagrams()));
+        out.println(String.format("%-10s %10s %8s %8s %9s %9s %9s %9s %9s %9s", "operation", "success", "failure",
+                "timeout", "mean", "p50", "p90", "p99", "p99.9", "max"));
+        for (Entry<Operation, OperationStats> entry : operations.entrySet()) {
+            OperationStats stats = entry.getValue();
+            LatencyHistogram latencies = stats.getLatencies();
+            out.println(String.format("%-10s %10d %8d %8d %9s %9s %9s %9s %9s %9s",
+                    entry.getKey().name().toLowerCase(), stats.getSuccesses(), stats.getFailures(),
+                    stats.getTimeouts(), toMillis(latencies.getMean()), toMillis(latencies.getPercentile(50)),
+                    toMillis(latencies.getPercentile(90)), toMillis(latencies.getPercentile(99)),
+                    toMillis(latencies.getPercentile(99.9)), toMillis(latencies.getMax())));
+        }
+    }
+
+    private static String toMillis(long micros) {
+        return String.format("%.2f", micros / 1000d);
+    }
+}
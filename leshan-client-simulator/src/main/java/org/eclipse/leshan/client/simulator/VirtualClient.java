@@ -0,0 +1,574 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import java.io.IOException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.CoAP.Type;
+import org.eclipse.californium.core.coap.EmptyMessage;
+import org.eclipse.californium.core.coap.Message;
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.eclipse.leshan.client.californium.request.CoapRequestBuilder;
+import org.eclipse.leshan.client.californium.request.LwM2mClientResponseBuilder;
+import org.eclipse.leshan.client.resource.LwM2mObjectEnabler;
+import org.eclipse.leshan.client.util.LinkFormatHelper;
+import org.eclipse.leshan.core.ResponseCode;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.request.BindingMode;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.DeregisterRequest;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.RegisterRequest;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.core.request.UpdateRequest;
+import org.eclipse.leshan.core.request.UplinkRequest;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.RegisterResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A simulated LWM2M client.
+ * <p>
+ * A virtual client has no thread and no CoAP stack of its own : it owns a socket of the {@link DatagramMultiplexer},
+ * its messages are processed and its periodic tasks (update, notifications and send) are run by the executor shared by
+ * all the clients of the {@link Simulator}. Only what a load test needs from CoAP is implemented: confirmable requests
+ * and notifications with retransmission (RFC 7252 default transmission parameters), piggybacked and separate
+ * responses, and deduplication of the last request received from the server. Its state is guarded by the instance
+ * lock.
+ */
+public class VirtualClient implements DatagramMultiplexer.Receiver {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VirtualClient.class);
+
+    // RFC 7252 default transmission parameters
+    private static final long ACK_TIMEOUT = 2000;
+    private static final double ACK_RANDOM_FACTOR = 1.5;
+    private static final int MAX_RETRANSMIT = 4;
+    // time to wait for a separate response once the request is acknowledged
+    private static final long SEPARATE_RESPONSE_TIMEOUT = 30000;
+
+    private enum State {
+        NEW, REGISTERING, REGISTERED, DEREGISTERING, STOPPED
+    }
+
+    private final Simulator simulator;
+    private final int index;
+    private final String endpoint;
+    private final List<LwM2mObjectEnabler> objectEnablers;
+
+    private DatagramChannel channel;
+    private State state = State.NEW;
+    private String registrationId;
+
+    private int nextMid;
+    private int nextToken;
+    private int observeSequence;
+    private final List<Exchange> exchanges = new ArrayList<>(2);
+    private final List<Observation> observations = new ArrayList<>(1);
+    private final List<ScheduledFuture<?>> periodicTasks = new ArrayList<>(3);
+    private ScheduledFuture<?> registerRetry;
+
+    // last request received from the server and its response, to handle retransmissions
+    private int lastDownlinkMid = -1;
+    private byte[] lastDownlinkResponse;
+
+    public VirtualClient(Simulator simulator, int index, String endpoint, List<LwM2mObjectEnabler> objectEnablers) {
+        this.simulator = simulator;
+        this.index = index;
+        this.endpoint = endpoint;
+        this.objectEnablers = objectEnablers;
+        this.nextMid = ThreadLocalRandom.current().nextInt(1 << 16);
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public synchronized boolean isStopped() {
+        return state == State.STOPPED;
+    }
+
+    /**
+     * Open the socket of this client and register to the server.
+     */
+    public void start() throws IOException {
+        DatagramChannel openedChannel = simulator.getMultiplexer().open(simulator.getServerAddress(), this);
+        synchronized (this) {
+            channel = openedChannel;
+        }
+        register();
+    }
+
+    /**
+     * Stop periodic tasks and deregister from the server, the socket is closed once deregistration is done.
+     */
+    public synchronized void stop() {
+        cancelTasks();
+        if (state == State.REGISTERED) {
+            state = State.DEREGISTERING;
+            send(new DeregisterRequest(registrationId), Operation.DEREGISTER);
+        } else if (state != State.DEREGISTERING) {
+            terminate();
+        }
+    }
+
+    private void terminate() {
+        cancelTasks();
+        for (Exchange exchange : exchanges) {
+            exchange.timer.cancel(false);
+        }
+        exchanges.clear();
+        observations.clear();
+        if (state == State.REGISTERED || state == State.DEREGISTERING) {
+            simulator.getStats().registeredClients(-1);
+        }
+        state = State.STOPPED;
+        if (channel != null) {
+            simulator.getMultiplexer().close(channel);
+        }
+        simulator.clientStopped(this);
+    }
+
+    private void cancelTasks() {
+        for (ScheduledFuture<?> task : periodicTasks) {
+            task.cancel(false);
+        }
+        periodicTasks.clear();
+        if (registerRetry != null) {
+            registerRetry.cancel(false);
+            registerRetry = null;
+        }
+    }
+
+    LwM2mObjectEnabler getObjectEnabler(int objectId) {
+        for (LwM2mObjectEnabler enabler : objectEnablers) {
+            if (enabler.getId() == objectId) {
+                return enabler;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Start a new observation (or replace the one with the same token).
+     *
+     * @return the observe sequence number of the observe response.
+     */
+    synchronized int addObservation(byte[] token, LwM2mPath path, ContentFormat format) {
+        removeObservation(token);
+        observations.add(new Observation(token, path, format));
+        return nextObserveSequence();
+    }
+
+    synchronized void removeObservation(byte[] token) {
+        Iterator<Observation> it = observations.iterator();
+        while (it.hasNext()) {
+            if (Arrays.equals(it.next().token, token)) {
+                it.remove();
+            }
+        }
+    }
+
+    private int nextObserveSequence() {
+        observeSequence = (observeSequence + 1) & 0xFFFFFF;
+        return observeSequence;
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    // LWM2M operations
+
+    private synchronized void register() {
+        if (state == State.STOPPED || state == State.DEREGISTERING)
+            return;
+        state = State.REGISTERING;
+        RegisterRequest request = new RegisterRequest(endpoint, simulator.getLifetime(), "1.1",
+                BindingMode.parse("U"), null, null,
+                LinkFormatHelper.getClientDescription(objectEnablers, null, null), null);
+        send(request, Operation.REGISTER);
+    }
+
+    private synchronized void update() {
+        if (state == State.REGISTERED) {
+            send(new UpdateRequest(registrationId, null, null, null, null, null), Operation.UPDATE);
+        }
+    }
+
+    private synchronized void sendData() {
+        if (state != State.REGISTERED)
+            return;
+        Map<LwM2mPath, LwM2mNode> nodes = new HashMap<>();
+        for (LwM2mPath path : simulator.getSentPaths()) {
+            LwM2mObjectEnabler enabler = getObjectEnabler(path.getObjectId());
+            ReadResponse response = enabler.read(simulator.getServerIdentity(),
+                    new ReadRequest(path.toString()));
+            if (response.isSuccess()) {
+                nodes.put(path, response.getContent());
+            }
+        }
+        send(new SendRequest(ContentFormat.SENML_CBOR, nodes), Operation.SEND);
+    }
+
+    private synchronized void notifyObservations() {
+        if (state != State.REGISTERED)
+            return;
+        for (Observation observation : observations) {
+            // keep a single pending notification by observation
+            if (findExchange(observation.token) != null)
+                continue;
+            Response notification = simulator.getDownlinkRequestHandler().notification(this, observation.path,
+                    observation.format);
+            notification.setType(Type.CON);
+            notification.setToken(observation.token);
+            notification.getOptions().setObserve(nextObserveSequence());
+            send(notification, Operation.NOTIFY, null);
+        }
+    }
+
+    private void registered(String registrationId) {
+        this.registrationId = registrationId;
+        state = State.REGISTERED;
+        simulator.getStats().registeredClients(1);
+
+        // spread periodic tasks of all clients uniformly over their period
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                update();
+            }
+        }, simulator.getUpdatePeriod());
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                notifyObservations();
+            }
+        }, simulator.getNotifyPeriod());
+        schedule(new Runnable() {
+            @Override
+            public void run() {
+                sendData();
+            }
+        }, simulator.getSendPeriod());
+    }
+
+    private void schedule(Runnable task, long periodInMs) {
+        if (periodInMs > 0) {
+            long delay = ThreadLocalRandom.current().nextLong(periodInMs) + 1;
+            periodicTasks.add(
+                    simulator.getExecutor().scheduleAtFixedRate(task, delay, periodInMs, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private void unregistered() {
+        if (state == State.REGISTERED) {
+            simulator.getStats().registeredClients(-1);
+        }
+        cancelTasks();
+        observations.clear();
+        registrationId = null;
+        state = State.NEW;
+    }
+
+    private void retryRegistration() {
+        unregistered();
+        long delay = ThreadLocalRandom.current().nextLong(simulator.getRegisterRetryDelay()) + 1;
+        registerRetry = simulator.getExecutor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                register();
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    // called with lock held
+    private void responseReceived(Exchange exchange, Response coapResponse) {
+        if (exchange.operation == Operation.NOTIFY) {
+            return;
+        }
+        LwM2mClientResponseBuilder<LwM2mResponse> builder = new LwM2mClientResponseBuilder<>(coapResponse);
+        exchange.request.accept(builder);
+        LwM2mResponse response = builder.getResponse();
+        if (response.isSuccess()) {
+            simulator.getStats().get(exchange.operation).success(exchange.startNanos);
+        } else {
+            simulator.getStats().get(exchange.operation).failure();
+            LOG.debug("{} of {} failed: {} {}", exchange.operation, endpoint, response.getCode(),
+                    response.getErrorMessage());
+        }
+
+        switch (exchange.operation) {
+        case REGISTER:
+            if (state != State.REGISTERING)
+                return;
+            if (response.isSuccess()) {
+                registered(((RegisterResponse) response).getRegistrationID());
+            } else {
+                retryRegistration();
+            }
+            break;
+        case UPDATE:
+            if (response.getCode() == ResponseCode.NOT_FOUND && state == State.REGISTERED) {
+                // registration expired on server side
+                unregistered();
+                register();
+            }
+            break;
+        case DEREGISTER:
+            terminate();
+            break;
+        default:
+            break;
+        }
+    }
+
+    // called with lock held
+    private void exchangeFailed(Exchange exchange, boolean timeout) {
+        if (timeout) {
+            simulator.getStats().get(exchange.operation).timeout();
+        } else {
+            simulator.getStats().get(exchange.operation).failure();
+        }
+
+        switch (exchange.operation) {
+        case REGISTER:
+            if (state == State.REGISTERING)
+                retryRegistration();
+            break;
+        case DEREGISTER:
+            terminate();
+            break;
+        case NOTIFY:
+            if (!timeout) {
+                // reset by the server : observation is canceled
+                removeObservation(exchange.token);
+            }
+            break;
+        default:
+            break;
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------------------------------
+    // CoAP messaging
+
+    private void send(UplinkRequest<?> request, Operation operation) {
+        CoapRequestBuilder builder = new CoapRequestBuilder(simulator.getServerIdentity().getIdentity(),
+                simulator.getEncoder(), simulator.getModel());
+        request.accept(builder);
+        Request coapRequest = builder.getRequest();
+        coapRequest.setType(Type.CON);
+        coapRequest.setToken(newToken());
+        send(coapRequest, operation, request);
+    }
+
+    private byte[] newToken() {
+        // unique for this client : client index followed by a counter
+        int token = nextToken++;
+        return new byte[] { (byte) (index >> 24), (byte) (index >> 16), (byte) (index >> 8), (byte) index,
+                (byte) (token >> 24), (byte) (token >> 16), (byte) (token >> 8), (byte) token };
+    }
+
+    private void send(Message message, Operation operation, UplinkRequest<?> request) {
+        message.setMID(nextMid);
+        nextMid = (nextMid + 1) & 0xFFFF;
+        Exchange exchange = new Exchange(operation, request, message.getMID(), message.getTokenBytes(),
+                new UdpDataSerializer().getByteArray(message));
+        exchanges.add(exchange);
+        exchange.timeout = (long) (ACK_TIMEOUT * (1 + ThreadLocalRandom.current().nextDouble(ACK_RANDOM_FACTOR - 1)));
+        simulator.getMultiplexer().send(channel, exchange.datagram);
+        scheduleTimeout(exchange, exchange.timeout);
+    }
+
+    private void scheduleTimeout(final Exchange exchange, long timeout) {
+        exchange.timer = simulator.getExecutor().schedule(new Runnable() {
+            @Override
+            public void run() {
+                timeout(exchange);
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized void timeout(Exchange exchange) {
+        if (!exchanges.contains(exchange))
+            return;
+        if (!exchange.acknowledged && exchange.retransmissions < MAX_RETRANSMIT && state != State.STOPPED) {
+            exchange.retransmissions++;
+            exchange.timeout *= 2;
+            simulator.getStats().retransmission();
+            simulator.getMultiplexer().send(channel, exchange.datagram);
+            scheduleTimeout(exchange, exchange.timeout);
+        } else {
+            exchanges.remove(exchange);
+            exchangeFailed(exchange, true);
+        }
+    }
+
+    private Exchange findExchange(int mid) {
+        for (Exchange exchange : exchanges) {
+            if (exchange.mid == mid)
+                return exchange;
+        }
+        return null;
+    }
+
+    private Exchange findExchange(byte[] token) {
+        for (Exchange exchange : exchanges) {
+            if (Arrays.equals(exchange.token, token))
+                return exchange;
+        }
+        return null;
+    }
+
+    @Override
+    public void receive(final byte[] datagram) {
+        // called by an I/O thread, process the datagram with the shared executor
+        simulator.getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    handle(new UdpDataParser().parseMessage(datagram));
+                } catch (RuntimeException e) {
+                    LOG.debug("Unable to handle datagram for {}", endpoint, e);
+                }
+            }
+        });
+    }
+
+    private synchronized void handle(Message message) {
+        if (state == State.STOPPED)
+            return;
+
+        if (message instanceof Request) {
+            handleRequest((Request) message);
+        } else if (message instanceof Response) {
+            Response response = (Response) message;
+            Exchange exchange = response.getType() == Type.ACK ? findExchange(response.getMID())
+                    : findExchange(response.getTokenBytes());
+            if (response.getType() == Type.CON) {
+                // acknowledge separate response
+                sendEmpty(Type.ACK, response.getMID());
+            }
+            if (exchange != null && Arrays.equals(exchange.token, response.getTokenBytes())) {
+                complete(exchange);
+                responseReceived(exchange, response);
+            }
+        } else if (message.getType() == Type.CON) {
+            // ping
+            sendEmpty(Type.RST, message.getMID());
+        } else {
+            Exchange exchange = findExchange(message.getMID());
+            if (exchange == null)
+                return;
+            if (message.getType() == Type.RST) {
+                complete(exchange);
+                exchangeFailed(exchange, false);
+            } else if (exchange.operation == Operation.NOTIFY) {
+                complete(exchange);
+                simulator.getStats().get(Operation.NOTIFY).success(exchange.startNanos);
+            } else if (!exchange.acknowledged) {
+                // empty ACK, wait for the separate response
+                exchange.acknowledged = true;
+                exchange.timer.cancel(false);
+                scheduleTimeout(exchange, SEPARATE_RESPONSE_TIMEOUT);
+            }
+        }
+    }
+
+    private void complete(Exchange exchange) {
+        exchange.timer.cancel(false);
+        exchanges.remove(exchange);
+    }
+
+    private void handleRequest(Request request) {
+        if (request.getMID() == lastDownlinkMid && lastDownlinkResponse != null) {
+            // retransmission of the last request, its response was probably lost
+            simulator.getMultiplexer().send(channel, lastDownlinkResponse);
+            return;
+        }
+        simulator.getStats().downlinkRequest();
+        Response response = simulator.getDownlinkRequestHandler().handle(this, request);
+        if (request.getType() == Type.CON) {
+            response.setType(Type.ACK);
+            response.setMID(request.getMID());
+        } else {
+            response.setType(Type.NON);
+            response.setMID(nextMid);
+            nextMid = (nextMid + 1) & 0xFFFF;
+        }
+        response.setToken(request.getToken());
+        byte[] datagram = new UdpDataSerializer().getByteArray(response);
+        lastDownlinkMid = request.getMID();
+        lastDownlinkResponse = datagram;
+        simulator.getMultiplexer().send(channel, datagram);
+    }
+
+    private void sendEmpty(Type type, int mid) {
+        EmptyMessage message = new EmptyMessage(type);
+        message.setMID(mid);
+        message.setToken(Token.EMPTY);
+        simulator.getMultiplexer().send(channel, new UdpDataSerializer().getByteArray(message));
+    }
+
+    private static class Exchange {
+        private final Operation operation;
+        // null for notifications
+        private final UplinkRequest<?> request;
+        private final int mid;
+        private final byte[] token;
+        private final byte[] datagram;
+        private final long startNanos = System.nanoTime();
+        private int retransmissions;
+        private long timeout;
+        private boolean acknowledged;
+        private ScheduledFuture<?> timer;
+
+        public Exchange(Operation operation, UplinkRequest<?> request, int mid, byte[] token, byte[] datagram) {
+            this.operation = operation;
+            this.request = request;
+            this.mid = mid;
+            this.token = token;
+            this.datagram = datagram;
+        }
+    }
+
+    private static class Observation {
+        private final byte[] token;
+        private final LwM2mPath path;
+        private final ContentFormat format;
+
+        public Observation(byte[] token, LwM2mPath path, ContentFormat format) {
+            this.token = token;
+            this.path = path;
+            this.format = format;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void small_values_are_exact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 50; i++) {
+            histogram.record(i, TimeUnit.MICROSECONDS);
+        }
+
+        assertEquals(50, histogram.getCount());
+        assertEquals(25, histogram.getPercentile(50));
+        assertEquals(50, histogram.getPercentile(100));
+        assertEquals(50, histogram.getMax());
+        assertEquals(25, histogram.getMean());
+    }
+
+    @Test
+    public void large_values_are_recorded_with_bounded_error() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(i, TimeUnit.MILLISECONDS);
+        }
+
+        assertPercentile(500_000, histogram.getPercentile(50));
+        assertPercentile(990_000, histogram.getPercentile(99));
+        assertEquals(1_000_000, histogram.getPercentile(100));
+    }
+
+    @Test
+    public void buckets_are_contiguous() {
+        long previousUpperBound = -1;
+        for (int i = 0; i < 1152; i++) {
+            long upperBound = LatencyHistogram.upperBoundOf(i);
+            assertEquals(i, LatencyHistogram.indexOf(previousUpperBound + 1));
+            assertEquals(i, LatencyHistogram.indexOf(upperBound));
+            previousUpperBound = upperBound;
+        }
+    }
+
+    @Test
+    public void out_of_range_values_are_clamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5, TimeUnit.MILLISECONDS);
+        histogram.record(365, TimeUnit.DAYS);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(0, histogram.getPercentile(50));
+        assertEquals((1L << 40) - 1, histogram.getMax());
+    }
+
+    private void assertPercentile(long expected, long actual) {
+        // relative error of a bucket is 1/32
+        assertTrue(String.format("expected ~%d but was %d", expected, actual),
+                actual >= expected && actual <= expected + expected / 32);
+    }
+}
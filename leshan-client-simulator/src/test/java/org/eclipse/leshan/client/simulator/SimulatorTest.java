@@ -0,0 +1,160 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.client.simulator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.eclipse.leshan.client.simulator.SimulatorStats.OperationStats;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.server.californium.LeshanServer;
+import org.eclipse.leshan.server.observation.ObservationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationListener;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.send.SendListener;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SimulatorTest {
+
+    private static final int CLIENT_COUNT = 3;
+
+    private final AtomicInteger registered = new AtomicInteger();
+    private final AtomicInteger deregistered = new AtomicInteger();
+    private final AtomicInteger notifications = new AtomicInteger();
+    private final AtomicInteger sentData = new AtomicInteger();
+
+    private LeshanServer server;
+    private Simulator simulator;
+
+    @Before
+    public void start() throws Exception {
+        server = LeshanClientSimulator.createLocalServer(new String[] { "/3303/0/5700" });
+        server.getRegistrationService().addListener(new RegistrationListener() {
+            @Override
+            public void registered(Registration registration, Registration previousReg,
+                    Collection<Observation> previousObservations) {
+                registered.incrementAndGet();
+            }
+
+            @Override
+            public void updated(RegistrationUpdate update, Registration updatedReg, Registration previousReg) {
+            }
+
+            @Override
+            public void unregistered(Registration registration, Collection<Observation> observations,
+                    boolean expired, Registration newReg) {
+                deregistered.incrementAndGet();
+            }
+        });
+        server.getObservationService().addListener(new ObservationListener() {
+            @Override
+            public void newObservation(Observation observation, Registration registration) {
+            }
+
+            @Override
+            public void cancelled(Observation observation) {
+            }
+
+            @Override
+            public void onResponse(Observation observation, Registration registration, ObserveResponse response) {
+                notifications.incrementAndGet();
+            }
+
+            @Override
+            public void onError(Observation observation, Registration registration, Exception error) {
+            }
+        });
+        server.getSendService().addListener(new SendListener() {
+            @Override
+            public void dataReceived(Registration registration, Map<String, LwM2mNode> data, SendRequest request) {
+                sentData.incrementAndGet();
+            }
+        });
+        server.start();
+
+        simulator = new SimulatorBuilder() //
+                .setServerAddress(server.getUnsecuredAddress()) //
+                .setClientCount(CLIENT_COUNT) //
+                .setUpdatePeriod(0) //
+                .setNotifyPeriod(1) //
+                .setSendPeriod(1) //
+                .setIoThreads(1) //
+                .build();
+    }
+
+    @After
+    public void stop() throws InterruptedException {
+        if (simulator != null)
+            simulator.destroy();
+        server.destroy();
+    }
+
+    @Test
+    public void clients_register_notify_send_and_deregister() throws InterruptedException {
+        simulator.start();
+
+        // wait for each client to notify and send at least once
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(15);
+        while ((notifications.get() < CLIENT_COUNT || sentData.get() < CLIENT_COUNT)
+                && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        assertEquals(CLIENT_COUNT, registered.get());
+        assertEquals(CLIENT_COUNT, simulator.getStats().getRegisteredClients());
+        assertTrue("server should receive notifications", notifications.get() >= CLIENT_COUNT);
+        assertTrue("server should receive sent data", sentData.get() >= CLIENT_COUNT);
+
+        assertTrue("all clients should be stopped", simulator.stop(10, TimeUnit.SECONDS));
+        assertEquals(CLIENT_COUNT, deregistered.get());
+        assertEquals(0, simulator.getStats().getRegisteredClients());
+        assertFalse(server.getRegistrationService().getAllRegistrations().hasNext());
+
+        SimulatorStats stats = simulator.getStats();
+        assertSucceeded(stats.get(Operation.REGISTER), CLIENT_COUNT);
+        assertSucceeded(stats.get(Operation.DEREGISTER), CLIENT_COUNT);
+        assertTrue(stats.get(Operation.NOTIFY).getSuccesses() >= CLIENT_COUNT);
+        assertTrue(stats.get(Operation.SEND).getSuccesses() >= CLIENT_COUNT);
+        assertEquals(0, stats.get(Operation.NOTIFY).getFailures());
+        assertEquals(0, stats.get(Operation.SEND).getFailures());
+
+        // clean shutdown : no task or I/O thread left
+        Simulator destroyed = simulator;
+        simulator = null;
+        destroyed.destroy();
+        assertTrue(destroyed.getExecutor().isTerminated());
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName() + " should be stopped", thread.getName().startsWith("Simulator"));
+        }
+    }
+
+    private void assertSucceeded(OperationStats stats, int count) {
+        assertEquals(count, stats.getSuccesses());
+        assertEquals(0, stats.getFailures());
+        assertEquals(0, stats.getTimeouts());
+    }
+}
@@ -61,14 +61,16 @@ public class AttributeSet {
         }
         Attribute pmin = attributeMap.get(Attribute.MINIMUM_PERIOD);
         Attribute pmax = attributeMap.get(Attribute.MAXIMUM_PERIOD);
-        if ((pmin != null) && (pmax != null) && (Long) pmin.getValue() > (Long) pmax.getValue()) {
+        if ((pmin != null) && (pmax != null) && pmin.getValue() != null && pmax.getValue() != null
+                && (Long) pmin.getValue() > (Long) pmax.getValue()) {
             throw new IllegalArgumentException(String.format("Cannot write attributes where '%s' > '%s'",
                     pmin.getCoRELinkParam(), pmax.getCoRELinkParam()));
         }
 
         Attribute epmin = attributeMap.get(Attribute.EVALUATE_MINIMUM_PERIOD);
         Attribute epmax = attributeMap.get(Attribute.EVALUATE_MAXIMUM_PERIOD);
-        if ((epmin != null) && (epmax != null) && (Long) epmin.getValue() > (Long) epmax.getValue()) {
+        if ((epmin != null) && (epmax != null) && epmin.getValue() != null && epmax.getValue() != null
+                && (Long) epmin.getValue() > (Long) epmax.getValue()) {
             throw new IllegalArgumentException(String.format("Cannot write attributes where '%s' > '%s'",
                     epmin.getCoRELinkParam(), epmax.getCoRELinkParam()));
         }
@@ -42,6 +42,8 @@ import org.xml.sax.SAXException;
 
 /**
  * A parser for Object DDF files.
+ * <p>
+ * A parser can be used by several threads concurrently.
  */
 public class DDFFileParser {
 
@@ -81,6 +83,13 @@ public class DDFFileParser {
         this.ddfValidatorFactory = ddfFileValidatorFactory;
     }
 
+    /**
+     * @return true if DDF files are validated against the LWM2M schema.
+     */
+    boolean isValidating() {
+        return ddfValidator != null || ddfValidatorFactory != null;
+    }
+
     /**
      * Parse a DDF file.
      * 
@@ -109,7 +118,11 @@ public class DDFFileParser {
 
         try {
             // Parse XML file
-            DocumentBuilder builder = factory.newDocumentBuilder();
+            DocumentBuilder builder;
+            // DocumentBuilderFactory is not thread-safe
+            synchronized (factory) {
+                builder = factory.newDocumentBuilder();
+            }
             Document document = builder.parse(inputStream);
 
             // Get DDF file validator
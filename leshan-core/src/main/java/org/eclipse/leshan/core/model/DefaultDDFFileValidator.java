@@ -17,6 +17,8 @@ package org.eclipse.leshan.core.model;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
@@ -43,6 +45,9 @@ public class DefaultDDFFileValidator implements DDFFileValidator {
     private static String LWM2M_V1_0_SCHEMA_PATH = "/schemas/LWM2M.xsd";
     private static String LWM2M_V1_1_SCHEMA_PATH = "/schemas/LWM2M-v1_1.xsd";
 
+    // compiled schemas by path, a Schema is thread-safe and can be shared by all validators
+    private static final Map<String, Schema> SCHEMAS = new ConcurrentHashMap<>();
+
     private final String schema;
 
     /**
@@ -89,13 +94,20 @@ public class DefaultDDFFileValidator implements DDFFileValidator {
 
     /**
      * Get the Embedded the LWM2M.xsd Schema.
+     * <p>
+     * The schema is compiled once and then shared by all validators using the same LWM2M version.
      * 
      * @throws SAXException see {@link SchemaFactory#newSchema(Source)}
      */
     protected Schema getEmbeddedLwM2mSchema() throws SAXException {
-        InputStream inputStream = DDFFileValidator.class.getResourceAsStream(schema);
-        Source source = new StreamSource(inputStream);
-        SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
-        return schemaFactory.newSchema(source);
+        Schema compiledSchema = SCHEMAS.get(schema);
+        if (compiledSchema == null) {
+            InputStream inputStream = DDFFileValidator.class.getResourceAsStream(schema);
+            Source source = new StreamSource(inputStream);
+            SchemaFactory schemaFactory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            compiledSchema = schemaFactory.newSchema(source);
+            SCHEMAS.put(schema, compiledSchema);
+        }
+        return compiledSchema;
     }
 }
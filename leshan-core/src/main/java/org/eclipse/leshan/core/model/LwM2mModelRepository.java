@@ -20,7 +20,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.TreeMap;
 
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
@@ -34,8 +33,8 @@ public class LwM2mModelRepository {
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mModelRepository.class);
 
     // This map contains all the object models available. Different version could be used.
-    // This map is indexed by a string composed of objectid and version (objectid##version)
-    private final Map<String, ObjectModel> objects;
+    // This map is indexed by object id, each entry contains all the versions of this object.
+    private final Map<Integer, ObjectModel[]> objects;
 
     public LwM2mModelRepository(ObjectModel... objectModels) {
         this(Arrays.asList(objectModels));
@@ -43,19 +42,26 @@ public class LwM2mModelRepository {
 
     public LwM2mModelRepository(Collection<ObjectModel> objectModels) {
         if (objectModels == null) {
-            objects = new TreeMap<>();
+            objects = Collections.emptyMap();
         } else {
-            Map<String, ObjectModel> map = new HashMap<>();
+            Map<Integer, ObjectModel[]> map = new HashMap<>();
             for (ObjectModel model : objectModels) {
-                String key = getKey(model);
-                if (key == null) {
+                if (model.id == null) {
                     throw new IllegalArgumentException(
                             String.format("Model %s is invalid : object id is missing.", model));
                 }
-                ObjectModel old = map.put(key, model);
-                if (old != null) {
+                ObjectModel[] versions = map.get(model.id);
+                int index = versions == null ? -1 : indexOf(versions, model.version);
+                if (index >= 0) {
                     LOG.debug("Model already exists for object {} in version {}. Overriding it.", model.id,
                             model.version);
+                    versions[index] = model;
+                } else if (versions == null) {
+                    map.put(model.id, new ObjectModel[] { model });
+                } else {
+                    ObjectModel[] newVersions = Arrays.copyOf(versions, versions.length + 1);
+                    newVersions[versions.length] = model;
+                    map.put(model.id, newVersions);
                 }
             }
             objects = Collections.unmodifiableMap(map);
@@ -66,17 +72,20 @@ public class LwM2mModelRepository {
         Validate.notNull(objectId, "objectid must not be null");
         Validate.notNull(version, "version must not be null");
 
-        return objects.get(getKey(objectId, version));
-    }
-
-    private String getKey(ObjectModel objectModel) {
-        return getKey(objectModel.id, objectModel.version);
+        ObjectModel[] versions = objects.get(objectId);
+        if (versions == null)
+            return null;
+        int index = indexOf(versions, version);
+        return index >= 0 ? versions[index] : null;
     }
 
-    private String getKey(Integer objectId, String version) {
-        if (objectId == null) {
-            return null;
+    private static int indexOf(ObjectModel[] versions, String version) {
+        // there is generally only a few versions of an object
+        for (int i = 0; i < versions.length; i++) {
+            if (version == null ? versions[i].version == null : version.equals(versions[i].version)) {
+                return i;
+            }
         }
-        return objectId + "##" + version;
+        return -1;
     }
 }
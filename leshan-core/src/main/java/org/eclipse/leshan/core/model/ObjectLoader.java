@@ -15,18 +15,30 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.model;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
 
 import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
 import org.eclipse.leshan.core.util.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -197,6 +209,7 @@ public class ObjectLoader {
      * <p>
      * It should be used to load DDF embedded with your application bundle (e.g. jar, war, ...)
      * <p>
+     * DDF files are parsed in parallel.
      * 
      * @param path directory path to the DDF files
      * @param filenames names of all the DDF files
@@ -209,18 +222,11 @@ public class ObjectLoader {
      */
     public static List<ObjectModel> loadDdfResources(String path, String[] filenames, DDFFileParser ddfFileParser,
             ObjectModelValidator modelValidator) throws IOException, InvalidModelException, InvalidDDFFileException {
-        List<ObjectModel> models = new ArrayList<>();
+        List<String> paths = new ArrayList<>(filenames.length);
         for (String filename : filenames) {
-            String fullpath = StringUtils.removeEnd(path, "/") + "/" + StringUtils.removeStart(filename, "/");
-            InputStream input = ObjectLoader.class.getResourceAsStream(fullpath);
-            if (input != null) {
-                models.addAll(loadDdfFile(input, fullpath, ddfFileParser, modelValidator));
-            } else {
-                throw new FileNotFoundException(String.format("%s not found", fullpath));
-            }
-
+            paths.add(StringUtils.removeEnd(path, "/") + "/" + StringUtils.removeStart(filename, "/"));
         }
-        return models;
+        return loadDdfResources(paths, ddfFileParser, modelValidator);
     }
 
     /**
@@ -265,6 +271,7 @@ public class ObjectLoader {
      * <p>
      * It should be used to load DDF embedded with your application bundle (e.g. jar, war, ...)
      * <p>
+     * DDF files are parsed in parallel.
      * 
      * @param paths An array of paths to DDF files.
      * @param ddfFileParser a ddfFileParser which could do validation optionally.
@@ -275,14 +282,30 @@ public class ObjectLoader {
      */
     public static List<ObjectModel> loadDdfResources(String[] paths, DDFFileParser ddfFileParser,
             ObjectModelValidator modelValidator) throws IOException, InvalidModelException, InvalidDDFFileException {
+        return loadDdfResources(Arrays.asList(paths), ddfFileParser, modelValidator);
+    }
+
+    private static List<ObjectModel> loadDdfResources(List<String> paths, final DDFFileParser ddfFileParser,
+            final ObjectModelValidator modelValidator)
+            throws IOException, InvalidModelException, InvalidDDFFileException {
+        List<Callable<List<ObjectModel>>> tasks = new ArrayList<>(paths.size());
+        for (final String path : paths) {
+            tasks.add(new Callable<List<ObjectModel>>() {
+                @Override
+                public List<ObjectModel> call() throws Exception {
+                    try (InputStream input = ObjectLoader.class.getResourceAsStream(path)) {
+                        if (input == null) {
+                            throw new FileNotFoundException(String.format("%s not found", path));
+                        }
+                        return loadDdfFile(input, path, ddfFileParser, modelValidator);
+                    }
+                }
+            });
+        }
+
         List<ObjectModel> models = new ArrayList<>();
-        for (String path : paths) {
-            InputStream input = ObjectLoader.class.getResourceAsStream(path);
-            if (input != null) {
-                models.addAll(loadDdfFile(input, path, ddfFileParser, modelValidator));
-            } else {
-                throw new FileNotFoundException(String.format("%s not found", path));
-            }
+        for (List<ObjectModel> fileModels : invokeAll(tasks)) {
+            models.addAll(fileModels);
         }
         return models;
     }
@@ -326,6 +349,43 @@ public class ObjectLoader {
      */
     public static List<ObjectModel> loadObjectsFromDir(File modelsDir, DDFFileParser ddfFileParser,
             ObjectModelValidator modelValidator) {
+        return loadObjectsFromDir(modelsDir, null, ddfFileParser, modelValidator);
+    }
+
+    /**
+     * Load object definitions from directory, using a binary cache of the models parsed during a previous load.
+     * <p>
+     * Invalid model will be logged and ignored.
+     * 
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param cacheFile the model cache file or {@code null} to not use any cache, see
+     *        {@link #loadObjectsFromDir(File, File, DDFFileParser, ObjectModelValidator)}.
+     * @param validate true if you want model validation. Validation is not free and it could make sense to not validate
+     *        model if you already trust it.
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, File cacheFile, boolean validate) {
+        return loadObjectsFromDir(modelsDir, cacheFile,
+                new DDFFileParser(validate ? new DefaultDDFFileValidatorFactory() : null),
+                validate ? new DefaultObjectModelValidator() : null);
+    }
+
+    /**
+     * Load object definitions from directory, using a binary cache of the models parsed during a previous load.
+     * <p>
+     * The cache file stores the models of each DDF file with a checksum of its content : only DDF files which are not
+     * in the cache or which changed since the cache was written are parsed, then the cache file is updated. A missing
+     * or unreadable cache file is ignored.
+     * <p>
+     * DDF files are parsed in parallel. Invalid model will be logged and ignored.
+     * 
+     * @param modelsDir the directory containing all the ddf file definition.
+     * @param cacheFile the model cache file or {@code null} to not use any cache.
+     * @param ddfFileParser a ddfFileParser which could do validation optionally.
+     * @param modelValidator an Object model validator to ensure model is valid, see
+     *        {@link DefaultObjectModelValidator}. If {@code null} then there will be no validation.
+     */
+    public static List<ObjectModel> loadObjectsFromDir(File modelsDir, File cacheFile, DDFFileParser ddfFileParser,
+            ObjectModelValidator modelValidator) {
         List<ObjectModel> models = new ArrayList<>();
 
         // check if the folder is usable
@@ -333,24 +393,137 @@ public class ObjectLoader {
             LOG.error(MessageFormat.format(
                     "Models folder {0} is not a directory or you are not allowed to list its content",
                     modelsDir.getPath()));
-        } else {
-            // get all files
-            for (File file : modelsDir.listFiles()) {
-                if (!file.canRead())
-                    continue;
+            return models;
+        }
 
-                if (file.getName().endsWith(".xml")) {
-                    // from DDF file
-                    LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
-                    try (FileInputStream input = new FileInputStream(file)) {
-                        models.addAll(loadDdfFile(input, file.getName(), ddfFileParser, modelValidator));
-                    } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
-                        LOG.warn(MessageFormat.format("Unable to load object models for {0}", file.getAbsolutePath()),
-                                e);
-                    }
+        DDFFileParser parser = ddfFileParser != null ? ddfFileParser : new DDFFileParser();
+        boolean validated = parser.isValidating() || modelValidator != null;
+        Map<String, ObjectModelCache.Entry> cache = cacheFile != null ? ObjectModelCache.read(cacheFile, validated)
+                : Collections.<String, ObjectModelCache.Entry> emptyMap();
+
+        // get all files
+        List<Callable<ObjectModelCache.Entry>> tasks = new ArrayList<>();
+        for (File file : modelsDir.listFiles()) {
+            if (file.canRead() && file.getName().endsWith(".xml")) {
+                tasks.add(new DdfFileLoader(file, cache.get(file.getName()), parser, modelValidator));
+            }
+        }
+
+        List<ObjectModelCache.Entry> entries = new ArrayList<>(tasks.size());
+        boolean cacheChanged = false;
+        try {
+            for (ObjectModelCache.Entry entry : invokeAll(tasks)) {
+                if (entry != null) {
+                    entries.add(entry);
+                    models.addAll(entry.models);
+                    cacheChanged |= cache.get(entry.filename) != entry;
                 }
             }
+        } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+            // DdfFileLoader does not throw those exceptions, except if loading is interrupted
+            LOG.warn(MessageFormat.format("Unable to load object models from {0}", modelsDir.getAbsolutePath()), e);
+            return models;
+        }
+
+        if (cacheFile != null && (cacheChanged || entries.size() != cache.size())) {
+            ObjectModelCache.write(cacheFile, validated, entries);
         }
         return models;
     }
+
+    /**
+     * Load the object models of a DDF file or reuse the cached one if the file did not change.
+     */
+    private static class DdfFileLoader implements Callable<ObjectModelCache.Entry> {
+        private final File file;
+        private final ObjectModelCache.Entry cached;
+        private final DDFFileParser ddfFileParser;
+        private final ObjectModelValidator modelValidator;
+
+        public DdfFileLoader(File file, ObjectModelCache.Entry cached, DDFFileParser ddfFileParser,
+                ObjectModelValidator modelValidator) {
+            this.file = file;
+            this.cached = cached;
+            this.ddfFileParser = ddfFileParser;
+            this.modelValidator = modelValidator;
+        }
+
+        @Override
+        public ObjectModelCache.Entry call() {
+            try {
+                byte[] content = new byte[(int) file.length()];
+                try (DataInputStream input = new DataInputStream(new FileInputStream(file))) {
+                    input.readFully(content);
+                }
+                CRC32 crc = new CRC32();
+                crc.update(content);
+                long checksum = crc.getValue();
+                if (cached != null && cached.checksum == checksum) {
+                    LOG.debug("Loading object models of DDF file {} from cache", file.getAbsolutePath());
+                    return cached;
+                }
+
+                // from DDF file
+                LOG.debug("Loading object models from DDF file {}", file.getAbsolutePath());
+                List<ObjectModel> models = loadDdfFile(new ByteArrayInputStream(content), file.getName(),
+                        ddfFileParser, modelValidator);
+                return new ObjectModelCache.Entry(file.getName(), checksum, models);
+            } catch (IOException | InvalidModelException | InvalidDDFFileException e) {
+                LOG.warn(MessageFormat.format("Unable to load object models for {0}", file.getAbsolutePath()), e);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Run all the tasks, in parallel if several processors are available, and return their results in the same order.
+     * The first exception raised by a task is rethrown.
+     */
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks)
+            throws IOException, InvalidModelException, InvalidDDFFileException {
+        List<T> results = new ArrayList<>(tasks.size());
+        int nbThreads = Math.min(tasks.size(), Runtime.getRuntime().availableProcessors());
+        if (nbThreads <= 1) {
+            for (Callable<T> task : tasks) {
+                try {
+                    results.add(task.call());
+                } catch (Exception e) {
+                    throw rethrow(e);
+                }
+            }
+            return results;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(nbThreads, new NamedThreadFactory("DDF parser %d"));
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    throw rethrow(e.getCause());
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading object models");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static IOException rethrow(Throwable e) throws InvalidModelException, InvalidDDFFileException {
+        if (e instanceof IOException) {
+            return (IOException) e;
+        } else if (e instanceof InvalidModelException) {
+            throw (InvalidModelException) e;
+        } else if (e instanceof InvalidDDFFileException) {
+            throw (InvalidDDFFileException) e;
+        } else if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        }
+        throw new IllegalStateException("Unexpected exception while loading object models", e);
+    }
 }
@@ -21,6 +21,8 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.eclipse.leshan.core.node.codec.ObjectCodecPlan;
+
 /**
  * An object description.
  * 
@@ -49,6 +51,9 @@ public class ObjectModel {
 
     public final Map<Integer, ResourceModel> resources; // resources by ID
 
+    // built lazily by getCodecPlan()
+    private volatile ObjectCodecPlan codecPlan;
+
     public ObjectModel(Integer id, String name, String description, String version, Boolean multiple, Boolean mandatory,
             ResourceModel... resources) {
         this(id, name, description, version, multiple, mandatory, Arrays.asList(resources));
@@ -85,6 +90,22 @@ public class ObjectModel {
         this.resources = Collections.unmodifiableMap(resourcesMap);
     }
 
+    /**
+     * Get the {@link ObjectCodecPlan} used by node encoders and decoders for this object. The plan is built on first
+     * call and kept by this model.
+     *
+     * @return the codec plan of this object model.
+     */
+    public ObjectCodecPlan getCodecPlan() {
+        ObjectCodecPlan plan = codecPlan;
+        if (plan == null) {
+            // plans are immutable, so building one twice on concurrent calls is harmless
+            plan = new ObjectCodecPlan(this);
+            codecPlan = plan;
+        }
+        return plan;
+    }
+
     public boolean isOmaObject() {
         return id >= OMA_OBJECT_MIN_ID && id <= OMA_OBJECT_MAX_ID;
     }
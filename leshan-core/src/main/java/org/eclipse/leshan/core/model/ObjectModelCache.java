@@ -0,0 +1,231 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A binary cache of the {@link ObjectModel}s parsed from DDF files.
+ * <p>
+ * Models are stored by DDF file name with the CRC32 checksum of the file content, so a DDF file is parsed again only if
+ * its content changed since the cache was written. The cache also records whether models were validated when they
+ * were parsed : a cache written without validation is ignored when validation is required.
+ * 
+ * @see ObjectLoader#loadObjectsFromDir(File, File, DDFFileParser, ObjectModelValidator)
+ */
+class ObjectModelCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ObjectModelCache.class);
+
+    // "LDDF" followed by the version of the format
+    private static final int MAGIC = 0x4C444446;
+    private static final int FORMAT_VERSION = 1;
+    // guard against corrupted length
+    private static final int MAX_STRING_LENGTH = 1024 * 1024;
+
+    /**
+     * The models of a DDF file with the checksum of its content.
+     */
+    static class Entry {
+        final String filename;
+        final long checksum;
+        final List<ObjectModel> models;
+
+        Entry(String filename, long checksum, List<ObjectModel> models) {
+            this.filename = filename;
+            this.checksum = checksum;
+            this.models = models;
+        }
+    }
+
+    /**
+     * Read a cache file.
+     * 
+     * @param cacheFile the cache file to read.
+     * @param validated true if only models which were validated are expected.
+     * @return entries by DDF file name, an empty map if the file does not exist or can not be used.
+     */
+    static Map<String, Entry> read(File cacheFile, boolean validated) {
+        if (!cacheFile.isFile()) {
+            return Collections.emptyMap();
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cacheFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION) {
+                LOG.warn("Ignoring model cache file {} : unsupported format", cacheFile.getAbsolutePath());
+                return Collections.emptyMap();
+            }
+            boolean cacheValidated = in.readBoolean();
+            if (validated && !cacheValidated) {
+                LOG.debug("Ignoring model cache file {} : models were not validated", cacheFile.getAbsolutePath());
+                return Collections.emptyMap();
+            }
+            int nbEntries = in.readInt();
+            Map<String, Entry> entries = new HashMap<>();
+            for (int i = 0; i < nbEntries; i++) {
+                String filename = readString(in);
+                long checksum = in.readLong();
+                int nbModels = in.readInt();
+                List<ObjectModel> models = new ArrayList<>(nbModels);
+                for (int j = 0; j < nbModels; j++) {
+                    models.add(readObjectModel(in));
+                }
+                entries.put(filename, new Entry(filename, checksum, models));
+            }
+            return entries;
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Ignoring model cache file {} : unable to read it", cacheFile.getAbsolutePath(), e);
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Write a cache file. The content is first written to a temporary file which then replaces the cache file, so a
+     * concurrent reader never sees a partially written cache.
+     * 
+     * @param cacheFile the cache file to write.
+     * @param validated true if models were validated.
+     * @param entries the entries to store.
+     */
+    static void write(File cacheFile, boolean validated, List<Entry> entries) {
+        File tmpFile = new File(cacheFile.getPath() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(new FileOutputStream(tmpFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeBoolean(validated);
+                out.writeInt(entries.size());
+                for (Entry entry : entries) {
+                    writeString(out, entry.filename);
+                    out.writeLong(entry.checksum);
+                    out.writeInt(entry.models.size());
+                    for (ObjectModel model : entry.models) {
+                        writeObjectModel(out, model);
+                    }
+                }
+            }
+            // renameTo does not replace an existing file on all platforms
+            if (cacheFile.exists() && !cacheFile.delete() || !tmpFile.renameTo(cacheFile)) {
+                throw new IOException("Unable to replace " + cacheFile.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            LOG.warn("Unable to write model cache file {}", cacheFile.getAbsolutePath(), e);
+            tmpFile.delete();
+        }
+    }
+
+    private static void writeObjectModel(DataOutputStream out, ObjectModel model) throws IOException {
+        out.writeInt(model.id);
+        writeString(out, model.name);
+        writeString(out, model.description);
+        writeString(out, model.version);
+        writeBoolean(out, model.multiple);
+        writeBoolean(out, model.mandatory);
+        writeString(out, model.urn);
+        writeString(out, model.lwm2mVersion);
+        writeString(out, model.description2);
+        out.writeInt(model.resources.size());
+        for (ResourceModel resource : model.resources.values()) {
+            out.writeInt(resource.id);
+            writeString(out, resource.name);
+            out.writeByte(resource.operations == null ? -1 : resource.operations.ordinal());
+            writeBoolean(out, resource.multiple);
+            writeBoolean(out, resource.mandatory);
+            out.writeByte(resource.type == null ? -1 : resource.type.ordinal());
+            writeString(out, resource.rangeEnumeration);
+            writeString(out, resource.units);
+            writeString(out, resource.description);
+        }
+    }
+
+    private static ObjectModel readObjectModel(DataInputStream in) throws IOException {
+        int id = in.readInt();
+        String name = readString(in);
+        String description = readString(in);
+        String version = readString(in);
+        Boolean multiple = readBoolean(in);
+        Boolean mandatory = readBoolean(in);
+        String urn = readString(in);
+        String lwm2mVersion = readString(in);
+        String description2 = readString(in);
+        int nbResources = in.readInt();
+        List<ResourceModel> resources = new ArrayList<>(nbResources);
+        for (int i = 0; i < nbResources; i++) {
+            int resourceId = in.readInt();
+            String resourceName = readString(in);
+            byte operations = in.readByte();
+            Boolean resourceMultiple = readBoolean(in);
+            Boolean resourceMandatory = readBoolean(in);
+            byte type = in.readByte();
+            resources.add(new ResourceModel(resourceId, resourceName,
+                    operations < 0 ? null : Operations.values()[operations], resourceMultiple, resourceMandatory,
+                    type < 0 ? null : Type.values()[type], readString(in), readString(in), readString(in)));
+        }
+        return new ObjectModel(id, name, description, version, multiple, mandatory, resources, urn, lwm2mVersion,
+                description2);
+    }
+
+    // DataOutputStream.writeUTF is limited to 64KB and does not support null
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        } else if (length > MAX_STRING_LENGTH) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBoolean(DataOutputStream out, Boolean value) throws IOException {
+        out.writeByte(value == null ? -1 : value ? 1 : 0);
+    }
+
+    private static Boolean readBoolean(DataInputStream in) throws IOException {
+        byte value = in.readByte();
+        return value < 0 ? null : value == 1;
+    }
+}
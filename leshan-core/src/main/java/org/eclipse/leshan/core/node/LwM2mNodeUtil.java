@@ -151,7 +151,7 @@ public class LwM2mNodeUtil {
         case OPAQUE:
             // We don't print OPAQUE value as this could be credentials one.
             // Not ideal but didn't find better way for now.
-            b.append(((byte[]) value).length).append(" Bytes");
+            b.append(OpaqueSlice.length(value)).append(" Bytes");
             break;
         default:
             b.append(value);
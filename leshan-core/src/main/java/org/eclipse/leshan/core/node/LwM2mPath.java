@@ -28,15 +28,31 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
     public static final byte RESOURCE_DEPTH = 4;
     public static final byte RESOURCE_INSTANCE_DEPTH = 5;
 
-    private final Integer objectId;
-    private final Integer objectInstanceId;
-    private final Integer resourceId;
-    private final Integer resourceInstanceId;
+    private final int objectId;
+    private final int objectInstanceId;
+    private final int resourceId;
+    private final int resourceInstanceId;
+    // ids deeper than depth are always 0
+    private final byte depth;
 
     public final static LwM2mPath ROOTPATH = new LwM2mPath();
 
+    // bounded cache used by valueOf(String), an entry is replaced on collision.
+    private static final int CACHE_SIZE = 1024;
+    private static final CacheEntry[] CACHE = new CacheEntry[CACHE_SIZE];
+
+    private static class CacheEntry {
+        private final String path;
+        private final LwM2mPath value;
+
+        private CacheEntry(String path, LwM2mPath value) {
+            this.path = path;
+            this.value = value;
+        }
+    }
+
     private LwM2mPath() {
-        this(null, null, null, null);
+        this(ROOT_DEPTH, 0, 0, 0, 0);
     }
 
     /**
@@ -45,7 +61,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @param objectId the object identifier
      */
     public LwM2mPath(int objectId) {
-        this(objectId, null, null, null);
+        this(OBJECT_DEPTH, objectId, 0, 0, 0);
         validate();
     }
 
@@ -56,7 +72,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @param objectInstanceId the instance identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId) {
-        this(objectId, objectInstanceId, null, null);
+        this(OBJECT_INSTANCE_DEPTH, objectId, objectInstanceId, 0, 0);
         validate();
     }
 
@@ -68,7 +84,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @param resourceId the resource identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId, int resourceId) {
-        this(objectId, objectInstanceId, resourceId, null);
+        this(RESOURCE_DEPTH, objectId, objectInstanceId, resourceId, 0);
         validate();
     }
 
@@ -81,7 +97,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @param resourceInstanceId the resource instance identifier
      */
     public LwM2mPath(int objectId, int objectInstanceId, int resourceId, int resourceInstanceId) {
-        this((Integer) objectId, (Integer) objectInstanceId, (Integer) resourceId, (Integer) resourceInstanceId);
+        this(RESOURCE_INSTANCE_DEPTH, objectId, objectInstanceId, resourceId, resourceInstanceId);
         validate();
     }
 
@@ -89,35 +105,130 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * Constructs a {@link LwM2mPath} from a string representation
      *
      * @param path the path (e.g. "/3/0/1" or "/3")
+     * @see #valueOf(String)
      */
     public LwM2mPath(String path) {
         Validate.notNull(path);
-        if (path.startsWith("/")) {
-            path = path.substring(1);
-        }
-        if (path.endsWith("/")) {
-            path = path.substring(0, path.length() - 1);
+        int start = 0;
+        int end = path.length();
+        if (start < end && path.charAt(start) == '/') {
+            start++;
         }
-        String[] p = path.split("/");
-        if (0 > p.length || p.length > 4) {
-            throw new IllegalArgumentException("Invalid length for path: " + path);
+        if (start < end && path.charAt(end - 1) == '/') {
+            end--;
         }
-        try {
-            this.objectId = (p.length >= 1 && !p[0].isEmpty()) ? Integer.valueOf(p[0]) : null;
-            this.objectInstanceId = (p.length >= 2) ? Integer.valueOf(p[1]) : null;
-            this.resourceId = (p.length >= 3) ? Integer.valueOf(p[2]) : null;
-            this.resourceInstanceId = (p.length == 4) ? Integer.valueOf(p[3]) : null;
-            validate();
-        } catch (NumberFormatException e) {
-            throw new IllegalArgumentException("Invalid elements in path: " + path, e);
+
+        // ids are parsed in place, without substring or split
+        int id0 = 0, id1 = 0, id2 = 0, id3 = 0;
+        int nbIds = 0;
+        int position = start;
+        while (position < end) {
+            if (nbIds == 4) {
+                throw new IllegalArgumentException("Invalid length for path: " + path);
+            }
+            // sign is accepted as Integer.parseInt does
+            boolean negative = false;
+            char first = path.charAt(position);
+            if (first == '-' || first == '+') {
+                negative = first == '-';
+                position++;
+            }
+            long value = 0;
+            int idStart = position;
+            for (; position < end && path.charAt(position) != '/'; position++) {
+                int digit = path.charAt(position) - '0';
+                if (digit < 0 || digit > 9 || value > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("Invalid elements in path: " + path);
+                }
+                value = value * 10 + digit;
+            }
+            if (position == idStart || value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                throw new IllegalArgumentException("Invalid elements in path: " + path);
+            }
+            int id = (int) (negative ? -value : value);
+            switch (nbIds++) {
+            case 0:
+                id0 = id;
+                break;
+            case 1:
+                id1 = id;
+                break;
+            case 2:
+                id2 = id;
+                break;
+            default:
+                id3 = id;
+                break;
+            }
+
+            // skip separator, which must be followed by an id
+            if (position < end && ++position == end) {
+                throw new IllegalArgumentException("Invalid elements in path: " + path);
+            }
         }
+
+        this.objectId = id0;
+        this.objectInstanceId = id1;
+        this.resourceId = id2;
+        this.resourceInstanceId = id3;
+        this.depth = (byte) (ROOT_DEPTH + nbIds);
+        validate();
     }
 
     protected LwM2mPath(Integer objectId, Integer objectInstanceId, Integer resourceId, Integer resourceInstanceId) {
+        this(depth(objectId, objectInstanceId, resourceId, resourceInstanceId), toInt(objectId),
+                toInt(objectInstanceId), toInt(resourceId), toInt(resourceInstanceId));
+    }
+
+    private LwM2mPath(byte depth, int objectId, int objectInstanceId, int resourceId, int resourceInstanceId) {
         this.objectId = objectId;
         this.objectInstanceId = objectInstanceId;
         this.resourceId = resourceId;
         this.resourceInstanceId = resourceInstanceId;
+        this.depth = depth;
+    }
+
+    private static byte depth(Integer objectId, Integer objectInstanceId, Integer resourceId,
+            Integer resourceInstanceId) {
+        if (objectId == null && objectInstanceId == null && resourceId == null && resourceInstanceId == null)
+            return ROOT_DEPTH;
+        if (objectId != null && objectInstanceId == null && resourceId == null && resourceInstanceId == null)
+            return OBJECT_DEPTH;
+        if (objectId != null && objectInstanceId != null && resourceId == null && resourceInstanceId == null)
+            return OBJECT_INSTANCE_DEPTH;
+        if (objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId == null)
+            return RESOURCE_DEPTH;
+        if (objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId != null)
+            return RESOURCE_INSTANCE_DEPTH;
+        throw new LwM2mNodeException("Invalid LWM2M path (%d,%d,%d,%d)", objectId, objectInstanceId, resourceId,
+                resourceInstanceId);
+    }
+
+    private static int toInt(Integer id) {
+        return id == null ? 0 : id;
+    }
+
+    /**
+     * Get the {@link LwM2mPath} of a string representation.
+     * <p>
+     * Unlike {@link #LwM2mPath(String)}, a bounded cache of already parsed paths is used, so frequently used paths
+     * (e.g. "/3/0/9") are not created again each time they are parsed.
+     *
+     * @param path the path (e.g. "/3/0/1" or "/3")
+     * @return the corresponding {@link LwM2mPath}
+     */
+    public static LwM2mPath valueOf(String path) {
+        Validate.notNull(path);
+        int hash = path.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (CACHE_SIZE - 1);
+        CacheEntry entry = CACHE[index];
+        if (entry != null && entry.path.equals(path)) {
+            return entry.value;
+        }
+        LwM2mPath value = new LwM2mPath(path);
+        // entries are immutable so there is no need to synchronize
+        CACHE[index] = new CacheEntry(path, value);
+        return value;
     }
 
     /**
@@ -126,7 +237,11 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @see LwM2mNodeUtil#validatePath(LwM2mPath)
      */
     protected void validate() {
-        LwM2mNodeUtil.validatePath(this);
+        // LwM2mNodeUtil is only used to report the error as ids deeper than depth are 0
+        if (objectId < 0 || objectId > 65535 || objectInstanceId < 0 || objectInstanceId > 65534 || resourceId < 0
+                || resourceId > 65535 || resourceInstanceId < 0 || resourceInstanceId > 65535) {
+            LwM2mNodeUtil.validatePath(this);
+        }
     }
 
     /**
@@ -137,8 +252,26 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
         LwM2mPath pathToAdd = new LwM2mPath(path);
         if (isRoot()) {
             return pathToAdd;
+        } else if (pathToAdd.isRoot()) {
+            return new LwM2mPath(depth, objectId, objectInstanceId, resourceId, resourceInstanceId);
         } else {
-            return new LwM2mPath(this.toString() + pathToAdd.toString());
+            int newDepth = depth + pathToAdd.depth - ROOT_DEPTH;
+            if (newDepth > RESOURCE_INSTANCE_DEPTH) {
+                throw new IllegalArgumentException("Invalid length for path: " + this + pathToAdd);
+            }
+            // ids of the path to add are shifted after the ids of this path, ids deeper than depth are 0
+            LwM2mPath result;
+            if (isObject()) {
+                result = new LwM2mPath((byte) newDepth, objectId, pathToAdd.objectId, pathToAdd.objectInstanceId,
+                        pathToAdd.resourceId);
+            } else if (isObjectInstance()) {
+                result = new LwM2mPath((byte) newDepth, objectId, objectInstanceId, pathToAdd.objectId,
+                        pathToAdd.objectInstanceId);
+            } else {
+                result = new LwM2mPath((byte) newDepth, objectId, objectInstanceId, resourceId, pathToAdd.objectId);
+            }
+            result.validate();
+            return result;
         }
     }
 
@@ -150,11 +283,11 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
         if (isRoot()) {
             return new LwM2mPath(end);
         } else if (isObject()) {
-            return new LwM2mPath(getObjectId(), end);
+            return new LwM2mPath(objectId, end);
         } else if (isObjectInstance()) {
-            return new LwM2mPath(getObjectId(), getObjectInstanceId(), end);
+            return new LwM2mPath(objectId, objectInstanceId, end);
         } else if (isResource()) {
-            return new LwM2mPath((int) getObjectId(), (int) getObjectInstanceId(), (int) getResourceId(), end);
+            return new LwM2mPath(objectId, objectInstanceId, resourceId, end);
         } else {
             throw new IllegalArgumentException(String.format(
                     "Unable to append Id(%d) to path %s. Resource instance level is the deeper one.", end, this));
@@ -166,31 +299,24 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return true if the current path start with the given path
      */
     public boolean startWith(LwM2mPath start) {
-        // object id
-        if (start.getObjectId() == null)
-            return true;
-        if (!start.getObjectId().equals(this.getObjectId())) {
+        if (start.depth > depth)
             return false;
-        }
-        // object instance id
-        if (start.getObjectInstanceId() == null)
-            return true;
-        if (!start.getObjectInstanceId().equals(this.getObjectInstanceId())) {
-            return false;
-        }
-        // resource id
-        if (start.getResourceId() == null)
-            return true;
-        if (!start.getResourceId().equals(this.getResourceId())) {
-            return false;
-        }
-        // resource instance id
-        if (start.getResourceInstanceId() == null)
+        // ids deeper than depth are 0
+        switch (start.depth) {
+        case RESOURCE_INSTANCE_DEPTH:
+            if (start.resourceInstanceId != resourceInstanceId)
+                return false;
+        case RESOURCE_DEPTH:
+            if (start.resourceId != resourceId)
+                return false;
+        case OBJECT_INSTANCE_DEPTH:
+            if (start.objectInstanceId != objectInstanceId)
+                return false;
+        case OBJECT_DEPTH:
+            return start.objectId == objectId;
+        default:
             return true;
-        if (!start.getResourceInstanceId().equals(this.getResourceInstanceId())) {
-            return false;
         }
-        return true;
     }
 
     /**
@@ -199,7 +325,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return the object ID. Can be <code>null</code> when this is an root path.
      */
     public Integer getObjectId() {
-        return objectId;
+        return depth >= OBJECT_DEPTH ? objectId : null;
     }
 
     /**
@@ -208,7 +334,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return the object instance ID. Can be <code>null</code> when this is an root/object path.
      */
     public Integer getObjectInstanceId() {
-        return objectInstanceId;
+        return depth >= OBJECT_INSTANCE_DEPTH ? objectInstanceId : null;
     }
 
     /**
@@ -217,7 +343,7 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return the resource ID. Can be <code>null</code> when this is a root/object/object instance path.
      */
     public Integer getResourceId() {
-        return resourceId;
+        return depth >= RESOURCE_DEPTH ? resourceId : null;
     }
 
     /**
@@ -227,50 +353,99 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      *         path.
      */
     public Integer getResourceInstanceId() {
+        return depth >= RESOURCE_INSTANCE_DEPTH ? resourceInstanceId : null;
+    }
+
+    /**
+     * Returns the object ID in the path, without boxing it as {@link #getObjectId()} does.
+     *
+     * @return the object ID.
+     * @exception IllegalStateException if this is a root path.
+     */
+    public int getObjectIdAsInt() {
+        checkDepth(OBJECT_DEPTH);
+        return objectId;
+    }
+
+    /**
+     * Returns the object instance ID in the path, without boxing it as {@link #getObjectInstanceId()} does.
+     *
+     * @return the object instance ID.
+     * @exception IllegalStateException if this is a root/object path.
+     */
+    public int getObjectInstanceIdAsInt() {
+        checkDepth(OBJECT_INSTANCE_DEPTH);
+        return objectInstanceId;
+    }
+
+    /**
+     * Returns the resource ID in the path, without boxing it as {@link #getResourceId()} does.
+     *
+     * @return the resource ID.
+     * @exception IllegalStateException if this is a root/object/object instance path.
+     */
+    public int getResourceIdAsInt() {
+        checkDepth(RESOURCE_DEPTH);
+        return resourceId;
+    }
+
+    /**
+     * Returns the resource instance ID in the path, without boxing it as {@link #getResourceInstanceId()} does.
+     *
+     * @return the resource instance ID.
+     * @exception IllegalStateException if this is a root/object/object instance/resource path.
+     */
+    public int getResourceInstanceIdAsInt() {
+        checkDepth(RESOURCE_INSTANCE_DEPTH);
         return resourceInstanceId;
     }
 
+    private void checkDepth(int minDepth) {
+        if (depth < minDepth)
+            throw new IllegalStateException(String.format("%s does not contain this id", this));
+    }
+
     /**
      * @return <code>true</code> if this is the root path ("/").
      */
     public boolean isRoot() {
-        return objectId == null && objectInstanceId == null && resourceId == null && resourceInstanceId == null;
+        return depth == ROOT_DEPTH;
     }
 
     /**
      * @return <code>true</code> if this is an Object path.
      */
     public boolean isObject() {
-        return objectId != null && objectInstanceId == null && resourceId == null && resourceInstanceId == null;
+        return depth == OBJECT_DEPTH;
     }
 
     /**
      * @return <code>true</code> if this is an ObjectInstance path.
      */
     public boolean isObjectInstance() {
-        return objectId != null && objectInstanceId != null && resourceId == null && resourceInstanceId == null;
+        return depth == OBJECT_INSTANCE_DEPTH;
     }
 
     /**
      * @return <code>true</code> if this is a Resource path.
      */
     public boolean isResource() {
-        return objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId == null;
+        return depth == RESOURCE_DEPTH;
     }
 
     /**
      * @return <code>true</code> if this is a Resource instance path.
      */
     public boolean isResourceInstance() {
-        return objectId != null && objectInstanceId != null && resourceId != null && resourceInstanceId != null;
+        return depth == RESOURCE_INSTANCE_DEPTH;
     }
 
     /**
      * @return a new {@link LwM2mPath} targeting an object from current path.
      */
     public LwM2mPath toObjectPath() {
-        if (getObjectId() != null)
-            return new LwM2mPath(getObjectId());
+        if (depth >= OBJECT_DEPTH)
+            return new LwM2mPath(objectId);
         throw new IllegalStateException(String.format("an object path can not be created from %s", this));
     }
 
@@ -278,8 +453,8 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return a new {@link LwM2mPath} targeting an object instance from current path.
      */
     public LwM2mPath toObjectInstancePath() {
-        if (getObjectInstanceId() != null)
-            return new LwM2mPath(getObjectId(), getObjectInstanceId());
+        if (depth >= OBJECT_INSTANCE_DEPTH)
+            return new LwM2mPath(objectId, objectInstanceId);
         throw new IllegalStateException(String.format("an object instance path can not be created from %s", this));
     }
 
@@ -287,8 +462,8 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      * @return a new {@link LwM2mPath} targeting an resource from current path.
      */
     public LwM2mPath toResourcePath() {
-        if (getResourceId() != null)
-            return new LwM2mPath(getObjectId(), getObjectInstanceId(), getResourceId());
+        if (depth >= RESOURCE_DEPTH)
+            return new LwM2mPath(objectId, objectInstanceId, resourceId);
         throw new IllegalStateException(String.format("an resource path can not be created from %s", this));
     }
 
@@ -297,16 +472,16 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
      */
     @Override
     public String toString() {
-        StringBuilder b = new StringBuilder();
-        b.append("/");
-        if (getObjectId() != null) {
-            b.append(getObjectId());
-            if (getObjectInstanceId() != null) {
-                b.append("/").append(getObjectInstanceId());
-                if (getResourceId() != null) {
-                    b.append("/").append(getResourceId());
-                    if (getResourceInstanceId() != null) {
-                        b.append("/").append(getResourceInstanceId());
+        StringBuilder b = new StringBuilder(24);
+        b.append('/');
+        if (depth >= OBJECT_DEPTH) {
+            b.append(objectId);
+            if (depth >= OBJECT_INSTANCE_DEPTH) {
+                b.append('/').append(objectInstanceId);
+                if (depth >= RESOURCE_DEPTH) {
+                    b.append('/').append(resourceId);
+                    if (depth >= RESOURCE_INSTANCE_DEPTH) {
+                        b.append('/').append(resourceInstanceId);
                     }
                 }
             }
@@ -318,10 +493,11 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
     public int hashCode() {
         final int prime = 31;
         int result = 1;
+        result = prime * result + depth;
         result = prime * result + objectId;
-        result = prime * result + ((objectInstanceId == null) ? 0 : objectInstanceId.hashCode());
-        result = prime * result + ((resourceId == null) ? 0 : resourceId.hashCode());
-        result = prime * result + ((resourceInstanceId == null) ? 0 : resourceInstanceId.hashCode());
+        result = prime * result + objectInstanceId;
+        result = prime * result + resourceId;
+        result = prime * result + resourceInstanceId;
         return result;
     }
 
@@ -337,63 +513,39 @@ public class LwM2mPath implements Comparable<LwM2mPath> {
             return false;
         }
         LwM2mPath other = (LwM2mPath) obj;
-        if (objectId == null) {
-            if (other.objectId != null) {
-                return false;
-            }
-        } else if (!objectId.equals(other.objectId)) {
-            return false;
-        }
-        if (objectInstanceId == null) {
-            if (other.objectInstanceId != null) {
-                return false;
-            }
-        } else if (!objectInstanceId.equals(other.objectInstanceId)) {
-            return false;
-        }
-        if (resourceId == null) {
-            if (other.resourceId != null) {
-                return false;
-            }
-        } else if (!resourceId.equals(other.resourceId)) {
-            return false;
-        }
-        if (resourceInstanceId == null) {
-            if (other.resourceInstanceId != null) {
-                return false;
-            }
-        } else if (!resourceInstanceId.equals(other.resourceInstanceId)) {
-            return false;
-        }
-        return true;
+        return depth == other.depth && objectId == other.objectId && objectInstanceId == other.objectInstanceId
+                && resourceId == other.resourceId && resourceInstanceId == other.resourceInstanceId;
     }
 
     @Override
     public int compareTo(LwM2mPath o) {
-        int res = compareInteger(this.objectId, o.objectId);
-        if (res != 0 || this.objectId == null)
+        // a missing id is smaller than any id
+        int res = compareId(this.depth >= OBJECT_DEPTH, this.objectId, o.depth >= OBJECT_DEPTH, o.objectId);
+        if (res != 0 || this.depth < OBJECT_DEPTH)
             return res;
 
-        res = compareInteger(this.objectInstanceId, o.objectInstanceId);
-        if (res != 0 || this.objectInstanceId == null)
+        res = compareId(this.depth >= OBJECT_INSTANCE_DEPTH, this.objectInstanceId, o.depth >= OBJECT_INSTANCE_DEPTH,
+                o.objectInstanceId);
+        if (res != 0 || this.depth < OBJECT_INSTANCE_DEPTH)
             return res;
 
-        res = compareInteger(this.resourceId, o.resourceId);
-        if (res != 0 || this.resourceId == null)
+        res = compareId(this.depth >= RESOURCE_DEPTH, this.resourceId, o.depth >= RESOURCE_DEPTH, o.resourceId);
+        if (res != 0 || this.depth < RESOURCE_DEPTH)
             return res;
 
-        return compareInteger(this.resourceInstanceId, o.resourceInstanceId);
+        return compareId(this.depth >= RESOURCE_INSTANCE_DEPTH, this.resourceInstanceId,
+                o.depth >= RESOURCE_INSTANCE_DEPTH, o.resourceInstanceId);
     }
 
-    private int compareInteger(Integer i1, Integer i2) {
-        if (i1 == i2) {
-            return 0;
-        } else if (i1 == null) {
-            return -1;
-        } else if (i2 == null) {
+    private int compareId(boolean hasId1, int id1, boolean hasId2, int id2) {
+        if (hasId1 && hasId2) {
+            return Integer.compare(id1, id2);
+        } else if (hasId1) {
             return 1;
+        } else if (hasId2) {
+            return -1;
         } else {
-            return i1.compareTo(i2);
+            return 0;
         }
     }
 
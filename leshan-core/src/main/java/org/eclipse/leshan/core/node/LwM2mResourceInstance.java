@@ -15,7 +15,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Date;
 
 import org.eclipse.leshan.core.model.ResourceModel.Type;
@@ -35,7 +35,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
         LwM2mNodeUtil.validateResourceInstanceId(id);
 
         this.id = id;
-        this.value = value;
+        this.value = value instanceof ByteBuffer ? OpaqueSlice.of((ByteBuffer) value) : value;
         this.type = type;
     }
 
@@ -51,7 +51,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
         if (value instanceof Boolean) {
             return new LwM2mResourceInstance(id, value, Type.BOOLEAN);
         }
-        if (value instanceof byte[]) {
+        if (value instanceof byte[] || value instanceof ByteBuffer) {
             return new LwM2mResourceInstance(id, value, Type.OPAQUE);
         }
         if (value instanceof String) {
@@ -86,7 +86,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
                 throw new LwM2mNodeException(doesNotMatchMessage);
             break;
         case OPAQUE:
-            if (!(value instanceof byte[]))
+            if (!(value instanceof byte[] || value instanceof ByteBuffer))
                 throw new LwM2mNodeException(doesNotMatchMessage);
             break;
         case STRING:
@@ -135,6 +135,20 @@ public class LwM2mResourceInstance implements LwM2mNode {
         return new LwM2mResourceInstance(id, value, Type.OPAQUE);
     }
 
+    /**
+     * Create an OPAQUE instance from the content of a {@link ByteBuffer} between its position and its limit.
+     * <p>
+     * The content is not copied : the instance keeps a read-only slice of the buffer, so the whole array behind the
+     * buffer is retained as long as the instance is reachable, and its content must not be modified afterwards. This
+     * allows to pass large values (e.g. a firmware package) from a decoded payload to an encoder without copying them.
+     * A buffer wrapping a whole array is stored as this array.
+     * 
+     * @see #getBinaryValue()
+     */
+    public static LwM2mResourceInstance newBinaryInstance(int id, ByteBuffer value) {
+        return new LwM2mResourceInstance(id, value, Type.OPAQUE);
+    }
+
     public static LwM2mResourceInstance newUnsignedIntegerInstance(int id, ULong value) {
         return new LwM2mResourceInstance(id, value, Type.UNSIGNED_INTEGER);
     }
@@ -151,8 +165,26 @@ public class LwM2mResourceInstance implements LwM2mNode {
         return id;
     }
 
+    /**
+     * For an OPAQUE instance created from a slice of a {@link ByteBuffer}, the content is copied once in a byte array
+     * on first call, which must not be modified. Use {@link #getBinaryValue()} to access it without copy.
+     */
     public Object getValue() {
-        return value;
+        return type == Type.OPAQUE ? OpaqueSlice.toByteArray(value) : value;
+    }
+
+    /**
+     * Get the value of an OPAQUE instance without copying it.
+     * <p>
+     * Unlike {@link #getValue()}, this never copies the content of a value created from a {@link ByteBuffer}.
+     * 
+     * @return a read-only buffer containing the value.
+     * @exception IllegalStateException if the type of this instance is not {@link Type#OPAQUE}.
+     */
+    public ByteBuffer getBinaryValue() {
+        if (type != Type.OPAQUE)
+            throw new IllegalStateException(String.format("%s is not an OPAQUE instance", this));
+        return OpaqueSlice.toReadOnlyBuffer(value);
     }
 
     public Type getType() {
@@ -172,7 +204,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
         result = prime * result + ((type == null) ? 0 : type.hashCode());
         if (type == Type.OPAQUE) {
             // Custom hashcode to handle byte arrays
-            result = prime * result + ((value == null) ? 0 : Arrays.hashCode((byte[]) value));
+            result = prime * result + ((value == null) ? 0 : OpaqueSlice.contentHashCode(value));
         } else {
             result = prime * result + ((value == null) ? 0 : value.hashCode());
         }
@@ -197,7 +229,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
                 return false;
         } else {
             // Custom equals to handle byte arrays
-            return type == Type.OPAQUE ? Arrays.equals((byte[]) value, (byte[]) other.value)
+            return type == Type.OPAQUE ? OpaqueSlice.contentEquals(value, other.value)
                     : value.equals(other.value);
         }
         return true;
@@ -208,7 +240,7 @@ public class LwM2mResourceInstance implements LwM2mNode {
         // We don't print OPAQUE value as this could be credentials one.
         // Not ideal but didn't find better way for now.
         return String.format("LwM2mResourceInstance [id=%s, value=%s, type=%s]", id,
-                type == Type.OPAQUE ? ((byte[]) value).length + "Bytes" : value, type);
+                type == Type.OPAQUE ? OpaqueSlice.length(value) + "Bytes" : value, type);
     }
 
     @Override
@@ -15,7 +15,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node;
 
-import java.util.Arrays;
+import java.nio.ByteBuffer;
 import java.util.Date;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -39,7 +39,7 @@ public class LwM2mSingleResource implements LwM2mResource {
         LwM2mNodeUtil.validateResourceId(id);
 
         this.id = id;
-        this.value = value;
+        this.value = value instanceof ByteBuffer ? OpaqueSlice.of((ByteBuffer) value) : value;
         this.type = type;
     }
 
@@ -55,7 +55,7 @@ public class LwM2mSingleResource implements LwM2mResource {
         if (value instanceof Boolean) {
             return new LwM2mSingleResource(id, value, Type.BOOLEAN);
         }
-        if (value instanceof byte[]) {
+        if (value instanceof byte[] || value instanceof ByteBuffer) {
             return new LwM2mSingleResource(id, value, Type.OPAQUE);
         }
         if (value instanceof String) {
@@ -90,7 +90,7 @@ public class LwM2mSingleResource implements LwM2mResource {
                 throw new LwM2mNodeException(doesNotMatchMessage);
             break;
         case OPAQUE:
-            if (!(value instanceof byte[]))
+            if (!(value instanceof byte[] || value instanceof ByteBuffer))
                 throw new LwM2mNodeException(doesNotMatchMessage);
             break;
         case STRING:
@@ -144,6 +144,20 @@ public class LwM2mSingleResource implements LwM2mResource {
         return new LwM2mSingleResource(id, value, Type.OPAQUE);
     }
 
+    /**
+     * Create an OPAQUE resource from the content of a {@link ByteBuffer} between its position and its limit.
+     * <p>
+     * The content is not copied : the resource keeps a read-only slice of the buffer, so the whole array behind the
+     * buffer is retained as long as the resource is reachable, and its content must not be modified afterwards. This
+     * allows to pass large values (e.g. a firmware package) from a decoded payload to an encoder without copying them.
+     * A buffer wrapping a whole array is stored as this array.
+     * 
+     * @see #getBinaryValue()
+     */
+    public static LwM2mSingleResource newBinaryResource(int id, ByteBuffer value) {
+        return new LwM2mSingleResource(id, value, Type.OPAQUE);
+    }
+
     public static LwM2mSingleResource newUnsignedIntegerResource(int id, ULong value) {
         return new LwM2mSingleResource(id, value, Type.UNSIGNED_INTEGER);
     }
@@ -173,10 +187,26 @@ public class LwM2mSingleResource implements LwM2mResource {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * For an OPAQUE resource created from a slice of a {@link ByteBuffer}, the content is copied once in a byte array
+     * on first call, which must not be modified. Use {@link #getBinaryValue()} to access it without copy.
      */
     @Override
     public Object getValue() {
-        return value;
+        return type == Type.OPAQUE ? OpaqueSlice.toByteArray(value) : value;
+    }
+
+    /**
+     * Get the value of an OPAQUE resource without copying it.
+     * 
+     * @return a read-only buffer containing the value of the resource.
+     * @exception IllegalStateException if the type of this resource is not {@link Type#OPAQUE}.
+     * @see #newBinaryResource(int, ByteBuffer)
+     */
+    public ByteBuffer getBinaryValue() {
+        if (type != Type.OPAQUE)
+            throw new IllegalStateException(String.format("%s is not an OPAQUE resource", this));
+        return OpaqueSlice.toReadOnlyBuffer(value);
     }
 
     /**
@@ -224,7 +254,7 @@ public class LwM2mSingleResource implements LwM2mResource {
         result = prime * result + ((type == null) ? 0 : type.hashCode());
         if (type == Type.OPAQUE) {
             // Custom hashcode to handle byte arrays
-            result = prime * result + ((value == null) ? 0 : Arrays.hashCode((byte[]) value));
+            result = prime * result + ((value == null) ? 0 : OpaqueSlice.contentHashCode(value));
         } else {
             result = prime * result + ((value == null) ? 0 : value.hashCode());
         }
@@ -249,7 +279,7 @@ public class LwM2mSingleResource implements LwM2mResource {
                 return false;
         } else {
             // Custom equals to handle byte arrays
-            return type == Type.OPAQUE ? Arrays.equals((byte[]) value, (byte[]) other.value)
+            return type == Type.OPAQUE ? OpaqueSlice.contentEquals(value, other.value)
                     : value.equals(other.value);
         }
         return true;
@@ -260,7 +290,7 @@ public class LwM2mSingleResource implements LwM2mResource {
         // We don't print OPAQUE value as this could be credentials one.
         // Not ideal but didn't find better way for now.
         return String.format("LwM2mSingleResource [id=%s, value=%s, type=%s]", id,
-                type == Type.OPAQUE ? ((byte[]) value).length + "Bytes" : value, type);
+                type == Type.OPAQUE ? OpaqueSlice.length(value) + "Bytes" : value, type);
     }
 
     @Override
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * An OPAQUE value backed by a slice of a larger array (e.g. the payload a TLV content was decoded from).
+ * <p>
+ * The slice is read-only, but it shares the content of the array it was created from : this array is retained as long
+ * as the value is reachable, and must not be modified afterwards. A byte array copy is only made the first time it is
+ * requested and is then reused.
+ */
+final class OpaqueSlice {
+
+    private final ByteBuffer buffer; // read-only, position and limit are never modified
+    private volatile byte[] copy;
+
+    private OpaqueSlice(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the content of the buffer between its position and its limit : its backing array when the buffer wraps
+     *         a whole writable array, an {@link OpaqueSlice} otherwise.
+     */
+    static Object of(ByteBuffer value) {
+        if (value.hasArray() && value.arrayOffset() == 0 && value.position() == 0
+                && value.remaining() == value.array().length) {
+            return value.array();
+        }
+        return new OpaqueSlice(value.asReadOnlyBuffer().slice());
+    }
+
+    ByteBuffer asReadOnlyBuffer() {
+        return buffer.duplicate();
+    }
+
+    byte[] toByteArray() {
+        byte[] bytes = copy;
+        if (bytes == null) {
+            bytes = new byte[buffer.remaining()];
+            buffer.duplicate().get(bytes);
+            copy = bytes;
+        }
+        return bytes;
+    }
+
+    int length() {
+        return buffer.remaining();
+    }
+
+    // same result as Arrays.hashCode(byte[]) of the content
+    @Override
+    public int hashCode() {
+        int result = 1;
+        for (int i = buffer.position(); i < buffer.limit(); i++) {
+            result = 31 * result + buffer.get(i);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof OpaqueSlice && buffer.equals(((OpaqueSlice) obj).buffer);
+    }
+
+    static boolean contentEquals(Object value, Object other) {
+        if (value instanceof byte[] && other instanceof byte[]) {
+            return Arrays.equals((byte[]) value, (byte[]) other);
+        }
+        return toReadOnlyBuffer(value).equals(toReadOnlyBuffer(other));
+    }
+
+    static int contentHashCode(Object value) {
+        return value instanceof byte[] ? Arrays.hashCode((byte[]) value) : value.hashCode();
+    }
+
+    static byte[] toByteArray(Object value) {
+        return value instanceof byte[] ? (byte[]) value : ((OpaqueSlice) value).toByteArray();
+    }
+
+    static ByteBuffer toReadOnlyBuffer(Object value) {
+        return value instanceof byte[] ? ByteBuffer.wrap((byte[]) value).asReadOnlyBuffer()
+                : ((OpaqueSlice) value).asReadOnlyBuffer();
+    }
+
+    static int length(Object value) {
+        return value instanceof byte[] ? ((byte[]) value).length : ((OpaqueSlice) value).length();
+    }
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.eclipse.leshan.core.util.Validate;
+
+/**
+ * Values of several {@link LwM2mNode} at different times (e.g. for a "Send" request containing historical values).
+ * <p>
+ * Nodes are grouped by time-stamp in chronological order. Nodes without time-stamp come first.
+ */
+public class TimestampedLwM2mNodes {
+
+    // null time-stamp first, then chronological order
+    private static final Comparator<Long> TIMESTAMP_ORDER = new Comparator<Long>() {
+        @Override
+        public int compare(Long t1, Long t2) {
+            if (t1 == null)
+                return t2 == null ? 0 : -1;
+            if (t2 == null)
+                return 1;
+            return t1.compareTo(t2);
+        }
+    };
+
+    private final Map<Long, Map<LwM2mPath, LwM2mNode>> nodesByTimestamp;
+
+    private TimestampedLwM2mNodes(Map<Long, Map<LwM2mPath, LwM2mNode>> nodesByTimestamp) {
+        this.nodesByTimestamp = nodesByTimestamp;
+    }
+
+    /**
+     * @return the time-stamps in chronological order, <code>null</code> first if some nodes have no time-stamp.
+     */
+    public Set<Long> getTimestamps() {
+        return nodesByTimestamp.keySet();
+    }
+
+    /**
+     * @return the nodes with the given time-stamp or an empty map if there is none.
+     */
+    public Map<LwM2mPath, LwM2mNode> getNodesAt(Long timestamp) {
+        Map<LwM2mPath, LwM2mNode> nodes = nodesByTimestamp.get(timestamp);
+        if (nodes == null) {
+            return Collections.emptyMap();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return the most recent node for each path.
+     */
+    public Map<LwM2mPath, LwM2mNode> getNodes() {
+        Map<LwM2mPath, LwM2mNode> nodes = new LinkedHashMap<>();
+        for (Map<LwM2mPath, LwM2mNode> nodesAt : nodesByTimestamp.values()) {
+            nodes.putAll(nodesAt);
+        }
+        return nodes;
+    }
+
+    public boolean isEmpty() {
+        return nodesByTimestamp.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TimestampedLwM2mNodes [nodes=%s]", nodesByTimestamp);
+    }
+
+    @Override
+    public int hashCode() {
+        return nodesByTimestamp.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj)
+            return true;
+        if (obj == null)
+            return false;
+        if (getClass() != obj.getClass())
+            return false;
+        TimestampedLwM2mNodes other = (TimestampedLwM2mNodes) obj;
+        return nodesByTimestamp.equals(other.nodesByTimestamp);
+    }
+
+    public static class Builder {
+
+        private final Map<Long, Map<LwM2mPath, LwM2mNode>> nodesByTimestamp = new TreeMap<>(TIMESTAMP_ORDER);
+
+        /**
+         * Add the value of a node at the given time. A previous value for the same path and time-stamp is replaced.
+         *
+         * @param timestamp the time-stamp of the value in seconds since Epoch, <code>null</code> if the value is not
+         *        time-stamped.
+         * @param path the path of the node
+         * @param node the value of the node
+         */
+        public Builder put(Long timestamp, LwM2mPath path, LwM2mNode node) {
+            Validate.notNull(path);
+            Validate.notNull(node);
+
+            Map<LwM2mPath, LwM2mNode> nodes = nodesByTimestamp.get(timestamp);
+            if (nodes == null) {
+                nodes = new LinkedHashMap<>();
+                nodesByTimestamp.put(timestamp, nodes);
+            }
+            nodes.put(path, node);
+            return this;
+        }
+
+        /**
+         * Add the values of several nodes at the given time.
+         */
+        public Builder put(Long timestamp, Map<LwM2mPath, LwM2mNode> nodes) {
+            for (Entry<LwM2mPath, LwM2mNode> entry : nodes.entrySet()) {
+                put(timestamp, entry.getKey(), entry.getValue());
+            }
+            return this;
+        }
+
+        public TimestampedLwM2mNodes build() {
+            Map<Long, Map<LwM2mPath, LwM2mNode>> nodes = new TreeMap<>(TIMESTAMP_ORDER);
+            for (Entry<Long, Map<LwM2mPath, LwM2mNode>> entry : nodesByTimestamp.entrySet()) {
+                nodes.put(entry.getKey(), Collections.unmodifiableMap(new LinkedHashMap<>(entry.getValue())));
+            }
+            return new TimestampedLwM2mNodes(Collections.unmodifiableMap(nodes));
+        }
+    }
+}
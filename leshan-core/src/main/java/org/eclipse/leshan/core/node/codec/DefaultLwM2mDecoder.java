@@ -21,6 +21,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.eclipse.leshan.core.model.LwM2mModel;
@@ -203,6 +204,35 @@ public class DefaultLwM2mDecoder implements LwM2mDecoder {
         }
     }
 
+    @Override
+    public void decodeTimestampedData(byte[] content, ContentFormat format, LwM2mPath path, LwM2mModel model,
+            TimestampedNodeHandler handler) throws CodecException {
+        LOG.trace("Decoding value for path {} and format {}: {}", path, format, content);
+        Validate.notNull(handler);
+
+        if (format == null) {
+            throw new CodecException("Content format is mandatory. [%s]", path);
+        }
+
+        NodeDecoder decoder = nodeDecoders.get(format);
+        if (decoder == null) {
+            throw new CodecException("Content format %s is not supported [%s]", format, path);
+        }
+
+        if (decoder instanceof TimestampedNodeStreamingDecoder) {
+            ((TimestampedNodeStreamingDecoder) decoder).decodeTimestampedData(content, path, model,
+                    path == null ? null : nodeClassFromPath(path), handler);
+        } else if (path != null) {
+            for (TimestampedLwM2mNode node : decodeTimestampedData(content, format, path, model)) {
+                handler.onNode(path, node);
+            }
+        } else {
+            for (Entry<LwM2mPath, LwM2mNode> entry : decodeNodes(content, format, null, model).entrySet()) {
+                handler.onNode(entry.getKey(), new TimestampedLwM2mNode(null, entry.getValue()));
+            }
+        }
+    }
+
     @Override
     public List<LwM2mPath> decodePaths(byte[] content, ContentFormat format) throws CodecException {
         LOG.trace("Decoding paths encoded with {}: {}", format, content);
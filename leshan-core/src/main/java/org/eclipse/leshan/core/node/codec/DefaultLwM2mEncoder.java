@@ -25,6 +25,7 @@ import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.node.codec.cbor.LwM2mNodeCborEncoder;
 import org.eclipse.leshan.core.node.codec.json.LwM2mNodeJsonEncoder;
 import org.eclipse.leshan.core.node.codec.opaque.LwM2mNodeOpaqueEncoder;
@@ -199,6 +200,29 @@ public class DefaultLwM2mEncoder implements LwM2mEncoder {
 
     }
 
+    @Override
+    public byte[] encodeTimestampedNodes(TimestampedLwM2mNodes timestampedNodes, ContentFormat format,
+            LwM2mModel model) throws CodecException {
+        Validate.notNull(timestampedNodes);
+        if (format == null) {
+            throw new CodecException("Content format is mandatory. [%s]", timestampedNodes);
+        }
+
+        NodeEncoder encoder = nodeEncoders.get(format);
+        if (encoder == null) {
+            throw new CodecException("Content format %s is not supported [%s]", format, timestampedNodes);
+        }
+        if (!(encoder instanceof TimestampedMultiNodeEncoder)) {
+            throw new CodecException("Cannot encode time-stamped nodes with format %s. [%s]", format,
+                    timestampedNodes);
+        }
+        LOG.trace("Encoding time-stamped nodes {} for format {}", timestampedNodes, format);
+        byte[] encoded = ((TimestampedMultiNodeEncoder) encoder).encodeTimestampedNodes(timestampedNodes, model,
+                converter);
+        LOG.trace("Encoded time-stamped nodes {}: {}", timestampedNodes, encoded);
+        return encoded;
+    }
+
     @Override
     public byte[] encodePaths(List<LwM2mPath> paths, ContentFormat format) throws CodecException {
         Validate.notEmpty(paths);
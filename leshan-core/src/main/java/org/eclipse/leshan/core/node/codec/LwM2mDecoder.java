@@ -97,6 +97,25 @@ public interface LwM2mDecoder {
     List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, ContentFormat format, LwM2mPath path,
             LwM2mModel model) throws CodecException;
 
+    /**
+     * Deserializes a binary content into time-stamped {@link LwM2mNode} given one by one to <code>handler</code> in
+     * payload order.
+     * <p>
+     * Unlike {@link #decodeTimestampedData(byte[], ContentFormat, LwM2mPath, LwM2mModel)}, nodes are not sorted by
+     * time-stamp: consecutive values sharing the same time-stamp are grouped in one node, so content with a lot of
+     * time-stamped values can be handled without keeping all of them in memory.
+     *
+     * @param content the content
+     * @param format the content format
+     * @param path the path of the node to build or <code>null</code> if it is not known (e.g. for "Send" operation).
+     *        In this case, let's assume this is a list of {@link LwM2mSingleResource} or {@link LwM2mResourceInstance}.
+     * @param model the collection of supported object models
+     * @param handler the handler receiving time-stamped nodes
+     * @exception CodecException if content is malformed.
+     */
+    void decodeTimestampedData(byte[] content, ContentFormat format, LwM2mPath path, LwM2mModel model,
+            TimestampedNodeHandler handler) throws CodecException;
+
     /**
      * Deserializes a binary content into a list of {@link LwM2mPath}.
      * 
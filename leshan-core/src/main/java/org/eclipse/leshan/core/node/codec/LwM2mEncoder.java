@@ -23,6 +23,7 @@ import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.request.ContentFormat;
 
 /**
@@ -31,6 +32,7 @@ import org.eclipse.leshan.core.request.ContentFormat;
  * <li>a {@link LwM2mNode}</li>
  * <li>a time-stamped {@link LwM2mNode} (e.g. for historical representations)</li>
  * <li>a map of {@link LwM2mNode} (e.g. for composite operation)</li>
+ * <li>time-stamped values of several {@link LwM2mNode} (e.g. for "Send" operation)</li>
  * <li>a list of {@link LwM2mPath} (e.g. for composite operation)</li>
  * </ul>
  */
@@ -73,6 +75,18 @@ public interface LwM2mEncoder {
     byte[] encodeTimestampedData(List<TimestampedLwM2mNode> timestampedNodes, ContentFormat format, LwM2mPath path,
             LwM2mModel model) throws CodecException;
 
+    /**
+     * Serializes values of several {@link LwM2mNode} at different times with the given content format.
+     *
+     * @param timestampedNodes the time-stamped values to serialize
+     * @param format the content format
+     * @param model the collection of supported object models
+     * @return the encoded nodes as a byte array
+     * @throws CodecException if encoding failed.
+     */
+    byte[] encodeTimestampedNodes(TimestampedLwM2mNodes timestampedNodes, ContentFormat format, LwM2mModel model)
+            throws CodecException;
+
     /**
      * Serializes a list of {@link LwM2mPath} with the given content format.
      * 
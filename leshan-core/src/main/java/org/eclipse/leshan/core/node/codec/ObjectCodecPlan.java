@@ -0,0 +1,110 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+
+/**
+ * Resource models of an {@link ObjectModel} compiled in a table indexed by resource id.
+ * <p>
+ * Encoders and decoders get the plan of an object once for each encoded or decoded object, then use it to get the
+ * model of each resource without a {@link LwM2mModel} lookup. Plans are built lazily and each {@link ObjectModel}
+ * holds its own plan (see {@link ObjectModel#getCodecPlan()}), so a plan lives exactly as long as its model.
+ */
+public class ObjectCodecPlan {
+
+    /** Plan of an object without model : all resources are unknown. */
+    public static final ObjectCodecPlan EMPTY = new ObjectCodecPlan(null);
+
+    // resource ids are often small and contiguous, larger ranges are searched in the model map
+    private static final int MAX_TABLE_SIZE = 1024;
+
+    private final ObjectModel objectModel;
+    private final int firstResourceId;
+    private final ResourceModel[] resources;
+
+    /**
+     * Build the plan of an {@link ObjectModel}. Prefer {@link #get(ObjectModel)} which reuses the plan held by the
+     * model.
+     *
+     * @param objectModel the object model, could be <code>null</code>
+     */
+    public ObjectCodecPlan(ObjectModel objectModel) {
+        this.objectModel = objectModel;
+
+        int minId = Integer.MAX_VALUE;
+        int maxId = Integer.MIN_VALUE;
+        if (objectModel != null) {
+            for (Integer resourceId : objectModel.resources.keySet()) {
+                minId = Math.min(minId, resourceId);
+                maxId = Math.max(maxId, resourceId);
+            }
+        }
+        if (minId > maxId || (long) maxId - minId >= MAX_TABLE_SIZE) {
+            this.firstResourceId = 0;
+            this.resources = null;
+        } else {
+            this.firstResourceId = minId;
+            this.resources = new ResourceModel[maxId - minId + 1];
+            for (ResourceModel resourceModel : objectModel.resources.values()) {
+                resources[resourceModel.id - minId] = resourceModel;
+            }
+        }
+    }
+
+    /**
+     * Get the plan of an object of the given model.
+     *
+     * @param model the model used to get the {@link ObjectModel}
+     * @param objectId the object identifier
+     * @return the plan of the object, {@link #EMPTY} if the model does not know this object.
+     */
+    public static ObjectCodecPlan get(LwM2mModel model, int objectId) {
+        return get(model.getObjectModel(objectId));
+    }
+
+    /**
+     * Get the plan of an {@link ObjectModel}.
+     *
+     * @param objectModel the object model, could be <code>null</code>
+     * @return the plan of this object model, {@link #EMPTY} if <code>objectModel</code> is <code>null</code>.
+     */
+    public static ObjectCodecPlan get(ObjectModel objectModel) {
+        if (objectModel == null)
+            return EMPTY;
+        return objectModel.getCodecPlan();
+    }
+
+    /**
+     * @return the model of the object, <code>null</code> for the {@link #EMPTY} plan.
+     */
+    public ObjectModel getObjectModel() {
+        return objectModel;
+    }
+
+    /**
+     * @return the model of the given resource or <code>null</code> if not found
+     */
+    public ResourceModel getResourceModel(int resourceId) {
+        if (resources != null) {
+            int index = resourceId - firstResourceId;
+            return index >= 0 && index < resources.length ? resources[index] : null;
+        }
+        return objectModel == null ? null : objectModel.resources.get(resourceId);
+    }
+}
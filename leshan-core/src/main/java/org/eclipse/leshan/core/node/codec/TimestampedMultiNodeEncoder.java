@@ -0,0 +1,39 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
+
+/**
+ * A {@link MultiNodeEncoder} which can also encode the values of several nodes at different times.
+ * 
+ * @see DefaultLwM2mEncoder
+ */
+public interface TimestampedMultiNodeEncoder extends MultiNodeEncoder {
+
+    /**
+     * Serializes time-stamped values of several nodes.
+     *
+     * @param timestampedNodes the time-stamped values to serialize
+     * @param model the collection of supported object models
+     * @param converter a data type converter.
+     * @return the encoded nodes as a byte array
+     * @throws CodecException if nodes can not be encoded.
+     */
+    byte[] encodeTimestampedNodes(TimestampedLwM2mNodes timestampedNodes, LwM2mModel model,
+            LwM2mValueConverter converter) throws CodecException;
+}
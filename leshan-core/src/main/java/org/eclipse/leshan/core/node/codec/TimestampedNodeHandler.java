@@ -0,0 +1,37 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+
+/**
+ * Receives time-stamped {@link TimestampedLwM2mNode} one by one while a content is decoded.
+ * 
+ * @see LwM2mDecoder#decodeTimestampedData(byte[], org.eclipse.leshan.core.request.ContentFormat, LwM2mPath,
+ *      org.eclipse.leshan.core.model.LwM2mModel, TimestampedNodeHandler)
+ */
+public interface TimestampedNodeHandler {
+
+    /**
+     * Called for each decoded node, in payload order.
+     * 
+     * @param path the path of the decoded node
+     * @param node the decoded node with its time-stamp
+     * @throws CodecException to abort decoding
+     */
+    void onNode(LwM2mPath path, TimestampedLwM2mNode node) throws CodecException;
+}
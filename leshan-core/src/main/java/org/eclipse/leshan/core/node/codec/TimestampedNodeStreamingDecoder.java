@@ -0,0 +1,48 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
+
+/**
+ * A {@link TimestampedNodeDecoder} which is able to give time-stamped nodes one by one while the content is decoded,
+ * without building the whole list of time-stamped nodes.
+ * 
+ * @see DefaultLwM2mDecoder
+ */
+public interface TimestampedNodeStreamingDecoder extends TimestampedNodeDecoder {
+
+    /**
+     * Deserializes a binary content into time-stamped {@link LwM2mNode} given to <code>handler</code> in payload order.
+     * <p>
+     * Consecutive values sharing the same time-stamp are grouped in one node. So unlike
+     * {@link #decodeTimestampedData(byte[], LwM2mPath, LwM2mModel, Class)}, nodes are not sorted and a time-stamp can
+     * be given several times if values of a same time-stamp are not contiguous in the payload.
+     *
+     * @param content the content
+     * @param path the path of the node to build or <code>null</code> if it is not known. In this case, each value is
+     *        given as a {@link org.eclipse.leshan.core.node.LwM2mSingleResource} or
+     *        {@link org.eclipse.leshan.core.node.LwM2mResourceInstance}.
+     * @param model the collection of supported object models
+     * @param nodeClass the class of the {@link LwM2mNode} to decode, <code>null</code> if path is <code>null</code>
+     * @param handler the handler receiving time-stamped nodes
+     * @exception CodecException if there payload is malformed.
+     */
+    void decodeTimestampedData(byte[] content, LwM2mPath path, LwM2mModel model, Class<? extends LwM2mNode> nodeClass,
+            TimestampedNodeHandler handler) throws CodecException;
+}
@@ -61,7 +61,7 @@ public class LwM2mNodeCborDecoder implements NodeDecoder {
 
         // Find model to know expected type
         Type expectedType;
-        ResourceModel rDesc = model.getResourceModel(path.getObjectId(), path.getResourceId());
+        ResourceModel rDesc = model.getResourceModel(path.getObjectIdAsInt(), path.getResourceIdAsInt());
         if (rDesc != null) {
             expectedType = rDesc.type;
         } else {
@@ -75,9 +75,9 @@ public class LwM2mNodeCborDecoder implements NodeDecoder {
 
         // Create Node
         if (path.isResource()) {
-            return (T) LwM2mSingleResource.newResource(path.getResourceId(), nodeValue, expectedType);
+            return (T) LwM2mSingleResource.newResource(path.getResourceIdAsInt(), nodeValue, expectedType);
         } else {
-            return (T) LwM2mResourceInstance.newInstance(path.getResourceInstanceId(), nodeValue, expectedType);
+            return (T) LwM2mResourceInstance.newInstance(path.getResourceInstanceIdAsInt(), nodeValue, expectedType);
         }
     }
 
@@ -129,7 +129,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
                     instances.add(new LwM2mObjectInstance(entryByInstanceId.getKey(), resourcesMap.values()));
                 }
 
-                node = new LwM2mObject(requestPath.getObjectId(), instances);
+                node = new LwM2mObject(requestPath.getObjectIdAsInt(), instances);
             } else if (nodeClass == LwM2mObjectInstance.class) {
                 // validate we have resources for only 1 instance
                 if (jsonEntryByInstanceId.size() != 1)
@@ -309,7 +309,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
 
     private LwM2mPath extractAndValidatePath(String baseName, String name, LwM2mPath requestPath)
             throws CodecException {
-        LwM2mPath path = new LwM2mPath(baseName + name);
+        LwM2mPath path = LwM2mPath.valueOf(baseName + name);
 
         // check returned path is under requested path
         if (requestPath.getObjectId() != null && path.getObjectId() != null) {
@@ -345,9 +345,9 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
             // Build resource path (path validation was already done in groupJsonEntryByInstanceId
             LwM2mPath nodePath;
             if (resourceElt.getName() == null) {
-                nodePath = new LwM2mPath(baseName);
+                nodePath = LwM2mPath.valueOf(baseName);
             } else {
-                nodePath = new LwM2mPath(baseName + resourceElt.getName());
+                nodePath = LwM2mPath.valueOf(baseName + resourceElt.getName());
             }
 
             // handle LWM2M resources
@@ -355,8 +355,8 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
                 // Multi-instance resource
                 // Store multi-instance resource values in a map
                 // we will deal with it later
-                LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectId(), nodePath.getObjectInstanceId(),
-                        nodePath.getResourceId());
+                LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectIdAsInt(), nodePath.getObjectInstanceIdAsInt(),
+                        nodePath.getResourceIdAsInt());
                 Map<Integer, JsonArrayEntry> multiResource = multiResourceMap.get(resourcePath);
                 if (multiResource == null) {
                     multiResource = new HashMap<>();
@@ -371,7 +371,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
             } else if (nodePath.isResource()) {
                 // Single resource
                 Type expectedType = getResourceType(nodePath, model, resourceElt);
-                LwM2mResource res = LwM2mSingleResource.newResource(nodePath.getResourceId(),
+                LwM2mResource res = LwM2mSingleResource.newResource(nodePath.getResourceIdAsInt(),
                         parseJsonValue(resourceElt.getResourceValue(), expectedType, nodePath), expectedType);
                 LwM2mResource previousRes = lwM2mResourceMap.put(nodePath.getResourceId(), res);
                 if (previousRes != null) {
@@ -398,7 +398,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
                     values.put(resourceInstanceId,
                             parseJsonValue(e.getValue().getResourceValue(), expectedType, resourcePath));
                 }
-                LwM2mResource resource = LwM2mMultipleResource.newResource(resourcePath.getResourceId(), values,
+                LwM2mResource resource = LwM2mMultipleResource.newResource(resourcePath.getResourceIdAsInt(), values,
                         expectedType);
                 LwM2mResource previousRes = lwM2mResourceMap.put(resourcePath.getResourceId(), resource);
                 if (previousRes != null) {
@@ -417,12 +417,13 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
                 path = extractAndValidatePath(baseName, "", requestPath);
             }
             if (path.getObjectId() != null && path.getResourceId() != null) {
-                ResourceModel resourceModel = model.getResourceModel(path.getObjectId(), path.getResourceId());
+                ResourceModel resourceModel = model.getResourceModel(path.getObjectIdAsInt(),
+                        path.getResourceIdAsInt());
                 // We create it only if this respect the model
                 if (resourceModel == null || resourceModel.multiple) {
                     Type resourceType = getResourceType(path, model, null);
-                    lwM2mResourceMap.put(path.getResourceId(), LwM2mMultipleResource.newResource(path.getResourceId(),
-                            new HashMap<Integer, Object>(), resourceType));
+                    lwM2mResourceMap.put(path.getResourceId(), LwM2mMultipleResource
+                            .newResource(path.getResourceIdAsInt(), new HashMap<Integer, Object>(), resourceType));
                 }
             }
         }
@@ -464,7 +465,7 @@ public class LwM2mNodeJsonDecoder implements TimestampedNodeDecoder {
 
     public Type getResourceType(LwM2mPath rscPath, LwM2mModel model, JsonArrayEntry resourceElt) {
         // Use model type in priority
-        ResourceModel rscDesc = model.getResourceModel(rscPath.getObjectId(), rscPath.getResourceId());
+        ResourceModel rscDesc = model.getResourceModel(rscPath.getObjectIdAsInt(), rscPath.getResourceIdAsInt());
         if (rscDesc != null)
             return rscDesc.type;
 
@@ -67,7 +67,7 @@ public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
         Validate.notNull(model);
 
         InternalEncoder internalEncoder = new InternalEncoder();
-        internalEncoder.objectId = path.getObjectId();
+        internalEncoder.objectId = path.getObjectIdAsInt();
         internalEncoder.model = model;
         internalEncoder.requestPath = path;
         internalEncoder.converter = converter;
@@ -93,7 +93,7 @@ public class LwM2mNodeJsonEncoder implements TimestampedNodeEncoder {
         ArrayList<JsonArrayEntry> entries = new ArrayList<>();
         String baseName = null;
         for (TimestampedLwM2mNode timestampedLwM2mNode : timestampedNodes) {
-            internalEncoder.objectId = path.getObjectId();
+            internalEncoder.objectId = path.getObjectIdAsInt();
             internalEncoder.model = model;
             internalEncoder.requestPath = path;
             internalEncoder.converter = converter;
@@ -35,7 +35,7 @@ public class LwM2mNodeOpaqueDecoder implements NodeDecoder {
             throw new CodecException("Invalid path %s : OpaqueDecoder decodes resource OR resource instance only",
                     path);
 
-        ResourceModel desc = model.getResourceModel(path.getObjectId(), path.getResourceId());
+        ResourceModel desc = model.getResourceModel(path.getObjectIdAsInt(), path.getResourceIdAsInt());
         if (desc != null && desc.type != Type.OPAQUE) {
             throw new CodecException(
                     "Invalid content format [%s] for path [%s], OPAQUE can only be used for single OPAQUE resource",
@@ -43,10 +43,10 @@ public class LwM2mNodeOpaqueDecoder implements NodeDecoder {
         }
 
         if (path.isResource()) {
-            return (T) LwM2mSingleResource.newBinaryResource(path.getResourceId(),
+            return (T) LwM2mSingleResource.newBinaryResource(path.getResourceIdAsInt(),
                     content != null ? content : new byte[0]);
         } else {
-            return (T) LwM2mResourceInstance.newBinaryInstance(path.getResourceInstanceId(),
+            return (T) LwM2mResourceInstance.newBinaryInstance(path.getResourceInstanceIdAsInt(),
                     content != null ? content : new byte[0]);
         }
     }
@@ -73,7 +73,7 @@ public class LwM2mNodeOpaqueEncoder implements NodeEncoder {
             if (resource.isMultiInstances()) {
                 throw new CodecException("Multiple instances resource %s cannot be encoded in opaque format", path);
             }
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
+            ResourceModel rSpec = model.getResourceModel(path.getObjectIdAsInt(), resource.getId());
             if (rSpec != null && rSpec.type != Type.OPAQUE) {
                 throw new CodecException("Only single opaque resource can be encoded in opaque format. [%s]", path);
             }
@@ -84,7 +84,7 @@ public class LwM2mNodeOpaqueEncoder implements NodeEncoder {
 
         @Override
         public void visit(LwM2mResourceInstance instance) {
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
+            ResourceModel rSpec = model.getResourceModel(path.getObjectIdAsInt(), path.getResourceIdAsInt());
             if (rSpec != null && rSpec.type != Type.OPAQUE) {
                 throw new CodecException("Only opaque resource instance can be encoded in opaque format. [%s]", path);
             }
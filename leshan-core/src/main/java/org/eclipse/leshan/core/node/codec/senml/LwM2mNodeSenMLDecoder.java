@@ -42,7 +42,9 @@ import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
 import org.eclipse.leshan.core.node.codec.MultiNodeDecoder;
-import org.eclipse.leshan.core.node.codec.TimestampedNodeDecoder;
+import org.eclipse.leshan.core.node.codec.ObjectCodecPlan;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeStreamingDecoder;
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.core.util.datatype.NumberUtil;
 import org.eclipse.leshan.core.util.datatype.ULong;
@@ -50,10 +52,12 @@ import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamingDecoder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeDecoder {
+public class LwM2mNodeSenMLDecoder implements TimestampedNodeStreamingDecoder, MultiNodeDecoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeSenMLDecoder.class);
 
@@ -65,33 +69,31 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
 
     @SuppressWarnings("unchecked")
     @Override
-    public <T extends LwM2mNode> T decode(byte[] content, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
+    public <T extends LwM2mNode> T decode(byte[] content, final LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
             throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-            List<SenMLRecord> records = pack.getRecords();
-
-            // Resolve records
-            LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-            Collection<LwM2mResolvedSenMLRecord> resolvedRecords = new ArrayList<>(records.size());
-            for (SenMLRecord record : records) {
-                LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-                // Validate SenML resolved name
-                if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
-                    throw new CodecException(
-                            "Invalid path [%s] for resource, it should be a resource or a resource instance path",
-                            resolvedRecord.getName());
-                }
-                if (!resolvedRecord.getPath().startWith(path)) {
-                    throw new CodecException("Invalid path [%s] for resource, it should start by %s",
-                            resolvedRecord.getPath(), path);
-                }
-                if (resolvedRecord.getTimeStamp() != null) {
-                    throw new CodecException("Unable to decode node[path:%s] : value should not be timestamped", path);
+            // Decode and resolve records
+            final Collection<LwM2mResolvedSenMLRecord> resolvedRecords = new ArrayList<>();
+            decodeRecords(content, new ResolvedRecordHandler() {
+                @Override
+                public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                    // Validate SenML resolved name
+                    if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
+                        throw new CodecException(
+                                "Invalid path [%s] for resource, it should be a resource or a resource instance path",
+                                resolvedRecord.getName());
+                    }
+                    if (!resolvedRecord.getPath().startWith(path)) {
+                        throw new CodecException("Invalid path [%s] for resource, it should start by %s",
+                                resolvedRecord.getPath(), path);
+                    }
+                    if (resolvedRecord.getTimeStamp() != null) {
+                        throw new CodecException("Unable to decode node[path:%s] : value should not be timestamped",
+                                path);
+                    }
+                    resolvedRecords.add(resolvedRecord);
                 }
-                resolvedRecords.add(resolvedRecord);
-            }
+            });
 
             // Parse records and create node
             return (T) parseRecords(resolvedRecords, path, model, nodeClass);
@@ -102,17 +104,13 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     }
 
     @Override
-    public Map<LwM2mPath, LwM2mNode> decodeNodes(byte[] content, List<LwM2mPath> paths, LwM2mModel model)
+    public Map<LwM2mPath, LwM2mNode> decodeNodes(byte[] content, List<LwM2mPath> paths, final LwM2mModel model)
             throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-
-            Map<LwM2mPath, LwM2mNode> nodes = new HashMap<>();
+            final Map<LwM2mPath, LwM2mNode> nodes = new HashMap<>();
             if (paths != null) {
-                // Resolve records & Group it by time-stamp
-                Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> recordsByPath = groupByPath(pack.getRecords(),
-                        paths);
+                // Resolve records & Group it by path
+                Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> recordsByPath = groupByPath(content, paths);
 
                 for (LwM2mPath path : paths) {
                     Collection<LwM2mResolvedSenMLRecord> records = recordsByPath.get(path);
@@ -132,14 +130,15 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
             } else {
                 // Paths are not given so we given so we can not regroup by path
                 // let's assume that each path refer to a single resource or single resource instances.
-                LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-                for (SenMLRecord record : pack.getRecords()) {
-                    LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-                    LwM2mPath path = resolvedRecord.getPath();
-                    LwM2mNode node = parseRecords(Arrays.asList(resolvedRecord), path, model,
-                            DefaultLwM2mDecoder.nodeClassFromPath(path));
-                    nodes.put(path, node);
-                }
+                decodeRecords(content, new ResolvedRecordHandler() {
+                    @Override
+                    public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                        LwM2mPath path = resolvedRecord.getPath();
+                        LwM2mNode node = parseRecords(Arrays.asList(resolvedRecord), path, model,
+                                DefaultLwM2mDecoder.nodeClassFromPath(path));
+                        nodes.put(path, node);
+                    }
+                });
             }
             return nodes;
         } catch (SenMLException e) {
@@ -152,12 +151,9 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     public List<TimestampedLwM2mNode> decodeTimestampedData(byte[] content, LwM2mPath path, LwM2mModel model,
             Class<? extends LwM2mNode> nodeClass) throws CodecException {
         try {
-            // Decode SenML pack
-            SenMLPack pack = decoder.fromSenML(content);
-
             // Resolve records & Group it by time-stamp
-            Map<Long, Collection<LwM2mResolvedSenMLRecord>> recordsByTimestamp = groupRecordByTimestamp(
-                    pack.getRecords(), path);
+            Map<Long, Collection<LwM2mResolvedSenMLRecord>> recordsByTimestamp = groupRecordByTimestamp(content,
+                    path);
 
             // Fill time-stamped nodes collection
             List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
@@ -173,6 +169,109 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
         }
     }
 
+    @Override
+    public void decodeTimestampedData(byte[] content, final LwM2mPath path, final LwM2mModel model,
+            Class<? extends LwM2mNode> nodeClass, final TimestampedNodeHandler handler) throws CodecException {
+        try {
+            if (path == null) {
+                // Paths are not given so each record is given as single resource or single resource instance.
+                decodeRecords(content, new ResolvedRecordHandler() {
+                    @Override
+                    public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                        LwM2mPath recordPath = resolvedRecord.getPath();
+                        LwM2mNode node = parseRecords(Arrays.asList(resolvedRecord), recordPath, model,
+                                DefaultLwM2mDecoder.nodeClassFromPath(recordPath));
+                        handler.onNode(recordPath, new TimestampedLwM2mNode(resolvedRecord.getTimeStamp(), node));
+                    }
+                });
+            } else {
+                // Consecutive records with same time-stamp are grouped
+                TimestampedNodeBuilder builder = new TimestampedNodeBuilder(path, model, nodeClass, handler);
+                decodeRecords(content, builder);
+                builder.end();
+            }
+        } catch (SenMLException e) {
+            String hexValue = content != null ? Hex.encodeHexString(content) : "";
+            throw new CodecException(e, "Unable to decode node[path:%s] : %s", path, hexValue, e);
+        }
+    }
+
+    /**
+     * Build a time-stamped node each time time-stamp of resolved records changes.
+     */
+    private class TimestampedNodeBuilder implements ResolvedRecordHandler {
+        private final LwM2mPath path;
+        private final LwM2mModel model;
+        private final Class<? extends LwM2mNode> nodeClass;
+        private final TimestampedNodeHandler handler;
+
+        private Long timestamp;
+        private List<LwM2mResolvedSenMLRecord> records = new ArrayList<>();
+        private boolean nodeCreated = false;
+
+        public TimestampedNodeBuilder(LwM2mPath path, LwM2mModel model, Class<? extends LwM2mNode> nodeClass,
+                TimestampedNodeHandler handler) {
+            this.path = path;
+            this.model = model;
+            this.nodeClass = nodeClass;
+            this.handler = handler;
+        }
+
+        @Override
+        public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+            validateRecordPath(resolvedRecord, path);
+
+            Long recordTimestamp = resolvedRecord.getTimeStamp();
+            if (!records.isEmpty()
+                    && (timestamp == null ? recordTimestamp != null : !timestamp.equals(recordTimestamp))) {
+                createNode();
+            }
+            timestamp = recordTimestamp;
+            records.add(resolvedRecord);
+        }
+
+        public void end() {
+            // Ensure there is at least one node for null timestamp
+            if (!records.isEmpty() || !nodeCreated) {
+                createNode();
+            }
+        }
+
+        private void createNode() {
+            LwM2mNode node = parseRecords(records, path, model, nodeClass);
+            records = new ArrayList<>();
+            nodeCreated = true;
+            handler.onNode(path, new TimestampedLwM2mNode(timestamp, node));
+        }
+    }
+
+    /**
+     * Decode the SenML content and resolve its records one by one.
+     * <p>
+     * If the SenML decoder is a {@link SenMLStreamingDecoder}, records are resolved while the content is parsed, so no
+     * intermediate {@link SenMLPack} is created.
+     */
+    private void decodeRecords(byte[] content, final ResolvedRecordHandler handler) throws SenMLException {
+        final LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
+        if (decoder instanceof SenMLStreamingDecoder) {
+            ((SenMLStreamingDecoder) decoder).fromSenML(content, new SenMLRecordHandler() {
+                @Override
+                public void onRecord(SenMLRecord record) throws SenMLException {
+                    handler.onRecord(resolver.resolve(record));
+                }
+            });
+        } else {
+            SenMLPack pack = decoder.fromSenML(content);
+            for (SenMLRecord record : pack.getRecords()) {
+                handler.onRecord(resolver.resolve(record));
+            }
+        }
+    }
+
+    private interface ResolvedRecordHandler {
+        void onRecord(LwM2mResolvedSenMLRecord record);
+    }
+
     /**
      * Parse records for a given LWM2M path.
      */
@@ -196,7 +295,7 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
                 instances.add(new LwM2mObjectInstance(entryByInstanceId.getKey(), resourcesMap.values()));
             }
 
-            node = new LwM2mObject(path.getObjectId(), instances);
+            node = new LwM2mObject(path.getObjectIdAsInt(), instances);
         } else if (nodeClass == LwM2mObjectInstance.class) {
             // validate we have resources for only 1 instance
             if (recordsByInstanceId.size() != 1)
@@ -259,29 +358,29 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
     /**
      * Resolved record then group it by LwM2mPath
      */
-    private Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> groupByPath(List<SenMLRecord> records,
-            List<LwM2mPath> paths) throws SenMLException {
+    private Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> groupByPath(byte[] content,
+            final List<LwM2mPath> paths) throws SenMLException {
 
         // Prepare map result
-        Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> result = new HashMap<>(paths.size());
+        final Map<LwM2mPath, Collection<LwM2mResolvedSenMLRecord>> result = new HashMap<>(paths.size());
         for (LwM2mPath path : paths) {
             result.put(path, new ArrayList<LwM2mResolvedSenMLRecord>());
         }
 
         // Resolve record and add it to the map
-        LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-        for (SenMLRecord record : records) {
-            LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-
-            // Find the corresponding path for this record.
-            LwM2mPath selectedPath = selectPath(resolvedRecord.getPath(), paths);
-            if (selectedPath == null) {
-                throw new CodecException("Invalid path [%s] for resource, it should start by one of %s",
-                        resolvedRecord.getPath(), paths);
-            }
+        decodeRecords(content, new ResolvedRecordHandler() {
+            @Override
+            public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                // Find the corresponding path for this record.
+                LwM2mPath selectedPath = selectPath(resolvedRecord.getPath(), paths);
+                if (selectedPath == null) {
+                    throw new CodecException("Invalid path [%s] for resource, it should start by one of %s",
+                            resolvedRecord.getPath(), paths);
+                }
 
-            result.get(selectedPath).add(resolvedRecord);
-        }
+                result.get(selectedPath).add(resolvedRecord);
+            }
+        });
         return result;
     }
 
@@ -305,9 +404,9 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
      * @return a sorted map (timestamp => collection of record) order by descending time-stamp (most recent one at first
      *         place). If null time-stamp (meaning no time information) exists it always at first place.
      */
-    private SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> groupRecordByTimestamp(List<SenMLRecord> records,
-            LwM2mPath requestPath) throws SenMLException {
-        SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> result = new TreeMap<>(new Comparator<Long>() {
+    private SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> groupRecordByTimestamp(byte[] content,
+            final LwM2mPath requestPath) throws SenMLException {
+        final SortedMap<Long, Collection<LwM2mResolvedSenMLRecord>> result = new TreeMap<>(new Comparator<Long>() {
             @Override
             public int compare(Long o1, Long o2) {
                 // null at first place
@@ -321,30 +420,21 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
             }
         });
 
-        LwM2mSenMLResolver resolver = new LwM2mSenMLResolver();
-        for (SenMLRecord record : records) {
-            LwM2mResolvedSenMLRecord resolvedRecord = resolver.resolve(record);
-
-            // Validate SenML resolved name
-            if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
-                throw new CodecException(
-                        "Invalid path [%s] for resource, it should be a resource or a resource instance path",
-                        resolvedRecord.getName());
-            }
-            if (!resolvedRecord.getPath().startWith(requestPath)) {
-                throw new CodecException("Invalid path [%s] for resource, it should start by %s",
-                        resolvedRecord.getName(), requestPath);
-            }
-
-            // Get record list for this time-stamp
-            Collection<LwM2mResolvedSenMLRecord> recordList = result.get(resolvedRecord.getTimeStamp());
-            if (recordList == null) {
-                recordList = new ArrayList<>();
-                result.put(resolvedRecord.getTimeStamp(), recordList);
+        decodeRecords(content, new ResolvedRecordHandler() {
+            @Override
+            public void onRecord(LwM2mResolvedSenMLRecord resolvedRecord) {
+                validateRecordPath(resolvedRecord, requestPath);
+
+                // Get record list for this time-stamp
+                Collection<LwM2mResolvedSenMLRecord> recordList = result.get(resolvedRecord.getTimeStamp());
+                if (recordList == null) {
+                    recordList = new ArrayList<>();
+                    result.put(resolvedRecord.getTimeStamp(), recordList);
+                }
+                // Add it to the list
+                recordList.add(resolvedRecord);
             }
-            // Add it to the list
-            recordList.add(resolvedRecord);
-        }
+        });
 
         // Ensure there is at least one entry for null timestamp
         if (result.isEmpty()) {
@@ -354,6 +444,21 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
         return result;
     }
 
+    /**
+     * Validate SenML resolved name of a time-stamped record.
+     */
+    private void validateRecordPath(LwM2mResolvedSenMLRecord resolvedRecord, LwM2mPath requestPath) {
+        if (!resolvedRecord.getPath().isResourceInstance() && !resolvedRecord.getPath().isResource()) {
+            throw new CodecException(
+                    "Invalid path [%s] for resource, it should be a resource or a resource instance path",
+                    resolvedRecord.getName());
+        }
+        if (!resolvedRecord.getPath().startWith(requestPath)) {
+            throw new CodecException("Invalid path [%s] for resource, it should start by %s", resolvedRecord.getName(),
+                    requestPath);
+        }
+    }
+
     /**
      * Group all SenML record by instanceId
      * 
@@ -381,6 +486,9 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
         if (records == null)
             return Collections.emptyMap();
 
+        // records start with the request path, so resource models are taken from the plan of its object
+        ObjectCodecPlan plan = requestPath.isRoot() ? null : ObjectCodecPlan.get(model, requestPath.getObjectIdAsInt());
+
         // Extract LWM2M resources from JSON resource list
         Map<Integer, LwM2mResource> lwM2mResourceMap = new HashMap<>();
         Map<LwM2mPath, Map<Integer, SenMLRecord>> multiResourceMap = new HashMap<>();
@@ -395,8 +503,8 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
                 // Multi-instance resource
                 // Store multi-instance resource values in a map
                 // we will deal with it later
-                LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectId(), nodePath.getObjectInstanceId(),
-                        nodePath.getResourceId());
+                LwM2mPath resourcePath = new LwM2mPath(nodePath.getObjectIdAsInt(), nodePath.getObjectInstanceIdAsInt(),
+                        nodePath.getResourceIdAsInt());
                 Map<Integer, SenMLRecord> multiResource = multiResourceMap.get(resourcePath);
                 if (multiResource == null) {
                     multiResource = new HashMap<>();
@@ -410,9 +518,9 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
                 }
             } else if (nodePath.isResource()) {
                 // Single resource
-                Type expectedType = getResourceType(nodePath, model, record);
+                Type expectedType = getResourceType(nodePath, plan, model, record);
                 Object resourceValue = parseResourceValue(record.getResourceValue(), expectedType, nodePath);
-                LwM2mResource res = LwM2mSingleResource.newResource(nodePath.getResourceId(), resourceValue,
+                LwM2mResource res = LwM2mSingleResource.newResource(nodePath.getResourceIdAsInt(), resourceValue,
                         expectedType);
                 LwM2mResource previousRes = lwM2mResourceMap.put(nodePath.getResourceId(), res);
                 if (previousRes != null) {
@@ -432,14 +540,14 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
             Map<Integer, SenMLRecord> entries = entry.getValue();
 
             if (entries != null && !entries.isEmpty()) {
-                Type expectedType = getResourceType(resourcePath, model, entries.values().iterator().next());
+                Type expectedType = getResourceType(resourcePath, plan, model, entries.values().iterator().next());
                 Map<Integer, Object> values = new HashMap<>();
                 for (Entry<Integer, SenMLRecord> e : entries.entrySet()) {
                     Integer resourceInstanceId = e.getKey();
                     values.put(resourceInstanceId,
                             parseResourceValue(e.getValue().getResourceValue(), expectedType, resourcePath));
                 }
-                LwM2mResource resource = LwM2mMultipleResource.newResource(resourcePath.getResourceId(), values,
+                LwM2mResource resource = LwM2mMultipleResource.newResource(resourcePath.getResourceIdAsInt(), values,
                         expectedType);
                 LwM2mResource previousRes = lwM2mResourceMap.put(resourcePath.getResourceId(), resource);
                 if (previousRes != null) {
@@ -451,13 +559,12 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
 
         // If we found nothing, we try to create an empty multi-instance resource
         if (lwM2mResourceMap.isEmpty() && requestPath.isResource()) {
-            ResourceModel resourceModel = model.getResourceModel(requestPath.getObjectId(),
-                    requestPath.getResourceId());
+            ResourceModel resourceModel = plan.getResourceModel(requestPath.getResourceIdAsInt());
             // We create it only if this respect the model
             if (resourceModel == null || resourceModel.multiple) {
-                Type resourceType = getResourceType(requestPath, model, null);
+                Type resourceType = getResourceType(requestPath, plan, model, null);
                 lwM2mResourceMap.put(requestPath.getResourceId(), LwM2mMultipleResource
-                        .newResource(requestPath.getResourceId(), new HashMap<Integer, Object>(), resourceType));
+                        .newResource(requestPath.getResourceIdAsInt(), new HashMap<Integer, Object>(), resourceType));
             }
         }
 
@@ -493,9 +600,10 @@ public class LwM2mNodeSenMLDecoder implements TimestampedNodeDecoder, MultiNodeD
         }
     }
 
-    private Type getResourceType(LwM2mPath rscPath, LwM2mModel model, SenMLRecord record) {
+    private Type getResourceType(LwM2mPath rscPath, ObjectCodecPlan plan, LwM2mModel model, SenMLRecord record) {
         // Use model type in priority
-        ResourceModel rscDesc = model.getResourceModel(rscPath.getObjectId(), rscPath.getResourceId());
+        ResourceModel rscDesc = plan != null ? plan.getResourceModel(rscPath.getResourceIdAsInt())
+                : model.getResourceModel(rscPath.getObjectIdAsInt(), rscPath.getResourceIdAsInt());
         if (rscDesc != null && rscDesc.type != null)
             return rscDesc.type;
 
@@ -31,9 +31,11 @@ import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.ObjectLink;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
-import org.eclipse.leshan.core.node.codec.MultiNodeEncoder;
+import org.eclipse.leshan.core.node.codec.ObjectCodecPlan;
+import org.eclipse.leshan.core.node.codec.TimestampedMultiNodeEncoder;
 import org.eclipse.leshan.core.node.codec.TimestampedNodeEncoder;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.senml.SenMLEncoder;
@@ -43,7 +45,7 @@ import org.eclipse.leshan.senml.SenMLRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeEncoder {
+public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, TimestampedMultiNodeEncoder {
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeSenMLEncoder.class);
 
     private final SenMLEncoder encoder;
@@ -59,8 +61,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         Validate.notNull(model);
 
         InternalEncoder internalEncoder = new InternalEncoder();
-        internalEncoder.objectId = path.getObjectId();
-        internalEncoder.model = model;
+        internalEncoder.plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
         internalEncoder.requestPath = path;
         internalEncoder.converter = converter;
         node.accept(internalEncoder);
@@ -86,8 +87,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         for (Entry<LwM2mPath, LwM2mNode> entry : nodes.entrySet()) {
             LwM2mPath path = entry.getKey();
             InternalEncoder internalEncoder = new InternalEncoder();
-            internalEncoder.objectId = path.getObjectId();
-            internalEncoder.model = model;
+            internalEncoder.plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
             internalEncoder.requestPath = path;
             internalEncoder.converter = converter;
             internalEncoder.records = new ArrayList<>();
@@ -118,6 +118,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         Validate.notNull(path);
         Validate.notNull(model);
 
+        ObjectCodecPlan plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
         SenMLPack pack = new SenMLPack();
         for (TimestampedLwM2mNode timestampedLwM2mNode : timestampedNodes) {
 
@@ -130,8 +131,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             }
 
             InternalEncoder internalEncoder = new InternalEncoder();
-            internalEncoder.objectId = path.getObjectId();
-            internalEncoder.model = model;
+            internalEncoder.plan = plan;
             internalEncoder.requestPath = path;
             internalEncoder.converter = converter;
             internalEncoder.records = new ArrayList<>();
@@ -147,10 +147,50 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
         }
     }
 
+    @Override
+    public byte[] encodeTimestampedNodes(TimestampedLwM2mNodes timestampedNodes, LwM2mModel model,
+            LwM2mValueConverter converter) throws CodecException {
+        Validate.notNull(timestampedNodes);
+        Validate.notNull(model);
+
+        // time-stamps are in chronological order and nodes without time-stamp come first, so a base time never
+        // applies to a node without time-stamp.
+        SenMLPack pack = new SenMLPack();
+        for (Long timestamp : timestampedNodes.getTimestamps()) {
+            if (timestamp != null && timestamp < 268_435_456) {
+                // see encodeTimestampedData
+                throw new CodecException(
+                        "Unable to encode timestamped nodes : invalid timestamp %s, timestamp should be greater or equals to 268,435,456",
+                        timestamp);
+            }
+
+            boolean baseTimeSet = false;
+            for (Entry<LwM2mPath, LwM2mNode> entry : timestampedNodes.getNodesAt(timestamp).entrySet()) {
+                LwM2mPath path = entry.getKey();
+                InternalEncoder internalEncoder = new InternalEncoder();
+                internalEncoder.plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
+                internalEncoder.requestPath = path;
+                internalEncoder.converter = converter;
+                internalEncoder.records = new ArrayList<>();
+                entry.getValue().accept(internalEncoder);
+                if (timestamp != null && !baseTimeSet && !internalEncoder.records.isEmpty()) {
+                    internalEncoder.records.get(0).setBaseTime(timestamp);
+                    baseTimeSet = true;
+                }
+                pack.addRecords(internalEncoder.records);
+            }
+        }
+
+        try {
+            return encoder.toSenML(pack);
+        } catch (SenMLException e) {
+            throw new CodecException(e, "Unable to encode timestamped nodes : %s", timestampedNodes);
+        }
+    }
+
     private static class InternalEncoder implements LwM2mNodeVisitor {
         // visitor inputs
-        private int objectId;
-        private LwM2mModel model;
+        private ObjectCodecPlan plan;
         private LwM2mPath requestPath;
         private LwM2mValueConverter converter;
 
@@ -211,7 +251,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
             }
 
             // get type for this resource
-            ResourceModel rSpec = model.getResourceModel(objectId, requestPath.getResourceId());
+            ResourceModel rSpec = plan.getResourceModel(requestPath.getResourceIdAsInt());
             Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
 
             // Using request path as base name, and record doesn't have name
@@ -220,7 +260,7 @@ public class LwM2mNodeSenMLEncoder implements TimestampedNodeEncoder, MultiNodeE
 
         private void lwM2mResourceToSenMLRecord(String recordName, LwM2mResource resource) {
             // get type for this resource
-            ResourceModel rSpec = model.getResourceModel(objectId, resource.getId());
+            ResourceModel rSpec = plan.getResourceModel(resource.getId());
             Type expectedType = rSpec != null ? rSpec.type : resource.getType();
 
             // create resource element
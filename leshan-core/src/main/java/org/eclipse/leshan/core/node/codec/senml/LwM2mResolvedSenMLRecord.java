@@ -36,7 +36,7 @@ public class LwM2mResolvedSenMLRecord extends ResolvedSenMLRecord {
     public LwM2mResolvedSenMLRecord(SenMLRecord unresolvedRecord, String resolvedName, Long resolvedTimestamp)
             throws IllegalArgumentException, LwM2mNodeException {
         super(unresolvedRecord, resolvedName, resolvedTimestamp);
-        this.path = new LwM2mPath(resolvedName);
+        this.path = LwM2mPath.valueOf(resolvedName);
     }
 
     /**
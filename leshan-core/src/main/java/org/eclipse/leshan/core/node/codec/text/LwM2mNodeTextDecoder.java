@@ -43,26 +43,26 @@ public class LwM2mNodeTextDecoder implements NodeDecoder {
         if (!path.isResource() && !path.isResourceInstance())
             throw new CodecException("Invalid path %s : TextDecoder decodes resource OR resource instance only", path);
 
-        ResourceModel rDesc = model.getResourceModel(path.getObjectId(), path.getResourceId());
+        ResourceModel rDesc = model.getResourceModel(path.getObjectIdAsInt(), path.getResourceIdAsInt());
 
         String strValue = content != null ? new String(content, StandardCharsets.UTF_8) : "";
 
         if (path.isResource()) {
             if (rDesc != null) {
-                return (T) LwM2mSingleResource.newResource(path.getResourceId(),
+                return (T) LwM2mSingleResource.newResource(path.getResourceIdAsInt(),
                         parseTextValue(strValue, rDesc.type, path), rDesc.type);
             }
 
             // unknown resource, returning a default string value
-            return (T) LwM2mSingleResource.newStringResource(path.getResourceId(), strValue);
+            return (T) LwM2mSingleResource.newStringResource(path.getResourceIdAsInt(), strValue);
         }
 
         if (rDesc != null) {
-            return (T) LwM2mResourceInstance.newInstance(path.getResourceInstanceId(),
+            return (T) LwM2mResourceInstance.newInstance(path.getResourceInstanceIdAsInt(),
                     parseTextValue(strValue, rDesc.type, path), rDesc.type);
         }
         // unknown resource, returning a default string value
-        return (T) LwM2mResourceInstance.newStringInstance(path.getResourceInstanceId(), strValue);
+        return (T) LwM2mResourceInstance.newStringInstance(path.getResourceInstanceIdAsInt(), strValue);
     }
 
     private Object parseTextValue(String value, Type type, LwM2mPath path) throws CodecException {
@@ -82,7 +82,7 @@ public class LwM2mNodeTextEncoder implements NodeEncoder {
             }
             LOG.trace("Encoding resource {} into text", resource);
 
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
+            ResourceModel rSpec = model.getResourceModel(path.getObjectIdAsInt(), resource.getId());
             Type expectedType = rSpec != null ? rSpec.type : resource.getType();
             Object val = converter.convertValue(resource.getValue(), resource.getType(), expectedType, path);
 
@@ -100,7 +100,7 @@ public class LwM2mNodeTextEncoder implements NodeEncoder {
         public void visit(LwM2mResourceInstance instance) {
             LOG.trace("Encoding resource instance {} into text", instance);
 
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
+            ResourceModel rSpec = model.getResourceModel(path.getObjectIdAsInt(), path.getResourceIdAsInt());
             Type expectedType = rSpec != null ? rSpec.type : instance.getType();
             Object val = converter.convertValue(instance.getValue(), instance.getType(), expectedType, path);
 
@@ -15,7 +15,6 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.tlv;
 
-import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -35,63 +34,74 @@ import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.NodeDecoder;
-import org.eclipse.leshan.core.tlv.Tlv;
+import org.eclipse.leshan.core.node.codec.ObjectCodecPlan;
 import org.eclipse.leshan.core.tlv.Tlv.TlvType;
-import org.eclipse.leshan.core.tlv.TlvDecoder;
 import org.eclipse.leshan.core.tlv.TlvException;
+import org.eclipse.leshan.core.tlv.TlvReader;
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.core.util.datatype.ULong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * A {@link NodeDecoder} for the TLV content format.
+ * <p>
+ * Content is decoded in a single pass with a {@link TlvReader}: nodes are built directly from the content array without
+ * intermediate {@link org.eclipse.leshan.core.tlv.Tlv} tree.
+ */
 public class LwM2mNodeTlvDecoder implements NodeDecoder {
 
     private static final Logger LOG = LoggerFactory.getLogger(LwM2mNodeTlvDecoder.class);
 
+    private static final byte[] EMPTY = new byte[0];
+
     @Override
     public <T extends LwM2mNode> T decode(byte[] content, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
             throws CodecException {
         try {
-            Tlv[] tlvs = TlvDecoder.decode(ByteBuffer.wrap(content != null ? content : new byte[0]));
-            return parseTlv(tlvs, path, model, nodeClass);
+            TlvReader reader = new TlvReader(content != null ? content : EMPTY);
+            return parseTlv(reader, path, model, nodeClass);
         } catch (TlvException | LwM2mNodeException e) {
             throw new CodecException(String.format("Unable to decode tlv for path [%s]", path), e);
         }
     }
 
     @SuppressWarnings("unchecked")
-    private <T extends LwM2mNode> T parseTlv(Tlv[] tlvs, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
-            throws CodecException {
-        LOG.trace("Parsing TLV content for path {}: {}", path, tlvs);
+    private <T extends LwM2mNode> T parseTlv(TlvReader reader, LwM2mPath path, LwM2mModel model, Class<T> nodeClass)
+            throws CodecException, TlvException {
+        LOG.trace("Parsing TLV content for path {}", path);
 
         // Object
         if (nodeClass == LwM2mObject.class) {
-            Map<Integer, LwM2mObjectInstance> instances = new HashMap<>(tlvs.length);
+            ObjectCodecPlan plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
+            Map<Integer, LwM2mObjectInstance> instances = new HashMap<>();
 
             // is it an array of TLV resources?
-            if (tlvs.length > 0 && //
-                    (tlvs[0].getType() == TlvType.MULTIPLE_RESOURCE || tlvs[0].getType() == TlvType.RESOURCE_VALUE)) {
+            TlvType firstType = reader.hasNext() ? reader.next() : null;
+            reader.reset();
+            if (firstType == TlvType.MULTIPLE_RESOURCE || firstType == TlvType.RESOURCE_VALUE) {
 
-                ObjectModel oModel = model.getObjectModel(path.getObjectId());
+                ObjectModel oModel = plan.getObjectModel();
                 if (oModel == null) {
                     LOG.warn("No model for object {}. The tlv is decoded assuming this is a single instance object",
                             path.getObjectId());
-                    instances.put(0, parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model));
+                    instances.put(0, parseObjectInstanceTlv(reader, path.getObjectIdAsInt(), 0, plan));
                 } else if (!oModel.multiple) {
-                    instances.put(0, parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model));
+                    instances.put(0, parseObjectInstanceTlv(reader, path.getObjectIdAsInt(), 0, plan));
                 } else {
                     // this is strange "create without instance ID" case ...
                     instances.put(LwM2mObjectInstance.UNDEFINED,
-                            parseObjectInstanceTlvWithoutId(tlvs, path.getObjectId(), model));
+                            parseObjectInstanceTlvWithoutId(reader, path.getObjectIdAsInt(), plan));
                 }
             } else {
-                for (Tlv tlv : tlvs) {
-                    if (tlv.getType() != TlvType.OBJECT_INSTANCE)
+                while (reader.hasNext()) {
+                    TlvType type = reader.next();
+                    if (type != TlvType.OBJECT_INSTANCE)
                         throw new CodecException("Expected TLV of type OBJECT_INSTANCE but was %s  [path:%s]",
-                                tlv.getType().name(), path);
+                                type.name(), path);
 
-                    LwM2mObjectInstance objectInstance = parseObjectInstanceTlv(tlv.getChildren(), path.getObjectId(),
-                            tlv.getIdentifier(), model);
+                    LwM2mObjectInstance objectInstance = parseObjectInstanceTlv(reader.children(),
+                            path.getObjectIdAsInt(), reader.getIdentifier(), plan);
                     LwM2mObjectInstance previousObjectInstance = instances.put(objectInstance.getId(), objectInstance);
                     if (previousObjectInstance != null) {
                         throw new CodecException(
@@ -100,35 +110,36 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
                     }
                 }
             }
-            return (T) new LwM2mObject(path.getObjectId(), instances.values());
+            return (T) new LwM2mObject(path.getObjectIdAsInt(), instances.values());
         }
 
         // Object instance
         else if (nodeClass == LwM2mObjectInstance.class) {
+            ObjectCodecPlan plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
 
-            if (tlvs.length == 1 && tlvs[0].getType() == TlvType.OBJECT_INSTANCE) {
-                if (path.isObjectInstance() && tlvs[0].getIdentifier() != path.getObjectInstanceId()) {
+            if (isSingle(reader, TlvType.OBJECT_INSTANCE)) {
+                if (path.isObjectInstance() && reader.getIdentifier() != path.getObjectInstanceIdAsInt()) {
                     throw new CodecException("Id conflict between path [%s] and instance TLV [object instance id=%d]",
-                            path, tlvs[0].getIdentifier());
+                            path, reader.getIdentifier());
                 }
                 // object instance TLV
-                return (T) parseObjectInstanceTlv(tlvs[0].getChildren(), path.getObjectId(), tlvs[0].getIdentifier(),
-                        model);
+                return (T) parseObjectInstanceTlv(reader.children(), path.getObjectIdAsInt(),
+                        reader.getIdentifier(), plan);
             } else {
                 // array of TLV resources
                 // try to retrieve the instanceId from the path or the model
                 Integer instanceId = path.getObjectInstanceId();
                 if (instanceId == null) {
                     // single instance object?
-                    ObjectModel oModel = model.getObjectModel(path.getObjectId());
+                    ObjectModel oModel = plan.getObjectModel();
                     if (oModel != null && !oModel.multiple) {
-                        return (T) parseObjectInstanceTlv(tlvs, path.getObjectId(), 0, model);
+                        return (T) parseObjectInstanceTlv(reader, path.getObjectIdAsInt(), 0, plan);
                     } else {
                         throw new CodecException(
                                 "Object instance id is mandatory for multiple instances object [path:%s]", path);
                     }
                 } else {
-                    return (T) parseObjectInstanceTlv(tlvs, path.getObjectId(), instanceId, model);
+                    return (T) parseObjectInstanceTlv(reader, path.getObjectIdAsInt(), instanceId, plan);
                 }
             }
         }
@@ -136,62 +147,79 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
         // Resource
         else if (nodeClass == LwM2mResource.class) {
             // The object instance level should not be here, but if it is provided and consistent we tolerate it
-            if (tlvs.length == 1 && tlvs[0].getType() == TlvType.OBJECT_INSTANCE) {
-                if (tlvs[0].getIdentifier() != path.getObjectInstanceId()) {
+            if (isSingle(reader, TlvType.OBJECT_INSTANCE)) {
+                if (reader.getIdentifier() != path.getObjectInstanceIdAsInt()) {
                     throw new CodecException("Id conflict between path [%s] and instance TLV [object instance id=%d]",
-                            path, tlvs[0].getIdentifier());
+                            path, reader.getIdentifier());
                 }
-                tlvs = tlvs[0].getChildren();
+                reader = reader.children();
             }
 
-            ResourceModel resourceModel = model.getResourceModel(path.getObjectId(), path.getResourceId());
-            if (tlvs.length == 0 && resourceModel != null && !resourceModel.multiple) {
+            ObjectCodecPlan plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
+            ResourceModel resourceModel = plan.getResourceModel(path.getResourceIdAsInt());
+            if (!reader.hasNext() && resourceModel != null && !resourceModel.multiple) {
                 // If there is no TlV value and we know that this resource is a single resource we raise an exception
                 // else we consider this is a multi-instance resource
                 throw new CodecException("TLV payload is mandatory for single resource %s", path);
-            } else if (tlvs.length == 1 && tlvs[0].getType() != TlvType.RESOURCE_INSTANCE) {
-                Tlv tlv = tlvs[0];
-                if (tlv.getType() != TlvType.RESOURCE_VALUE && tlv.getType() != TlvType.MULTIPLE_RESOURCE) {
+            }
+            TlvType firstType = reader.hasNext() ? reader.next() : null;
+            if (firstType != null && firstType != TlvType.RESOURCE_INSTANCE && !reader.hasNext()) {
+                if (firstType != TlvType.RESOURCE_VALUE && firstType != TlvType.MULTIPLE_RESOURCE) {
                     throw new CodecException(
                             "Expected TLV of type RESOURCE_VALUE or MUlTIPLE_RESOURCE but was %s [path:%s]",
-                            tlv.getType().name(), path);
+                            firstType.name(), path);
                 }
-                if (path.isResource() && path.getResourceId() != tlv.getIdentifier()) {
+                if (path.isResource() && path.getResourceIdAsInt() != reader.getIdentifier()) {
                     throw new CodecException("Id conflict between path [%s] and resource TLV [resource id=%s]", path,
-                            tlv.getIdentifier());
+                            reader.getIdentifier());
                 }
-                return (T) parseResourceTlv(tlv, path, model);
+                return (T) parseResourceTlv(reader, path, plan);
             } else {
-                Type expectedRscType = getResourceType(path, model);
-                return (T) parseResourceInstancesTlv(tlvs, path, expectedRscType);
+                reader.reset();
+                Type expectedRscType = getResourceType(path, plan);
+                return (T) parseResourceInstancesTlv(reader, path, expectedRscType);
             }
         }
 
         // Resource Instance
         else if (nodeClass == LwM2mResourceInstance.class) {
-            if (tlvs.length == 0) {
+            if (!reader.hasNext()) {
                 throw new CodecException("TLV payload is mandatory for resource instance %s", path);
-            } else if (tlvs.length > 1) {
+            }
+            reader.next();
+            if (reader.hasNext()) {
                 throw new CodecException("TLV payload must contain only 1 resource instance for %s", path);
             } else {
-                Tlv tlv = tlvs[0];
-                if (path.isResourceInstance() && path.getResourceInstanceId() != tlv.getIdentifier()) {
+                if (path.isResourceInstance() && path.getResourceInstanceIdAsInt() != reader.getIdentifier()) {
                     throw new CodecException("Id conflict between path [%s] and resource instance TLV [resource id=%s]",
-                            path, tlv.getIdentifier());
+                            path, reader.getIdentifier());
                 }
                 Type expectedType = getResourceType(path, model);
-                return (T) parseResourceInstanceTlv(tlv, path, expectedType);
+                return (T) parseResourceInstanceTlv(reader, path, expectedType);
             }
         }
         throw new IllegalArgumentException("invalid node class: " + nodeClass);
     }
 
-    private LwM2mObjectInstance parseObjectInstanceTlv(Tlv[] rscTlvs, int objectId, int instanceId, LwM2mModel model)
-            throws CodecException {
-        Map<Integer, LwM2mResource> resources = new HashMap<>(rscTlvs.length);
-        for (Tlv rscTlv : rscTlvs) {
-            LwM2mPath resourcePath = new LwM2mPath(objectId, instanceId, rscTlv.getIdentifier());
-            LwM2mResource resource = parseResourceTlv(rscTlv, resourcePath, model);
+    /**
+     * @return true if the reader contains only 1 TLV of the given type, in this case this TLV becomes the current one.
+     *         Else the reader is reset.
+     */
+    private boolean isSingle(TlvReader reader, TlvType type) throws TlvException {
+        if (reader.hasNext() && reader.next() == type && !reader.hasNext()) {
+            return true;
+        }
+        reader.reset();
+        return false;
+    }
+
+    private LwM2mObjectInstance parseObjectInstanceTlv(TlvReader reader, int objectId, int instanceId,
+            ObjectCodecPlan plan) throws CodecException, TlvException {
+        Map<Integer, LwM2mResource> resources = new HashMap<>();
+        while (reader.hasNext()) {
+            reader.next();
+            LwM2mPath resourcePath = new LwM2mPath(objectId, instanceId, reader.getIdentifier());
+            LwM2mResource resource = parseResourceTlv(reader, resourcePath, plan);
             LwM2mResource previousResource = resources.put(resource.getId(), resource);
             if (previousResource != null) {
                 throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
@@ -202,12 +230,13 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
 
     }
 
-    private LwM2mObjectInstance parseObjectInstanceTlvWithoutId(Tlv[] rscTlvs, int objectId, LwM2mModel model)
-            throws CodecException {
-        Map<Integer, LwM2mResource> resources = new HashMap<>(rscTlvs.length);
-        for (Tlv rscTlv : rscTlvs) {
-            LwM2mPath resourcePath = new LwM2mIncompletePath(objectId, rscTlv.getIdentifier());
-            LwM2mResource resource = parseResourceTlv(rscTlv, resourcePath, model);
+    private LwM2mObjectInstance parseObjectInstanceTlvWithoutId(TlvReader reader, int objectId, ObjectCodecPlan plan)
+            throws CodecException, TlvException {
+        Map<Integer, LwM2mResource> resources = new HashMap<>();
+        while (reader.hasNext()) {
+            reader.next();
+            LwM2mPath resourcePath = new LwM2mIncompletePath(objectId, reader.getIdentifier());
+            LwM2mResource resource = parseResourceTlv(reader, resourcePath, plan);
             LwM2mResource previousResource = resources.put(resource.getId(), resource);
             if (previousResource != null) {
                 throw new CodecException("2 RESOURCE nodes (%s,%s) with the same identifier %d for path %s",
@@ -217,83 +246,99 @@ public class LwM2mNodeTlvDecoder implements NodeDecoder {
         return new LwM2mObjectInstance(resources.values());
     }
 
-    private LwM2mResource parseResourceTlv(Tlv tlv, LwM2mPath resourcePath, LwM2mModel model) throws CodecException {
-        Type expectedType = getResourceType(resourcePath, model);
-        Integer resourceId = tlv.getIdentifier();
-        switch (tlv.getType()) {
+    // parse the current TLV of the reader
+    private LwM2mResource parseResourceTlv(TlvReader reader, LwM2mPath resourcePath, ObjectCodecPlan plan)
+            throws CodecException, TlvException {
+        Type expectedType = getResourceType(resourcePath, plan);
+        int resourceId = reader.getIdentifier();
+        switch (reader.getType()) {
         case MULTIPLE_RESOURCE:
-            return parseResourceInstancesTlv(tlv.getChildren(), resourcePath, expectedType);
+            return parseResourceInstancesTlv(reader.children(), resourcePath, expectedType);
         case RESOURCE_VALUE:
-            return LwM2mSingleResource.newResource(resourceId,
-                    parseTlvValue(tlv.getValue(), expectedType, resourcePath), expectedType);
+            return LwM2mSingleResource.newResource(resourceId, parseTlvValue(reader, expectedType, resourcePath),
+                    expectedType);
         default:
-            throw new CodecException("Invalid TLV type %s for resource %s", tlv.getType(), resourcePath);
+            throw new CodecException("Invalid TLV type %s for resource %s", reader.getType(), resourcePath);
         }
     }
 
-    private LwM2mMultipleResource parseResourceInstancesTlv(Tlv[] tlvs, LwM2mPath resourcePath, Type expectedType)
-            throws CodecException {
-        Map<Integer, LwM2mResourceInstance> instances = new HashMap<>(tlvs.length);
-        for (Tlv tlvChild : tlvs) {
-            if (tlvChild.getType() != TlvType.RESOURCE_INSTANCE)
-                throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s",
-                        tlvChild.getType().name(), resourcePath.append(tlvChild.getIdentifier()));
+    private LwM2mMultipleResource parseResourceInstancesTlv(TlvReader reader, LwM2mPath resourcePath,
+            Type expectedType) throws CodecException, TlvException {
+        Map<Integer, LwM2mResourceInstance> instances = new HashMap<>();
+        while (reader.hasNext()) {
+            TlvType type = reader.next();
+            if (type != TlvType.RESOURCE_INSTANCE)
+                throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s", type.name(),
+                        resourcePath.append(reader.getIdentifier()));
 
-            LwM2mResourceInstance resourceInstance = parseResourceInstanceTlv(tlvChild,
-                    resourcePath.append(tlvChild.getIdentifier()), expectedType);
-            LwM2mResourceInstance previousResourceInstance = instances.put(tlvChild.getIdentifier(), resourceInstance);
+            // path of resource instance is only needed for error messages
+            LwM2mResourceInstance resourceInstance = parseResourceInstanceTlv(reader, resourcePath, expectedType);
+            LwM2mResourceInstance previousResourceInstance = instances.put(resourceInstance.getId(),
+                    resourceInstance);
             if (previousResourceInstance != null) {
                 throw new CodecException("2 RESOURCE_INSTANCE nodes (%s,%s) with the same identifier %d for path %s",
-                        previousResourceInstance, resourceInstance, tlvChild.getIdentifier(), resourcePath);
+                        previousResourceInstance, resourceInstance, resourceInstance.getId(), resourcePath);
             }
         }
-        return new LwM2mMultipleResource(resourcePath.getResourceId(), expectedType, instances.values());
+        return new LwM2mMultipleResource(resourcePath.getResourceIdAsInt(), expectedType, instances.values());
     }
 
-    private LwM2mResourceInstance parseResourceInstanceTlv(Tlv tlv, LwM2mPath resourceInstancePath, Type expectedType)
+    // parse the current TLV of the reader, path is the resource instance path or its parent resource path
+    private LwM2mResourceInstance parseResourceInstanceTlv(TlvReader reader, LwM2mPath path, Type expectedType)
             throws CodecException {
-        Integer resourceInstanceId = tlv.getIdentifier();
-        if (tlv.getType() != TlvType.RESOURCE_INSTANCE) {
-            throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s", tlv.getType(),
-                    resourceInstancePath);
+        int resourceInstanceId = reader.getIdentifier();
+        if (reader.getType() != TlvType.RESOURCE_INSTANCE) {
+            throw new CodecException("Expected TLV of type RESOURCE_INSTANCE but was %s for path %s",
+                    reader.getType(), resourceInstancePath(path, resourceInstanceId));
         } else {
             return LwM2mResourceInstance.newInstance(resourceInstanceId,
-                    parseTlvValue(tlv.getValue(), expectedType, resourceInstancePath), expectedType);
+                    parseTlvValue(reader, expectedType, path), expectedType);
         }
+    }
 
+    private LwM2mPath resourceInstancePath(LwM2mPath path, int resourceInstanceId) {
+        return path.isResourceInstance() ? path : path.append(resourceInstanceId);
     }
 
-    private Object parseTlvValue(byte[] value, Type expectedType, LwM2mPath path) throws CodecException {
+    // decode value of the current TLV of the reader
+    private Object parseTlvValue(TlvReader reader, Type expectedType, LwM2mPath path) throws CodecException {
         try {
-            LOG.trace("TLV value for path {} and expected type {}: {}", path, expectedType, value);
+            LOG.trace("TLV value for path {} and expected type {}", path, expectedType);
             switch (expectedType) {
             case STRING:
-                return TlvDecoder.decodeString(value);
+                return reader.readString();
             case INTEGER:
-                return TlvDecoder.decodeInteger(value).longValue();
+                return reader.readInteger();
             case UNSIGNED_INTEGER:
-                return ULong.valueOf(TlvDecoder.decodeInteger(value).longValue());
+                return ULong.valueOf(reader.readInteger());
             case FLOAT:
-                return TlvDecoder.decodeFloat(value).doubleValue();
+                return reader.readFloat();
             case BOOLEAN:
-                return TlvDecoder.decodeBoolean(value);
+                return reader.readBoolean();
             case TIME:
-                return TlvDecoder.decodeDate(value);
+                return reader.readDate();
             case OPAQUE:
-                return value;
+                // no copy, the value shares the content array
+                return reader.readOpaqueBuffer();
             case OBJLNK:
-                return TlvDecoder.decodeObjlnk(value);
+                return reader.readObjlnk();
             default:
                 throw new CodecException("Unsupported type %s for path %s", expectedType, path);
             }
         } catch (TlvException e) {
-            throw new CodecException(e, "Invalid content [%s] for type %s for path %s", Hex.encodeHexString(value),
-                    expectedType, path);
+            throw new CodecException(e, "Invalid content [%s] for type %s for path %s",
+                    Hex.encodeHexString(reader.readOpaque()), expectedType,
+                    reader.getType() == TlvType.RESOURCE_INSTANCE ? resourceInstancePath(path, reader.getIdentifier())
+                            : path);
         }
     }
 
     public Type getResourceType(LwM2mPath rscPath, LwM2mModel model) throws CodecException {
-        ResourceModel rscDesc = model.getResourceModel(rscPath.getObjectId(), rscPath.getResourceId());
+        return getResourceType(rscPath, ObjectCodecPlan.get(model, rscPath.getObjectIdAsInt()));
+    }
+
+    private Type getResourceType(LwM2mPath rscPath, ObjectCodecPlan plan) throws CodecException {
+        ResourceModel rscDesc = plan.getResourceModel(rscPath.getResourceIdAsInt());
         if (rscDesc == null) {
             LOG.trace("unknown type for resource : {}", rscPath);
             // no resource description... opaque
@@ -15,8 +15,9 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec.tlv;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map.Entry;
@@ -32,19 +33,23 @@ import org.eclipse.leshan.core.node.LwM2mObjectInstance;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.ObjectLink;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mValueConverter;
 import org.eclipse.leshan.core.node.codec.NodeEncoder;
-import org.eclipse.leshan.core.tlv.Tlv;
+import org.eclipse.leshan.core.node.codec.ObjectCodecPlan;
 import org.eclipse.leshan.core.tlv.Tlv.TlvType;
-import org.eclipse.leshan.core.tlv.TlvEncoder;
+import org.eclipse.leshan.core.tlv.TlvWriter;
 import org.eclipse.leshan.core.util.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * TLV encoder for {@link LwM2mNode}.
+ * <p>
+ * Content is encoded in 2 passes: the first one converts values and computes the length of each TLV, the second one
+ * writes all TLVs in a single buffer of the exact size.
  */
 public class LwM2mNodeTlvEncoder implements NodeEncoder {
 
@@ -53,48 +58,68 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
     @Override
     public byte[] encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter)
             throws CodecException {
+        InternalEncoder internalEncoder = prepare(node, path, model, converter);
+        byte[] content = new byte[internalEncoder.size];
+        internalEncoder.write(new TlvWriter(ByteBuffer.wrap(content)));
+        return content;
+    }
+
+    /**
+     * Encodes a node directly in the given buffer, starting at its current position.
+     *
+     * @return the number of bytes written in the buffer.
+     * @throws CodecException if the node can not be encoded or if there is not enough space remaining in the buffer.
+     */
+    public int encode(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter,
+            ByteBuffer buffer) throws CodecException {
+        Validate.notNull(buffer);
+        InternalEncoder internalEncoder = prepare(node, path, model, converter);
+        if (internalEncoder.size > buffer.remaining()) {
+            throw new CodecException("Not enough space in buffer to encode %s: %d bytes needed, %d remaining", path,
+                    internalEncoder.size, buffer.remaining());
+        }
+        internalEncoder.write(new TlvWriter(buffer));
+        return internalEncoder.size;
+    }
+
+    private InternalEncoder prepare(LwM2mNode node, LwM2mPath path, LwM2mModel model, LwM2mValueConverter converter) {
         Validate.notNull(node);
         Validate.notNull(path);
         Validate.notNull(model);
 
         InternalEncoder internalEncoder = new InternalEncoder();
         internalEncoder.path = path;
-        internalEncoder.model = model;
+        internalEncoder.plan = ObjectCodecPlan.get(model, path.getObjectIdAsInt());
         internalEncoder.converter = converter;
         node.accept(internalEncoder);
-        return internalEncoder.out.toByteArray();
+        return internalEncoder;
     }
 
     private static class InternalEncoder implements LwM2mNodeVisitor {
 
         // visitor inputs
         private LwM2mPath path;
-        private LwM2mModel model;
+        private ObjectCodecPlan plan;
         private LwM2mValueConverter converter;
 
-        // visitor output
-        private ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // visitor output : TLVs in writing order and total encoded size.
+        // length is the value length, value and valueType are only set for RESOURCE_VALUE and RESOURCE_INSTANCE.
+        private int nbTlvs = 0;
+        private TlvType[] types = new TlvType[16];
+        private int[] identifiers = new int[16];
+        private int[] lengths = new int[16];
+        private Object[] values = new Object[16];
+        private Type[] valueTypes = new Type[16];
+        private int size = 0;
 
         @Override
         public void visit(LwM2mObject object) {
             LOG.trace("Encoding object {} into TLV", object);
 
-            Tlv[] tlvs;
-
             // encoded as an array of instances
-            tlvs = new Tlv[object.getInstances().size()];
-            int i = 0;
             for (Entry<Integer, LwM2mObjectInstance> instance : object.getInstances().entrySet()) {
-                Tlv[] resources = encodeResources(instance.getValue().getResources().values(),
+                size += addObjectInstance(instance.getKey(), instance.getValue().getResources().values(),
                         new LwM2mPath(object.getId(), instance.getKey()));
-                tlvs[i] = new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getKey());
-                i++;
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
             }
         }
 
@@ -102,23 +127,16 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mObjectInstance instance) {
             LOG.trace("Encoding object instance {} into TLV", instance);
 
-            Tlv[] tlvs;
             if (path.isObjectInstance() || instance.getId() == LwM2mObjectInstance.UNDEFINED) {
                 // the instanceId is part of the request path or is undefined
                 // so the instance TLV layer is not needed.
                 // encoded as an array of resource TLVs
-                tlvs = encodeResources(instance.getResources().values(), new LwM2mIncompletePath(path.getObjectId()));
+                size += addResources(instance.getResources().values(),
+                        new LwM2mIncompletePath(path.getObjectIdAsInt()));
             } else {
                 // encoded as an instance TLV
-                Tlv[] resources = encodeResources(instance.getResources().values(),
-                        new LwM2mPath(path.getObjectId(), instance.getId()));
-                tlvs = new Tlv[] { new Tlv(TlvType.OBJECT_INSTANCE, resources, null, instance.getId()) };
-            }
-
-            try {
-                out.write(TlvEncoder.encode(tlvs).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                size += addObjectInstance(instance.getId(), instance.getResources().values(),
+                        new LwM2mPath(path.getObjectIdAsInt(), instance.getId()));
             }
         }
 
@@ -126,73 +144,74 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
         public void visit(LwM2mResource resource) {
             LOG.trace("Encoding resource {} into TLV", resource);
 
-            Tlv rTlv = encodeResource(resource, path);
+            size += addResource(resource, path);
+        }
+
+        @Override
+        public void visit(LwM2mResourceInstance resourceInstance) {
+            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
 
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
-            }
+            ResourceModel rSpec = plan.getResourceModel(path.getResourceIdAsInt());
+            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
+
+            size += addResourceInstance(resourceInstance, path, expectedType);
+        }
+
+        // all addXXX methods return the encoded size of the added TLVs (header included)
+
+        private int addObjectInstance(int instanceId, Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            int index = add(TlvType.OBJECT_INSTANCE, instanceId, null, null);
+            return setLength(index, addResources(resources, instancePath));
         }
 
-        private Tlv[] encodeResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
-            Tlv[] rTlvs = new Tlv[resources.size()];
-            int i = 0;
+        private int addResources(Collection<LwM2mResource> resources, LwM2mPath instancePath) {
+            int length = 0;
             for (LwM2mResource resource : resources) {
-                rTlvs[i] = encodeResource(resource, instancePath.append(resource.getId()));
-                i++;
+                length += addResource(resource, instancePath.append(resource.getId()));
             }
-            return rTlvs;
+            return length;
         }
 
-        private Tlv encodeResource(LwM2mResource resource, LwM2mPath resourcePath) {
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), resource.getId());
+        private int addResource(LwM2mResource resource, LwM2mPath resourcePath) {
+            ResourceModel rSpec = plan.getResourceModel(resource.getId());
             Type expectedType = rSpec != null ? rSpec.type : resource.getType();
 
-            Tlv rTlv;
             if (resource.isMultiInstances()) {
-                Tlv[] instances = new Tlv[resource.getInstances().size()];
-                int i = 0;
+                int index = add(TlvType.MULTIPLE_RESOURCE, resource.getId(), null, null);
+                int length = 0;
                 for (LwM2mResourceInstance resourceInstance : resource.getInstances().values()) {
                     LwM2mPath resourceInstancePath = resourcePath.append(resourceInstance.getId());
-                    instances[i] = encodeResourceInstance(resourceInstance, resourceInstancePath, expectedType);
-                    i++;
+                    length += addResourceInstance(resourceInstance, resourceInstancePath, expectedType);
                 }
-                rTlv = new Tlv(TlvType.MULTIPLE_RESOURCE, instances, null, resource.getId());
+                return setLength(index, length);
             } else {
-                Object convertedValue = converter.convertValue(resource.getValue(), resource.getType(), expectedType,
-                        resourcePath);
-                rTlv = new Tlv(TlvType.RESOURCE_VALUE, null,
-                        this.encodeTlvValue(convertedValue, expectedType, resourcePath), resource.getId());
-            }
-            return rTlv;
-        }
-
-        @Override
-        public void visit(LwM2mResourceInstance resourceInstance) {
-            LOG.trace("Encoding resource instance {} into TLV", resourceInstance);
-
-            ResourceModel rSpec = model.getResourceModel(path.getObjectId(), path.getResourceId());
-            Type expectedType = rSpec != null ? rSpec.type : resourceInstance.getType();
-
-            Tlv rTlv = encodeResourceInstance(resourceInstance, path, expectedType);
-
-            try {
-                out.write(TlvEncoder.encode(new Tlv[] { rTlv }).array());
-            } catch (IOException e) {
-                throw new RuntimeException(e);
+                Object convertedValue;
+                if (resource instanceof LwM2mSingleResource && resource.getType() == Type.OPAQUE
+                        && expectedType == Type.OPAQUE) {
+                    // nothing to convert, avoid copying a value backed by a ByteBuffer slice
+                    convertedValue = ((LwM2mSingleResource) resource).getBinaryValue();
+                } else {
+                    convertedValue = converter.convertValue(resource.getValue(), resource.getType(), expectedType,
+                            resourcePath);
+                }
+                return addValue(TlvType.RESOURCE_VALUE, resource.getId(), convertedValue, expectedType, resourcePath);
             }
         }
 
-        private Tlv encodeResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
+        private int addResourceInstance(LwM2mResourceInstance resourceInstance, LwM2mPath resourceInstancePath,
                 Type expectedType) {
-            Object convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
-                    expectedType, resourceInstancePath);
-            return new Tlv(TlvType.RESOURCE_INSTANCE, null,
-                    this.encodeTlvValue(convertedValue, expectedType, resourceInstancePath), resourceInstance.getId());
+            Object convertedValue;
+            if (resourceInstance.getType() == Type.OPAQUE && expectedType == Type.OPAQUE) {
+                convertedValue = resourceInstance.getBinaryValue();
+            } else {
+                convertedValue = converter.convertValue(resourceInstance.getValue(), resourceInstance.getType(),
+                        expectedType, resourceInstancePath);
+            }
+            return addValue(TlvType.RESOURCE_INSTANCE, resourceInstance.getId(), convertedValue, expectedType,
+                    resourceInstancePath);
         }
 
-        private byte[] encodeTlvValue(Object value, Type type, LwM2mPath path) {
+        private int addValue(TlvType tlvType, int identifier, Object value, Type type, LwM2mPath path) {
             LOG.trace("Encoding value {} in TLV", value);
             if (type == null || type == Type.NONE) {
                 throw new CodecException(
@@ -200,28 +219,103 @@ public class LwM2mNodeTlvEncoder implements NodeEncoder {
             }
 
             try {
+                Object encodableValue = value;
+                int length;
                 switch (type) {
                 case STRING:
-                    return TlvEncoder.encodeString((String) value);
+                    encodableValue = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    length = ((byte[]) encodableValue).length;
+                    break;
                 case INTEGER:
                 case UNSIGNED_INTEGER:
-                    return TlvEncoder.encodeInteger((Number) value);
+                    length = TlvWriter.integerLength(((Number) value).longValue());
+                    break;
                 case FLOAT:
-                    return TlvEncoder.encodeFloat((Number) value);
+                    length = TlvWriter.floatLength((Number) value);
+                    break;
                 case BOOLEAN:
-                    return TlvEncoder.encodeBoolean((Boolean) value);
+                    length = TlvWriter.BOOLEAN_LENGTH;
+                    break;
                 case TIME:
-                    return TlvEncoder.encodeDate((Date) value);
+                    length = TlvWriter.DATE_LENGTH;
+                    break;
                 case OPAQUE:
-                    return (byte[]) value;
+                    length = value instanceof ByteBuffer ? ((ByteBuffer) value).remaining() : ((byte[]) value).length;
+                    break;
                 case OBJLNK:
-                    return TlvEncoder.encodeObjlnk((ObjectLink) value);
+                    length = TlvWriter.OBJLNK_LENGTH;
+                    break;
                 default:
                     throw new CodecException("Invalid value %s for type %s of %s", value, type, path);
                 }
+                int index = add(tlvType, identifier, encodableValue, type);
+                return setLength(index, length);
             } catch (IllegalArgumentException e) {
                 throw new CodecException(e, "Invalid value %s for type %s of %s", value, type, path);
             }
         }
+
+        private int add(TlvType type, int identifier, Object value, Type valueType) {
+            if (nbTlvs == types.length) {
+                int capacity = nbTlvs * 2;
+                types = Arrays.copyOf(types, capacity);
+                identifiers = Arrays.copyOf(identifiers, capacity);
+                lengths = Arrays.copyOf(lengths, capacity);
+                values = Arrays.copyOf(values, capacity);
+                valueTypes = Arrays.copyOf(valueTypes, capacity);
+            }
+            types[nbTlvs] = type;
+            identifiers[nbTlvs] = identifier;
+            values[nbTlvs] = value;
+            valueTypes[nbTlvs] = valueType;
+            return nbTlvs++;
+        }
+
+        private int setLength(int index, int length) {
+            lengths[index] = length;
+            return TlvWriter.headerSize(identifiers[index], length) + length;
+        }
+
+        private void write(TlvWriter writer) {
+            for (int i = 0; i < nbTlvs; i++) {
+                writer.writeHeader(types[i], identifiers[i], lengths[i]);
+                if (valueTypes[i] != null) {
+                    writeValue(writer, values[i], valueTypes[i]);
+                }
+            }
+        }
+
+        private void writeValue(TlvWriter writer, Object value, Type type) {
+            switch (type) {
+            case STRING:
+                writer.writeBytes((byte[]) value);
+                break;
+            case OPAQUE:
+                if (value instanceof ByteBuffer) {
+                    writer.writeBytes((ByteBuffer) value);
+                } else {
+                    writer.writeBytes((byte[]) value);
+                }
+                break;
+            case INTEGER:
+            case UNSIGNED_INTEGER:
+                writer.writeInteger(((Number) value).longValue());
+                break;
+            case FLOAT:
+                writer.writeFloat((Number) value);
+                break;
+            case BOOLEAN:
+                writer.writeBoolean((Boolean) value);
+                break;
+            case TIME:
+                writer.writeDate((Date) value);
+                break;
+            case OBJLNK:
+                writer.writeObjlnk((ObjectLink) value);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected type " + type);
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -24,6 +24,7 @@ import org.eclipse.leshan.core.node.LwM2mObjectInstance;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.util.Validate;
@@ -39,6 +40,7 @@ public class SendRequest implements UplinkRequest<SendResponse> {
 
     private final ContentFormat format;
     private final Map<LwM2mPath, LwM2mNode> nodes;
+    private final TimestampedLwM2mNodes timestampedNodes;
     private final Object coapRequest;
 
     /**
@@ -53,17 +55,45 @@ public class SendRequest implements UplinkRequest<SendResponse> {
 
     public SendRequest(ContentFormat format, Map<LwM2mPath, LwM2mNode> nodes, Object coapRequest) {
         // Validate Format
-        if (format == null || !(format.equals(ContentFormat.SENML_CBOR) || format.equals(ContentFormat.SENML_JSON))) {
-            throw new InvalidRequestException("Content format MUST be SenML_CBOR or SenML_JSON but was " + format);
-        }
+        validateFormat(format);
         // Validate Nodes
         validateNodes(nodes);
 
         this.format = format;
         this.nodes = nodes;
+        this.timestampedNodes = new TimestampedLwM2mNodes.Builder().put(null, nodes).build();
+        this.coapRequest = coapRequest;
+    }
+
+    /**
+     * @param format {@link ContentFormat} used to encode data. It MUST be {@link ContentFormat#SENML_CBOR} or
+     *        {@link ContentFormat#SENML_JSON}
+     * @param timestampedNodes The values of {@link LwM2mNode} to send, possibly at several times. Can not be empty.
+     */
+    public SendRequest(ContentFormat format, TimestampedLwM2mNodes timestampedNodes) {
+        this(format, timestampedNodes, null);
+    }
+
+    public SendRequest(ContentFormat format, TimestampedLwM2mNodes timestampedNodes, Object coapRequest) {
+        validateFormat(format);
+        Validate.notNull(timestampedNodes);
+        Validate.isTrue(!timestampedNodes.isEmpty(), "timestamped nodes MUST NOT be empty");
+        for (Long timestamp : timestampedNodes.getTimestamps()) {
+            validateNodes(timestampedNodes.getNodesAt(timestamp));
+        }
+
+        this.format = format;
+        this.nodes = timestampedNodes.getNodes();
+        this.timestampedNodes = timestampedNodes;
         this.coapRequest = coapRequest;
     }
 
+    private void validateFormat(ContentFormat format) {
+        if (format == null || !(format.equals(ContentFormat.SENML_CBOR) || format.equals(ContentFormat.SENML_JSON))) {
+            throw new InvalidRequestException("Content format MUST be SenML_CBOR or SenML_JSON but was " + format);
+        }
+    }
+
     private void validateNodes(Map<LwM2mPath, LwM2mNode> nodes) {
         Validate.notEmpty(nodes);
         for (Entry<LwM2mPath, LwM2mNode> entry : nodes.entrySet()) {
@@ -73,13 +103,13 @@ public class SendRequest implements UplinkRequest<SendResponse> {
             Validate.notNull(node);
 
             if (path.isObject() && node instanceof LwM2mObject)
-                return;
+                continue;
             if (path.isObjectInstance() && node instanceof LwM2mObjectInstance)
-                return;
+                continue;
             if (path.isResource() && node instanceof LwM2mSingleResource)
-                return;
+                continue;
             if (path.isResourceInstance() && node instanceof LwM2mResourceInstance)
-                return;
+                continue;
 
             throw new InvalidRequestException("Invalid value : path (%s) should not refer to a %s value", path,
                     node.getClass().getSimpleName());
@@ -91,10 +121,21 @@ public class SendRequest implements UplinkRequest<SendResponse> {
         return coapRequest;
     }
 
+    /**
+     * @return the most recent value of each node.
+     */
     public Map<LwM2mPath, LwM2mNode> getNodes() {
         return nodes;
     }
 
+    /**
+     * @return all the values to send grouped by time-stamp. Values of a request created without time-stamp have a
+     *         <code>null</code> time-stamp.
+     */
+    public TimestampedLwM2mNodes getTimestampedNodes() {
+        return timestampedNodes;
+    }
+
     public ContentFormat getFormat() {
         return format;
     }
@@ -106,7 +147,7 @@ public class SendRequest implements UplinkRequest<SendResponse> {
 
     @Override
     public String toString() {
-        return String.format("SendRequest [format=%s, nodes=%s]", format, nodes);
+        return String.format("SendRequest [format=%s, nodes=%s]", format, timestampedNodes);
     }
 
     @Override
@@ -114,7 +155,7 @@ public class SendRequest implements UplinkRequest<SendResponse> {
         final int prime = 31;
         int result = 1;
         result = prime * result + ((format == null) ? 0 : format.hashCode());
-        result = prime * result + ((nodes == null) ? 0 : nodes.hashCode());
+        result = prime * result + ((timestampedNodes == null) ? 0 : timestampedNodes.hashCode());
         return result;
     }
 
@@ -132,10 +173,10 @@ public class SendRequest implements UplinkRequest<SendResponse> {
                 return false;
         } else if (!format.equals(other.format))
             return false;
-        if (nodes == null) {
-            if (other.nodes != null)
+        if (timestampedNodes == null) {
+            if (other.timestampedNodes != null)
                 return false;
-        } else if (!nodes.equals(other.nodes))
+        } else if (!timestampedNodes.equals(other.timestampedNodes))
             return false;
         return true;
     }
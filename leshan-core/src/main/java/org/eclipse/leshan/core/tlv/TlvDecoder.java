@@ -15,7 +15,6 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.tlv;
 
-import java.math.BigInteger;
 import java.nio.Buffer;
 import java.nio.BufferOverflowException;
 import java.nio.BufferUnderflowException;
@@ -182,9 +181,8 @@ public class TlvDecoder {
      * Decodes a byte array into a date value.
      */
     public static Date decodeDate(byte[] value) throws TlvException {
-        BigInteger bi = new BigInteger(value);
-        if (value.length <= 8) {
-            return new Date(bi.longValue() * 1000L);
+        if (value.length > 0 && value.length <= 8) {
+            return new Date(toLong(value) * 1000L);
         } else {
             throw new TlvException("Invalid length for a time value: " + value.length);
         }
@@ -205,18 +203,28 @@ public class TlvDecoder {
      * Decodes a byte array into an integer value.
      */
     public static Number decodeInteger(byte[] value) throws TlvException {
-        BigInteger bi = new BigInteger(value);
+        if (value.length == 0 || value.length > 8) {
+            throw new TlvException("Invalid length for an integer value: " + value.length);
+        }
+        long l = toLong(value);
         if (value.length == 1) {
-            return bi.byteValue();
+            return (byte) l;
         } else if (value.length <= 2) {
-            return bi.shortValue();
+            return (short) l;
         } else if (value.length <= 4) {
-            return bi.intValue();
-        } else if (value.length <= 8) {
-            return bi.longValue();
+            return (int) l;
         } else {
-            throw new TlvException("Invalid length for an integer value: " + value.length);
+            return l;
+        }
+    }
+
+    // decode a big-endian two's complement integer of 1 to 8 bytes
+    private static long toLong(byte[] value) {
+        long l = value[0]; // sign extension
+        for (int i = 1; i < value.length; i++) {
+            l = l << 8 | (value[i] & 0xFF);
         }
+        return l;
     }
 
     /**
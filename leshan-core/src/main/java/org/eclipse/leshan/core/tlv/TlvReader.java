@@ -0,0 +1,305 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A forward only reader of TLV content.
+ * <p>
+ * Unlike {@link TlvDecoder}, no intermediate {@link Tlv} tree is created: {@link #next()} reads the header of the next
+ * TLV and values are decoded in place from the underlying array. Content of an OBJECT_INSTANCE or MULTIPLE_RESOURCE
+ * TLV is read with a child reader sharing the same array (see {@link #children()}).
+ *
+ * <pre>
+ * TlvReader reader = new TlvReader(content);
+ * while (reader.hasNext()) {
+ *     reader.next();
+ *     if (reader.getType() == TlvType.RESOURCE_VALUE) {
+ *         long value = reader.readInteger();
+ *     }
+ * }
+ * </pre>
+ */
+public class TlvReader {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TlvReader.class);
+
+    // type is given by the 2 most significant bits of the type byte
+    private static final TlvType[] TYPES = { TlvType.OBJECT_INSTANCE, TlvType.RESOURCE_INSTANCE,
+            TlvType.MULTIPLE_RESOURCE, TlvType.RESOURCE_VALUE };
+
+    private final byte[] buffer;
+    private final int start;
+    private final int end;
+    private int position;
+
+    // current TLV
+    private TlvType type;
+    private int identifier;
+    private int valueOffset;
+    private int valueLength;
+
+    public TlvReader(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    /**
+     * Create a reader for the TLVs contained in <code>length</code> bytes of <code>buffer</code> starting at
+     * <code>offset</code>.
+     */
+    public TlvReader(byte[] buffer, int offset, int length) {
+        if (offset < 0 || length < 0 || offset + length > buffer.length)
+            throw new IllegalArgumentException(String.format("Invalid offset %d and length %d for a buffer of %d bytes",
+                    offset, length, buffer.length));
+        this.buffer = buffer;
+        this.start = offset;
+        this.end = offset + length;
+        this.position = offset;
+    }
+
+    /**
+     * @return true if there is another TLV to read.
+     */
+    public boolean hasNext() {
+        return position < end;
+    }
+
+    /**
+     * Go back to the first TLV.
+     */
+    public void reset() {
+        position = start;
+        type = null;
+    }
+
+    /**
+     * Read the header of the next TLV, which becomes the current TLV. Its value is skipped.
+     *
+     * @return the type of the TLV.
+     * @throws TlvException if there is no more TLV or if the header is invalid
+     */
+    public TlvType next() throws TlvException {
+        if (position >= end)
+            throw new TlvException(String.format("No more TLV at position %d", position));
+        int tlvStart = position;
+
+        // decode type
+        int typeByte = buffer[position++] & 0xFF;
+        TlvType nextType = TYPES[typeByte >> 6];
+
+        // decode identifier
+        int nextIdentifier;
+        if ((typeByte & 0b0010_0000) == 0) {
+            require(1, "identifier", tlvStart);
+            nextIdentifier = buffer[position++] & 0xFF;
+        } else {
+            require(2, "identifier", tlvStart);
+            nextIdentifier = (buffer[position] & 0xFF) << 8 | (buffer[position + 1] & 0xFF);
+            position += 2;
+        }
+
+        // decode length
+        int length;
+        switch (typeByte & 0b0001_1000) {
+        case 0b0000_0000:
+            // 3 bit length
+            length = typeByte & 0b0000_0111;
+            break;
+        case 0b0000_1000:
+            // 8 bit length
+            require(1, "length", tlvStart);
+            length = buffer[position++] & 0xFF;
+            break;
+        case 0b0001_0000:
+            // 16 bit length
+            require(2, "length", tlvStart);
+            length = (buffer[position] & 0xFF) << 8 | (buffer[position + 1] & 0xFF);
+            position += 2;
+            break;
+        default:
+            // 24 bit length
+            require(3, "length", tlvStart);
+            length = (buffer[position] & 0xFF) << 16 | (buffer[position + 1] & 0xFF) << 8
+                    | (buffer[position + 2] & 0xFF);
+            position += 3;
+            break;
+        }
+        require(length, "value", tlvStart);
+
+        type = nextType;
+        identifier = nextIdentifier;
+        valueOffset = position;
+        valueLength = length;
+        position += length;
+
+        if (LOG.isTraceEnabled()) {
+            LOG.trace("TLV {} {} with a value of {} bytes at position {}", type, identifier, length, tlvStart);
+        }
+        return type;
+    }
+
+    private void require(int length, String field, int tlvStart) throws TlvException {
+        if (length > end - position) {
+            throw new TlvException(
+                    String.format("Invalid '%s' length for TLV at position %d: %d bytes expected, %d available", field,
+                            tlvStart, length, end - position));
+        }
+    }
+
+    private void checkCurrent() {
+        if (type == null)
+            throw new IllegalStateException("next() must be called before accessing the current TLV");
+    }
+
+    /**
+     * @return the type of the current TLV.
+     */
+    public TlvType getType() {
+        checkCurrent();
+        return type;
+    }
+
+    /**
+     * @return the identifier of the current TLV.
+     */
+    public int getIdentifier() {
+        checkCurrent();
+        return identifier;
+    }
+
+    /**
+     * @return the length of the value of the current TLV.
+     */
+    public int getValueLength() {
+        checkCurrent();
+        return valueLength;
+    }
+
+    /**
+     * @return a reader of the TLVs contained in the value of the current TLV.
+     */
+    public TlvReader children() {
+        checkCurrent();
+        return new TlvReader(buffer, valueOffset, valueLength);
+    }
+
+    /**
+     * Decodes the value of the current TLV into a string value.
+     */
+    public String readString() {
+        checkCurrent();
+        return new String(buffer, valueOffset, valueLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the value of the current TLV into a boolean value.
+     */
+    public boolean readBoolean() throws TlvException {
+        checkCurrent();
+        if (valueLength == 1) {
+            byte value = buffer[valueOffset];
+            if (value == 0) {
+                return false;
+            } else if (value == 1) {
+                return true;
+            } else {
+                LOG.warn("Boolean value should be encoded as integer with value 0 or 1, not {}", value);
+                return false;
+            }
+        }
+        throw new TlvException("Invalid length for a boolean value: " + valueLength);
+    }
+
+    /**
+     * Decodes the value of the current TLV into an integer value (1, 2, 4 or 8 bytes signed integer).
+     */
+    public long readInteger() throws TlvException {
+        checkCurrent();
+        if (valueLength == 0 || valueLength > 8)
+            throw new TlvException("Invalid length for an integer value: " + valueLength);
+        return readLong();
+    }
+
+    // read value as a big-endian two's complement integer
+    private long readLong() {
+        long value = buffer[valueOffset]; // sign extension
+        for (int i = 1; i < valueLength; i++) {
+            value = value << 8 | (buffer[valueOffset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    /**
+     * Decodes the value of the current TLV into a float value (4 or 8 bytes).
+     */
+    public double readFloat() throws TlvException {
+        checkCurrent();
+        if (valueLength == 4) {
+            return Float.intBitsToFloat((int) readLong());
+        } else if (valueLength == 8) {
+            return Double.longBitsToDouble(readLong());
+        } else {
+            throw new TlvException("Invalid length for a float value: " + valueLength);
+        }
+    }
+
+    /**
+     * Decodes the value of the current TLV into a date value (number of seconds since Epoch).
+     */
+    public Date readDate() throws TlvException {
+        checkCurrent();
+        if (valueLength == 0 || valueLength > 8)
+            throw new TlvException("Invalid length for a time value: " + valueLength);
+        return new Date(readLong() * 1000L);
+    }
+
+    /**
+     * Decodes the value of the current TLV into a objlnk value.
+     */
+    public ObjectLink readObjlnk() throws TlvException {
+        checkCurrent();
+        if (valueLength != 4)
+            throw new TlvException("Invalid length for an objlnk value: " + valueLength);
+        int objectId = (buffer[valueOffset] & 0xFF) << 8 | (buffer[valueOffset + 1] & 0xFF);
+        int objectInstanceId = (buffer[valueOffset + 2] & 0xFF) << 8 | (buffer[valueOffset + 3] & 0xFF);
+        return new ObjectLink(objectId, objectInstanceId);
+    }
+
+    /**
+     * @return a copy of the value of the current TLV.
+     */
+    public byte[] readOpaque() {
+        checkCurrent();
+        return Arrays.copyOfRange(buffer, valueOffset, valueOffset + valueLength);
+    }
+
+    /**
+     * @return a read-only buffer sharing the value of the current TLV with the underlying array, no copy is done.
+     */
+    public ByteBuffer readOpaqueBuffer() {
+        checkCurrent();
+        return ByteBuffer.wrap(buffer, valueOffset, valueLength).slice().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,215 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+
+/**
+ * Writes TLV headers and values directly into a {@link ByteBuffer}.
+ * <p>
+ * The length of a TLV must be known before writing its header, so content is generally encoded in 2 passes: a first
+ * one to compute lengths using {@link #headerSize(int, int)} and the <code>xxxLength</code> methods, a second one to
+ * write the TLVs in a buffer of the exact size.
+ */
+public class TlvWriter {
+
+    private static final int MAX_LENGTH_8BIT = 256;
+    private static final int MAX_LENGTH_16BIT = 65_536;
+    private static final int MAX_LENGTH_24BIT = 16_777_216;
+
+    public static final int BOOLEAN_LENGTH = 1;
+    public static final int DATE_LENGTH = 4;
+    public static final int OBJLNK_LENGTH = 4;
+
+    private final ByteBuffer buffer;
+
+    /**
+     * Create a writer which writes at the current position of the given buffer.
+     */
+    public TlvWriter(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * @return the size of the header of a TLV with the given identifier and value length.
+     */
+    public static int headerSize(int identifier, int length) {
+        int size = 1 /* HEADER */;
+        size += (identifier < MAX_LENGTH_8BIT) ? 1 : 2; /* 8 bits or 16 bits identifiers */
+
+        if (length < 8) {
+            size += 0;
+        } else if (length < MAX_LENGTH_8BIT) {
+            size += 1;
+        } else if (length < MAX_LENGTH_16BIT) {
+            size += 2;
+        } else if (length < MAX_LENGTH_24BIT) {
+            size += 3;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+        return size;
+    }
+
+    /**
+     * @return the number of bytes used to encode the given integer value (1, 2, 4 or 8).
+     */
+    public static int integerLength(long value) {
+        if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+            return 1;
+        } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+            return 2;
+        } else if (value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+            return 4;
+        } else {
+            return 8;
+        }
+    }
+
+    /**
+     * @return the number of bytes used to encode the given floating point value (4 for a {@link Float}, 8 else).
+     */
+    public static int floatLength(Number value) {
+        return value instanceof Float ? 4 : 8;
+    }
+
+    /**
+     * Writes the header of a TLV.
+     *
+     * @param type the type of the TLV
+     * @param identifier the identifier of the TLV
+     * @param length the length of the value of the TLV (including children TLVs for container types)
+     */
+    public void writeHeader(TlvType type, int identifier, int length) {
+        int typeByte;
+        switch (type) {
+        case OBJECT_INSTANCE:
+            typeByte = 0b00_000000;
+            break;
+        case RESOURCE_INSTANCE:
+            typeByte = 0b01_000000;
+            break;
+        case MULTIPLE_RESOURCE:
+            typeByte = 0b10_000000;
+            break;
+        case RESOURCE_VALUE:
+            typeByte = 0b11_000000;
+            break;
+        default:
+            throw new IllegalArgumentException("unknown TLV type : '" + type + "'");
+        }
+
+        // encode identifier length
+        typeByte |= (identifier < MAX_LENGTH_8BIT) ? 0b00_0000 : 0b10_0000;
+
+        // type of length
+        if (length < 8) {
+            typeByte |= length;
+        } else if (length < MAX_LENGTH_8BIT) {
+            typeByte |= 0b0000_1000;
+        } else if (length < MAX_LENGTH_16BIT) {
+            typeByte |= 0b0001_0000;
+        } else if (length < MAX_LENGTH_24BIT) {
+            typeByte |= 0b0001_1000;
+        } else {
+            throw new IllegalArgumentException("length should fit in max 24bits");
+        }
+
+        // fill the buffer
+        buffer.put((byte) typeByte);
+        if (identifier < MAX_LENGTH_8BIT) {
+            buffer.put((byte) identifier);
+        } else {
+            writeBigEndian(identifier, 2);
+        }
+
+        // write length
+        if (length >= 8) {
+            if (length < MAX_LENGTH_8BIT) {
+                buffer.put((byte) length);
+            } else if (length < MAX_LENGTH_16BIT) {
+                writeBigEndian(length, 2);
+            } else {
+                writeBigEndian(length, 3);
+            }
+        }
+    }
+
+    /**
+     * Writes an integer value using {@link #integerLength(long)} bytes.
+     */
+    public void writeInteger(long value) {
+        writeBigEndian(value, integerLength(value));
+    }
+
+    /**
+     * Writes a floating point value using {@link #floatLength(Number)} bytes.
+     */
+    public void writeFloat(Number value) {
+        if (value instanceof Float) {
+            writeBigEndian(Float.floatToIntBits(value.floatValue()), 4);
+        } else {
+            writeBigEndian(Double.doubleToLongBits(value.doubleValue()), 8);
+        }
+    }
+
+    /**
+     * Writes a boolean value.
+     */
+    public void writeBoolean(boolean value) {
+        buffer.put(value ? (byte) 1 : (byte) 0);
+    }
+
+    /**
+     * Writes a date value as a 4 bytes number of seconds since Epoch.
+     */
+    public void writeDate(Date value) {
+        writeBigEndian((int) (value.getTime() / 1000L), DATE_LENGTH);
+    }
+
+    /**
+     * Writes a Objlnk value.
+     */
+    public void writeObjlnk(ObjectLink value) {
+        writeBigEndian(value.getObjectId(), 2);
+        writeBigEndian(value.getObjectInstanceId(), 2);
+    }
+
+    /**
+     * Writes an already encoded value (e.g. opaque or UTF-8 string value).
+     */
+    public void writeBytes(byte[] value) {
+        buffer.put(value);
+    }
+
+    /**
+     * Writes an already encoded value from the position to the limit of the given buffer. The position of the given
+     * buffer is not modified.
+     */
+    public void writeBytes(ByteBuffer value) {
+        buffer.put(value.duplicate());
+    }
+
+    private void writeBigEndian(long value, int nbBytes) {
+        for (int i = nbBytes - 1; i >= 0; i--) {
+            buffer.put((byte) (value >> (i * 8)));
+        }
+    }
+}
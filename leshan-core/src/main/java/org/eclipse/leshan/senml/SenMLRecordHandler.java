@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+/**
+ * A callback receiving SenML records one by one while a SenML pack is decoded by a {@link SenMLStreamingDecoder}.
+ */
+public interface SenMLRecordHandler {
+
+    /**
+     * Called for each record of the pack, in the order of the pack.
+     * <p>
+     * Records are not resolved: use a {@link SenMLResolver} to resolve them incrementally.
+     *
+     * @throws SenMLException to stop the decoding.
+     */
+    void onRecord(SenMLRecord record) throws SenMLException;
+}
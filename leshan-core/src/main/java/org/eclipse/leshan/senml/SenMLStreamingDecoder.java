@@ -0,0 +1,28 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml;
+
+/**
+ * A {@link SenMLDecoder} which is able to emit records while parsing the content, without building the whole
+ * {@link SenMLPack} first.
+ */
+public interface SenMLStreamingDecoder extends SenMLDecoder {
+
+    /**
+     * Decode the given SenML content and call the handler for each record as soon as it is parsed.
+     */
+    void fromSenML(byte[] encodedSenML, SenMLRecordHandler handler) throws SenMLException;
+}
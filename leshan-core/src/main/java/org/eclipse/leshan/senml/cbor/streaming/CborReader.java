@@ -0,0 +1,292 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml.cbor.streaming;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.eclipse.leshan.senml.SenMLException;
+
+/**
+ * A minimal pull reader of CBOR data (<a href="https://tools.ietf.org/html/rfc7049">rfc7049</a>).
+ * <p>
+ * Items are decoded directly from the byte array: {@link #next()} reads the header of the next data item, then the
+ * <code>readXXX</code> methods read its content or {@link #skip()} ignores it. No intermediate object graph is
+ * created.
+ */
+public class CborReader {
+
+    // major types
+    public static final int UNSIGNED_INTEGER = 0;
+    public static final int NEGATIVE_INTEGER = 1;
+    public static final int BYTE_STRING = 2;
+    public static final int TEXT_STRING = 3;
+    public static final int ARRAY = 4;
+    public static final int MAP = 5;
+    public static final int TAG = 6;
+    public static final int SIMPLE_OR_FLOAT = 7;
+
+    /** Length of an indefinite-length string, array or map */
+    public static final long INDEFINITE = -1;
+
+    // simple values
+    private static final int FALSE = 20;
+    private static final int TRUE = 21;
+    private static final int NULL = 22;
+    private static final int HALF_FLOAT = 25;
+    private static final int SINGLE_FLOAT = 26;
+    private static final int DOUBLE_FLOAT = 27;
+    private static final int BREAK = 31;
+
+    private static final int MAX_DEPTH = 64;
+
+    private final byte[] data;
+    private int position;
+
+    // current item
+    private int majorType = -1;
+    private int additionalInfo;
+    private long argument;
+
+    public CborReader(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * @return true if there is still data to read.
+     */
+    public boolean hasRemaining() {
+        return position < data.length;
+    }
+
+    /**
+     * Read the header of the next data item.
+     *
+     * @return the major type of the item.
+     */
+    public int next() throws SenMLException {
+        int initialByte = readByte();
+        majorType = initialByte >>> 5;
+        additionalInfo = initialByte & 0x1F;
+
+        if (additionalInfo < 24) {
+            argument = additionalInfo;
+        } else if (additionalInfo <= 27) {
+            argument = readBigEndian(1 << (additionalInfo - 24));
+        } else if (additionalInfo == 31) {
+            if (majorType == UNSIGNED_INTEGER || majorType == NEGATIVE_INTEGER || majorType == TAG) {
+                throw new SenMLException("Invalid CBOR: indefinite length not allowed for major type %d at %d",
+                        majorType, position - 1);
+            }
+            argument = INDEFINITE;
+        } else {
+            throw new SenMLException("Invalid CBOR: reserved additional information %d at %d", additionalInfo,
+                    position - 1);
+        }
+        return majorType;
+    }
+
+    /**
+     * @return the major type of the current item.
+     */
+    public int getMajorType() {
+        return majorType;
+    }
+
+    /**
+     * @return the argument of the current item : value of unsigned integer (to be interpreted as unsigned), length of
+     *         string, array or map ({@link #INDEFINITE} for indefinite length), tag number or simple value.
+     */
+    public long getArgument() {
+        return argument;
+    }
+
+    /**
+     * @return true if current item is the "break" stop code of an indefinite length item.
+     */
+    public boolean isBreak() {
+        return majorType == SIMPLE_OR_FLOAT && additionalInfo == BREAK;
+    }
+
+    public boolean isBoolean() {
+        return majorType == SIMPLE_OR_FLOAT && (additionalInfo == FALSE || additionalInfo == TRUE);
+    }
+
+    public boolean isNull() {
+        return majorType == SIMPLE_OR_FLOAT && additionalInfo == NULL;
+    }
+
+    public boolean isFloat() {
+        return majorType == SIMPLE_OR_FLOAT && additionalInfo >= HALF_FLOAT && additionalInfo <= DOUBLE_FLOAT;
+    }
+
+    /**
+     * @return the value of the current boolean item.
+     */
+    public boolean readBoolean() {
+        return additionalInfo == TRUE;
+    }
+
+    /**
+     * @return the value of the current floating point item.
+     */
+    public double readFloat() {
+        switch (additionalInfo) {
+        case HALF_FLOAT:
+            return halfToDouble((int) argument);
+        case SINGLE_FLOAT:
+            return Float.intBitsToFloat((int) argument);
+        default:
+            return Double.longBitsToDouble(argument);
+        }
+    }
+
+    /**
+     * @return the value of the current text string item.
+     */
+    public String readText() throws SenMLException {
+        if (majorType != TEXT_STRING)
+            throw new SenMLException("Invalid CBOR: text string expected but was major type %d", majorType);
+        if (argument != INDEFINITE) {
+            int length = checkLength(argument);
+            String text = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return text;
+        }
+        return new String(readChunks(TEXT_STRING), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the value of the current byte string item.
+     */
+    public byte[] readBytes() throws SenMLException {
+        if (majorType != BYTE_STRING)
+            throw new SenMLException("Invalid CBOR: byte string expected but was major type %d", majorType);
+        if (argument != INDEFINITE) {
+            int length = checkLength(argument);
+            byte[] bytes = Arrays.copyOfRange(data, position, position + length);
+            position += length;
+            return bytes;
+        }
+        return readChunks(BYTE_STRING);
+    }
+
+    /**
+     * Skip the content of the current item (including nested items of arrays, maps and tags).
+     */
+    public void skip() throws SenMLException {
+        skip(0);
+    }
+
+    private void skip(int depth) throws SenMLException {
+        if (depth > MAX_DEPTH)
+            throw new SenMLException("Invalid CBOR: more than %d nested levels", MAX_DEPTH);
+
+        switch (majorType) {
+        case BYTE_STRING:
+        case TEXT_STRING:
+            if (argument == INDEFINITE) {
+                readChunks(majorType);
+            } else {
+                position += checkLength(argument);
+            }
+            break;
+        case ARRAY:
+        case MAP:
+            int itemsPerEntry = majorType == MAP ? 2 : 1;
+            if (argument == INDEFINITE) {
+                while (true) {
+                    next();
+                    if (isBreak())
+                        break;
+                    skip(depth + 1);
+                    for (int i = 1; i < itemsPerEntry; i++) {
+                        next();
+                        skip(depth + 1);
+                    }
+                }
+            } else {
+                if (argument < 0 || argument > data.length - position)
+                    throw new SenMLException("Invalid CBOR: invalid number of items %d at %d", argument, position);
+                long nbItems = argument * itemsPerEntry;
+                for (long i = 0; i < nbItems; i++) {
+                    next();
+                    skip(depth + 1);
+                }
+            }
+            break;
+        case TAG:
+            next();
+            skip(depth + 1);
+            break;
+        default:
+            // nothing more to skip for integers and simple values
+            break;
+        }
+    }
+
+    private byte[] readChunks(int type) throws SenMLException {
+        byte[] result = new byte[0];
+        while (true) {
+            next();
+            if (isBreak())
+                return result;
+            if (majorType != type || argument == INDEFINITE)
+                throw new SenMLException("Invalid CBOR: invalid chunk of indefinite length string at %d", position);
+            int length = checkLength(argument);
+            int previousLength = result.length;
+            result = Arrays.copyOf(result, previousLength + length);
+            System.arraycopy(data, position, result, previousLength, length);
+            position += length;
+        }
+    }
+
+    private int checkLength(long length) throws SenMLException {
+        if (length < 0 || length > data.length - position)
+            throw new SenMLException("Invalid CBOR: length %d exceeds remaining data at %d", length, position);
+        return (int) length;
+    }
+
+    private int readByte() throws SenMLException {
+        if (position >= data.length)
+            throw new SenMLException("Invalid CBOR: unexpected end of data");
+        return data[position++] & 0xFF;
+    }
+
+    private long readBigEndian(int nbBytes) throws SenMLException {
+        if (nbBytes > data.length - position)
+            throw new SenMLException("Invalid CBOR: unexpected end of data");
+        long value = 0;
+        for (int i = 0; i < nbBytes; i++) {
+            value = value << 8 | (data[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    private static double halfToDouble(int half) {
+        int exponent = (half >> 10) & 0x1F;
+        int mantissa = half & 0x3FF;
+        double value;
+        if (exponent == 0) {
+            value = mantissa * Math.pow(2, -24);
+        } else if (exponent != 31) {
+            value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+        } else {
+            value = mantissa == 0 ? Double.POSITIVE_INFINITY : Double.NaN;
+        }
+        return (half & 0x8000) != 0 ? -value : value;
+    }
+}
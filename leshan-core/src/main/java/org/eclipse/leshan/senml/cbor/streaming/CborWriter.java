@@ -0,0 +1,242 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml.cbor.streaming;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * A minimal writer of CBOR data (<a href="https://tools.ietf.org/html/rfc7049">rfc7049</a>).
+ * <p>
+ * Items are written in the given order directly in a growing byte array. Floating point values are written using the
+ * shortest form (half, single or double precision) which represents them exactly.
+ */
+public class CborWriter {
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+
+    private static final BigInteger UNSIGNED_LONG_MAX = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    private byte[] buffer;
+    private int size;
+
+    public CborWriter() {
+        this(64);
+    }
+
+    public CborWriter(int initialCapacity) {
+        buffer = new byte[initialCapacity];
+    }
+
+    public CborWriter writeArrayHeader(int nbItems) {
+        writeHeader(CborReader.ARRAY, nbItems);
+        return this;
+    }
+
+    public CborWriter writeMapHeader(int nbEntries) {
+        writeHeader(CborReader.MAP, nbEntries);
+        return this;
+    }
+
+    public CborWriter writeInteger(long value) {
+        if (value >= 0) {
+            writeHeader(CborReader.UNSIGNED_INTEGER, value);
+        } else {
+            writeHeader(CborReader.NEGATIVE_INTEGER, -1 - value);
+        }
+        return this;
+    }
+
+    /**
+     * Write an integer which must be interpreted as unsigned 64 bits integer.
+     */
+    public CborWriter writeUnsignedInteger(long value) {
+        writeHeader(CborReader.UNSIGNED_INTEGER, value);
+        return this;
+    }
+
+    /**
+     * Write an integer, as a bignum if it does not fit in 64 bits.
+     */
+    public CborWriter writeBigInteger(BigInteger value) {
+        if (value.bitLength() < 64) {
+            return writeInteger(value.longValue());
+        }
+        if (value.signum() > 0 && value.compareTo(UNSIGNED_LONG_MAX) <= 0) {
+            return writeUnsignedInteger(value.longValue());
+        }
+        if (value.signum() > 0) {
+            writeHeader(CborReader.TAG, TAG_POSITIVE_BIGNUM);
+            writeMagnitude(value);
+        } else {
+            writeHeader(CborReader.TAG, TAG_NEGATIVE_BIGNUM);
+            writeMagnitude(BigInteger.ONE.negate().subtract(value));
+        }
+        return this;
+    }
+
+    private void writeMagnitude(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // remove sign byte
+        int offset = bytes[0] == 0 ? 1 : 0;
+        writeHeader(CborReader.BYTE_STRING, bytes.length - offset);
+        write(bytes, offset, bytes.length - offset);
+    }
+
+    /**
+     * Write a decimal as a decimal fraction (tag 4).
+     */
+    public CborWriter writeBigDecimal(BigDecimal value) {
+        writeHeader(CborReader.TAG, TAG_DECIMAL_FRACTION);
+        writeArrayHeader(2);
+        writeInteger(-value.scale());
+        writeBigInteger(value.unscaledValue());
+        return this;
+    }
+
+    public CborWriter writeDouble(double value) {
+        float f = (float) value;
+        if (f == value || Double.isNaN(value)) {
+            return writeFloat(f);
+        }
+        writeTypeAndArgument(CborReader.SIMPLE_OR_FLOAT, 27, Double.doubleToLongBits(value), 8);
+        return this;
+    }
+
+    public CborWriter writeFloat(float value) {
+        int half = toHalfIfExact(value);
+        if (half >= 0) {
+            writeTypeAndArgument(CborReader.SIMPLE_OR_FLOAT, 25, half, 2);
+        } else {
+            writeTypeAndArgument(CborReader.SIMPLE_OR_FLOAT, 26, Float.floatToIntBits(value), 4);
+        }
+        return this;
+    }
+
+    public CborWriter writeBoolean(boolean value) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) (value ? 0xF5 : 0xF4);
+        return this;
+    }
+
+    public CborWriter writeNull() {
+        ensureCapacity(1);
+        buffer[size++] = (byte) 0xF6;
+        return this;
+    }
+
+    public CborWriter writeText(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeHeader(CborReader.TEXT_STRING, bytes.length);
+        write(bytes, 0, bytes.length);
+        return this;
+    }
+
+    public CborWriter writeBytes(byte[] value) {
+        writeHeader(CborReader.BYTE_STRING, value.length);
+        write(value, 0, value.length);
+        return this;
+    }
+
+    /**
+     * @return a copy of the written data.
+     */
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void writeHeader(int majorType, long argument) {
+        // argument is interpreted as unsigned
+        if (argument >= 0 && argument < 24) {
+            ensureCapacity(1);
+            buffer[size++] = (byte) (majorType << 5 | (int) argument);
+        } else if (argument >= 0 && argument < 0x100) {
+            writeTypeAndArgument(majorType, 24, argument, 1);
+        } else if (argument >= 0 && argument < 0x10000) {
+            writeTypeAndArgument(majorType, 25, argument, 2);
+        } else if (argument >= 0 && argument < 0x100000000L) {
+            writeTypeAndArgument(majorType, 26, argument, 4);
+        } else {
+            writeTypeAndArgument(majorType, 27, argument, 8);
+        }
+    }
+
+    private void writeTypeAndArgument(int majorType, int additionalInfo, long argument, int nbBytes) {
+        ensureCapacity(1 + nbBytes);
+        buffer[size++] = (byte) (majorType << 5 | additionalInfo);
+        for (int i = nbBytes - 1; i >= 0; i--) {
+            buffer[size++] = (byte) (argument >>> (i * 8));
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, size, length);
+        size += length;
+    }
+
+    private void ensureCapacity(int length) {
+        if (size + length > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + length));
+        }
+    }
+
+    /**
+     * @return the half precision representation of the given float or -1 if it can not be represented exactly.
+     */
+    private static int toHalfIfExact(float value) {
+        int bits = Float.floatToIntBits(value);
+        int sign = (bits >>> 16) & 0x8000;
+        int exponent = (bits >>> 23) & 0xFF;
+        int mantissa = bits & 0x7FFFFF;
+
+        if (exponent == 0xFF) {
+            // infinity or NaN
+            return mantissa == 0 ? sign | 0x7C00 : 0x7E00;
+        }
+        if (exponent == 0 && mantissa == 0) {
+            // zero
+            return sign;
+        }
+        if (exponent == 0) {
+            // float subnormal are too small for half precision
+            return -1;
+        }
+
+        int halfExponent = exponent - 127 + 15;
+        if (halfExponent >= 31) {
+            return -1;
+        }
+        if (halfExponent >= 1) {
+            // normal half
+            if ((mantissa & 0x1FFF) != 0)
+                return -1;
+            return sign | halfExponent << 10 | mantissa >> 13;
+        }
+        // subnormal half
+        int shift = 14 - halfExponent;
+        if (shift > 24)
+            return -1;
+        int significand = mantissa | 0x800000;
+        if ((significand & ((1 << shift) - 1)) != 0)
+            return -1;
+        return sign | significand >> shift;
+    }
+}
@@ -0,0 +1,393 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml.cbor.streaming;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.util.datatype.ULong;
+import org.eclipse.leshan.senml.SenMLException;
+import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+
+/**
+ * SenML-CBOR serializer/deserializer mapping CBOR items directly to {@link SenMLRecord} using {@link CborReader} and
+ * {@link CborWriter}.
+ * <p>
+ * Numbers are decoded to the same java types than with the "upokecenter" implementation.
+ */
+public class SenMLCborPackSerDes {
+
+    // SenML labels (https://tools.ietf.org/html/rfc8428#section-6)
+    private static final int BASE_TIME = -3;
+    private static final int BASE_NAME = -2;
+    private static final int NAME = 0;
+    private static final int VALUE = 2;
+    private static final int STRING_VALUE = 3;
+    private static final int BOOLEAN_VALUE = 4;
+    private static final int TIME = 6;
+    private static final int DATA_VALUE = 8;
+    // LWM2M object link value uses a text label
+    private static final String OBJLNK_VALUE = "vlo";
+    private static final int OBJLNK_LABEL = Integer.MIN_VALUE;
+    private static final int UNKNOWN_LABEL = Integer.MAX_VALUE;
+
+    private static final int TAG_POSITIVE_BIGNUM = 2;
+    private static final int TAG_NEGATIVE_BIGNUM = 3;
+    private static final int TAG_DECIMAL_FRACTION = 4;
+    private static final long NO_TAG = -1;
+
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+    private static final BigInteger UNSIGNED_LONG_MAX = BigInteger.ONE.shiftLeft(64).subtract(BigInteger.ONE);
+
+    private final boolean allowNoValue;
+
+    public SenMLCborPackSerDes() {
+        this(false);
+    }
+
+    /**
+     * Create SenML-CBOR serializer/deserializer.
+     * <p>
+     * SenML value is defined as mandatory in <a href="https://tools.ietf.org/html/rfc8428#section-4.2">rfc8428</a>, but
+     * SenML records used with a Read-Composite operation do not contain any value field, so
+     * <code>allowNoValue=true</code> can be used skip this validation.
+     *
+     * @param allowNoValue <code>True</code> to not check if there is a value for each SenML record.
+     */
+    public SenMLCborPackSerDes(boolean allowNoValue) {
+        this.allowNoValue = allowNoValue;
+    }
+
+    public void deserializeFromCbor(byte[] data, SenMLRecordHandler handler) throws SenMLException {
+        CborReader reader = new CborReader(data);
+        if (reader.next() != CborReader.ARRAY) {
+            throw new SenMLException("Unable to parse SenML CBOR: Array expected but was major type %d",
+                    reader.getMajorType());
+        }
+        long nbRecords = reader.getArgument();
+        for (long i = 0; nbRecords == CborReader.INDEFINITE || i < nbRecords; i++) {
+            reader.next();
+            if (nbRecords == CborReader.INDEFINITE && reader.isBreak())
+                break;
+            if (reader.getMajorType() != CborReader.MAP) {
+                throw new SenMLException("Unable to parse SenML CBOR: Map expected but was major type %d",
+                        reader.getMajorType());
+            }
+            handler.onRecord(deserializeRecord(reader));
+        }
+    }
+
+    private SenMLRecord deserializeRecord(CborReader reader) throws SenMLException {
+        SenMLRecord record = new SenMLRecord();
+        boolean hasValue = false;
+
+        long nbEntries = reader.getArgument();
+        for (long i = 0; nbEntries == CborReader.INDEFINITE || i < nbEntries; i++) {
+            // read label
+            long tag = nextUntagged(reader);
+            if (nbEntries == CborReader.INDEFINITE && reader.isBreak())
+                break;
+            int label = readLabel(reader);
+
+            // read value
+            tag = nextUntagged(reader);
+            switch (label) {
+            case BASE_NAME:
+                if (reader.getMajorType() == CborReader.TEXT_STRING) {
+                    record.setBaseName(reader.readText());
+                    continue;
+                }
+                break;
+            case BASE_TIME:
+                Number baseTime = readNumber(reader, tag);
+                if (baseTime != null)
+                    record.setBaseTime(toLong(baseTime));
+                continue;
+            case NAME:
+                if (reader.getMajorType() == CborReader.TEXT_STRING) {
+                    record.setName(reader.readText());
+                    continue;
+                }
+                break;
+            case TIME:
+                Number time = readNumber(reader, tag);
+                if (time != null)
+                    record.setTime(toLong(time));
+                continue;
+            case VALUE:
+                Number value = readNumber(reader, tag);
+                if (value != null) {
+                    record.setFloatValue(value);
+                    hasValue = true;
+                }
+                continue;
+            case BOOLEAN_VALUE:
+                if (reader.isBoolean()) {
+                    record.setBooleanValue(reader.readBoolean());
+                    hasValue = true;
+                    continue;
+                }
+                break;
+            case STRING_VALUE:
+                if (reader.getMajorType() == CborReader.TEXT_STRING) {
+                    record.setStringValue(reader.readText());
+                    hasValue = true;
+                    continue;
+                }
+                break;
+            case OBJLNK_LABEL:
+                if (reader.getMajorType() == CborReader.TEXT_STRING) {
+                    record.setObjectLinkValue(reader.readText());
+                    hasValue = true;
+                    continue;
+                }
+                break;
+            case DATA_VALUE:
+                if (reader.getMajorType() == CborReader.BYTE_STRING) {
+                    record.setOpaqueValue(reader.readBytes());
+                    hasValue = true;
+                    continue;
+                }
+                break;
+            default:
+                break;
+            }
+            // unknown label or unexpected value type
+            reader.skip();
+        }
+
+        if (!allowNoValue && !hasValue)
+            throw new SenMLException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s", record);
+
+        return record;
+    }
+
+    /**
+     * Read next item, skipping tags.
+     *
+     * @return the last tag read or {@link #NO_TAG}
+     */
+    private long nextUntagged(CborReader reader) throws SenMLException {
+        long tag = NO_TAG;
+        while (reader.next() == CborReader.TAG) {
+            tag = reader.getArgument();
+        }
+        return tag;
+    }
+
+    private int readLabel(CborReader reader) throws SenMLException {
+        long argument = reader.getArgument();
+        switch (reader.getMajorType()) {
+        case CborReader.UNSIGNED_INTEGER:
+            return argument >= 0 && argument < 1024 ? (int) argument : UNKNOWN_LABEL;
+        case CborReader.NEGATIVE_INTEGER:
+            return argument >= 0 && argument < 1024 ? (int) (-1 - argument) : UNKNOWN_LABEL;
+        case CborReader.TEXT_STRING:
+            return OBJLNK_VALUE.equals(reader.readText()) ? OBJLNK_LABEL : UNKNOWN_LABEL;
+        default:
+            reader.skip();
+            return UNKNOWN_LABEL;
+        }
+    }
+
+    /**
+     * @return the number value of the current item or null if this is not a number (item is skipped).
+     */
+    private Number readNumber(CborReader reader, long tag) throws SenMLException {
+        long argument = reader.getArgument();
+        switch (reader.getMajorType()) {
+        case CborReader.UNSIGNED_INTEGER:
+            return argument >= 0 ? (Number) argument : ULong.valueOf(argument);
+        case CborReader.NEGATIVE_INTEGER:
+            if (argument >= 0)
+                return -1 - argument;
+            return BigInteger.ONE.negate().subtract(toUnsignedBigInteger(argument));
+        case CborReader.BYTE_STRING:
+            if (tag == TAG_POSITIVE_BIGNUM) {
+                return normalize(new BigInteger(1, reader.readBytes()));
+            } else if (tag == TAG_NEGATIVE_BIGNUM) {
+                return normalize(BigInteger.ONE.negate().subtract(new BigInteger(1, reader.readBytes())));
+            }
+            break;
+        case CborReader.ARRAY:
+            if (tag == TAG_DECIMAL_FRACTION && argument == 2) {
+                Number exponent = readNumber(reader, nextUntagged(reader));
+                Number mantissa = readNumber(reader, nextUntagged(reader));
+                if (exponent == null || mantissa == null || exponent instanceof BigInteger
+                        || exponent instanceof ULong || Math.abs(exponent.longValue()) > Integer.MAX_VALUE)
+                    throw new SenMLException("Invalid SenML CBOR: unsupported decimal fraction");
+                return normalize(new BigDecimal(toBigInteger(mantissa), (int) -exponent.longValue()));
+            }
+            break;
+        case CborReader.SIMPLE_OR_FLOAT:
+            if (reader.isFloat()) {
+                return normalize(reader.readFloat());
+            }
+            break;
+        default:
+            break;
+        }
+        reader.skip();
+        return null;
+    }
+
+    // integral values are returned as integer like with upokecenter implementation
+    private Number normalize(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value) || value != Math.rint(value))
+            return value;
+        if (value >= -0x1p63 && value < 0x1p63)
+            return (long) value;
+        return normalize(new BigDecimal(value).toBigInteger());
+    }
+
+    private Number normalize(BigDecimal value) {
+        if (value.signum() == 0 || value.stripTrailingZeros().scale() <= 0)
+            return normalize(value.toBigInteger());
+        double doubleValue = value.doubleValue();
+        if (!Double.isInfinite(doubleValue) && new BigDecimal(doubleValue).compareTo(value) == 0)
+            return doubleValue;
+        return value;
+    }
+
+    private Number normalize(BigInteger value) {
+        if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0)
+            return value.longValue();
+        if (value.signum() > 0 && value.compareTo(UNSIGNED_LONG_MAX) <= 0)
+            return ULong.valueOf(value.longValue());
+        return value;
+    }
+
+    private BigInteger toBigInteger(Number number) {
+        if (number instanceof BigInteger)
+            return (BigInteger) number;
+        if (number instanceof ULong)
+            return ((ULong) number).toBigInteger();
+        return BigInteger.valueOf(number.longValue());
+    }
+
+    private BigInteger toUnsignedBigInteger(long value) {
+        return BigInteger.valueOf(value).and(UNSIGNED_LONG_MAX);
+    }
+
+    private long toLong(Number number) throws SenMLException {
+        if (number instanceof Long)
+            return number.longValue();
+        if (number instanceof Double) {
+            // fractional part is discarded
+            double value = number.doubleValue();
+            if (value > -0x1p63 - 1 && value < 0x1p63)
+                return (long) value;
+        } else if (number instanceof BigDecimal) {
+            BigInteger value = ((BigDecimal) number).toBigInteger();
+            if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0)
+                return value.longValue();
+        }
+        throw new SenMLException("Invalid SenML CBOR: time value %s does not fit in 64 bits", number);
+    }
+
+    public byte[] serializeToCbor(SenMLPack pack) throws SenMLException {
+        CborWriter writer = new CborWriter(16 + pack.getRecords().size() * 32);
+        writer.writeArrayHeader(pack.getRecords().size());
+
+        for (SenMLRecord record : pack.getRecords()) {
+            boolean hasBaseName = record.getBaseName() != null && !record.getBaseName().isEmpty();
+            boolean hasName = record.getName() != null && !record.getName().isEmpty();
+            Type type = record.getType();
+            if (type == null && !allowNoValue) {
+                throw new SenMLException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s",
+                        record);
+            }
+
+            int nbEntries = 0;
+            if (hasBaseName)
+                nbEntries++;
+            if (record.getBaseTime() != null)
+                nbEntries++;
+            if (hasName)
+                nbEntries++;
+            if (record.getTime() != null)
+                nbEntries++;
+            if (type != null)
+                nbEntries++;
+            writer.writeMapHeader(nbEntries);
+
+            if (hasBaseName) {
+                writer.writeInteger(BASE_NAME).writeText(record.getBaseName());
+            }
+            if (record.getBaseTime() != null) {
+                writer.writeInteger(BASE_TIME).writeInteger(record.getBaseTime());
+            }
+            if (hasName) {
+                writer.writeInteger(NAME).writeText(record.getName());
+            }
+            if (record.getTime() != null) {
+                writer.writeInteger(TIME).writeInteger(record.getTime());
+            }
+
+            if (type != null) {
+                switch (type) {
+                case FLOAT:
+                    writer.writeInteger(VALUE);
+                    writeNumber(writer, record.getFloatValue());
+                    break;
+                case BOOLEAN:
+                    writer.writeInteger(BOOLEAN_VALUE).writeBoolean(record.getBooleanValue());
+                    break;
+                case OBJLNK:
+                    writer.writeText(OBJLNK_VALUE).writeText(record.getObjectLinkValue());
+                    break;
+                case OPAQUE:
+                    writer.writeInteger(DATA_VALUE).writeBytes(record.getOpaqueValue());
+                    break;
+                case STRING:
+                    writer.writeInteger(STRING_VALUE).writeText(record.getStringValue());
+                    break;
+                default:
+                    throw new SenMLException("Unable to serialize SenML in CBOR: unexpected type %s", type);
+                }
+            }
+        }
+        return writer.toByteArray();
+    }
+
+    private void writeNumber(CborWriter writer, Number value) throws SenMLException {
+        // integer
+        if (value instanceof Byte || value instanceof Short || value instanceof Integer || value instanceof Long) {
+            writer.writeInteger(value.longValue());
+        } else if (value instanceof BigInteger) {
+            writer.writeBigInteger((BigInteger) value);
+        }
+        // unsigned integer
+        else if (value instanceof ULong) {
+            writer.writeUnsignedInteger(value.longValue());
+        }
+        // floating-point
+        else if (value instanceof Float) {
+            writer.writeFloat(value.floatValue());
+        } else if (value instanceof Double) {
+            writer.writeDouble(value.doubleValue());
+        } else if (value instanceof BigDecimal) {
+            writer.writeBigDecimal((BigDecimal) value);
+        } else {
+            throw new SenMLException("Unable to serialize SenML in CBOR: unsupported number type %s",
+                    value.getClass());
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.senml.cbor.streaming;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.leshan.senml.SenMLEncoder;
+import org.eclipse.leshan.senml.SenMLException;
+import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamingDecoder;
+
+/**
+ * Helper for encoding/decoding SenML CBOR without any CBOR library.
+ * <p>
+ * Unlike Jackson and "upokecenter" implementations, CBOR items are mapped directly to {@link SenMLRecord} while they
+ * are read, without intermediate representation. Records are encoded in insertion order.
+ */
+public class SenMLCborStreamingEncoderDecoder implements SenMLStreamingDecoder, SenMLEncoder {
+    private final SenMLCborPackSerDes serDes;
+
+    public SenMLCborStreamingEncoderDecoder() {
+        this(false);
+    }
+
+    /**
+     * Create an Encoder/Decoder for SenML-CBOR.
+     * 
+     * SenML value is defined as mandatory in <a href="https://tools.ietf.org/html/rfc8428#section-4.2">rfc8428</a>, but
+     * SenML records used with a Read-Composite operation do not contain any value field, so
+     * <code>allowNoValue=true</code> can be used skip this validation.
+     * 
+     * @param allowNoValue <code>True</code> to not check if there is a value for each SenML record.
+     */
+    public SenMLCborStreamingEncoderDecoder(boolean allowNoValue) {
+        this.serDes = new SenMLCborPackSerDes(allowNoValue);
+    }
+
+    @Override
+    public byte[] toSenML(SenMLPack pack) throws SenMLException {
+        if (pack == null)
+            return null;
+        return serDes.serializeToCbor(pack);
+    }
+
+    @Override
+    public SenMLPack fromSenML(byte[] data) throws SenMLException {
+        final List<SenMLRecord> records = new ArrayList<>();
+        fromSenML(data, new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                records.add(record);
+            }
+        });
+        return new SenMLPack(records);
+    }
+
+    @Override
+    public void fromSenML(byte[] data, SenMLRecordHandler handler) throws SenMLException {
+        serDes.deserializeFromCbor(data, handler);
+    }
+}
@@ -15,21 +15,28 @@
 package org.eclipse.leshan.senml.json.jackson;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.eclipse.leshan.core.util.json.JsonException;
-import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamingDecoder;
 
-import com.eclipsesource.json.ParseException;
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
  * Helper for encoding/decoding SenML JSON using Jackson
+ * <p>
+ * Decoding is done with the Jackson streaming API: records are created while parsing the content, without building an
+ * intermediate JSON tree.
  */
-public class SenMLJsonJacksonEncoderDecoder implements SenMLDecoder, SenMLEncoder {
+public class SenMLJsonJacksonEncoderDecoder implements SenMLStreamingDecoder, SenMLEncoder {
     private final SenMLJsonRecordSerDes serDes;
     private static final ObjectMapper mapper = new ObjectMapper();
 
@@ -63,14 +70,30 @@ public class SenMLJsonJacksonEncoderDecoder implements SenMLDecoder, SenMLEncode
 
     @Override
     public SenMLPack fromSenML(byte[] jsonString) throws SenMLException {
-        try {
-            JsonNode node = mapper.readTree(jsonString);
-            if (!node.isArray()) {
-                throw new SenMLException("Unable to parse SenML JSON: JsonArray expected but was %s",
-                        node.getNodeType());
+        final List<SenMLRecord> records = new ArrayList<>();
+        fromSenML(jsonString, new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                records.add(record);
+            }
+        });
+        return new SenMLPack(records);
+    }
+
+    @Override
+    public void fromSenML(byte[] jsonString, SenMLRecordHandler handler) throws SenMLException {
+        try (JsonParser parser = mapper.getFactory().createParser(jsonString)) {
+            JsonToken token = parser.nextToken();
+            if (token != JsonToken.START_ARRAY) {
+                throw new SenMLException("Unable to parse SenML JSON: JsonArray expected but was %s", token);
+            }
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                handler.onRecord(serDes.deserialize(parser));
+            }
+            if (token != JsonToken.END_ARRAY) {
+                throw new SenMLException("Unable to parse SenML JSON: JsonObject expected but was %s", token);
             }
-            return new SenMLPack(serDes.deserialize(node.iterator()));
-        } catch (JsonException | ParseException | IOException e) {
+        } catch (JsonException | IOException e) {
             throw new SenMLException("Unable to parse SenML JSON.", e);
         }
     }
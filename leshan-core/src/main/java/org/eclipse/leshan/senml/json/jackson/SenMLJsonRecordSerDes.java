@@ -14,6 +14,7 @@
 
 package org.eclipse.leshan.senml.json.jackson;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
 
@@ -24,6 +25,8 @@ import org.eclipse.leshan.core.util.json.JacksonJsonSerDes;
 import org.eclipse.leshan.core.util.json.JsonException;
 import org.eclipse.leshan.senml.SenMLRecord;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -180,4 +183,77 @@ public class SenMLJsonRecordSerDes extends JacksonJsonSerDes<SenMLRecord> {
 
         return record;
     }
+
+    /**
+     * Deserialize the JSON object at the current position of the parser without building a {@link JsonNode} tree.
+     * <p>
+     * Current token must be the <code>START_OBJECT</code> of the record, the parser is left on its
+     * <code>END_OBJECT</code>. Fields are read with the same rules as {@link #deserialize(JsonNode)}.
+     */
+    public SenMLRecord deserialize(JsonParser parser) throws IOException, JsonException {
+        SenMLRecord record = new SenMLRecord();
+        boolean hasValue = false;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            switch (field) {
+            case "bn":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setBaseName(parser.getText());
+                break;
+            case "bt":
+                if (token.isNumeric())
+                    record.setBaseTime(parser.getNumberValue().longValue());
+                break;
+            case "n":
+                if (token == JsonToken.VALUE_STRING)
+                    record.setName(parser.getText());
+                break;
+            case "t":
+                if (token.isNumeric())
+                    record.setTime(parser.getNumberValue().longValue());
+                break;
+            case "v":
+                if (token.isNumeric()) {
+                    record.setFloatValue(parser.getNumberValue());
+                    hasValue = true;
+                }
+                break;
+            case "vb":
+                if (token.isBoolean()) {
+                    record.setBooleanValue(token == JsonToken.VALUE_TRUE);
+                    hasValue = true;
+                }
+                break;
+            case "vs":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setStringValue(parser.getText());
+                    hasValue = true;
+                }
+                break;
+            case "vlo":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setObjectLinkValue(parser.getText());
+                    hasValue = true;
+                }
+                break;
+            case "vd":
+                if (token == JsonToken.VALUE_STRING) {
+                    record.setOpaqueValue(Base64.decodeBase64(parser.getText()));
+                    hasValue = true;
+                }
+                break;
+            default:
+                break;
+            }
+            // ignore content of unexpected objects or arrays
+            parser.skipChildren();
+        }
+
+        if (!allowNoValue && !hasValue)
+            throw new JsonException("Invalid SenML record : record must have a value (v,vb,vlo,vd,vs) : %s", record);
+
+        return record;
+    }
 }
@@ -0,0 +1,170 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ObjectLoaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File modelsDir;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        modelsDir = folder.newFolder("models");
+        cacheFile = new File(folder.getRoot(), "models.cache");
+        for (String ddfpath : ObjectLoader.ddfpaths) {
+            copy("/models/" + ddfpath, new File(modelsDir, ddfpath));
+        }
+    }
+
+    @Test
+    public void load_objects_from_dir() {
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, true);
+
+        assertSameModels(ObjectLoader.loadAllDefault(), models);
+    }
+
+    @Test
+    public void load_objects_from_dir_ignores_invalid_file() throws IOException {
+        try (OutputStream out = new FileOutputStream(new File(modelsDir, "invalid.xml"))) {
+            out.write("<LWM2M><Object>".getBytes());
+        }
+
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, true);
+
+        assertSameModels(ObjectLoader.loadAllDefault(), models);
+    }
+
+    @Test
+    public void load_objects_from_dir_with_cache() {
+        CountingParser parser = new CountingParser();
+
+        // first load parses all files and writes the cache
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+        assertEquals(ObjectLoader.ddfpaths.length, parser.count.get());
+        assertTrue(cacheFile.isFile());
+
+        // second load does not parse any file
+        parser.count.set(0);
+        List<ObjectModel> cachedModels = ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+        assertEquals(0, parser.count.get());
+        assertSameModels(models, cachedModels);
+    }
+
+    @Test
+    public void load_objects_from_dir_with_cache_parses_modified_file() throws IOException {
+        CountingParser parser = new CountingParser();
+        ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+
+        // replace a DDF file by another one
+        copy("/models/3-1_1.xml", new File(modelsDir, "3-1_0.xml"));
+        parser.count.set(0);
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+
+        assertEquals(1, parser.count.get());
+        int nbDevice1_1 = 0;
+        for (ObjectModel model : models) {
+            if (model.id == 3 && model.version.equals("1.1"))
+                nbDevice1_1++;
+        }
+        assertEquals(2, nbDevice1_1);
+    }
+
+    @Test
+    public void load_objects_from_dir_with_cache_not_validated() {
+        CountingParser parser = new CountingParser();
+        ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+
+        // cache written without validation is not used when validation is required
+        parser.count.set(0);
+        ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, new DefaultObjectModelValidator());
+        assertEquals(ObjectLoader.ddfpaths.length, parser.count.get());
+
+        // but cache written with validation is used without validation
+        parser.count.set(0);
+        ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+        assertEquals(0, parser.count.get());
+    }
+
+    @Test
+    public void load_objects_from_dir_with_corrupted_cache() throws IOException {
+        try (OutputStream out = new FileOutputStream(cacheFile)) {
+            out.write(new byte[] { 0x4C, 0x44, 0x44, 0x46, 0, 0, 0, 1, 1, 0, 0, 0, 14, 0 });
+        }
+        CountingParser parser = new CountingParser();
+
+        List<ObjectModel> models = ObjectLoader.loadObjectsFromDir(modelsDir, cacheFile, parser, null);
+
+        assertEquals(ObjectLoader.ddfpaths.length, parser.count.get());
+        assertSameModels(ObjectLoader.loadAllDefault(), models);
+    }
+
+    private static class CountingParser extends DDFFileParser {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public List<ObjectModel> parse(InputStream inputStream, String streamName)
+                throws InvalidDDFFileException, IOException {
+            count.incrementAndGet();
+            return super.parse(inputStream, streamName);
+        }
+    }
+
+    private void copy(String resource, File file) throws IOException {
+        try (InputStream in = getClass().getResourceAsStream(resource);
+                OutputStream out = new FileOutputStream(file)) {
+            byte[] buffer = new byte[4096];
+            int length;
+            while ((length = in.read(buffer)) != -1) {
+                out.write(buffer, 0, length);
+            }
+        }
+    }
+
+    // ObjectModel does not implement equals, models are compared by their string representation
+    private void assertSameModels(List<ObjectModel> expected, List<ObjectModel> actual) {
+        assertEquals(toSortedStrings(expected), toSortedStrings(actual));
+    }
+
+    private List<String> toSortedStrings(List<ObjectModel> models) {
+        List<String> strings = new ArrayList<>();
+        for (ObjectModel model : models) {
+            strings.add(model.toString());
+        }
+        Collections.sort(strings);
+        return strings;
+    }
+}
@@ -17,6 +17,7 @@ package org.eclipse.leshan.core.node;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -53,6 +54,53 @@ public class LwM2MResourceTest {
                 LwM2mSingleResource.newBinaryResource(10, "hello".getBytes()));
     }
 
+    @Test
+    public void opaques_from_array_and_buffer_are_equal() {
+        LwM2mSingleResource fromArray = LwM2mSingleResource.newBinaryResource(10, "hello".getBytes());
+        LwM2mSingleResource fromBuffer = LwM2mSingleResource.newBinaryResource(10,
+                ByteBuffer.wrap("--hello--".getBytes(), 2, 5));
+
+        assertEquals(fromArray, fromBuffer);
+        assertEquals(fromBuffer, fromArray);
+        assertEquals(fromArray.hashCode(), fromBuffer.hashCode());
+        assertNotEquals(fromArray, LwM2mSingleResource.newBinaryResource(10, ByteBuffer.wrap("world".getBytes())));
+    }
+
+    @Test
+    public void opaque_from_buffer_value() {
+        byte[] bytes = "hello".getBytes();
+        LwM2mSingleResource resource = LwM2mSingleResource.newBinaryResource(10, ByteBuffer.wrap(bytes));
+
+        // a buffer wrapping a whole array gives back this array
+        assertSame(bytes, resource.getValue());
+        ByteBuffer value = resource.getBinaryValue();
+        assertTrue(value.isReadOnly());
+        assertEquals(ByteBuffer.wrap(bytes), value);
+
+        // a slice is shared, and copied once when a byte array is requested
+        byte[] content = "--hello--".getBytes();
+        resource = LwM2mSingleResource.newBinaryResource(10, ByteBuffer.wrap(content, 2, 5));
+        assertArrayEquals(bytes, (byte[]) resource.getValue());
+        assertSame(resource.getValue(), resource.getValue());
+        content[2] = 'j';
+        assertEquals(ByteBuffer.wrap("jello".getBytes()), resource.getBinaryValue());
+        assertEquals("LwM2mSingleResource [id=10, value=5Bytes, type=OPAQUE]", resource.toString());
+    }
+
+    @Test
+    public void opaque_instance_from_buffer() {
+        LwM2mResourceInstance instance = LwM2mResourceInstance.newInstance(1,
+                ByteBuffer.wrap("--hello--".getBytes(), 2, 5), Type.OPAQUE);
+
+        assertEquals(LwM2mResourceInstance.newBinaryInstance(1, "hello".getBytes()), instance);
+        assertArrayEquals("hello".getBytes(), (byte[]) instance.getValue());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void binary_value_of_string_resource() {
+        LwM2mSingleResource.newStringResource(10, "hello").getBinaryValue();
+    }
+
     @Test
     public void two_string_and_binary_are_not_equal() {
         assertNotEquals(LwM2mSingleResource.newStringResource(10, "hello"),
@@ -15,6 +15,10 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
@@ -23,11 +27,11 @@ public class LwM2mParhTest {
 
     @Test
     public void test_compare_path() {
-        assertEquals("/", "/");
-        assertEquals("/1", "/1");
-        assertEquals("/1/2", "/1/2");
-        assertEquals("/1/2/3", "/1/2/3");
-        assertEquals("/1/2/3/4", "/1/2/3/4");
+        assertSameOrder("/", "/");
+        assertSameOrder("/1", "/1");
+        assertSameOrder("/1/2", "/1/2");
+        assertSameOrder("/1/2/3", "/1/2/3");
+        assertSameOrder("/1/2/3/4", "/1/2/3/4");
 
         assertFirstSmaller("/", "/1");
         assertFirstSmaller("/", "/1/1");
@@ -64,7 +68,80 @@ public class LwM2mParhTest {
         assertFirstSmaller("/1/1/1/1", "/2/1/1/1");
     }
 
-    private void assertEquals(String path1, String path2) {
+    @Test
+    public void test_parse_path() {
+        LwM2mPath path = new LwM2mPath("/3442/0/110/1");
+        assertEquals(3442, (int) path.getObjectId());
+        assertEquals(0, (int) path.getObjectInstanceId());
+        assertEquals(110, (int) path.getResourceId());
+        assertEquals(1, (int) path.getResourceInstanceId());
+        assertEquals("/3442/0/110/1", path.toString());
+
+        path = new LwM2mPath("3/0/");
+        assertTrue(path.isObjectInstance());
+        assertNull(path.getResourceId());
+        assertEquals(new LwM2mPath(3, 0), path);
+
+        assertTrue(new LwM2mPath("/").isRoot());
+        assertTrue(new LwM2mPath("").isRoot());
+        assertEquals(LwM2mPath.ROOTPATH.hashCode(), new LwM2mPath("/").hashCode());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_path_with_too_many_ids() {
+        new LwM2mPath("/1/2/3/4/5");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_path_with_empty_id() {
+        new LwM2mPath("/1//3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_path_with_invalid_id() {
+        new LwM2mPath("/1/a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_parse_path_with_overflowing_id() {
+        new LwM2mPath("/3/0/21474836470");
+    }
+
+    @Test(expected = LwM2mNodeException.class)
+    public void test_parse_path_with_out_of_range_id() {
+        new LwM2mPath("/3/65535");
+    }
+
+    @Test
+    public void test_append_path() {
+        assertEquals(new LwM2mPath(3, 0, 7, 1), new LwM2mPath(3, 0).append("/7/1"));
+        assertEquals(new LwM2mPath(3, 0), new LwM2mPath(3).append("0"));
+        assertEquals(new LwM2mPath(3), new LwM2mPath(3).append("/"));
+        assertEquals(new LwM2mPath(3), LwM2mPath.ROOTPATH.append("/3"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void test_append_too_long_path() {
+        new LwM2mPath(3, 0, 7).append("/1/2");
+    }
+
+    @Test
+    public void test_start_with() {
+        assertTrue(new LwM2mPath(3, 0, 7, 1).startWith(LwM2mPath.ROOTPATH));
+        assertTrue(new LwM2mPath(3, 0, 7, 1).startWith(new LwM2mPath(3, 0)));
+        assertTrue(new LwM2mPath(3, 0, 7, 1).startWith(new LwM2mPath(3, 0, 7, 1)));
+        assertFalse(new LwM2mPath(3, 0, 7, 1).startWith(new LwM2mPath(3, 1)));
+        assertFalse(new LwM2mPath(3, 0).startWith(new LwM2mPath(3, 0, 0)));
+    }
+
+    @Test
+    public void test_value_of_path() {
+        LwM2mPath path = LwM2mPath.valueOf("/3/0/13");
+        assertEquals(new LwM2mPath(3, 0, 13), path);
+        assertSame(path, LwM2mPath.valueOf(new String("/3/0/13")));
+    }
+
+    private void assertSameOrder(String path1, String path2) {
         assertTrue(new LwM2mPath(path1).compareTo(new LwM2mPath(path2)) == 0);
     }
 
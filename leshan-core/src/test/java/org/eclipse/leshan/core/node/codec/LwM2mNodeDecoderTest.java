@@ -18,6 +18,7 @@ package org.eclipse.leshan.core.node.codec;
 
 import static org.junit.Assert.*;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -267,6 +268,25 @@ public class LwM2mNodeDecoderTest {
         assertEquals(value, resource.getValue());
     }
 
+    @Test
+    public void tlv_firmware_package_resource_is_not_copied() throws CodecException {
+        byte[] firmware = new byte[] { 1, 2, 3, 4, 5 };
+        byte[] content = TlvEncoder.encode(new Tlv[] { new Tlv(TlvType.RESOURCE_VALUE, null, firmware, 0) }).array();
+        LwM2mSingleResource resource = (LwM2mSingleResource) decoder.decode(content, ContentFormat.TLV,
+                new LwM2mPath(5, 0, 0), model);
+
+        assertEquals(Type.OPAQUE, resource.getType());
+        assertArrayEquals(firmware, (byte[]) resource.getValue());
+        assertEquals(LwM2mSingleResource.newBinaryResource(0, firmware), resource);
+
+        // the binary value is a read-only view of the content
+        ByteBuffer value = resource.getBinaryValue();
+        assertTrue(value.isReadOnly());
+        assertEquals(firmware.length, value.remaining());
+        content[content.length - 1] = 9;
+        assertEquals(9, value.get(firmware.length - 1));
+    }
+
     @Test
     public void tlv_device_object_instance0_from_resources_tlv() throws CodecException {
 
@@ -1024,6 +1044,88 @@ public class LwM2mNodeDecoderTest {
                 ((LwM2mObject) timestampedResources.get(2).getNode()).getInstance(0).getResource(0).getValue());
     }
 
+    @Test
+    public void senml_timestamped_instances_streamed_in_payload_order() throws CodecException {
+        StringBuilder b = new StringBuilder();
+        b.append("[{\"bn\":\"/1024/0/\",\"bt\":268600000, \"n\":\"1\", \"v\":22.9},");
+        b.append("{\"n\":\"0\",\"vs\":\"a string\"},");
+        b.append("{\"n\":\"1\",\"v\":24.1,\"t\":-50},");
+        b.append("{\"n\":\"0\",\"vs\":\"another string\",\"t\":0}]");
+
+        final List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
+        decoder.decodeTimestampedData(b.toString().getBytes(), ContentFormat.SENML_JSON, new LwM2mPath(1024, 0), model,
+                new TimestampedNodeHandler() {
+                    @Override
+                    public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                        assertEquals(new LwM2mPath(1024, 0), path);
+                        timestampedNodes.add(node);
+                    }
+                });
+
+        // consecutive records with same time-stamp only are grouped
+        assertEquals(3, timestampedNodes.size());
+        assertEquals(Long.valueOf(268600000), timestampedNodes.get(0).getTimestamp());
+        LwM2mObjectInstance instance = (LwM2mObjectInstance) timestampedNodes.get(0).getNode();
+        assertEquals(22.9d, instance.getResource(1).getValue());
+        assertEquals("a string", instance.getResource(0).getValue());
+
+        assertEquals(Long.valueOf(268600000 - 50), timestampedNodes.get(1).getTimestamp());
+        instance = (LwM2mObjectInstance) timestampedNodes.get(1).getNode();
+        assertEquals(24.1d, instance.getResource(1).getValue());
+
+        assertEquals(Long.valueOf(268600000), timestampedNodes.get(2).getTimestamp());
+        instance = (LwM2mObjectInstance) timestampedNodes.get(2).getNode();
+        assertEquals("another string", instance.getResource(0).getValue());
+    }
+
+    @Test
+    public void senml_timestamped_resources_streamed_without_given_path() throws CodecException {
+        StringBuilder b = new StringBuilder();
+        b.append("[{\"bn\":\"/4/0/0\",\"bt\":268600000,\"v\":45},");
+        b.append("{\"bn\":\"/4/0/1\",\"v\":30},");
+        b.append("{\"bn\":\"/4/0/0\",\"v\":40,\"t\":-50}]");
+
+        final List<LwM2mPath> paths = new ArrayList<>();
+        final List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
+        decoder.decodeTimestampedData(b.toString().getBytes(), ContentFormat.SENML_JSON, null, model,
+                new TimestampedNodeHandler() {
+                    @Override
+                    public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                        paths.add(path);
+                        timestampedNodes.add(node);
+                    }
+                });
+
+        assertEquals(Arrays.asList(new LwM2mPath("4/0/0"), new LwM2mPath("4/0/1"), new LwM2mPath("4/0/0")), paths);
+        assertEquals(Arrays.asList( //
+                new TimestampedLwM2mNode(268600000l, LwM2mSingleResource.newIntegerResource(0, 45)),
+                new TimestampedLwM2mNode(268600000l, LwM2mSingleResource.newIntegerResource(1, 30)),
+                new TimestampedLwM2mNode(268600000l - 50, LwM2mSingleResource.newIntegerResource(0, 40))),
+                timestampedNodes);
+    }
+
+    @Test
+    public void json_timestamped_resources_given_to_handler() throws CodecException {
+        StringBuilder b = new StringBuilder();
+        b.append("{\"bn\":\"/1024/0/1\",\"e\":[");
+        b.append("{\"v\":22.9,\"t\":-30},");
+        b.append("{\"v\":22.4,\"t\":-5}],");
+        b.append("\"bt\":25462634}");
+
+        final List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
+        decoder.decodeTimestampedData(b.toString().getBytes(), ContentFormat.JSON, new LwM2mPath(1024, 0, 1), model,
+                new TimestampedNodeHandler() {
+                    @Override
+                    public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                        timestampedNodes.add(node);
+                    }
+                });
+
+        // decoder without streaming support : nodes are sorted by time-stamp
+        assertEquals(decoder.decodeTimestampedData(b.toString().getBytes(), ContentFormat.JSON,
+                new LwM2mPath(1024, 0, 1), model), timestampedNodes);
+    }
+
     @Test
     public void senml_json_decode_resources() {
         // Prepare data to decode
@@ -16,6 +16,7 @@
  *******************************************************************************/
 package org.eclipse.leshan.core.node.codec;
 
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -38,7 +39,9 @@ import org.eclipse.leshan.core.node.LwM2mResource;
 import org.eclipse.leshan.core.node.LwM2mResourceInstance;
 import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNodes;
 import org.eclipse.leshan.core.node.codec.senml.LwM2mNodeSenMLEncoder;
+import org.eclipse.leshan.core.node.codec.tlv.LwM2mNodeTlvEncoder;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
@@ -186,6 +189,42 @@ public class LwM2mNodeEncoderTest {
         Assert.assertArrayEquals(ENCODED_DEVICE_WITH_INSTANCE, encoded);
     }
 
+    @Test
+    public void tlv_encode_device_object_instance_in_buffer() {
+        LwM2mObjectInstance oInstance = new LwM2mObjectInstance(0, getDeviceResources());
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_DEVICE_WITH_INSTANCE.length + 4);
+        buffer.putShort((short) 0xCAFE);
+
+        int length = new LwM2mNodeTlvEncoder().encode(oInstance, new LwM2mPath("/3"), model, new LwM2mValueChecker(),
+                buffer);
+
+        Assert.assertEquals(ENCODED_DEVICE_WITH_INSTANCE.length, length);
+        Assert.assertEquals(ENCODED_DEVICE_WITH_INSTANCE.length + 2, buffer.position());
+        Assert.assertArrayEquals(ENCODED_DEVICE_WITH_INSTANCE,
+                Arrays.copyOfRange(buffer.array(), 2, 2 + ENCODED_DEVICE_WITH_INSTANCE.length));
+    }
+
+    @Test
+    public void tlv_encode_opaque_resource_from_buffer() {
+        byte[] firmware = new byte[] { 0, 1, 2, 3, 4, 5, 6, 7 };
+        ByteBuffer buffer = ByteBuffer.wrap(firmware, 2, 4);
+
+        byte[] encoded = encoder.encode(LwM2mSingleResource.newBinaryResource(0, buffer), ContentFormat.TLV,
+                new LwM2mPath("/5/0/0"), model);
+
+        Assert.assertArrayEquals(Hex.decodeHex("C40002030405".toCharArray()), encoded);
+        // position of the given buffer is not modified
+        Assert.assertEquals(2, buffer.position());
+    }
+
+    @Test(expected = CodecException.class)
+    public void tlv_encode_device_object_instance_in_too_small_buffer() {
+        LwM2mObjectInstance oInstance = new LwM2mObjectInstance(0, getDeviceResources());
+        ByteBuffer buffer = ByteBuffer.allocate(ENCODED_DEVICE_WITH_INSTANCE.length - 1);
+
+        new LwM2mNodeTlvEncoder().encode(oInstance, new LwM2mPath("/3"), model, new LwM2mValueChecker(), buffer);
+    }
+
     @Test
     public void json_encode_device_object_instance() {
 
@@ -425,6 +464,32 @@ public class LwM2mNodeEncoderTest {
         Assert.assertEquals(expected, new String(encoded));
     }
 
+    @Test
+    public void senml_json_encode_timestamped_nodes() {
+        // Nodes to encode, not in chronological order
+        TimestampedLwM2mNodes nodes = new TimestampedLwM2mNodes.Builder()
+                .put(268_500_010L, new LwM2mPath("3/0/9"), LwM2mSingleResource.newIntegerResource(9, 94))
+                .put(268_500_000L, new LwM2mPath("3/0/9"), LwM2mSingleResource.newIntegerResource(9, 95))
+                .put(268_500_000L, new LwM2mPath("1/0/1"), LwM2mSingleResource.newIntegerResource(1, 86400))
+                .put(null, new LwM2mPath("3/0/0"), LwM2mSingleResource.newStringResource(0, "Open Mobile Alliance"))
+                .build();
+
+        // Encode
+        byte[] encoded = encoder.encodeTimestampedNodes(nodes, ContentFormat.SENML_JSON, model);
+
+        // Expected value : nodes without time-stamp first, base time set once by time-stamp
+        StringBuilder b = new StringBuilder();
+        b.append("[{\"bn\":\"/3/0/0\",\"vs\":\"Open Mobile Alliance\"},");
+        b.append("{\"bn\":\"/3/0/9\",\"bt\":268500000,\"v\":95},");
+        b.append("{\"bn\":\"/1/0/1\",\"v\":86400},");
+        b.append("{\"bn\":\"/3/0/9\",\"bt\":268500010,\"v\":94}]");
+        String expected = b.toString();
+
+        Assert.assertEquals(expected, new String(encoded));
+        Assert.assertEquals(LwM2mSingleResource.newIntegerResource(9, 94),
+                nodes.getNodes().get(new LwM2mPath("3/0/9")));
+    }
+
     @Test
     public void senml_json_encode_path_using_name() {
         // Prepare data to encode
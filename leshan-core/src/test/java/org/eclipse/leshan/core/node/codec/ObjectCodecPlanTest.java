@@ -0,0 +1,92 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.node.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.leshan.core.model.ObjectLoader;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.model.ResourceModel.Operations;
+import org.eclipse.leshan.core.model.ResourceModel.Type;
+import org.eclipse.leshan.core.model.StaticModel;
+import org.junit.Test;
+
+public class ObjectCodecPlanTest {
+
+    @Test
+    public void get_resource_models_of_an_object() {
+        StaticModel model = new StaticModel(ObjectLoader.loadDefault());
+        ObjectCodecPlan plan = ObjectCodecPlan.get(model, 3);
+
+        assertSame(model.getObjectModel(3), plan.getObjectModel());
+        for (ResourceModel resourceModel : model.getObjectModel(3).resources.values()) {
+            assertSame(resourceModel, plan.getResourceModel(resourceModel.id));
+        }
+        assertNull(plan.getResourceModel(-1));
+        assertNull(plan.getResourceModel(65535));
+        assertSame(plan, ObjectCodecPlan.get(model, 3));
+    }
+
+    @Test
+    public void get_resource_models_of_an_object_with_sparse_ids() {
+        ObjectModel objectModel = new ObjectModel(10000, "sparse", "", "1.0", false, false,
+                Arrays.asList(resource(0, Type.STRING), resource(5700, Type.FLOAT), resource(65535, Type.OPAQUE)));
+        ObjectCodecPlan plan = ObjectCodecPlan.get(objectModel);
+
+        assertEquals(Type.STRING, plan.getResourceModel(0).type);
+        assertEquals(Type.FLOAT, plan.getResourceModel(5700).type);
+        assertEquals(Type.OPAQUE, plan.getResourceModel(65535).type);
+        assertNull(plan.getResourceModel(1));
+    }
+
+    @Test
+    public void plan_is_kept_by_each_object_model() {
+        List<ObjectModel> objectModels = new ArrayList<>();
+        List<ObjectCodecPlan> plans = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ObjectModel objectModel = new ObjectModel(10000 + i, "object" + i, "", "1.0", false, false,
+                    Arrays.asList(resource(0, Type.STRING)));
+            objectModels.add(objectModel);
+            plans.add(ObjectCodecPlan.get(objectModel));
+        }
+
+        for (int i = 0; i < objectModels.size(); i++) {
+            assertSame(plans.get(i), ObjectCodecPlan.get(objectModels.get(i)));
+            assertSame(objectModels.get(i), plans.get(i).getObjectModel());
+        }
+    }
+
+    @Test
+    public void get_empty_plan_for_unknown_object() {
+        StaticModel model = new StaticModel(ObjectLoader.loadDefault());
+        ObjectCodecPlan plan = ObjectCodecPlan.get(model, 12345);
+
+        assertSame(ObjectCodecPlan.EMPTY, plan);
+        assertNull(plan.getObjectModel());
+        assertNull(plan.getResourceModel(0));
+    }
+
+    private ResourceModel resource(int id, Type type) {
+        return new ResourceModel(id, "resource" + id, Operations.R, false, false, type, null, null, "");
+    }
+}
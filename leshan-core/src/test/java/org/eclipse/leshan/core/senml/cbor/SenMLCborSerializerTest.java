@@ -23,6 +23,7 @@ import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
 import org.eclipse.leshan.senml.cbor.jackson.SenMLCborJacksonEncoderDecoder;
+import org.eclipse.leshan.senml.cbor.streaming.SenMLCborStreamingEncoderDecoder;
 import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
 import org.junit.Assert;
 import org.junit.Test;
@@ -36,9 +37,11 @@ public class SenMLCborSerializerTest extends AbstractSenMLTest {
     public static Collection<?> senMLJsonencoderDecoder() {
         SenMLCborUpokecenterEncoderDecoder cborJava = new SenMLCborUpokecenterEncoderDecoder(true, false);
         SenMLCborJacksonEncoderDecoder jackson = new SenMLCborJacksonEncoderDecoder();
+        SenMLCborStreamingEncoderDecoder streaming = new SenMLCborStreamingEncoderDecoder();
         return Arrays.asList(new Object[][] { //
                                 { cborJava, cborJava, "cbor-java" }, //
-                                { jackson, jackson, "jackson" } });
+                                { jackson, jackson, "jackson" }, //
+                                { streaming, streaming, "streaming" } });
     }
 
     private SenMLEncoder encoder;
@@ -87,4 +90,14 @@ public class SenMLCborSerializerTest extends AbstractSenMLTest {
         String expected = "81a221662f302f302f330843abcdef";
         Assert.assertEquals(expected, Hex.encodeHexString(cbor));
     }
+
+    @Test
+    public void deserialize_indefinite_length_array() throws Exception {
+        // value : [_ {-2: "/0/0/3", 8: h'ABCDEF'}]
+        byte[] cbor = Hex.decodeHex("9fa221662f302f302f330843abcdefff".toCharArray());
+        SenMLPack pack = decoder.fromSenML(cbor);
+
+        SenMLTestUtil.assertSenMLPackEquals(
+                getPackWithSingleOpaqueValue("/0/0/3", Hex.decodeHex("ABCDEF".toCharArray())), pack);
+    }
 }
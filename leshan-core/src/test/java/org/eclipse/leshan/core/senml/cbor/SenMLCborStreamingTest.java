@@ -0,0 +1,99 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.senml.cbor;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.util.datatype.ULong;
+import org.eclipse.leshan.senml.SenMLException;
+import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.cbor.streaming.SenMLCborStreamingEncoderDecoder;
+import org.eclipse.leshan.senml.cbor.upokecenter.SenMLCborUpokecenterEncoderDecoder;
+import org.junit.Test;
+
+public class SenMLCborStreamingTest {
+
+    private final SenMLCborStreamingEncoderDecoder streaming = new SenMLCborStreamingEncoderDecoder();
+    private final SenMLCborUpokecenterEncoderDecoder upokecenter = new SenMLCborUpokecenterEncoderDecoder(true,
+            false);
+
+    @Test
+    public void decode_numbers_as_upokecenter() throws SenMLException {
+        // [{0: "a", 2: value}]
+        assertDecodedValue(Long.valueOf(-24), "37");
+        assertDecodedValue(ULong.valueOf("18446744073709551615"), "1bffffffffffffffff");
+        assertDecodedValue(Double.valueOf(1.5), "f93e00");
+        assertDecodedValue(Long.valueOf(3), "f94200");
+    }
+
+    @Test
+    public void decode_bignums_and_decimal_fractions() throws SenMLException {
+        // upokecenter fails to convert those values
+        assertEquals(new BigInteger("18446744073709551616"), decodeValue("c249010000000000000000"));
+        assertEquals(new BigInteger("-18446744073709551616"), decodeValue("3bffffffffffffffff"));
+        assertEquals(Long.valueOf(1), decodeValue("c24101"));
+        assertEquals(Double.valueOf(1.25), decodeValue("c48221187d"));
+        assertEquals(new BigDecimal("0.1"), decodeValue("c4822001"));
+        assertEquals(Long.valueOf(500), decodeValue("c482021805"));
+    }
+
+    private Number decodeValue(String cborValue) throws SenMLException {
+        byte[] cbor = Hex.decodeHex(("81a2006161" + "02" + cborValue).toCharArray());
+        return streaming.fromSenML(cbor).getRecords().get(0).getFloatValue();
+    }
+
+    private void assertDecodedValue(Number expected, String cborValue) throws SenMLException {
+        byte[] cbor = Hex.decodeHex(("81a2006161" + "02" + cborValue).toCharArray());
+        Number value = streaming.fromSenML(cbor).getRecords().get(0).getFloatValue();
+        assertEquals(expected, value);
+        assertEquals(upokecenter.fromSenML(cbor).getRecords().get(0).getFloatValue(), value);
+    }
+
+    @Test
+    public void encode_numbers_as_upokecenter() throws SenMLException {
+        Number[] values = { (byte) 1, (short) -300, 70000, Long.MIN_VALUE, ULong.valueOf("18446744073709551615"),
+                new BigInteger("18446744073709551616"), new BigInteger("-18446744073709551617"), 1.5f, 100000.0,
+                0.1, Double.NaN, Double.NEGATIVE_INFINITY, new BigDecimal("1.25"), new BigDecimal("-0.001") };
+        for (Number value : values) {
+            SenMLRecord record = new SenMLRecord();
+            record.setName("a");
+            record.setTime(1_600_000_000l);
+            record.setFloatValue(value);
+            SenMLPack pack = new SenMLPack();
+            pack.addRecord(record);
+
+            assertEquals(value.getClass().getSimpleName() + " " + value,
+                    Hex.encodeHexString(upokecenter.toSenML(pack)), Hex.encodeHexString(streaming.toSenML(pack)));
+        }
+    }
+
+    @Test(expected = SenMLException.class)
+    public void decode_truncated_content() throws SenMLException {
+        // [{0: "abc" with only 2 bytes
+        streaming.fromSenML(Hex.decodeHex("81a10063616263".substring(0, 12).toCharArray()));
+    }
+
+    @Test(expected = SenMLException.class)
+    public void decode_record_without_value() throws SenMLException {
+        // [{0: "a"}]
+        streaming.fromSenML(Hex.decodeHex("81a1006161".toCharArray()));
+    }
+}
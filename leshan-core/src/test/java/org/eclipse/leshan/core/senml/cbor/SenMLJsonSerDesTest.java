@@ -16,14 +16,19 @@ package org.eclipse.leshan.core.senml.cbor;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 
 import org.eclipse.leshan.core.util.Hex;
 import org.eclipse.leshan.senml.SenMLDecoder;
 import org.eclipse.leshan.senml.SenMLEncoder;
 import org.eclipse.leshan.senml.SenMLException;
 import org.eclipse.leshan.senml.SenMLPack;
+import org.eclipse.leshan.senml.SenMLRecord;
+import org.eclipse.leshan.senml.SenMLRecordHandler;
+import org.eclipse.leshan.senml.SenMLStreamingDecoder;
 import org.eclipse.leshan.senml.json.jackson.SenMLJsonJacksonEncoderDecoder;
 import org.eclipse.leshan.senml.json.minimaljson.SenMLJsonMinimalEncoderDecoder;
 import org.junit.Test;
@@ -94,4 +99,33 @@ public class SenMLJsonSerDesTest extends AbstractSenMLTest {
         assertEquals(expected, new String(json));
     }
 
+    @Test
+    public void deserialize_ignores_unknown_fields() throws SenMLException {
+        String jsonString = "[{\"bn\":\"/3/0/\",\"n\":\"0\",\"u\":\"V\",\"x\":{\"y\":[1,{}]},"
+                + "\"vs\":\"Open Mobile Alliance\"}]";
+        SenMLPack pack = decoder.fromSenML(jsonString.getBytes());
+
+        SenMLRecord expected = new SenMLRecord();
+        expected.setBaseName("/3/0/");
+        expected.setName("0");
+        expected.setStringValue("Open Mobile Alliance");
+        assertEquals(Arrays.asList(expected), pack.getRecords());
+    }
+
+    @Test
+    public void deserialize_device_object_record_by_record() throws SenMLException {
+        // only streaming decoders can emit records one by one
+        if (!(decoder instanceof SenMLStreamingDecoder))
+            return;
+
+        final List<SenMLRecord> records = new ArrayList<>();
+        ((SenMLStreamingDecoder) decoder).fromSenML(givenSenMLJsonExample().getBytes(), new SenMLRecordHandler() {
+            @Override
+            public void onRecord(SenMLRecord record) {
+                records.add(record);
+            }
+        });
+
+        SenMLTestUtil.assertSenMLPackEquals(givenDeviceObjectInstance(), new SenMLPack(records));
+    }
 }
@@ -0,0 +1,133 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.core.tlv;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import org.eclipse.leshan.core.node.ObjectLink;
+import org.eclipse.leshan.core.tlv.Tlv.TlvType;
+import org.eclipse.leshan.core.util.Hex;
+import org.junit.Test;
+
+/**
+ * Unit test for {@link TlvReader}
+ */
+public class TlvReaderTest {
+
+    @Test
+    public void read_device_object() throws TlvException {
+        // the /3// from liwblwm2m
+        String dataStr = "C800144F70656E204D6F62696C6520416C6C69616E6365C801164C69676874776569676874204D324D20436C69656E74C80209333435303030313233C303312E30860641000141010588070842000ED842011388870841007D42010384C10964C10A0F830B410000C40D5182428FC60E2B30323A3030C10F55";
+        byte[] bytes = Hex.decodeHex(dataStr.toCharArray());
+
+        // reader must see the same TLVs than the decoder
+        Tlv[] tlvs = TlvDecoder.decode(ByteBuffer.wrap(bytes));
+        TlvReader reader = new TlvReader(bytes);
+        for (Tlv tlv : tlvs) {
+            assertTrue(reader.hasNext());
+            assertEquals(tlv.getType(), reader.next());
+            assertEquals(tlv.getIdentifier(), reader.getIdentifier());
+            if (tlv.getType() == TlvType.MULTIPLE_RESOURCE) {
+                TlvReader children = reader.children();
+                for (Tlv child : tlv.getChildren()) {
+                    assertEquals(child.getType(), children.next());
+                    assertEquals(child.getIdentifier(), children.getIdentifier());
+                    assertArrayEquals(child.getValue(), children.readOpaque());
+                }
+                assertFalse(children.hasNext());
+            } else {
+                assertArrayEquals(tlv.getValue(), reader.readOpaque());
+            }
+        }
+        assertFalse(reader.hasNext());
+
+        // read values in place
+        reader.reset();
+        reader.next();
+        assertEquals("Open Mobile Alliance", reader.readString());
+        while (reader.getIdentifier() != 9) {
+            reader.next();
+        }
+        assertEquals(100, reader.readInteger());
+        while (reader.getIdentifier() != 13) {
+            reader.next();
+        }
+        assertEquals(new Date(0x5182428Fl * 1000), reader.readDate());
+    }
+
+    @Test
+    public void read_values() throws TlvException {
+        String dataStr = "C101FFC2020100C4037FFFFFFFC80508FFFFFFFFFFFFFFFEC4063FC00000";
+        TlvReader reader = new TlvReader(Hex.decodeHex(dataStr.toCharArray()));
+        reader.next();
+        assertEquals(-1, reader.readInteger());
+        reader.next();
+        assertEquals(256, reader.readInteger());
+        reader.next();
+        assertEquals(Integer.MAX_VALUE, reader.readInteger());
+        reader.next();
+        assertEquals(-2, reader.readInteger());
+        reader.next();
+        assertEquals(1.5d, reader.readFloat(), 0);
+        assertFalse(reader.hasNext());
+    }
+
+    @Test
+    public void read_object_link() throws TlvException {
+        TlvReader reader = new TlvReader(Hex.decodeHex("C40012345678".toCharArray()));
+        reader.next();
+        ObjectLink objlnk = reader.readObjlnk();
+        assertEquals(0x1234, objlnk.getObjectId());
+        assertEquals(0x5678, objlnk.getObjectInstanceId());
+    }
+
+    @Test
+    public void read_opaque_buffer() throws TlvException {
+        byte[] content = Hex.decodeHex("C303112233".toCharArray());
+        TlvReader reader = new TlvReader(content);
+        reader.next();
+        ByteBuffer value = reader.readOpaqueBuffer();
+
+        assertTrue(value.isReadOnly());
+        assertEquals(ByteBuffer.wrap(new byte[] { 0x11, 0x22, 0x33 }), value);
+    }
+
+    @Test(expected = TlvException.class)
+    public void read_invalid_integer() throws TlvException {
+        TlvReader reader = new TlvReader(Hex.decodeHex("C000".toCharArray()));
+        reader.next();
+        reader.readInteger();
+    }
+
+    @Test
+    public void read_broken_tlv() {
+        TlvReader reader = new TlvReader(Hex.decodeHex("0011223344556677889900".toCharArray()));
+        try {
+            while (reader.hasNext()) {
+                reader.next();
+            }
+            fail();
+        } catch (TlvException ex) {
+            // this is very weak assertion since the format of the exception's message could
+            // be changed any time
+            assertEquals("Invalid 'length' length for TLV at position 7: 2 bytes expected, 1 available",
+                    ex.getMessage());
+        }
+    }
+}
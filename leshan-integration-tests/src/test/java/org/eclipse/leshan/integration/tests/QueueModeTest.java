@@ -21,7 +21,9 @@ import static org.junit.Assert.*;
 import org.eclipse.leshan.core.Link;
 import org.eclipse.leshan.core.request.ReadRequest;
 import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.integration.tests.util.Callback;
 import org.eclipse.leshan.integration.tests.util.QueueModeIntegrationTestHelper;
+import org.eclipse.leshan.server.queue.InMemoryRequestQueueStore;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -202,4 +204,32 @@ public class QueueModeTest {
         response = queueModeHelper.server.send(queueModeHelper.getCurrentRegistration(), new ReadRequest(3, 0, 1));
         queueModeHelper.ensureReceivedRequest(response);
     }
+
+    @Test
+    public void request_to_sleeping_client_is_queued_until_it_wakes_up() throws InterruptedException {
+        // use a server which queues requests to sleeping clients
+        queueModeHelper.client.destroy(false);
+        queueModeHelper.server.destroy();
+        queueModeHelper.createServer((int) awaketime * 1000, new InMemoryRequestQueueStore());
+        queueModeHelper.server.start();
+        queueModeHelper.createClient();
+
+        // Start client and wait for it to sleep
+        queueModeHelper.client.start();
+        queueModeHelper.waitToGetAwake(1000);
+        queueModeHelper.assertClientRegisterered();
+        queueModeHelper.ensureAwakeFor(awaketime, 200);
+        queueModeHelper.ensureClientSleeping();
+
+        // Send request to sleeping client : it is queued
+        Callback<ReadResponse> callback = new Callback<>();
+        queueModeHelper.server.send(queueModeHelper.getCurrentRegistration(), new ReadRequest(3, 0, 1), callback,
+                callback);
+        assertFalse(callback.isCalled().get());
+
+        // Trigger update manually for waking up : queued request is sent
+        queueModeHelper.client.triggerRegistrationUpdate();
+        assertTrue(callback.waitForResponse(2000));
+        assertTrue(callback.getResponse().isSuccess());
+    }
 }
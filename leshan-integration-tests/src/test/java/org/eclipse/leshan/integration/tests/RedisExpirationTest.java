@@ -0,0 +1,113 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.integration.tests;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.redis.RedisRegistrationStore;
+import org.eclipse.leshan.server.registration.BatchExpirationListener;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.Pool;
+
+public class RedisExpirationTest {
+
+    private static final int NB_EXPIRED = 35;
+    private static final int CLEAN_LIMIT = 10;
+
+    private Pool<Jedis> pool;
+    private RedisRegistrationStore store;
+
+    @Before
+    public void start() {
+        String redisURI = System.getenv("REDIS_URI");
+        if (redisURI == null)
+            redisURI = "";
+        pool = new JedisPool(redisURI);
+        store = new RedisRegistrationStore(pool, Executors.newSingleThreadScheduledExecutor(), 1, 0, CLEAN_LIMIT);
+    }
+
+    @After
+    public void stop() {
+        store.destroy();
+        pool.destroy();
+    }
+
+    @Test
+    public void expired_registrations_are_removed_by_batch_until_caught_up() throws InterruptedException {
+        final List<Integer> batchSizes = new ArrayList<>();
+        final List<String> expiredIds = new ArrayList<>();
+        final CountDownLatch allExpired = new CountDownLatch(NB_EXPIRED);
+        store.setExpirationListener(new BatchExpirationListener() {
+            @Override
+            public void registrationExpired(Registration registration, Collection<Observation> observations) {
+                fail("batch notification expected");
+            }
+
+            @Override
+            public void registrationsExpired(Collection<Deregistration> deregistrations) {
+                batchSizes.add(deregistrations.size());
+                for (Deregistration dereg : deregistrations) {
+                    expiredIds.add(dereg.getRegistration().getId());
+                    allExpired.countDown();
+                }
+            }
+        });
+
+        // given expired registrations and an alive one
+        for (int i = 0; i < NB_EXPIRED; i++) {
+            store.addRegistration(givenARegistration("expired" + i, 0L, 10000 + i));
+        }
+        store.addRegistration(givenARegistration("alive", 3600L, 9999));
+
+        // all expired registrations are removed by the first cleaning
+        store.start();
+        assertTrue(allExpired.await(3, TimeUnit.SECONDS));
+
+        assertEquals(NB_EXPIRED, expiredIds.size());
+        for (int size : batchSizes) {
+            assertTrue(size <= CLEAN_LIMIT);
+        }
+        assertNull(store.getRegistrationByEndpoint("expiration-test-expired0"));
+        assertNull(store.getRegistration("expired0"));
+        assertNotNull(store.getRegistrationByEndpoint("expiration-test-alive"));
+
+        store.removeRegistration("alive");
+    }
+
+    private Registration givenARegistration(String id, long lifetime, int port) {
+        return new Registration.Builder(id, "expiration-test-" + id,
+                Identity.unsecure(InetAddress.getLoopbackAddress(), port)).lifeTimeInSec(lifetime)
+                .objectLinks(new Link[] { new Link("/3/0") }).build();
+    }
+}
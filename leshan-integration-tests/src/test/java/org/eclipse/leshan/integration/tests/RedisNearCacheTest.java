@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.integration.tests;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.redis.RedisRegistrationStore;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.util.Pool;
+
+public class RedisNearCacheTest {
+
+    private Pool<Jedis> pool;
+    // a store with near cache and another cluster node modifying registrations
+    private RedisRegistrationStore cachingStore;
+    private RedisRegistrationStore otherStore;
+
+    @Before
+    public void start() throws InterruptedException {
+        String redisURI = System.getenv("REDIS_URI");
+        if (redisURI == null)
+            redisURI = "";
+        pool = new JedisPool(redisURI);
+        cachingStore = new RedisRegistrationStore(pool);
+        cachingStore.enableNearCache(100, 1, TimeUnit.HOURS);
+        cachingStore.start();
+        otherStore = new RedisRegistrationStore(pool);
+        // let the caching store subscribe to invalidations
+        Thread.sleep(200);
+    }
+
+    @After
+    public void stop() {
+        cachingStore.removeRegistration("nearcache-reg");
+        cachingStore.destroy();
+        otherStore.destroy();
+        pool.destroy();
+    }
+
+    @Test
+    public void registration_updated_by_another_node_is_invalidated() throws InterruptedException {
+        otherStore.addRegistration(givenARegistration());
+        Registration cached = cachingStore.getRegistration("nearcache-reg");
+        assertEquals(Long.valueOf(3600L), cached.getLifeTimeInSec());
+
+        otherStore.updateRegistration(new RegistrationUpdate("nearcache-reg", cached.getIdentity(), 60L, null, null,
+                null, null));
+
+        assertEquals(Long.valueOf(60L), waitForLifetime(60L));
+    }
+
+    @Test
+    public void registration_removed_by_another_node_is_invalidated() throws InterruptedException {
+        otherStore.addRegistration(givenARegistration());
+        assertNotNull(cachingStore.getRegistration("nearcache-reg"));
+
+        otherStore.removeRegistration("nearcache-reg");
+
+        long end = System.currentTimeMillis() + 2000;
+        while (cachingStore.getRegistration("nearcache-reg") != null && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertNull(cachingStore.getRegistration("nearcache-reg"));
+    }
+
+    private Long waitForLifetime(long expected) throws InterruptedException {
+        long end = System.currentTimeMillis() + 2000;
+        Registration registration = cachingStore.getRegistration("nearcache-reg");
+        while (registration.getLifeTimeInSec() != expected && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+            registration = cachingStore.getRegistration("nearcache-reg");
+        }
+        return registration.getLifeTimeInSec();
+    }
+
+    private Registration givenARegistration() {
+        return new Registration.Builder("nearcache-reg", "nearcache-ep",
+                Identity.unsecure(InetAddress.getLoopbackAddress(), 12345)).lifeTimeInSec(3600L)
+                        .objectLinks(new Link[] { new Link("/3/0") }).build();
+    }
+}
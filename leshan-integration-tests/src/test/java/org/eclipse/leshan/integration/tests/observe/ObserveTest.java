@@ -28,6 +28,7 @@ import java.util.Set;
 
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.leshan.core.ResponseCode;
+import org.eclipse.leshan.core.attributes.AttributeSet;
 import org.eclipse.leshan.core.model.StaticModel;
 import org.eclipse.leshan.core.node.LwM2mObject;
 import org.eclipse.leshan.core.node.LwM2mObjectInstance;
@@ -40,11 +41,13 @@ import org.eclipse.leshan.core.request.CancelObservationRequest;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.ObserveRequest;
 import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.WriteAttributesRequest;
 import org.eclipse.leshan.core.request.WriteRequest;
 import org.eclipse.leshan.core.response.CancelObservationResponse;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ObserveResponse;
 import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.WriteAttributesResponse;
 import org.eclipse.leshan.integration.tests.util.IntegrationTestHelper;
 import org.junit.After;
 import org.junit.Before;
@@ -105,6 +108,34 @@ public class ObserveTest {
         assertThat(listener.getResponse().getCoapResponse(), is(instanceOf(Response.class)));
     }
 
+    @Test
+    public void can_observe_resource_with_maximum_period() throws InterruptedException {
+        TestObservationListener listener = new TestObservationListener();
+        helper.server.getObservationService().addListener(listener);
+
+        // write maximum period on device timezone
+        WriteAttributesResponse writeAttributesResponse = helper.server.send(helper.getCurrentRegistration(),
+                new WriteAttributesRequest(3, 0, 15, AttributeSet.parse("pmax=1")));
+        assertEquals(ResponseCode.CHANGED, writeAttributesResponse.getCode());
+
+        // observe device timezone
+        ObserveResponse observeResponse = helper.server.send(helper.getCurrentRegistration(),
+                new ObserveRequest(3, 0, 15));
+        assertEquals(ResponseCode.CONTENT, observeResponse.getCode());
+
+        // a notification should be sent without any change
+        listener.waitForNotification(2000);
+        assertTrue(listener.receivedNotify().get());
+        assertEquals(observeResponse.getContent(), listener.getResponse().getContent());
+    }
+
+    @Test
+    public void cannot_write_resource_attributes_on_instance() throws InterruptedException {
+        WriteAttributesResponse response = helper.server.send(helper.getCurrentRegistration(),
+                new WriteAttributesRequest(3, 0, AttributeSet.parse("st=1")));
+        assertEquals(ResponseCode.BAD_REQUEST, response.getCode());
+    }
+
     @Test
     public void can_observe_resource_then_passive_cancel() throws InterruptedException {
         TestObservationListener listener = new TestObservationListener();
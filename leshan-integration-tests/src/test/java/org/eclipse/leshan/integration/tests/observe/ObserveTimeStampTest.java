@@ -26,6 +26,9 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.californium.core.coap.Response;
 import org.eclipse.leshan.core.ResponseCode;
@@ -37,11 +40,14 @@ import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.DefaultLwM2mEncoder;
 import org.eclipse.leshan.core.node.codec.LwM2mEncoder;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.ObserveRequest;
 import org.eclipse.leshan.core.response.ObserveResponse;
 import org.eclipse.leshan.integration.tests.util.IntegrationTestHelper;
+import org.eclipse.leshan.server.observation.TimestampedNotificationListener;
+import org.eclipse.leshan.server.registration.Registration;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -130,6 +136,66 @@ public class ObserveTimeStampTest {
         assertContentFormat(contentFormat, listener.getResponse());
     }
 
+    @Test
+    public void can_observe_timestamped_resource_node_by_node() throws InterruptedException {
+        final List<TimestampedLwM2mNode> receivedNodes = new CopyOnWriteArrayList<>();
+        final CountDownLatch latch = new CountDownLatch(2);
+        helper.server.getObservationService().addListener(new TimestampedNotificationListener() {
+            @Override
+            public TimestampedNodeHandler onNotification(Observation observation, Registration registration) {
+                return new TimestampedNodeHandler() {
+                    @Override
+                    public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                        assertEquals(new LwM2mPath("/3/0/15"), path);
+                        receivedNodes.add(node);
+                        latch.countDown();
+                    }
+                };
+            }
+
+            @Override
+            public void onResponse(Observation observation, Registration registration, ObserveResponse response) {
+                fail("response should not be created for a TimestampedNotificationListener");
+            }
+
+            @Override
+            public void onError(Observation observation, Registration registration, Exception error) {
+            }
+
+            @Override
+            public void newObservation(Observation observation, Registration registration) {
+            }
+
+            @Override
+            public void cancelled(Observation observation) {
+            }
+        });
+
+        // observe device timezone
+        ObserveResponse observeResponse = helper.server.send(helper.getCurrentRegistration(),
+                new ObserveRequest(3, 0, 15));
+        assertEquals(ResponseCode.CONTENT, observeResponse.getCode());
+
+        // *** HACK send time-stamped notification as Leshan client does not support it *** //
+        // create time-stamped nodes
+        TimestampedLwM2mNode mostRecentNode = new TimestampedLwM2mNode(System.currentTimeMillis(),
+                LwM2mSingleResource.newStringResource(15, "Paris"));
+        List<TimestampedLwM2mNode> timestampedNodes = new ArrayList<>();
+        timestampedNodes.add(mostRecentNode);
+        timestampedNodes.add(new TimestampedLwM2mNode(mostRecentNode.getTimestamp() - 2,
+                LwM2mSingleResource.newStringResource(15, "Londres")));
+        byte[] payload = encoder.encodeTimestampedData(timestampedNodes, contentFormat, new LwM2mPath("/3/0/15"),
+                new StaticModel(helper.createObjectModels()));
+        Response firstCoapResponse = (Response) observeResponse.getCoapResponse();
+        TestObserveUtil.sendNotification(helper.getClientConnector(helper.getCurrentRegisteredServer()),
+                helper.server.getUnsecuredAddress(), payload, firstCoapResponse, contentFormat);
+        // *** Hack End *** //
+
+        // verify result
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        assertEquals(timestampedNodes, receivedNodes);
+    }
+
     @Test
     public void can_observe_timestamped_instance() throws InterruptedException {
         TestObservationListener listener = new TestObservationListener();
@@ -19,20 +19,33 @@ import static org.junit.Assert.*;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.eclipse.leshan.client.resource.ObjectsInitializer;
+import org.eclipse.leshan.client.send.DataCollector;
+import org.eclipse.leshan.client.send.DataCollectorBuilder;
 import org.eclipse.leshan.client.servers.ServerIdentity;
 import org.eclipse.leshan.core.model.StaticModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
+import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.LwM2mResource;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.SendRequest;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.integration.tests.util.Callback;
 import org.eclipse.leshan.integration.tests.util.IntegrationTestHelper;
 import org.eclipse.leshan.integration.tests.util.SynchronousSendListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.send.TimestampedSendListener;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -131,4 +144,109 @@ public class SendTest {
         assertEquals(serialnumber.getId(), 2);
         assertEquals(serialnumber.getValue(), "12345");
     }
+
+    @Test
+    public void can_send_resources_to_timestamped_listener() throws InterruptedException, TimeoutException {
+        // Define send listener
+        final Map<LwM2mPath, TimestampedLwM2mNode> data = new ConcurrentHashMap<>();
+        final AtomicInteger requestsReceived = new AtomicInteger();
+        helper.server.getSendService().addListener(new TimestampedSendListener() {
+            @Override
+            public void dataReceived(Registration registration, LwM2mPath path, TimestampedLwM2mNode node) {
+                data.put(path, node);
+            }
+
+            @Override
+            public void dataReceived(Registration registration, Map<String, LwM2mNode> nodes, SendRequest request) {
+                // not called for timestamped listeners
+                requestsReceived.incrementAndGet();
+            }
+        });
+
+        // Send Data
+        helper.waitForRegistrationAtClientSide(1);
+        ServerIdentity server = helper.client.getRegisteredServers().values().iterator().next();
+        SendResponse response = helper.client.sendData(server, contentformat, Arrays.asList("/3/0/1", "/3/0/2"), 1000);
+        assertTrue(response.isSuccess());
+
+        // data are given to listener before response is sent
+        assertEquals(2, data.size());
+        assertEquals(new TimestampedLwM2mNode(null, LwM2mSingleResource.newStringResource(1, "IT-TEST-123")),
+                data.get(new LwM2mPath("/3/0/1")));
+        assertEquals(new TimestampedLwM2mNode(null, LwM2mSingleResource.newStringResource(2, "12345")),
+                data.get(new LwM2mPath("/3/0/2")));
+        assertEquals(0, requestsReceived.get());
+    }
+
+    @Test
+    public void can_send_resources_to_both_kinds_of_listener() throws InterruptedException, TimeoutException {
+        // Define send listeners
+        SynchronousSendListener listener = new SynchronousSendListener();
+        helper.server.getSendService().addListener(listener);
+        final Map<LwM2mPath, TimestampedLwM2mNode> timestampedData = new ConcurrentHashMap<>();
+        final AtomicInteger requestsReceived = new AtomicInteger();
+        helper.server.getSendService().addListener(new TimestampedSendListener() {
+            @Override
+            public void dataReceived(Registration registration, LwM2mPath path, TimestampedLwM2mNode node) {
+                timestampedData.put(path, node);
+            }
+
+            @Override
+            public void dataReceived(Registration registration, Map<String, LwM2mNode> nodes, SendRequest request) {
+                // not called for timestamped listeners
+                requestsReceived.incrementAndGet();
+            }
+        });
+
+        // Send Data
+        helper.waitForRegistrationAtClientSide(1);
+        ServerIdentity server = helper.client.getRegisteredServers().values().iterator().next();
+        SendResponse response = helper.client.sendData(server, contentformat, Arrays.asList("/3/0/1", "/3/0/2"), 1000);
+        assertTrue(response.isSuccess());
+
+        // both listeners get the data
+        assertEquals(2, timestampedData.size());
+        listener.waitForData(1, TimeUnit.SECONDS);
+        Map<String, LwM2mNode> data = listener.getData();
+        assertEquals(2, data.size());
+        assertEquals(LwM2mSingleResource.newStringResource(1, "IT-TEST-123"), data.get("/3/0/1"));
+        assertEquals(LwM2mSingleResource.newStringResource(2, "12345"), data.get("/3/0/2"));
+        assertEquals(0, requestsReceived.get());
+    }
+
+    @Test
+    public void can_send_collected_data_with_several_timestamps() throws InterruptedException {
+        // Define send listener
+        final List<TimestampedLwM2mNode> data = new CopyOnWriteArrayList<>();
+        final CountDownLatch received = new CountDownLatch(2);
+        helper.server.getSendService().addListener(new TimestampedSendListener() {
+            @Override
+            public void dataReceived(Registration registration, LwM2mPath path, TimestampedLwM2mNode node) {
+                data.add(node);
+                received.countDown();
+            }
+
+            @Override
+            public void dataReceived(Registration registration, Map<String, LwM2mNode> nodes, SendRequest request) {
+            }
+        });
+
+        // Collect data and send it when 2 values are collected
+        helper.waitForRegistrationAtClientSide(1);
+        DataCollector collector = new DataCollectorBuilder(helper.client).setFormat(contentformat).setFlushSize(2)
+                .setMaxAgeInMs(0).build();
+        try {
+            collector.record(1_600_000_000L, new LwM2mPath("/3/0/1"),
+                    LwM2mSingleResource.newStringResource(1, "first"));
+            collector.record(1_600_000_010L, new LwM2mPath("/3/0/1"),
+                    LwM2mSingleResource.newStringResource(1, "second"));
+            assertTrue(received.await(1, TimeUnit.SECONDS));
+        } finally {
+            collector.destroy();
+        }
+
+        assertEquals(Arrays.asList(
+                new TimestampedLwM2mNode(1_600_000_000L, LwM2mSingleResource.newStringResource(1, "first")),
+                new TimestampedLwM2mNode(1_600_000_010L, LwM2mSingleResource.newStringResource(1, "second"))), data);
+    }
 }
@@ -34,6 +34,7 @@ import org.eclipse.leshan.core.model.StaticModel;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.integration.tests.PresenceCounter;
 import org.eclipse.leshan.server.californium.LeshanServerBuilder;
+import org.eclipse.leshan.server.queue.RequestQueueStore;
 import org.eclipse.leshan.server.queue.StaticClientAwakeTimeProvider;
 import org.eclipse.leshan.server.registration.Registration;
 
@@ -81,7 +82,15 @@ public class QueueModeIntegrationTestHelper extends IntegrationTestHelper {
     }
 
     public void createServer(int clientAwakeTime) {
-        server = createServerBuilder(clientAwakeTime).build();
+        createServer(createServerBuilder(clientAwakeTime));
+    }
+
+    public void createServer(int clientAwakeTime, RequestQueueStore requestQueueStore) {
+        createServer(createServerBuilder(clientAwakeTime).setRequestQueueStore(requestQueueStore));
+    }
+
+    private void createServer(LeshanServerBuilder builder) {
+        server = builder.build();
         server.getPresenceService().addListener(presenceCounter);
         server.getPresenceService().addListener(presenceListener);
         // monitor client registration
@@ -62,6 +62,8 @@ import org.eclipse.leshan.server.queue.PresenceListener;
 import org.eclipse.leshan.server.queue.PresenceService;
 import org.eclipse.leshan.server.queue.PresenceServiceImpl;
 import org.eclipse.leshan.server.queue.PresenceStateListener;
+import org.eclipse.leshan.server.queue.QueueModeLwM2mRequestSender;
+import org.eclipse.leshan.server.queue.RequestQueueStore;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationHandler;
 import org.eclipse.leshan.server.registration.RegistrationIdProvider;
@@ -79,6 +81,7 @@ import org.eclipse.leshan.server.security.SecurityStore;
 import org.eclipse.leshan.server.security.SecurityStoreListener;
 import org.eclipse.leshan.server.send.SendHandler;
 import org.eclipse.leshan.server.send.SendService;
+import org.eclipse.leshan.server.send.TimestampedSendListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -121,6 +124,10 @@ public class LeshanServer {
     // Configuration
     /** since 1.1 */
     protected final boolean updateRegistrationOnNotification;
+    protected final int notificationWorkers;
+    protected final RequestQueueStore requestQueueStore;
+    protected final long queuedRequestTimeToLive;
+    protected final int queuedRequestMaxInFlight;
 
     /**
      * Initialize a server which will bind to the specified address and port.
@@ -177,6 +184,79 @@ public class LeshanServer {
             LwM2mModelProvider modelProvider, LwM2mEncoder encoder, LwM2mDecoder decoder,
             NetworkConfig coapConfig, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
             RegistrationIdProvider registrationIdProvider, boolean updateRegistrationOnNotification) {
+        this(unsecuredEndpoint, securedEndpoint, registrationStore, securityStore, authorizer, modelProvider, encoder,
+                decoder, coapConfig, noQueueMode, awakeTimeProvider, registrationIdProvider,
+                updateRegistrationOnNotification, 0);
+    }
+
+    /**
+     * Initialize a server which will bind to the specified address and port.
+     * <p>
+     * {@link LeshanServerBuilder} is the priviledged way to create a {@link LeshanServer}.
+     *
+     * @param unsecuredEndpoint CoAP endpoint used for <code>coap://</code> communication.
+     * @param securedEndpoint CoAP endpoint used for <code>coaps://</code> communication.
+     * @param registrationStore the {@link Registration} store.
+     * @param securityStore the {@link SecurityInfo} store.
+     * @param authorizer define which devices is allow to register on this server.
+     * @param modelProvider provides the objects description for each client.
+     * @param decoder decoder used to decode response payload.
+     * @param encoder encode used to encode request payload.
+     * @param coapConfig the CoAP {@link NetworkConfig}.
+     * @param noQueueMode true to disable presenceService.
+     * @param awakeTimeProvider to set the client awake time if queue mode is used.
+     * @param registrationIdProvider to provide registrationId using for location-path option values on response of
+     *        Register operation.
+     * @param updateRegistrationOnNotification will activate registration update on observe notification.
+     * @param notificationWorkers number of threads used to decode notifications and notify observation listeners, 0
+     *        to handle them in CoAP threads.
+     */
+    public LeshanServer(CoapEndpoint unsecuredEndpoint, CoapEndpoint securedEndpoint,
+            CaliforniumRegistrationStore registrationStore, SecurityStore securityStore, Authorizer authorizer,
+            LwM2mModelProvider modelProvider, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            NetworkConfig coapConfig, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
+            RegistrationIdProvider registrationIdProvider, boolean updateRegistrationOnNotification,
+            int notificationWorkers) {
+        this(unsecuredEndpoint, securedEndpoint, registrationStore, securityStore, authorizer, modelProvider, encoder,
+                decoder, coapConfig, noQueueMode, awakeTimeProvider, registrationIdProvider,
+                updateRegistrationOnNotification, notificationWorkers, null,
+                QueueModeLwM2mRequestSender.DEFAULT_REQUEST_TIME_TO_LIVE,
+                QueueModeLwM2mRequestSender.DEFAULT_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Initialize a server which will bind to the specified address and port.
+     * <p>
+     * {@link LeshanServerBuilder} is the priviledged way to create a {@link LeshanServer}.
+     *
+     * @param unsecuredEndpoint CoAP endpoint used for <code>coap://</code> communication.
+     * @param securedEndpoint CoAP endpoint used for <code>coaps://</code> communication.
+     * @param registrationStore the {@link Registration} store.
+     * @param securityStore the {@link SecurityInfo} store.
+     * @param authorizer define which devices is allow to register on this server.
+     * @param modelProvider provides the objects description for each client.
+     * @param decoder decoder used to decode response payload.
+     * @param encoder encode used to encode request payload.
+     * @param coapConfig the CoAP {@link NetworkConfig}.
+     * @param noQueueMode true to disable presenceService.
+     * @param awakeTimeProvider to set the client awake time if queue mode is used.
+     * @param registrationIdProvider to provide registrationId using for location-path option values on response of
+     *        Register operation.
+     * @param updateRegistrationOnNotification will activate registration update on observe notification.
+     * @param notificationWorkers number of threads used to decode notifications and notify observation listeners, 0
+     *        to handle them in CoAP threads.
+     * @param requestQueueStore the store of asynchronous requests queued for sleeping clients, <code>null</code> to
+     *        reject them with a {@link ClientSleepingException}. Only used if queue mode is used.
+     * @param queuedRequestTimeToLive the time in milliseconds after which a queued request expires.
+     * @param queuedRequestMaxInFlight the maximum number of queued requests sent at the same time to an awake client.
+     */
+    public LeshanServer(CoapEndpoint unsecuredEndpoint, CoapEndpoint securedEndpoint,
+            CaliforniumRegistrationStore registrationStore, SecurityStore securityStore, Authorizer authorizer,
+            LwM2mModelProvider modelProvider, LwM2mEncoder encoder, LwM2mDecoder decoder,
+            NetworkConfig coapConfig, boolean noQueueMode, ClientAwakeTimeProvider awakeTimeProvider,
+            RegistrationIdProvider registrationIdProvider, boolean updateRegistrationOnNotification,
+            int notificationWorkers, RequestQueueStore requestQueueStore, long queuedRequestTimeToLive,
+            int queuedRequestMaxInFlight) {
 
         Validate.notNull(registrationStore, "registration store cannot be null");
         Validate.notNull(authorizer, "authorizer cannot be null");
@@ -207,6 +287,10 @@ public class LeshanServer {
         this.securityStore = securityStore;
         this.modelProvider = modelProvider;
         this.updateRegistrationOnNotification = updateRegistrationOnNotification;
+        this.notificationWorkers = notificationWorkers;
+        this.requestQueueStore = requestQueueStore;
+        this.queuedRequestTimeToLive = queuedRequestTimeToLive;
+        this.queuedRequestMaxInFlight = queuedRequestMaxInFlight;
         observationService = createObservationService(registrationStore, modelProvider, decoder, unsecuredEndpoint,
                 securedEndpoint);
         if (noQueueMode) {
@@ -249,8 +333,9 @@ public class LeshanServer {
             LwM2mModelProvider modelProvider, LwM2mDecoder decoder, CoapEndpoint unsecuredEndpoint,
             CoapEndpoint securedEndpoint) {
 
-        ObservationServiceImpl observationService = new ObservationServiceImpl(registrationStore, modelProvider,
-                decoder, updateRegistrationOnNotification);
+        final ObservationServiceImpl observationService = new ObservationServiceImpl(registrationStore, modelProvider,
+                decoder, updateRegistrationOnNotification, notificationWorkers,
+                ObservationServiceImpl.DEFAULT_NOTIFICATION_QUEUE_SIZE);
 
         if (unsecuredEndpoint != null) {
             unsecuredEndpoint.addNotificationListener(observationService);
@@ -261,6 +346,28 @@ public class LeshanServer {
             securedEndpoint.addNotificationListener(observationService);
             observationService.setSecureEndpoint(securedEndpoint);
         }
+
+        // Clear notification cache when registration is removed
+        registrationService.addListener(new RegistrationListener() {
+
+            @Override
+            public void updated(RegistrationUpdate update, Registration updatedRegistration, Registration previousReg) {
+            }
+
+            @Override
+            public void unregistered(Registration registration, Collection<Observation> observations, boolean expired,
+                    Registration newReg) {
+                observationService.clearNotificationCache(registration.getId());
+            }
+
+            @Override
+            public void registered(Registration registration, Registration previousReg,
+                    Collection<Observation> previousObsersations) {
+                if (previousReg != null) {
+                    observationService.clearNotificationCache(previousReg.getId());
+                }
+            }
+        });
         return observationService;
     }
 
@@ -299,9 +406,14 @@ public class LeshanServer {
         if (presenceService == null)
             requestSender = new CaliforniumLwM2mRequestSender(securedEndpoint, unsecuredEndpoint, observationService,
                     modelProvider, encoder, decoder);
-        else
+        else if (requestQueueStore == null)
             requestSender = new CaliforniumQueueModeRequestSender(presenceService, new CaliforniumLwM2mRequestSender(
                     securedEndpoint, unsecuredEndpoint, observationService, modelProvider, encoder, decoder));
+        else
+            requestSender = new CaliforniumQueueModeRequestSender(presenceService,
+                    new CaliforniumLwM2mRequestSender(securedEndpoint, unsecuredEndpoint, observationService,
+                            modelProvider, encoder, decoder),
+                    requestQueueStore, queuedRequestTimeToLive, queuedRequestMaxInFlight);
 
         // Cancel observations on client unregistering
         registrationService.addListener(new RegistrationListener() {
@@ -422,6 +534,7 @@ public class LeshanServer {
             ((Stoppable) requestSender).stop();
         }
 
+        observationService.destroy();
         presenceService.destroy();
 
         LOG.info("LWM2M server destroyed.");
@@ -447,7 +560,7 @@ public class LeshanServer {
 
     /**
      * Get the {@link SendService} which can be used to listen data received from LWM2M client which are using
-     * {@link SendRequest}.
+     * {@link SendRequest}. Add a {@link TimestampedSendListener} to receive values one by one, with their time-stamp.
      */
     public SendService getSendService() {
         return sendService;
@@ -49,7 +49,11 @@ import org.eclipse.leshan.server.californium.registration.CaliforniumRegistratio
 import org.eclipse.leshan.server.californium.registration.InMemoryRegistrationStore;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.model.StandardModelProvider;
+import org.eclipse.leshan.server.observation.ObservationListener;
 import org.eclipse.leshan.server.queue.ClientAwakeTimeProvider;
+import org.eclipse.leshan.server.queue.InMemoryRequestQueueStore;
+import org.eclipse.leshan.server.queue.QueueModeLwM2mRequestSender;
+import org.eclipse.leshan.server.queue.RequestQueueStore;
 import org.eclipse.leshan.server.queue.StaticClientAwakeTimeProvider;
 import org.eclipse.leshan.server.registration.RandomStringRegistrationIdProvider;
 import org.eclipse.leshan.server.registration.Registration;
@@ -100,6 +104,10 @@ public class LeshanServerBuilder {
     private boolean noQueueMode = false;
     /** @since 1.1 */
     protected boolean updateRegistrationOnNotification;
+    protected int notificationWorkers = 0;
+    protected RequestQueueStore requestQueueStore;
+    protected long queuedRequestTimeToLive = QueueModeLwM2mRequestSender.DEFAULT_REQUEST_TIME_TO_LIVE;
+    protected int queuedRequestMaxInFlight = QueueModeLwM2mRequestSender.DEFAULT_MAX_IN_FLIGHT;
 
     /**
      * <p>
@@ -347,6 +355,45 @@ public class LeshanServerBuilder {
         return this;
     }
 
+    /**
+     * Sets the {@link RequestQueueStore} used to queue asynchronous requests sent to sleeping clients using LWM2M Queue
+     * Mode. Queued requests are sent in order when the client wakes up.
+     * <p>
+     * By default, no store is used and sending a request to a sleeping client raises a {@link ClientSleepingException}.
+     * This has no effect if queue mode support is disabled.
+     * 
+     * @param requestQueueStore the store of queued requests, e.g. an {@link InMemoryRequestQueueStore}.
+     * @see QueueModeLwM2mRequestSender
+     */
+    public LeshanServerBuilder setRequestQueueStore(RequestQueueStore requestQueueStore) {
+        this.requestQueueStore = requestQueueStore;
+        return this;
+    }
+
+    /**
+     * Sets the time in milliseconds after which a queued request expires if the client did not wake up. Its error
+     * callback is then called with a {@link ClientSleepingException}.
+     * <p>
+     * Default value is {@link QueueModeLwM2mRequestSender#DEFAULT_REQUEST_TIME_TO_LIVE}. Only used with a
+     * {@link RequestQueueStore}.
+     */
+    public LeshanServerBuilder setQueuedRequestTimeToLive(long queuedRequestTimeToLive) {
+        this.queuedRequestTimeToLive = queuedRequestTimeToLive;
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of queued requests sent at the same time to a client which wakes up, next ones are sent
+     * as soon as responses are received.
+     * <p>
+     * Default value is {@link QueueModeLwM2mRequestSender#DEFAULT_MAX_IN_FLIGHT}. Only used with a
+     * {@link RequestQueueStore}.
+     */
+    public LeshanServerBuilder setQueuedRequestMaxInFlight(int queuedRequestMaxInFlight) {
+        this.queuedRequestMaxInFlight = queuedRequestMaxInFlight;
+        return this;
+    }
+
     /**
      * Sets a new {@link RegistrationIdProvider} object different from the default one (Random string).
      * 
@@ -383,6 +430,18 @@ public class LeshanServerBuilder {
         return this;
     }
 
+    /**
+     * Set the number of threads used to decode notifications and to notify {@link ObservationListener}.
+     * <p>
+     * By default (0), notifications are handled by the CoAP threads. Using workers keeps the CoAP stack responsive
+     * when there is a lot of notifications to decode. Notifications of a same observation are always handled by the
+     * same worker, so they are still delivered in order.
+     */
+    public LeshanServerBuilder setNotificationWorkers(int notificationWorkers) {
+        this.notificationWorkers = notificationWorkers;
+        return this;
+    }
+
     /**
      * The default Californium/CoAP {@link NetworkConfig} used by the builder.
      */
@@ -590,6 +649,7 @@ public class LeshanServerBuilder {
             RegistrationIdProvider registrationIdProvider) {
         return new LeshanServer(unsecuredEndpoint, securedEndpoint, registrationStore, securityStore, authorizer,
                 modelProvider, encoder, decoder, coapConfig, noQueueMode, awakeTimeProvider, registrationIdProvider,
-                updateRegistrationOnNotification);
+                updateRegistrationOnNotification, notificationWorkers, requestQueueStore, queuedRequestTimeToLive,
+                queuedRequestMaxInFlight);
     }
 }
@@ -17,12 +17,21 @@ package org.eclipse.leshan.server.californium.observation;
 
 import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toLwM2mResponseCode;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.californium.core.coap.CoAP;
 import org.eclipse.californium.core.coap.Request;
@@ -31,22 +40,27 @@ import org.eclipse.californium.core.coap.Token;
 import org.eclipse.californium.core.network.Endpoint;
 import org.eclipse.californium.core.observe.NotificationListener;
 import org.eclipse.californium.core.observe.ObservationStore;
+import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.californium.EndpointContextUtil;
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
 import org.eclipse.leshan.core.node.codec.CodecException;
 import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.Identity;
 import org.eclipse.leshan.core.request.exception.InvalidResponseException;
 import org.eclipse.leshan.core.response.ObserveResponse;
 import org.eclipse.leshan.core.util.Hex;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
 import org.eclipse.leshan.server.model.LwM2mModelProvider;
 import org.eclipse.leshan.server.observation.ObservationListener;
 import org.eclipse.leshan.server.observation.ObservationService;
+import org.eclipse.leshan.server.observation.TimestampedNotificationListener;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
 import org.eclipse.leshan.server.registration.UpdatedRegistration;
@@ -58,8 +72,18 @@ import org.slf4j.LoggerFactory;
  * {@link CaliforniumRegistrationStore}.
  * 
  * When a new observation is added or changed or canceled, the registered listeners are notified.
+ * <p>
+ * To handle notifications, the {@link Observation} is cached by token until it is cancelled, ended by the client or
+ * its registration is removed. The {@link LwM2mModel} is got from the {@link LwM2mModelProvider} for each notification
+ * (see VersionedModelProvider which shares models between registrations). Notifications can be decoded and delivered to
+ * {@link ObservationListener} by a pool of workers instead of the CoAP thread (see
+ * {@link #ObservationServiceImpl(CaliforniumRegistrationStore, LwM2mModelProvider, LwM2mDecoder, boolean, int, int)}).
+ * Notifications of a same observation are always handled by the same worker, so they are delivered in order.
  */
-public class ObservationServiceImpl implements ObservationService, NotificationListener {
+public class ObservationServiceImpl implements ObservationService, NotificationListener, Destroyable {
+
+    /** Default maximum number of notifications waiting to be handled by each worker. */
+    public static final int DEFAULT_NOTIFICATION_QUEUE_SIZE = 1024;
 
     private final Logger LOG = LoggerFactory.getLogger(ObservationServiceImpl.class);
 
@@ -69,9 +93,13 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
     private Endpoint secureEndpoint;
     private Endpoint nonSecureEndpoint;
     private boolean updateRegistrationOnNotification;
+    private final ThreadPoolExecutor[] notificationWorkers;
 
     private final List<ObservationListener> listeners = new CopyOnWriteArrayList<>();;
 
+    // observations by token, by registration id
+    private final ConcurrentMap<String, ConcurrentMap<Token, Observation>> observationCache = new ConcurrentHashMap<>();
+
     /**
      * Creates an instance of {@link ObservationServiceImpl}
      * 
@@ -96,16 +124,59 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
      */
     public ObservationServiceImpl(CaliforniumRegistrationStore store, LwM2mModelProvider modelProvider,
             LwM2mDecoder decoder, boolean updateRegistrationOnNotification) {
+        this(store, modelProvider, decoder, updateRegistrationOnNotification, 0, DEFAULT_NOTIFICATION_QUEUE_SIZE);
+    }
+
+    /**
+     * Creates an instance of {@link ObservationServiceImpl}
+     * 
+     * @param store instance of californium's {@link ObservationStore}
+     * @param modelProvider instance of {@link LwM2mModelProvider}
+     * @param decoder instance of {@link LwM2mDecoder}
+     * @param updateRegistrationOnNotification will activate registration update on observe notification.
+     * @param notificationWorkers number of threads used to decode notifications and notify listeners. If 0,
+     *        notifications are handled synchronously by the CoAP thread.
+     * @param notificationQueueSize maximum number of notifications waiting to be handled by each worker. When a worker
+     *        queue is full, the CoAP thread waits for some room.
+     */
+    public ObservationServiceImpl(CaliforniumRegistrationStore store, LwM2mModelProvider modelProvider,
+            LwM2mDecoder decoder, boolean updateRegistrationOnNotification, int notificationWorkers,
+            int notificationQueueSize) {
+        Validate.isTrue(notificationWorkers >= 0, "notificationWorkers must not be negative");
+        Validate.isTrue(notificationQueueSize > 0, "notificationQueueSize must be positive");
         this.registrationStore = store;
         this.modelProvider = modelProvider;
         this.decoder = decoder;
         this.updateRegistrationOnNotification = updateRegistrationOnNotification;
+
+        // a single thread by worker to keep notifications of an observation in order
+        this.notificationWorkers = new ThreadPoolExecutor[notificationWorkers];
+        NamedThreadFactory threadFactory = new NamedThreadFactory("Leshan Notification Worker#%d");
+        RejectedExecutionHandler waitForRoom = new RejectedExecutionHandler() {
+            @Override
+            public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+                if (executor.isShutdown())
+                    throw new RejectedExecutionException("Observation service is destroyed");
+                try {
+                    executor.getQueue().put(task);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RejectedExecutionException("Interrupted while waiting to handle notification", e);
+                }
+            }
+        };
+        for (int i = 0; i < notificationWorkers; i++) {
+            this.notificationWorkers[i] = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<Runnable>(notificationQueueSize), threadFactory, waitForRoom);
+        }
     }
 
     public void addObservation(Registration registration, Observation observation) {
         for (Observation existing : registrationStore.addObservation(registration.getId(), observation)) {
             cancel(existing);
         }
+        // replace any cached observation which could have used the same token
+        cacheObservation(registration.getId(), new Token(observation.getId()), observation);
 
         for (ObservationListener listener : listeners) {
             listener.newObservation(observation, registration);
@@ -128,6 +199,7 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
             return 0;
 
         Collection<Observation> observations = registrationStore.removeObservations(registrationId);
+        clearNotificationCache(registrationId);
         if (observations == null)
             return 0;
 
@@ -161,6 +233,7 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
 
     private void cancel(Observation observation) {
         Token token = new Token(observation.getId());
+        evictObservation(observation.getRegistrationId(), token);
         if (secureEndpoint != null)
             secureEndpoint.cancelObservation(token);
         if (nonSecureEndpoint != null)
@@ -188,7 +261,7 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
             return Collections.emptySet();
 
         Set<Observation> result = new HashSet<>();
-        LwM2mPath lwPath = new LwM2mPath(resourcePath);
+        LwM2mPath lwPath = LwM2mPath.valueOf(resourcePath);
         for (Observation obs : getObservations(registrationId)) {
             if (lwPath.equals(obs.getPath())) {
                 result.add(obs);
@@ -204,6 +277,14 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
         return registrationStore;
     }
 
+    /**
+     * Remove the observations cached to handle notifications of the given registration. This should be called when
+     * the registration is removed.
+     */
+    public void clearNotificationCache(String registrationId) {
+        observationCache.remove(registrationId);
+    }
+
     @Override
     public void addListener(ObservationListener listener) {
         listeners.add(listener);
@@ -217,23 +298,52 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
     // ********** NotificationListener interface **********//
 
     @Override
-    public void onNotification(Request coapRequest, Response coapResponse) {
+    public void onNotification(final Request coapRequest, final Response coapResponse) {
         LOG.trace("notification received for request {}: {}", coapRequest, coapResponse);
 
         if (listeners.isEmpty())
             return;
 
+        if (notificationWorkers.length == 0) {
+            handleNotification(coapRequest, coapResponse);
+            return;
+        }
+
+        // notifications of a same observation are always handled by the same worker to keep them in order
+        int worker = (coapResponse.getToken().hashCode() & Integer.MAX_VALUE) % notificationWorkers.length;
+        try {
+            notificationWorkers[worker].execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        handleNotification(coapRequest, coapResponse);
+                    } catch (RuntimeException e) {
+                        LOG.error("Unexpected error while handling notification {}", coapResponse, e);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            LOG.debug("Notification {} dropped: {}", coapResponse, e.getMessage());
+        }
+    }
+
+    private void handleNotification(Request coapRequest, Response coapResponse) {
         // get registration Id
         String regid = coapRequest.getUserContext().get(ObserveUtil.CTX_REGID);
 
         // get observation for this request
-        Observation observation = registrationStore.getObservation(regid, coapResponse.getToken().getBytes());
+        Observation observation = getObservation(regid, coapResponse.getToken());
         if (observation == null) {
             LOG.error("Unexpected error: Unable to find observation with token {} for registration {}",
                     coapResponse.getToken(), regid);
             return;
         }
 
+        // a response which is not a notification ends the observation, Californium removes it from the store
+        if (!coapResponse.isNotification()) {
+            evictObservation(regid, coapResponse.getToken());
+        }
+
         // get registration
         Registration registration;
         if (updateRegistrationOnNotification) {
@@ -244,6 +354,7 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
             if (updatedRegistration == null || updatedRegistration.getUpdatedRegistration() == null) {
                 LOG.error("Unexpected error: There is no registration with id {} for this observation {}",
                         observation.getRegistrationId(), observation);
+                clearNotificationCache(observation.getRegistrationId());
                 return;
             }
             registration = updatedRegistration.getUpdatedRegistration();
@@ -252,6 +363,7 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
             if (registration == null) {
                 LOG.error("Unexpected error: There is no registration with id {} for this observation {}",
                         observation.getRegistrationId(), observation);
+                clearNotificationCache(observation.getRegistrationId());
                 return;
             }
         }
@@ -260,12 +372,44 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
             // get model for this registration
             LwM2mModel model = modelProvider.getObjectModel(registration);
 
-            // create response
-            ObserveResponse response = createObserveResponse(observation, model, coapResponse);
-
-            // notify all listeners
+            // give content node by node to listeners which support it
+            List<TimestampedNodeHandler> handlers = new ArrayList<>();
+            boolean responseNeeded = false;
             for (ObservationListener listener : listeners) {
-                listener.onResponse(observation, registration, response);
+                if (listener instanceof TimestampedNotificationListener) {
+                    TimestampedNodeHandler handler = ((TimestampedNotificationListener) listener)
+                            .onNotification(observation, registration);
+                    if (handler != null)
+                        handlers.add(handler);
+                } else {
+                    responseNeeded = true;
+                }
+            }
+            ObserveResponse response = null;
+            if (!handlers.isEmpty()) {
+                // decode the whole content once before giving it to any listener, so nothing is given if the content
+                // is malformed
+                List<LwM2mPath> paths = new ArrayList<>();
+                List<TimestampedLwM2mNode> nodes = new ArrayList<>();
+                decodeTimestampedNodes(observation, model, coapResponse, paths, nodes);
+                for (int i = 0; i < nodes.size(); i++) {
+                    for (TimestampedNodeHandler handler : handlers) {
+                        handler.onNode(paths.get(i), nodes.get(i));
+                    }
+                }
+                if (responseNeeded) {
+                    response = createObserveResponse(observation, coapResponse, sortByTimestamp(nodes));
+                }
+            } else if (responseNeeded) {
+                response = createObserveResponse(observation, model, coapResponse);
+            }
+
+            if (response != null) {
+                // notify all other listeners
+                for (ObservationListener listener : listeners) {
+                    if (!(listener instanceof TimestampedNotificationListener))
+                        listener.onResponse(observation, registration, response);
+                }
             }
         } catch (InvalidResponseException e) {
             if (LOG.isDebugEnabled()) {
@@ -287,7 +431,44 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
 
     }
 
-    private ObserveResponse createObserveResponse(Observation observation, LwM2mModel model, Response coapResponse) {
+    private Observation getObservation(String registrationId, Token token) {
+        ConcurrentMap<Token, Observation> observations = observationCache.get(registrationId);
+        if (observations != null) {
+            Observation observation = observations.get(token);
+            if (observation != null)
+                return observation;
+        }
+
+        // not in cache, get it from store
+        Observation observation = registrationStore.getObservation(registrationId, token.getBytes());
+        if (observation != null) {
+            cacheObservation(registrationId, token, observation);
+        }
+        return observation;
+    }
+
+    private void cacheObservation(String registrationId, Token token, Observation observation) {
+        ConcurrentMap<Token, Observation> observations = observationCache.get(registrationId);
+        if (observations == null) {
+            observations = new ConcurrentHashMap<>();
+            ConcurrentMap<Token, Observation> previous = observationCache.putIfAbsent(registrationId, observations);
+            if (previous != null)
+                observations = previous;
+        }
+        observations.put(token, observation);
+    }
+
+    private void evictObservation(String registrationId, Token token) {
+        ConcurrentMap<Token, Observation> observations = observationCache.get(registrationId);
+        if (observations != null) {
+            observations.remove(token);
+            // a concurrent put could be lost here, this only means a later store lookup
+            if (observations.isEmpty())
+                observationCache.remove(registrationId, observations);
+        }
+    }
+
+    private ContentFormat getContentFormat(Observation observation, Response coapResponse) {
         // CHANGED response is supported for backward compatibility with old spec.
         if (coapResponse.getCode() != CoAP.ResponseCode.CHANGED
                 && coapResponse.getCode() != CoAP.ResponseCode.CONTENT) {
@@ -295,33 +476,99 @@ public class ObservationServiceImpl implements ObservationService, NotificationL
                     observation);
         }
 
-        // get content format
-        ContentFormat contentFormat = null;
         if (coapResponse.getOptions().hasContentFormat()) {
-            contentFormat = ContentFormat.fromCode(coapResponse.getOptions().getContentFormat());
+            return ContentFormat.fromCode(coapResponse.getOptions().getContentFormat());
+        }
+        return null;
+    }
+
+    private void decodeTimestampedNodes(Observation observation, LwM2mModel model, Response coapResponse,
+            final List<LwM2mPath> paths, final List<TimestampedLwM2mNode> nodes) {
+        ContentFormat contentFormat = getContentFormat(observation, coapResponse);
+
+        // decode response node by node
+        try {
+            decoder.decodeTimestampedData(coapResponse.getPayload(), contentFormat, observation.getPath(), model,
+                    new TimestampedNodeHandler() {
+                        @Override
+                        public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                            paths.add(path);
+                            nodes.add(node);
+                        }
+                    });
+        } catch (CodecException e) {
+            throw invalidPayload(observation, coapResponse, e);
         }
+    }
+
+    private ObserveResponse createObserveResponse(Observation observation, LwM2mModel model, Response coapResponse) {
+        ContentFormat contentFormat = getContentFormat(observation, coapResponse);
 
         // decode response
         try {
             List<TimestampedLwM2mNode> timestampedNodes = decoder.decodeTimestampedData(coapResponse.getPayload(),
                     contentFormat, observation.getPath(), model);
+            return createObserveResponse(observation, coapResponse, timestampedNodes);
+        } catch (CodecException e) {
+            throw invalidPayload(observation, coapResponse, e);
+        }
+    }
 
-            // create lwm2m response
-            if (timestampedNodes.size() == 1 && !timestampedNodes.get(0).isTimestamped()) {
-                return new ObserveResponse(toLwM2mResponseCode(coapResponse.getCode()),
-                        timestampedNodes.get(0).getNode(), null, observation, null, coapResponse);
-            } else {
-                return new ObserveResponse(toLwM2mResponseCode(coapResponse.getCode()), null, timestampedNodes,
-                        observation, null, coapResponse);
+    private ObserveResponse createObserveResponse(Observation observation, Response coapResponse,
+            List<TimestampedLwM2mNode> timestampedNodes) {
+        // create lwm2m response
+        if (timestampedNodes.size() == 1 && !timestampedNodes.get(0).isTimestamped()) {
+            return new ObserveResponse(toLwM2mResponseCode(coapResponse.getCode()), timestampedNodes.get(0).getNode(),
+                    null, observation, null, coapResponse);
+        } else {
+            return new ObserveResponse(toLwM2mResponseCode(coapResponse.getCode()), null, timestampedNodes,
+                    observation, null, coapResponse);
+        }
+    }
+
+    /**
+     * Sort nodes decoded one by one as {@link LwM2mDecoder#decodeTimestampedData(byte[], ContentFormat, LwM2mPath,
+     * LwM2mModel)} does : node without time-stamp first, then most recent first.
+     */
+    private static List<TimestampedLwM2mNode> sortByTimestamp(List<TimestampedLwM2mNode> nodes) {
+        Collections.sort(nodes, new Comparator<TimestampedLwM2mNode>() {
+            @Override
+            public int compare(TimestampedLwM2mNode n1, TimestampedLwM2mNode n2) {
+                Long t1 = n1.getTimestamp();
+                Long t2 = n2.getTimestamp();
+                if (t1 == null)
+                    return t2 == null ? 0 : -1;
+                if (t2 == null)
+                    return 1;
+                return Long.compare(t2, t1);
             }
-        } catch (CodecException e) {
-            if (LOG.isDebugEnabled()) {
-                byte[] payload = coapResponse.getPayload() == null ? new byte[0] : coapResponse.getPayload();
-                LOG.debug(String.format("Unable to decode notification payload [%s] of observation [%s] ",
-                        Hex.encodeHexString(payload), observation), e);
+        });
+        return nodes;
+    }
+
+    private InvalidResponseException invalidPayload(Observation observation, Response coapResponse,
+            CodecException e) {
+        if (LOG.isDebugEnabled()) {
+            byte[] payload = coapResponse.getPayload() == null ? new byte[0] : coapResponse.getPayload();
+            LOG.debug(String.format("Unable to decode notification payload [%s] of observation [%s] ",
+                    Hex.encodeHexString(payload), observation), e);
+        }
+        return new InvalidResponseException(e, "Unable to decode notification payload  of observation [%s] ",
+                observation);
+    }
+
+    @Override
+    public void destroy() {
+        for (ThreadPoolExecutor worker : notificationWorkers) {
+            worker.shutdown();
+        }
+        for (ThreadPoolExecutor worker : notificationWorkers) {
+            try {
+                worker.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                LOG.warn("Destroying observation service was interrupted.", e);
+                Thread.currentThread().interrupt();
             }
-            throw new InvalidResponseException(e, "Unable to decode notification payload  of observation [%s] ",
-                    observation);
         }
     }
 }
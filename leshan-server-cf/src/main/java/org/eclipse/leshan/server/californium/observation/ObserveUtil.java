@@ -67,7 +67,8 @@ public class ObserveUtil {
         if (request.getOptions().hasAccept()) {
             contentFormat = ContentFormat.fromCode(request.getOptions().getAccept());
         }
-        return new Observation(request.getToken().getBytes(), regId, new LwM2mPath(lwm2mPath), contentFormat, context);
+        return new Observation(request.getToken().getBytes(), regId, LwM2mPath.valueOf(lwm2mPath), contentFormat,
+                context);
     }
 
     /**
@@ -0,0 +1,634 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.registration;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.observe.ObservationStoreException;
+import org.eclipse.californium.core.observe.ObservationUtil;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.leshan.core.Destroyable;
+import org.eclipse.leshan.core.Startable;
+import org.eclipse.leshan.core.Stoppable;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
+import org.eclipse.leshan.server.californium.observation.ObserveUtil;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.ExpirationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An in memory store for registration and observation which is designed for servers handling a large number of
+ * devices on many cores.
+ * <p>
+ * Unlike {@link InMemoryRegistrationStore} which protects all its indexes with one global lock, this store keeps its
+ * indexes in {@link ConcurrentHashMap}s and serializes modifications using a fixed set of locks striped by endpoint
+ * name. All modifications (registration and observation) concerning the same endpoint are done under the same lock, so
+ * cross-index updates done by {@link #addRegistration(Registration)}, {@link #updateRegistration(RegistrationUpdate)}
+ * or {@link #removeRegistration(String)} are still atomic from the point of view of other writers, while devices with
+ * different endpoint names can be modified concurrently.
+ * <p>
+ * Lookups by a single key (registration id, endpoint, address, identity or token) do not take any lock.
+ * <p>
+ * Each stripe also tracks the expiration of its registrations in an {@link ExpirationQueue}, so cleaning only visits
+ * expired registrations.
+ */
+public class ConcurrentInMemoryRegistrationStore
+        implements CaliforniumRegistrationStore, Startable, Stoppable, Destroyable {
+    private final Logger LOG = LoggerFactory.getLogger(ConcurrentInMemoryRegistrationStore.class);
+
+    /** Default number of locks used to stripe modifications by endpoint. */
+    public static final int DEFAULT_CONCURRENCY_LEVEL = 256;
+
+    // Data structure
+    private final ConcurrentMap<String /* end-point */, Registration> regsByEp = new ConcurrentHashMap<>();
+    private final ConcurrentMap<InetSocketAddress, Registration> regsByAddr = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String /* reg-id */, Registration> regsByRegId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Identity, Registration> regsByIdentity = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Token, org.eclipse.californium.core.observe.Observation> obsByToken =
+            new ConcurrentHashMap<>();
+    // Token sets are only accessed while holding the lock of the endpoint owning the registration
+    private final ConcurrentMap<String /* reg-id */, Set<Token>> tokensByRegId = new ConcurrentHashMap<>();
+
+    private final Stripe[] stripes;
+
+    // Listener use to notify when a registration expires
+    private ExpirationListener expirationListener;
+
+    private final ScheduledExecutorService schedExecutor;
+    private ScheduledFuture<?> cleanerTask;
+    private boolean started = false;
+    private final long cleanPeriod;
+    private final TimeUnit cleanPeriodUnit;
+
+    public ConcurrentInMemoryRegistrationStore() {
+        this(2); // default clean period : 2s
+    }
+
+    public ConcurrentInMemoryRegistrationStore(long cleanPeriodInSec) {
+        this(Executors.newScheduledThreadPool(1,
+                new NamedThreadFactory(
+                        String.format("ConcurrentInMemoryRegistrationStore Cleaner (%ds)", cleanPeriodInSec))),
+                cleanPeriodInSec, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param schedExecutor the executor used to clean expired registrations.
+     * @param cleanPeriodInSec the period between 2 cleanings in seconds.
+     * @param concurrencyLevel the number of locks used to stripe modifications by endpoint. It will be rounded up to
+     *        the next power of 2.
+     */
+    public ConcurrentInMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriodInSec,
+            int concurrencyLevel) {
+        this(schedExecutor, cleanPeriodInSec, TimeUnit.SECONDS, concurrencyLevel);
+    }
+
+    /**
+     * @param schedExecutor the executor used to clean expired registrations.
+     * @param cleanPeriod the period between 2 cleanings. This is the maximum delay between the expiration of a
+     *        registration and its removal from the store.
+     * @param unit the unit of the clean period.
+     * @param concurrencyLevel the number of locks used to stripe modifications by endpoint. It will be rounded up to
+     *        the next power of 2.
+     */
+    public ConcurrentInMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriod, TimeUnit unit,
+            int concurrencyLevel) {
+        Validate.isTrue(concurrencyLevel > 0, "concurrencyLevel must be strictly positive");
+        this.schedExecutor = schedExecutor;
+        this.cleanPeriod = cleanPeriod;
+        this.cleanPeriodUnit = unit;
+
+        int size = 1;
+        while (size < concurrencyLevel) {
+            size <<= 1;
+        }
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /* *************** Lock striping **************** */
+
+    /**
+     * A lock protecting modifications of all endpoints hashed to it, with the expiration queue of their registrations.
+     */
+    private static class Stripe extends ReentrantReadWriteLock {
+        private static final long serialVersionUID = 1L;
+
+        // only accessed while holding the write lock
+        private final transient ExpirationQueue expirationQueue = new ExpirationQueue();
+    }
+
+    private Stripe stripeFor(String endpoint) {
+        // spread hash to avoid collisions of endpoint names which only differ in their high bits
+        int h = endpoint.hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
+    }
+
+    /* *************** Leshan Registration API **************** */
+
+    @Override
+    public Deregistration addRegistration(Registration registration) {
+        Stripe lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.writeLock().lock();
+
+            Registration registrationRemoved = regsByEp.put(registration.getEndpoint(), registration);
+            regsByRegId.put(registration.getId(), registration);
+            regsByIdentity.put(registration.getIdentity(), registration);
+            // If a registration is already associated to this address we don't care as we only want to keep the most
+            // recent binding.
+            regsByAddr.put(registration.getSocketAddress(), registration);
+            lock.expirationQueue.put(registration.getId(), registration.getExpirationTimeStamp());
+            if (registrationRemoved != null) {
+                Collection<Observation> observationsRemoved = unsafeRemoveAllObservations(registrationRemoved.getId());
+                if (!registrationRemoved.getSocketAddress().equals(registration.getSocketAddress())) {
+                    regsByAddr.remove(registrationRemoved.getSocketAddress(), registrationRemoved);
+                }
+                if (!registrationRemoved.getId().equals(registration.getId())) {
+                    regsByRegId.remove(registrationRemoved.getId(), registrationRemoved);
+                    lock.expirationQueue.remove(registrationRemoved.getId());
+                }
+                if (!registrationRemoved.getIdentity().equals(registration.getIdentity())) {
+                    regsByIdentity.remove(registrationRemoved.getIdentity(), registrationRemoved);
+                }
+                return new Deregistration(registrationRemoved, observationsRemoved);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return null;
+    }
+
+    @Override
+    public UpdatedRegistration updateRegistration(RegistrationUpdate update) {
+        Registration registration = getRegistration(update.getRegistrationId());
+        if (registration == null) {
+            return null;
+        }
+
+        Stripe lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.writeLock().lock();
+
+            // registration may have been modified before we get the lock
+            registration = getRegistration(update.getRegistrationId());
+            if (registration == null) {
+                return null;
+            } else {
+                Registration updatedRegistration = update.update(registration);
+                regsByEp.put(updatedRegistration.getEndpoint(), updatedRegistration);
+                // If registration is already associated to this address we don't care as we only want to keep the most
+                // recent binding.
+                regsByAddr.put(updatedRegistration.getSocketAddress(), updatedRegistration);
+                if (!registration.getSocketAddress().equals(updatedRegistration.getSocketAddress())) {
+                    regsByAddr.remove(registration.getSocketAddress(), registration);
+                }
+                regsByIdentity.put(updatedRegistration.getIdentity(), updatedRegistration);
+                if (!registration.getIdentity().equals(updatedRegistration.getIdentity())) {
+                    regsByIdentity.remove(registration.getIdentity(), registration);
+                }
+
+                regsByRegId.put(updatedRegistration.getId(), updatedRegistration);
+                lock.expirationQueue.put(updatedRegistration.getId(), updatedRegistration.getExpirationTimeStamp());
+
+                return new UpdatedRegistration(registration, updatedRegistration);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Registration getRegistration(String registrationId) {
+        return regsByRegId.get(registrationId);
+    }
+
+    @Override
+    public Registration getRegistrationByEndpoint(String endpoint) {
+        return regsByEp.get(endpoint);
+    }
+
+    @Override
+    public Registration getRegistrationByAdress(InetSocketAddress address) {
+        return regsByAddr.get(address);
+    }
+
+    @Override
+    public Registration getRegistrationByIdentity(Identity identity) {
+        return regsByIdentity.get(identity);
+    }
+
+    @Override
+    public Iterator<Registration> getAllRegistrations() {
+        return new ArrayList<>(regsByEp.values()).iterator();
+    }
+
+    @Override
+    public Deregistration removeRegistration(String registrationId) {
+        Registration registration = getRegistration(registrationId);
+        if (registration == null) {
+            return null;
+        }
+
+        Stripe lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.writeLock().lock();
+
+            // registration may have been modified before we get the lock
+            registration = getRegistration(registrationId);
+            if (registration != null) {
+                Collection<Observation> observationsRemoved = unsafeRemoveAllObservations(registration.getId());
+                regsByEp.remove(registration.getEndpoint(), registration);
+                regsByAddr.remove(registration.getSocketAddress(), registration);
+                regsByRegId.remove(registration.getId(), registration);
+                regsByIdentity.remove(registration.getIdentity(), registration);
+                lock.expirationQueue.remove(registration.getId());
+                return new Deregistration(registration, observationsRemoved);
+            }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Remove the next expired registration of the given stripe.
+     *
+     * @return the removed registration or <code>null</code> if there is no more expired registration in this stripe.
+     */
+    private Deregistration removeNextExpiredRegistration(Stripe stripe, long now) {
+        try {
+            stripe.writeLock().lock();
+            String registrationId;
+            while ((registrationId = stripe.expirationQueue.pollExpired(now)) != null) {
+                Registration registration = getRegistration(registrationId);
+                if (registration != null) {
+                    if (!registration.isAlive()) {
+                        // force de-registration
+                        return removeRegistration(registrationId);
+                    }
+                    // should not happen as queue is updated with registration, but we don't want to lose it.
+                    stripe.expirationQueue.put(registrationId, registration.getExpirationTimeStamp());
+                }
+            }
+            return null;
+        } finally {
+            stripe.writeLock().unlock();
+        }
+    }
+
+    /* *************** Leshan Observation API **************** */
+
+    /*
+     * The observation is not persisted here, it is done by the Californium layer (in the implementation of the
+     * org.eclipse.californium.core.observe.ObservationStore#add method)
+     */
+    @Override
+    public Collection<Observation> addObservation(String registrationId, Observation observation) {
+
+        List<Observation> removed = new ArrayList<>();
+
+        Registration registration = getRegistration(registrationId);
+        if (registration == null) {
+            return removed;
+        }
+
+        ReadWriteLock lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.writeLock().lock();
+            // cancel existing observations for the same path and registration id.
+            for (Observation obs : unsafeGetObservations(registrationId)) {
+                if (observation.getPath().equals(obs.getPath()) && !Arrays.equals(observation.getId(), obs.getId())) {
+                    unsafeRemoveObservation(new Token(obs.getId()));
+                    removed.add(obs);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        return removed;
+    }
+
+    @Override
+    public Observation removeObservation(String registrationId, byte[] observationId) {
+        Token token = new Token(observationId);
+        org.eclipse.californium.core.observe.Observation cfObs = obsByToken.get(token);
+        if (cfObs == null) {
+            return null;
+        }
+
+        ReadWriteLock lock = stripeFor(ObserveUtil.extractEndpoint(cfObs));
+        try {
+            lock.writeLock().lock();
+            Observation observation = build(unsafeGetObservation(token));
+            if (observation != null && registrationId.equals(observation.getRegistrationId())) {
+                unsafeRemoveObservation(token);
+                return observation;
+            }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Observation getObservation(String registrationId, byte[] observationId) {
+        Observation observation = build(unsafeGetObservation(new Token(observationId)));
+        if (observation != null && registrationId.equals(observation.getRegistrationId())) {
+            return observation;
+        }
+        return null;
+    }
+
+    @Override
+    public Collection<Observation> getObservations(String registrationId) {
+        Registration registration = getRegistration(registrationId);
+        if (registration == null) {
+            return new ArrayList<>();
+        }
+
+        ReadWriteLock lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.readLock().lock();
+            return unsafeGetObservations(registrationId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Collection<Observation> removeObservations(String registrationId) {
+        Registration registration = getRegistration(registrationId);
+        if (registration == null) {
+            return new ArrayList<>();
+        }
+
+        ReadWriteLock lock = stripeFor(registration.getEndpoint());
+        try {
+            lock.writeLock().lock();
+            return unsafeRemoveAllObservations(registrationId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /* *************** Californium ObservationStore API **************** */
+
+    @Override
+    public org.eclipse.californium.core.observe.Observation putIfAbsent(Token token,
+            org.eclipse.californium.core.observe.Observation obs) throws ObservationStoreException {
+        return add(token, obs, true);
+    }
+
+    @Override
+    public org.eclipse.californium.core.observe.Observation put(Token token,
+            org.eclipse.californium.core.observe.Observation obs) throws ObservationStoreException {
+        return add(token, obs, false);
+    }
+
+    private org.eclipse.californium.core.observe.Observation add(Token token,
+            org.eclipse.californium.core.observe.Observation obs, boolean ifAbsent) throws ObservationStoreException {
+        org.eclipse.californium.core.observe.Observation previousObservation = null;
+        if (obs != null) {
+            String endpoint = ObserveUtil.validateCoapObservation(obs);
+            ReadWriteLock lock = stripeFor(endpoint);
+            try {
+                lock.writeLock().lock();
+
+                // registration can not be removed while we hold the lock of its endpoint
+                String registrationId = ObserveUtil.extractRegistrationId(obs);
+                if (getRegistration(registrationId) == null) {
+                    throw new ObservationStoreException("no registration for this Id");
+                }
+
+                if (ifAbsent) {
+                    previousObservation = obsByToken.putIfAbsent(token, obs);
+                    if (previousObservation != null)
+                        return previousObservation;
+                } else {
+                    previousObservation = obsByToken.put(token, obs);
+                }
+                Set<Token> tokens = tokensByRegId.get(registrationId);
+                if (tokens == null) {
+                    tokens = new HashSet<>();
+                    tokensByRegId.put(registrationId, tokens);
+                }
+                tokens.add(token);
+
+                // log any collisions
+                if (previousObservation != null) {
+                    LOG.warn(
+                            "Token collision ? observation from request [{}] will be replaced by observation from request [{}] ",
+                            previousObservation.getRequest(), obs.getRequest());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        return previousObservation;
+    }
+
+    @Override
+    public org.eclipse.californium.core.observe.Observation get(Token token) {
+        return unsafeGetObservation(token);
+    }
+
+    @Override
+    public void setContext(Token token, EndpointContext ctx) {
+        org.eclipse.californium.core.observe.Observation obs = obsByToken.get(token);
+        if (obs != null) {
+            ReadWriteLock lock = stripeFor(ObserveUtil.extractEndpoint(obs));
+            try {
+                lock.writeLock().lock();
+                obs = obsByToken.get(token);
+                if (obs != null) {
+                    obsByToken.put(token, new org.eclipse.californium.core.observe.Observation(obs.getRequest(), ctx));
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    @Override
+    public void remove(Token token) {
+        org.eclipse.californium.core.observe.Observation obs = obsByToken.get(token);
+        if (obs != null) {
+            ReadWriteLock lock = stripeFor(ObserveUtil.extractEndpoint(obs));
+            try {
+                lock.writeLock().lock();
+                unsafeRemoveObservation(token);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /* *************** Observation utility functions **************** */
+
+    private org.eclipse.californium.core.observe.Observation unsafeGetObservation(Token token) {
+        org.eclipse.californium.core.observe.Observation obs = obsByToken.get(token);
+        return ObservationUtil.shallowClone(obs);
+    }
+
+    private void unsafeRemoveObservation(Token observationId) {
+        org.eclipse.californium.core.observe.Observation removed = obsByToken.remove(observationId);
+
+        if (removed != null) {
+            String registrationId = ObserveUtil.extractRegistrationId(removed);
+            Set<Token> tokens = tokensByRegId.get(registrationId);
+            if (tokens != null) {
+                tokens.remove(observationId);
+                if (tokens.isEmpty()) {
+                    tokensByRegId.remove(registrationId);
+                }
+            }
+        }
+    }
+
+    private Collection<Observation> unsafeRemoveAllObservations(String registrationId) {
+        Collection<Observation> removed = new ArrayList<>();
+        Set<Token> tokens = tokensByRegId.remove(registrationId);
+        if (tokens != null) {
+            for (Token token : tokens) {
+                Observation observationRemoved = build(obsByToken.remove(token));
+                if (observationRemoved != null) {
+                    removed.add(observationRemoved);
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Collection<Observation> unsafeGetObservations(String registrationId) {
+        Collection<Observation> result = new ArrayList<>();
+        Set<Token> tokens = tokensByRegId.get(registrationId);
+        if (tokens != null) {
+            for (Token token : tokens) {
+                Observation obs = build(unsafeGetObservation(token));
+                if (obs != null) {
+                    result.add(obs);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Observation build(org.eclipse.californium.core.observe.Observation cfObs) {
+        if (cfObs == null)
+            return null;
+
+        return ObserveUtil.createLwM2mObservation(cfObs.getRequest());
+    }
+
+    /* *************** Expiration handling **************** */
+
+    @Override
+    public void setExpirationListener(ExpirationListener listener) {
+        this.expirationListener = listener;
+    }
+
+    /**
+     * start the registration store, will start regular cleanup of dead registrations.
+     */
+    @Override
+    public synchronized void start() {
+        if (!started) {
+            started = true;
+            cleanerTask = schedExecutor.scheduleAtFixedRate(new Cleaner(), cleanPeriod, cleanPeriod, cleanPeriodUnit);
+        }
+    }
+
+    /**
+     * Stop the underlying cleanup of the registrations.
+     */
+    @Override
+    public synchronized void stop() {
+        if (started) {
+            started = false;
+            if (cleanerTask != null) {
+                cleanerTask.cancel(false);
+                cleanerTask = null;
+            }
+        }
+    }
+
+    /**
+     * Destroy "cleanup" scheduler.
+     */
+    @Override
+    public synchronized void destroy() {
+        started = false;
+        schedExecutor.shutdownNow();
+        try {
+            schedExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Destroying ConcurrentInMemoryRegistrationStore was interrupted.", e);
+        }
+    }
+
+    private class Cleaner implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                // only expired registrations are visited, so cleaning cost does not depend on the number of
+                // registrations.
+                long now = System.currentTimeMillis();
+                for (Stripe stripe : stripes) {
+                    Deregistration removedRegistration;
+                    while ((removedRegistration = removeNextExpiredRegistration(stripe, now)) != null) {
+                        expirationListener.registrationExpired(removedRegistration.getRegistration(),
+                                removedRegistration.getObservations());
+                    }
+                }
+            } catch (Exception e) {
+                LOG.warn("Unexpected Exception while registration cleaning", e);
+            }
+        }
+    }
+
+    @Override
+    public void setExecutor(ScheduledExecutorService executor) {
+        // TODO sould we reuse californium executor ?
+    }
+}
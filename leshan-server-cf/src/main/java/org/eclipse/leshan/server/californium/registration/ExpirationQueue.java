@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.registration;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An indexed binary min-heap of registration ids ordered by expiration timestamp.
+ * <p>
+ * Adding, updating or removing a registration costs O(log n) and finding expired registrations costs O(1) by
+ * registration expired, so cleaning does not need to scan all registrations.
+ * <p>
+ * This class is not thread-safe, callers are responsible for synchronization.
+ */
+class ExpirationQueue {
+
+    private static class Entry {
+        final String registrationId;
+        long expiration;
+        int index;
+
+        Entry(String registrationId, long expiration) {
+            this.registrationId = registrationId;
+            this.expiration = expiration;
+        }
+    }
+
+    private final Map<String, Entry> entriesById = new HashMap<>();
+    private Entry[] heap = new Entry[16];
+    private int size = 0;
+
+    /**
+     * Add a registration to the queue or change its expiration timestamp if it is already in it.
+     */
+    public void put(String registrationId, long expiration) {
+        Entry entry = entriesById.get(registrationId);
+        if (entry == null) {
+            entry = new Entry(registrationId, expiration);
+            entriesById.put(registrationId, entry);
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            entry.index = size;
+            heap[size++] = entry;
+            siftUp(entry.index);
+        } else {
+            long previous = entry.expiration;
+            entry.expiration = expiration;
+            if (expiration < previous) {
+                siftUp(entry.index);
+            } else {
+                siftDown(entry.index);
+            }
+        }
+    }
+
+    /**
+     * Remove a registration from the queue.
+     *
+     * @return <code>true</code> if the registration was in the queue.
+     */
+    public boolean remove(String registrationId) {
+        Entry entry = entriesById.remove(registrationId);
+        if (entry == null)
+            return false;
+
+        int index = entry.index;
+        Entry last = heap[--size];
+        heap[size] = null;
+        if (index != size) {
+            heap[index] = last;
+            last.index = index;
+            siftDown(index);
+            siftUp(last.index);
+        }
+        return true;
+    }
+
+    /**
+     * Remove and return the id of the registration expiring first, if it expired at the given time.
+     *
+     * @param now the current time in milliseconds.
+     * @return the id of an expired registration or <code>null</code> if no registration expired.
+     */
+    public String pollExpired(long now) {
+        if (size == 0 || heap[0].expiration > now)
+            return null;
+
+        String registrationId = heap[0].registrationId;
+        remove(registrationId);
+        return registrationId;
+    }
+
+    /**
+     * @return the expiration timestamp of the registration expiring first or {@link Long#MAX_VALUE} if the queue is
+     *         empty.
+     */
+    public long nextExpiration() {
+        return size == 0 ? Long.MAX_VALUE : heap[0].expiration;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (heap[parent].expiration <= entry.expiration)
+                break;
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && heap[right].expiration < heap[child].expiration) {
+                child = right;
+            }
+            if (entry.expiration <= heap[child].expiration)
+                break;
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+}
@@ -74,6 +74,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
     private final Map<Identity, Registration> regsByIdentity = new HashMap<>();
     private Map<Token, org.eclipse.californium.core.observe.Observation> obsByToken = new HashMap<>();
     private Map<String, Set<Token>> tokensByRegId = new HashMap<>();
+    private final ExpirationQueue expirationQueue = new ExpirationQueue();
 
     private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
@@ -83,7 +84,8 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
     private final ScheduledExecutorService schedExecutor;
     private ScheduledFuture<?> cleanerTask;
     private boolean started = false;
-    private final long cleanPeriod; // in seconds
+    private final long cleanPeriod;
+    private final TimeUnit cleanPeriodUnit;
 
     public InMemoryRegistrationStore() {
         this(2); // default clean period : 2s
@@ -96,8 +98,19 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
     }
 
     public InMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriodInSec) {
+        this(schedExecutor, cleanPeriodInSec, TimeUnit.SECONDS);
+    }
+
+    /**
+     * @param schedExecutor the executor used to clean expired registrations.
+     * @param cleanPeriod the period between 2 cleanings. This is the maximum delay between the expiration of a
+     *        registration and its removal from the store.
+     * @param unit the unit of the clean period.
+     */
+    public InMemoryRegistrationStore(ScheduledExecutorService schedExecutor, long cleanPeriod, TimeUnit unit) {
         this.schedExecutor = schedExecutor;
-        this.cleanPeriod = cleanPeriodInSec;
+        this.cleanPeriod = cleanPeriod;
+        this.cleanPeriodUnit = unit;
     }
 
     /* *************** Leshan Registration API **************** */
@@ -113,6 +126,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
             // If a registration is already associated to this address we don't care as we only want to keep the most
             // recent binding.
             regsByAddr.put(registration.getSocketAddress(), registration);
+            expirationQueue.put(registration.getId(), registration.getExpirationTimeStamp());
             if (registrationRemoved != null) {
                 Collection<Observation> observationsRemoved = unsafeRemoveAllObservations(registrationRemoved.getId());
                 if (!registrationRemoved.getSocketAddress().equals(registration.getSocketAddress())) {
@@ -120,6 +134,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
                 }
                 if (!registrationRemoved.getId().equals(registration.getId())) {
                     removeFromMap(regsByRegId, registrationRemoved.getId(), registrationRemoved);
+                    expirationQueue.remove(registrationRemoved.getId());
                 }
                 if (!registrationRemoved.getIdentity().equals(registration.getIdentity())) {
                     removeFromMap(regsByIdentity, registrationRemoved.getIdentity(), registrationRemoved);
@@ -155,6 +170,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
                 }
 
                 regsByRegId.put(updatedRegistration.getId(), updatedRegistration);
+                expirationQueue.put(updatedRegistration.getId(), updatedRegistration.getExpirationTimeStamp());
 
                 return new UpdatedRegistration(registration, updatedRegistration);
             }
@@ -225,6 +241,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
                 removeFromMap(regsByAddr, registration.getSocketAddress(), registration);
                 removeFromMap(regsByRegId, registration.getId(), registration);
                 removeFromMap(regsByIdentity, registration.getIdentity(), registration);
+                expirationQueue.remove(registration.getId());
                 return new Deregistration(registration, observationsRemoved);
             }
             return null;
@@ -473,7 +490,7 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
     public synchronized void start() {
         if (!started) {
             started = true;
-            cleanerTask = schedExecutor.scheduleAtFixedRate(new Cleaner(), cleanPeriod, cleanPeriod, TimeUnit.SECONDS);
+            cleanerTask = schedExecutor.scheduleAtFixedRate(new Cleaner(), cleanPeriod, cleanPeriod, cleanPeriodUnit);
         }
     }
 
@@ -510,25 +527,38 @@ public class InMemoryRegistrationStore implements CaliforniumRegistrationStore,
         @Override
         public void run() {
             try {
-                Collection<Registration> allRegs = new ArrayList<>();
-                try {
-                    lock.readLock().lock();
-                    allRegs.addAll(regsByEp.values());
-                } finally {
-                    lock.readLock().unlock();
+                // only expired registrations are visited, so cleaning cost does not depend on the number of
+                // registrations.
+                long now = System.currentTimeMillis();
+                Deregistration removedRegistration;
+                while ((removedRegistration = removeNextExpiredRegistration(now)) != null) {
+                    expirationListener.registrationExpired(removedRegistration.getRegistration(),
+                            removedRegistration.getObservations());
                 }
+            } catch (Exception e) {
+                LOG.warn("Unexpected Exception while registration cleaning", e);
+            }
+        }
+    }
 
-                for (Registration reg : allRegs) {
-                    if (!reg.isAlive()) {
+    private Deregistration removeNextExpiredRegistration(long now) {
+        try {
+            lock.writeLock().lock();
+            String registrationId;
+            while ((registrationId = expirationQueue.pollExpired(now)) != null) {
+                Registration registration = regsByRegId.get(registrationId);
+                if (registration != null) {
+                    if (!registration.isAlive()) {
                         // force de-registration
-                        Deregistration removedRegistration = removeRegistration(reg.getId());
-                        expirationListener.registrationExpired(removedRegistration.getRegistration(),
-                                removedRegistration.getObservations());
+                        return removeRegistration(registrationId);
                     }
+                    // should not happen as queue is updated with registration, but we don't want to lose it.
+                    expirationQueue.put(registrationId, registration.getExpirationTimeStamp());
                 }
-            } catch (Exception e) {
-                LOG.warn("Unexpected Exception while registration cleaning", e);
             }
+            return null;
+        } finally {
+            lock.writeLock().unlock();
         }
     }
 
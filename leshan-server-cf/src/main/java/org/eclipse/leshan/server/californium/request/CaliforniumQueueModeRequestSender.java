@@ -17,21 +17,24 @@ package org.eclipse.leshan.server.californium.request;
 
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.coap.Response;
+import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.californium.CoapResponseCallback;
 import org.eclipse.leshan.core.request.exception.ClientSleepingException;
 import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.response.ErrorCallback;
-import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.server.queue.PresenceServiceImpl;
 import org.eclipse.leshan.server.queue.QueueModeLwM2mRequestSender;
+import org.eclipse.leshan.server.queue.RequestQueueStore;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.request.LwM2mRequestSender;
 
 /**
  * A {@link LwM2mRequestSender} and {@link CoapRequestSender} which supports LWM2M Queue Mode.
+ * <p>
+ * Only LWM2M requests can be queued for sleeping clients (see {@link QueueModeLwM2mRequestSender}), sending a CoAP
+ * request to a sleeping client always raises a {@link ClientSleepingException}.
  */
-public class CaliforniumQueueModeRequestSender extends QueueModeLwM2mRequestSender
-        implements CoapRequestSender, Destroyable {
+public class CaliforniumQueueModeRequestSender extends QueueModeLwM2mRequestSender implements CoapRequestSender {
 
     /**
      * @param presenceService the presence service object for setting the client into sleeping state when request
@@ -42,6 +45,17 @@ public class CaliforniumQueueModeRequestSender extends QueueModeLwM2mRequestSend
         super(presenceService, delegatedSender);
     }
 
+    /**
+     * Create a sender which queues asynchronous LWM2M requests to sleeping clients.
+     *
+     * @see QueueModeLwM2mRequestSender#QueueModeLwM2mRequestSender(PresenceServiceImpl, LwM2mRequestSender,
+     *      RequestQueueStore, long, int)
+     */
+    public CaliforniumQueueModeRequestSender(PresenceServiceImpl presenceService, LwM2mRequestSender delegatedSender,
+            RequestQueueStore queueStore, long requestTimeToLive, int maxInFlight) {
+        super(presenceService, delegatedSender, queueStore, requestTimeToLive, maxInFlight);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,6 +146,7 @@ public class CaliforniumQueueModeRequestSender extends QueueModeLwM2mRequestSend
 
     @Override
     public void destroy() {
+        super.destroy();
         if (delegatedSender instanceof Destroyable) {
             ((Destroyable) delegatedSender).destroy();
         }
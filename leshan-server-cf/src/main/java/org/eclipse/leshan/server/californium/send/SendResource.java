@@ -17,16 +17,11 @@ package org.eclipse.leshan.server.californium.send;
 
 import static org.eclipse.leshan.core.californium.ResponseCodeUtil.toCoapResponseCode;
 
-import java.util.List;
-import java.util.Map;
-
 import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.Request;
 import org.eclipse.californium.core.server.resources.CoapExchange;
 import org.eclipse.leshan.core.californium.LwM2mCoapResource;
 import org.eclipse.leshan.core.model.LwM2mModel;
-import org.eclipse.leshan.core.node.LwM2mNode;
-import org.eclipse.leshan.core.node.LwM2mPath;
 import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
 import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.Identity;
@@ -70,7 +65,7 @@ public class SendResource extends LwM2mCoapResource {
             return;
         }
 
-        // Decode payload
+        // Get payload
         LwM2mModel model = modelProvider.getObjectModel(registration);
         byte[] payload = exchange.getRequestPayload();
         ContentFormat contentFormat = ContentFormat.fromCode(exchange.getRequestOptions().getContentFormat());
@@ -78,11 +73,10 @@ public class SendResource extends LwM2mCoapResource {
             exchange.respond(ResponseCode.BAD_REQUEST, "Unsupported content format");
             return;
         }
-        Map<LwM2mPath, LwM2mNode> data = decoder.decodeNodes(payload, contentFormat, (List<LwM2mPath>) null, model);
 
         // Handle "send op request
-        SendRequest sendRequest = new SendRequest(contentFormat, data, coapRequest);
-        SendableResponse<SendResponse> sendableResponse = sendHandler.handleSend(registration, sendRequest);
+        SendableResponse<SendResponse> sendableResponse = sendHandler.handleSend(registration, contentFormat,
+                payload, model, decoder, coapRequest);
         SendResponse response = sendableResponse.getResponse();
 
         // send reponse
@@ -17,20 +17,32 @@ package org.eclipse.leshan.server.californium.observation;
 
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.eclipse.californium.core.coap.CoAP.ResponseCode;
 import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Response;
 import org.eclipse.leshan.core.californium.EndpointContextUtil;
 import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.LwM2mSingleResource;
 import org.eclipse.leshan.core.node.codec.DefaultLwM2mDecoder;
 import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.Identity;
 import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.core.response.ObserveResponse;
 import org.eclipse.leshan.server.californium.CaliforniumTestSupport;
 import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
 import org.eclipse.leshan.server.californium.registration.InMemoryRegistrationStore;
 import org.eclipse.leshan.server.model.StandardModelProvider;
+import org.eclipse.leshan.server.observation.ObservationListener;
 import org.eclipse.leshan.server.registration.Registration;
 import org.junit.Assert;
 import org.junit.Before;
@@ -42,6 +54,7 @@ public class ObservationServiceTest {
     LwM2mPath target;
     ObservationServiceImpl observationService;
     CaliforniumRegistrationStore store;
+    int observeSequence;
 
     private CaliforniumTestSupport support = new CaliforniumTestSupport();
 
@@ -127,6 +140,106 @@ public class ObservationServiceTest {
         Assert.assertEquals(1, observations.size());
     }
 
+    @Test
+    public void notifications_are_delivered_in_order_by_workers() throws InterruptedException {
+        ObservationServiceImpl observationService = new ObservationServiceImpl(store, new StandardModelProvider(),
+                new DefaultLwM2mDecoder(), false, 4, 8);
+        try {
+            this.observationService = observationService;
+            givenAnObservation(support.registration.getId(), new LwM2mPath(3, 0, 0));
+            Request observeRequest = coapRequest;
+
+            int nbNotifications = 100;
+            CountDownLatch received = new CountDownLatch(nbNotifications);
+            List<String> values = Collections.synchronizedList(new ArrayList<String>());
+            observationService.addListener(new ResponseCollector(values, received));
+
+            for (int i = 0; i < nbNotifications; i++) {
+                observationService.onNotification(observeRequest, givenANotification(observeRequest, "value" + i));
+            }
+
+            Assert.assertTrue(received.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < nbNotifications; i++) {
+                Assert.assertEquals("value" + i, values.get(i));
+            }
+        } finally {
+            observationService.destroy();
+        }
+    }
+
+    @Test
+    public void notification_of_cancelled_observation_is_ignored() {
+        Observation observation = givenAnObservation(support.registration.getId(), new LwM2mPath(3, 0, 0));
+        Request observeRequest = coapRequest;
+        List<String> values = new ArrayList<>();
+        observationService.addListener(new ResponseCollector(values, new CountDownLatch(1)));
+
+        observationService.onNotification(observeRequest, givenANotification(observeRequest, "value1"));
+        observationService.cancelObservation(observation);
+        observationService.onNotification(observeRequest, givenANotification(observeRequest, "value2"));
+
+        Assert.assertEquals(Collections.singletonList("value1"), values);
+    }
+
+    @Test
+    public void response_ending_observation_removes_it_from_cache() {
+        givenAnObservation(support.registration.getId(), new LwM2mPath(3, 0, 0));
+        Request observeRequest = coapRequest;
+        List<String> values = new ArrayList<>();
+        observationService.addListener(new ResponseCollector(values, new CountDownLatch(1)));
+
+        observationService.onNotification(observeRequest, givenANotification(observeRequest, "value1"));
+        // a response without observe option ends the observation and Californium removes it from the store
+        observationService.onNotification(observeRequest, givenAResponse(observeRequest, "value2"));
+        store.remove(observeRequest.getToken());
+        observationService.onNotification(observeRequest, givenANotification(observeRequest, "value3"));
+
+        Assert.assertEquals(Arrays.asList("value1", "value2"), values);
+    }
+
+    private Response givenANotification(Request observeRequest, String value) {
+        Response response = givenAResponse(observeRequest, value);
+        response.getOptions().setObserve(++observeSequence);
+        return response;
+    }
+
+    private Response givenAResponse(Request observeRequest, String value) {
+        Response response = new Response(ResponseCode.CONTENT);
+        response.setToken(observeRequest.getToken());
+        response.getOptions().setContentFormat(ContentFormat.TEXT_CODE);
+        response.setPayload(value);
+        return response;
+    }
+
+    private static class ResponseCollector implements ObservationListener {
+        private final List<String> values;
+        private final CountDownLatch received;
+
+        public ResponseCollector(List<String> values, CountDownLatch received) {
+            this.values = values;
+            this.received = received;
+        }
+
+        @Override
+        public void newObservation(Observation observation, Registration registration) {
+        }
+
+        @Override
+        public void cancelled(Observation observation) {
+        }
+
+        @Override
+        public void onResponse(Observation observation, Registration registration, ObserveResponse response) {
+            values.add((String) ((LwM2mSingleResource) response.getContent()).getValue());
+            received.countDown();
+        }
+
+        @Override
+        public void onError(Observation observation, Registration registration, Exception error) {
+            Assert.fail("Unexpected error " + error);
+        }
+    }
+
     private Observation givenAnObservation(String registrationId, LwM2mPath target) {
         Registration registration = store.getRegistration(registrationId);
         if (registration == null) {
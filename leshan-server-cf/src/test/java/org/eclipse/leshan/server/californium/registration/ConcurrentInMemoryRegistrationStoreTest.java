@@ -0,0 +1,200 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.registration;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.observe.ObservationStoreException;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.ObserveRequest;
+import org.eclipse.leshan.server.californium.CaliforniumTestSupport;
+import org.eclipse.leshan.server.californium.observation.ObserveUtil;
+import org.eclipse.leshan.server.registration.Deregistration;
+import org.eclipse.leshan.server.registration.ExpirationListener;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.registration.RegistrationUpdate;
+import org.eclipse.leshan.server.registration.UpdatedRegistration;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ConcurrentInMemoryRegistrationStoreTest {
+
+    ConcurrentInMemoryRegistrationStore store;
+    InetAddress address;
+
+    @Before
+    public void setUp() throws Exception {
+        address = InetAddress.getLocalHost();
+        store = new ConcurrentInMemoryRegistrationStore();
+    }
+
+    @After
+    public void tearDown() {
+        store.destroy();
+    }
+
+    @Test
+    public void new_registration_replaces_previous_one_and_its_indexes() {
+        Registration first = givenARegistration("reg1", "ep", 5683);
+        Assert.assertNull(store.addRegistration(first));
+        givenAnObservation(first, "/3/0/9");
+
+        Registration second = givenARegistration("reg2", "ep", 5684);
+        Deregistration deregistration = store.addRegistration(second);
+
+        Assert.assertEquals(first, deregistration.getRegistration());
+        Assert.assertEquals(1, deregistration.getObservations().size());
+        Assert.assertNull(store.getRegistration("reg1"));
+        Assert.assertNull(store.getRegistrationByAdress(new InetSocketAddress(address, 5683)));
+        Assert.assertEquals(second, store.getRegistrationByEndpoint("ep"));
+        Assert.assertEquals(second, store.getRegistrationByAdress(new InetSocketAddress(address, 5684)));
+        Assert.assertEquals(second, store.getRegistrationByIdentity(second.getIdentity()));
+        Assert.assertTrue(store.getObservations("reg1").isEmpty());
+    }
+
+    @Test
+    public void update_registration_moves_address_index() {
+        Registration registration = givenARegistration("reg1", "ep", 5683);
+        store.addRegistration(registration);
+
+        RegistrationUpdate update = new RegistrationUpdate("reg1", Identity.unsecure(address, 5690), null, null, null,
+                null, null);
+        UpdatedRegistration updated = store.updateRegistration(update);
+
+        Assert.assertEquals(registration, updated.getPreviousRegistration());
+        Assert.assertNull(store.getRegistrationByAdress(new InetSocketAddress(address, 5683)));
+        Assert.assertEquals(updated.getUpdatedRegistration(),
+                store.getRegistrationByAdress(new InetSocketAddress(address, 5690)));
+        Assert.assertEquals(updated.getUpdatedRegistration(), store.getRegistration("reg1"));
+    }
+
+    @Test
+    public void remove_registration_removes_observations() {
+        Registration registration = givenARegistration("reg1", "ep", 5683);
+        store.addRegistration(registration);
+        givenAnObservation(registration, "/3/0/9");
+        givenAnObservation(registration, "/3/0/10");
+        Assert.assertEquals(2, store.getObservations("reg1").size());
+
+        Deregistration deregistration = store.removeRegistration("reg1");
+
+        Assert.assertEquals(2, deregistration.getObservations().size());
+        Assert.assertNull(store.getRegistrationByEndpoint("ep"));
+        Assert.assertTrue(store.getObservations("reg1").isEmpty());
+        Assert.assertNull(store.removeRegistration("reg1"));
+    }
+
+    @Test(expected = ObservationStoreException.class)
+    public void observation_without_registration_is_rejected() {
+        givenAnObservation(givenARegistration("unknown", "ep", 5683), "/3/0/9");
+    }
+
+    @Test
+    public void only_expired_registrations_are_removed_by_cleaner() throws InterruptedException {
+        store.destroy();
+        store = new ConcurrentInMemoryRegistrationStore(Executors.newSingleThreadScheduledExecutor(), 50,
+                TimeUnit.MILLISECONDS, 4);
+        final CountDownLatch expired = new CountDownLatch(1);
+        store.setExpirationListener(new ExpirationListener() {
+            @Override
+            public void registrationExpired(Registration registration, Collection<Observation> observations) {
+                Assert.assertEquals("expired", registration.getId());
+                expired.countDown();
+            }
+        });
+
+        store.addRegistration(new Registration.Builder("expired", "ep1", Identity.unsecure(address, 5683))
+                .lifeTimeInSec(0L).build());
+        store.addRegistration(new Registration.Builder("alive", "ep2", Identity.unsecure(address, 5684))
+                .lifeTimeInSec(3600L).build());
+        store.start();
+
+        Assert.assertTrue(expired.await(2, TimeUnit.SECONDS));
+        Assert.assertNull(store.getRegistrationByEndpoint("ep1"));
+        Assert.assertNotNull(store.getRegistrationByEndpoint("ep2"));
+    }
+
+    @Test
+    public void concurrent_registrations_keep_indexes_consistent() throws Exception {
+        final int nbEndpoints = 200;
+        final int nbIterations = 50;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                final int thread = t;
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        for (int i = 0; i < nbIterations; i++) {
+                            for (int e = 0; e < nbEndpoints; e++) {
+                                Registration reg = givenARegistration("reg-" + thread + "-" + i + "-" + e, "ep" + e,
+                                        10000 + e);
+                                store.addRegistration(reg);
+                                store.updateRegistration(new RegistrationUpdate(reg.getId(), reg.getIdentity(), 60L,
+                                        null, null, null, null));
+                            }
+                        }
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        int count = 0;
+        for (Iterator<Registration> it = store.getAllRegistrations(); it.hasNext();) {
+            Registration reg = it.next();
+            Assert.assertEquals(reg, store.getRegistration(reg.getId()));
+            Assert.assertEquals(reg, store.getRegistrationByAdress(reg.getSocketAddress()));
+            Assert.assertEquals(reg, store.getRegistrationByIdentity(reg.getIdentity()));
+            count++;
+        }
+        Assert.assertEquals(nbEndpoints, count);
+    }
+
+    private Registration givenARegistration(String registrationId, String endpoint, int port) {
+        return new Registration.Builder(registrationId, endpoint, Identity.unsecure(address, port)).build();
+    }
+
+    private void givenAnObservation(Registration registration, String path) {
+        Request coapRequest = Request.newGet();
+        coapRequest.setToken(CaliforniumTestSupport.createToken());
+        coapRequest.setObserve();
+        coapRequest.setUserContext(ObserveUtil.createCoapObserveRequestContext(registration.getEndpoint(),
+                registration.getId(), new ObserveRequest(path)));
+        store.put(coapRequest.getToken(), new org.eclipse.californium.core.observe.Observation(coapRequest, null));
+    }
+}
@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.californium.registration;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ExpirationQueueTest {
+
+    @Test
+    public void poll_expired_registrations_in_expiration_order() {
+        ExpirationQueue queue = new ExpirationQueue();
+        queue.put("c", 30);
+        queue.put("a", 10);
+        queue.put("d", 40);
+        queue.put("b", 20);
+
+        Assert.assertEquals(10, queue.nextExpiration());
+        Assert.assertEquals("a", queue.pollExpired(25));
+        Assert.assertEquals("b", queue.pollExpired(25));
+        Assert.assertNull(queue.pollExpired(25));
+        Assert.assertEquals(2, queue.size());
+    }
+
+    @Test
+    public void update_and_remove_change_expiration_order() {
+        ExpirationQueue queue = new ExpirationQueue();
+        queue.put("a", 10);
+        queue.put("b", 20);
+        queue.put("c", 30);
+
+        // a is updated, b is removed
+        queue.put("a", 100);
+        Assert.assertTrue(queue.remove("b"));
+        Assert.assertFalse(queue.remove("b"));
+
+        Assert.assertEquals("c", queue.pollExpired(1000));
+        Assert.assertEquals("a", queue.pollExpired(1000));
+        Assert.assertNull(queue.pollExpired(1000));
+        Assert.assertEquals(Long.MAX_VALUE, queue.nextExpiration());
+    }
+
+    @Test
+    public void random_operations_keep_heap_ordered() {
+        ExpirationQueue queue = new ExpirationQueue();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            String id = Integer.toString(random.nextInt(1000));
+            if (random.nextInt(4) == 0) {
+                queue.remove(id);
+            } else {
+                queue.put(id, random.nextInt(100000));
+            }
+        }
+
+        List<String> polled = new ArrayList<>();
+        long previous = Long.MIN_VALUE;
+        while (queue.size() > 0) {
+            long next = queue.nextExpiration();
+            Assert.assertTrue(next >= previous);
+            polled.add(queue.pollExpired(next));
+            previous = next;
+        }
+        Assert.assertFalse(polled.contains(null));
+    }
+}
@@ -17,11 +17,17 @@ package org.eclipse.leshan.server.californium.registration;
 
 import java.net.InetAddress;
 import java.nio.charset.StandardCharsets;
+import java.util.Collection;
 import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.ExpirationListener;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationStore;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
@@ -91,6 +97,29 @@ public class InMemoryRegistrationStoreTest {
         Assert.assertTrue(reg.isAlive());
     }
 
+    @Test
+    public void expired_registration_is_removed_by_cleaner() throws InterruptedException {
+        InMemoryRegistrationStore store = new InMemoryRegistrationStore(Executors.newSingleThreadScheduledExecutor(),
+                50, TimeUnit.MILLISECONDS);
+        final CountDownLatch expired = new CountDownLatch(1);
+        store.setExpirationListener(new ExpirationListener() {
+            @Override
+            public void registrationExpired(Registration registration, Collection<Observation> observations) {
+                expired.countDown();
+            }
+        });
+
+        givenASimpleRegistration(0L);
+        store.addRegistration(registration);
+        store.start();
+        try {
+            Assert.assertTrue(expired.await(2, TimeUnit.SECONDS));
+            Assert.assertNull(store.getRegistrationByEndpoint(ep));
+        } finally {
+            store.destroy();
+        }
+    }
+
     private void givenASimpleRegistration(Long lifetime) {
 
         Registration.Builder builder = new Registration.Builder(registrationId, ep, Identity.unsecure(address, port));
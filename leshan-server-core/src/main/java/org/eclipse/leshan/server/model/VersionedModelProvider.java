@@ -17,22 +17,32 @@ package org.eclipse.leshan.server.model;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.model.LwM2mModelRepository;
 import org.eclipse.leshan.core.model.ObjectModel;
-import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.model.StaticModel;
 import org.eclipse.leshan.server.registration.Registration;
 
 /**
  * A LwM2mModelProvider which supports object versioning. It returns a LwM2mModel taking into account object version
  * given in registration.
+ * <p>
+ * Models are resolved once for each set of supported objects and shared by all registrations with the same supported
+ * objects (e.g. devices with the same firmware).
  */
 public class VersionedModelProvider implements LwM2mModelProvider {
 
+    // above this number of different supported objects sets, the cache is cleared
+    private static final int MAX_CACHED_MODELS = 1000;
+
     private LwM2mModelRepository repository;
+    private final Map<Map<Integer, String>, LwM2mModel> models = new ConcurrentHashMap<>();
 
     public VersionedModelProvider(Collection<ObjectModel> objectModels) {
         this.repository = new LwM2mModelRepository(objectModels);
@@ -44,46 +54,34 @@ public class VersionedModelProvider implements LwM2mModelProvider {
 
     @Override
     public LwM2mModel getObjectModel(Registration registration) {
-        return new DynamicModel(registration);
-    }
-
-    private class DynamicModel implements LwM2mModel {
-
-        private final Registration registration;
-
-        public DynamicModel(Registration registration) {
-            this.registration = registration;
-        }
-
-        @Override
-        public ResourceModel getResourceModel(int objectId, int resourceId) {
-            ObjectModel objectModel = getObjectModel(objectId);
-            if (objectModel != null)
-                return objectModel.resources.get(resourceId);
-            else
-                return null;
+        Map<Integer, String> supportedObjects = registration.getSupportedObject();
+        if (supportedObjects == null) {
+            supportedObjects = Collections.emptyMap();
         }
 
-        @Override
-        public ObjectModel getObjectModel(int objectId) {
-            String version = registration.getSupportedVersion(objectId);
-            if (version != null) {
-                return repository.getObjectModel(objectId, version);
+        LwM2mModel model = models.get(supportedObjects);
+        if (model == null) {
+            // copy the map as it is used as key
+            Map<Integer, String> key = Collections.unmodifiableMap(new HashMap<>(supportedObjects));
+            model = resolveModel(key);
+            if (models.size() >= MAX_CACHED_MODELS) {
+                models.clear();
             }
-            return null;
+            models.put(key, model);
         }
+        return model;
+    }
 
-        @Override
-        public Collection<ObjectModel> getObjectModels() {
-            Map<Integer, String> supportedObjects = registration.getSupportedObject();
-            Collection<ObjectModel> result = new ArrayList<>(supportedObjects.size());
-            for (Entry<Integer, String> supportedObject : supportedObjects.entrySet()) {
+    private LwM2mModel resolveModel(Map<Integer, String> supportedObjects) {
+        Collection<ObjectModel> objectModels = new ArrayList<>(supportedObjects.size());
+        for (Entry<Integer, String> supportedObject : supportedObjects.entrySet()) {
+            if (supportedObject.getValue() != null) {
                 ObjectModel objectModel = repository.getObjectModel(supportedObject.getKey(),
                         supportedObject.getValue());
                 if (objectModel != null)
-                    result.add(objectModel);
+                    objectModels.add(objectModel);
             }
-            return result;
         }
+        return new StaticModel(objectModels);
     }
-}
\ No newline at end of file
+}
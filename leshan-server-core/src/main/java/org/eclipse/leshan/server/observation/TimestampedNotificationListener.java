@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.observation;
+
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
+import org.eclipse.leshan.core.observation.Observation;
+import org.eclipse.leshan.core.response.ObserveResponse;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * An {@link ObservationListener} which receives content of notifications node by node, in payload order, instead of
+ * a whole {@link ObserveResponse}.
+ * <p>
+ * This is useful for notifications containing a lot of time-stamped values as no {@link ObserveResponse} needs to be
+ * created when only this kind of listener is registered. Observation services supporting it do not call
+ * {@link #onResponse(Observation, Registration, ObserveResponse)} for this kind of listener.
+ */
+public interface TimestampedNotificationListener extends ObservationListener {
+
+    /**
+     * Called on new notification, before its content is decoded.
+     * <p>
+     * The whole content is decoded before nodes are given to the returned handler : if the content is malformed, no
+     * node is given and {@link #onError(Observation, Registration, Exception)} is called.
+     * 
+     * @param observation the observation for which new data are received
+     * @param registration the registration concerned by this observation
+     * @return the handler which will receive time-stamped nodes of this notification or <code>null</code> if content
+     *         is not needed.
+     */
+    TimestampedNodeHandler onNotification(Observation observation, Registration registration);
+}
@@ -0,0 +1,151 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.queue;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * A {@link RequestQueueStore} which keeps queued requests in memory, with a maximum number of requests by endpoint.
+ */
+public class InMemoryRequestQueueStore implements RequestQueueStore {
+
+    /** Default maximum number of queued requests by endpoint */
+    public static final int DEFAULT_MAX_DEPTH = 32;
+
+    private static class EndpointQueue extends ArrayDeque<QueuedRequest<?>> {
+        private static final long serialVersionUID = 1L;
+        // true when removed from the map : a new queue must be created
+        boolean removed = false;
+    }
+
+    private final ConcurrentMap<String, EndpointQueue> queues = new ConcurrentHashMap<>();
+    private final int maxDepth;
+
+    public InMemoryRequestQueueStore() {
+        this(DEFAULT_MAX_DEPTH);
+    }
+
+    /**
+     * @param maxDepth the maximum number of requests queued by endpoint.
+     */
+    public InMemoryRequestQueueStore(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+
+    @Override
+    public boolean add(String endpoint, QueuedRequest<?> request) {
+        while (true) {
+            EndpointQueue queue = queues.get(endpoint);
+            if (queue == null) {
+                queue = new EndpointQueue();
+                EndpointQueue previous = queues.putIfAbsent(endpoint, queue);
+                if (previous != null)
+                    queue = previous;
+            }
+            synchronized (queue) {
+                if (queue.removed)
+                    continue;
+                if (queue.size() >= maxDepth)
+                    return false;
+                queue.add(request);
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public QueuedRequest<?> poll(String endpoint) {
+        EndpointQueue queue = queues.get(endpoint);
+        if (queue == null)
+            return null;
+        synchronized (queue) {
+            QueuedRequest<?> request = queue.poll();
+            removeIfEmpty(endpoint, queue);
+            return request;
+        }
+    }
+
+    @Override
+    public int size(String endpoint) {
+        EndpointQueue queue = queues.get(endpoint);
+        if (queue == null)
+            return 0;
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public Collection<QueuedRequest<?>> removeAll(String endpoint) {
+        EndpointQueue queue = queues.get(endpoint);
+        if (queue == null)
+            return Collections.emptyList();
+        synchronized (queue) {
+            Collection<QueuedRequest<?>> removed = new ArrayList<QueuedRequest<?>>(queue);
+            queue.clear();
+            removeIfEmpty(endpoint, queue);
+            return removed;
+        }
+    }
+
+    @Override
+    public Collection<QueuedRequest<?>> removeAll() {
+        Collection<QueuedRequest<?>> removed = new ArrayList<>();
+        for (Entry<String, EndpointQueue> entry : queues.entrySet()) {
+            EndpointQueue queue = entry.getValue();
+            synchronized (queue) {
+                removed.addAll(queue);
+                queue.clear();
+                removeIfEmpty(entry.getKey(), queue);
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public Collection<QueuedRequest<?>> removeExpired(long now) {
+        Collection<QueuedRequest<?>> expired = new ArrayList<>();
+        for (Entry<String, EndpointQueue> entry : queues.entrySet()) {
+            EndpointQueue queue = entry.getValue();
+            synchronized (queue) {
+                for (Iterator<QueuedRequest<?>> it = queue.iterator(); it.hasNext();) {
+                    QueuedRequest<?> request = it.next();
+                    if (request.isExpired(now)) {
+                        it.remove();
+                        expired.add(request);
+                    }
+                }
+                removeIfEmpty(entry.getKey(), queue);
+            }
+        }
+        return expired;
+    }
+
+    // must be called holding the queue lock
+    private void removeIfEmpty(String endpoint, EndpointQueue queue) {
+        if (queue.isEmpty() && !queue.removed) {
+            queue.removed = true;
+            queues.remove(endpoint, queue);
+        }
+    }
+}
@@ -16,17 +16,18 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.queue;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
 
 import org.eclipse.leshan.core.util.NamedThreadFactory;
+import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.server.registration.Registration;
 import org.slf4j.Logger;
@@ -36,18 +37,87 @@ import org.slf4j.LoggerFactory;
  * Tracks the status of each LWM2M client registered with Queue mode binding. Also ensures that the
  * {@link PresenceListener} are notified on state changes only for those LWM2M clients registered using Queue mode
  * binding.
+ * <p>
+ * Awake clients are tracked in a hashed timing wheel: each client is in the bucket of the tick when it should go to
+ * sleep. Setting an already awake client as awake only updates its deadline, the client is moved to the right bucket
+ * when its previous one is processed. So setting awake is O(1) and does not create any scheduled task. A single task
+ * processes a bucket by tick and sends clients to sleep by batch. The precision of the awake time is the tick duration.
  */
 public final class PresenceServiceImpl implements PresenceService, Destroyable {
     private final Logger LOG = LoggerFactory.getLogger(PresenceServiceImpl.class);
 
-    private final ConcurrentMap<String /* endpoint */, AtomicReference<ScheduledFuture<?>>> clientPresences = new ConcurrentHashMap<>();
+    /** Default duration of a tick of the timing wheel in milliseconds. */
+    public static final long DEFAULT_TICK_DURATION = 100;
+    /** Default number of buckets of the timing wheel. */
+    public static final int DEFAULT_WHEEL_SIZE = 512;
+
+    private static final long NOT_SCHEDULED = -1;
+
+    /**
+     * Presence of an awake client. Its state is guarded by its own lock.
+     */
+    private static class Presence {
+        Registration registration;
+        long deadline; // in nanoseconds, Long.MAX_VALUE if the client never goes to sleep by itself
+        long scheduledTick = NOT_SCHEDULED; // tick of the bucket containing this presence
+        boolean sleeping = false; // true when the client went to sleep, this presence must not be used anymore
+
+        Presence(Registration registration, long deadline) {
+            this.registration = registration;
+            this.deadline = deadline;
+        }
+    }
+
+    private final ConcurrentMap<String /* endpoint */, Presence> clientPresences = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String /* endpoint */, Boolean> sleepingClients = new ConcurrentHashMap<>();
     private final List<PresenceListener> listeners = new CopyOnWriteArrayList<>();
     private final ClientAwakeTimeProvider awakeTimeProvider;
     private final ScheduledExecutorService clientTimersExecutor = Executors
             .newSingleThreadScheduledExecutor(new NamedThreadFactory("Presence Service"));
 
+    // timing wheel, guarded by wheelLock
+    private final Object wheelLock = new Object();
+    private final long tickDuration; // in nanoseconds
+    private final long startTime; // in nanoseconds
+    private final int wheelMask;
+    private ArrayDeque<Presence>[] wheel;
+    private long processedTick = -1; // last processed tick
+
     public PresenceServiceImpl(ClientAwakeTimeProvider awakeTimeProvider) {
+        this(awakeTimeProvider, DEFAULT_TICK_DURATION, DEFAULT_WHEEL_SIZE);
+    }
+
+    /**
+     * @param awakeTimeProvider provides the time a client stays awake.
+     * @param tickDuration the duration of a tick of the timing wheel in milliseconds. A client goes to sleep at most
+     *        one tick after its awake time.
+     * @param wheelSize the number of buckets of the timing wheel, rounded up to a power of 2.
+     */
+    @SuppressWarnings("unchecked")
+    public PresenceServiceImpl(ClientAwakeTimeProvider awakeTimeProvider, long tickDuration, int wheelSize) {
+        Validate.isTrue(tickDuration > 0, "tickDuration must be positive");
+        Validate.isTrue(wheelSize > 0 && wheelSize <= 1 << 20, "wheelSize must be in [1, 2^20]");
         this.awakeTimeProvider = awakeTimeProvider;
+        this.tickDuration = TimeUnit.MILLISECONDS.toNanos(tickDuration);
+        int size = Integer.highestOneBit(wheelSize);
+        if (size < wheelSize)
+            size <<= 1;
+        this.wheelMask = size - 1;
+        this.wheel = new ArrayDeque[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new ArrayDeque<>();
+        }
+        this.startTime = System.nanoTime();
+        clientTimersExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    processExpiredTicks();
+                } catch (RuntimeException e) {
+                    LOG.warn("Unexpected exception while updating client presences", e);
+                }
+            }
+        }, tickDuration, tickDuration, TimeUnit.MILLISECONDS);
     }
 
     @Override
@@ -65,6 +135,20 @@ public final class PresenceServiceImpl implements PresenceService, Destroyable {
         return clientPresences.containsKey(registration.getEndpoint());
     }
 
+    /**
+     * @return the number of clients using queue mode which are currently awake.
+     */
+    public int getAwakeClientCount() {
+        return clientPresences.size();
+    }
+
+    /**
+     * @return the number of registered clients using queue mode which are currently sleeping.
+     */
+    public int getSleepingClientCount() {
+        return sleepingClients.size();
+    }
+
     /**
      * Set the client identified by registration as awake. Listeners are notified if that client state changed to awake
      * state.
@@ -73,50 +157,42 @@ public final class PresenceServiceImpl implements PresenceService, Destroyable {
      */
     public void setAwake(final Registration reg) {
         if (reg.usesQueueMode()) {
-            boolean stateChanged;
-            final AtomicReference<ScheduledFuture<?>> timerFuture = new AtomicReference<>();
-            // set this device as awake
-            AtomicReference<ScheduledFuture<?>> previous = clientPresences.put(reg.getEndpoint(), timerFuture);
-            if (previous != null) {
-                stateChanged = false;
-                // cancel previous timer
-                if (previous.get() != null) {
-                    previous.get().cancel(false);
-                }
-            } else {
-                stateChanged = true;
-            }
-
             // Every time we set the clientAwakeTime, in case it changes dynamically
             int clientAwakeTime = awakeTimeProvider.getClientAwakeTime(reg);
-            if (clientAwakeTime != 0) {
-                timerFuture.set(clientTimersExecutor.schedule(new Runnable() {
-                    @Override
-                    public void run() {
-                        boolean removed = clientPresences.remove(reg.getEndpoint(), timerFuture);
-                        if (removed) {
-                            // success remove means we go in sleeping mode.
-                            for (PresenceListener listener : listeners) {
-                                listener.onSleeping(reg);
-                            }
-                        }
+            long deadline = clientAwakeTime == 0 ? Long.MAX_VALUE
+                    : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(clientAwakeTime);
+
+            while (true) {
+                Presence presence = clientPresences.get(reg.getEndpoint());
+                if (presence == null) {
+                    presence = new Presence(reg, deadline);
+                    synchronized (presence) {
+                        if (clientPresences.putIfAbsent(reg.getEndpoint(), presence) != null)
+                            continue;
+                        schedule(presence);
                     }
-                }, clientAwakeTime, TimeUnit.MILLISECONDS));
-
-                // There is some rare race conditions (several quick call to setAwake)
-                // where the timerFuture could have been already removed but not cancelled.
-                // So to be sure to not keep useless cleaning task we cancel it if this is not the current timerFuture
-                // anymore.
-                // (This make the code a bit more complex but the is a cost of the non-blocking implementation)
-                if (clientPresences.get(reg.getEndpoint()) != timerFuture) {
-                    timerFuture.get().cancel(false);
+                    sleepingClients.remove(reg.getEndpoint());
+
+                    // state changed, notify
+                    for (PresenceListener listener : listeners) {
+                        listener.onAwake(reg);
+                    }
+                    return;
                 }
-            }
 
-            // notify if state changed
-            if (stateChanged) {
-                for (PresenceListener listener : listeners) {
-                    listener.onAwake(reg);
+                synchronized (presence) {
+                    if (presence.sleeping) {
+                        // client just went to sleep, retry with a new presence
+                        continue;
+                    }
+                    // already awake : just restart the timer
+                    presence.registration = reg;
+                    presence.deadline = deadline;
+                    // if deadline is later, presence will be moved when its current bucket is processed.
+                    if (presence.scheduledTick == NOT_SCHEDULED || tickOf(deadline) < presence.scheduledTick) {
+                        schedule(presence);
+                    }
+                    return;
                 }
             }
         }
@@ -132,16 +208,17 @@ public final class PresenceServiceImpl implements PresenceService, Destroyable {
      */
     public void setSleeping(Registration reg) {
         if (reg.usesQueueMode()) {
-            AtomicReference<ScheduledFuture<?>> timerFuture = clientPresences.remove(reg.getEndpoint());
-            if (timerFuture != null) {
-                if (timerFuture.get() != null) {
-                    // we can not be sure timerFuture is set but this is not a big deal as timer is only able to removed
-                    // itself.
-                    timerFuture.get().cancel(false);
-                }
-                for (PresenceListener listener : listeners) {
-                    listener.onSleeping(reg);
-                }
+            Presence presence = clientPresences.get(reg.getEndpoint());
+            if (presence == null)
+                return;
+
+            synchronized (presence) {
+                if (presence.sleeping)
+                    return;
+                sendToSleep(presence);
+            }
+            for (PresenceListener listener : listeners) {
+                listener.onSleeping(reg);
             }
         }
     }
@@ -152,7 +229,97 @@ public final class PresenceServiceImpl implements PresenceService, Destroyable {
      * @param reg the client's registration object.
      */
     public void stopPresenceTracking(Registration reg) {
-        clientPresences.remove(reg.getEndpoint());
+        Presence presence = clientPresences.remove(reg.getEndpoint());
+        if (presence != null) {
+            synchronized (presence) {
+                // presence will be removed from its bucket when processed
+                presence.sleeping = true;
+            }
+        }
+        sleepingClients.remove(reg.getEndpoint());
+    }
+
+    // must be called holding presence lock
+    private void sendToSleep(Presence presence) {
+        String endpoint = presence.registration.getEndpoint();
+        presence.sleeping = true;
+        clientPresences.remove(endpoint, presence);
+        sleepingClients.put(endpoint, Boolean.TRUE);
+    }
+
+    private long tickOf(long time) {
+        return (time - startTime) / tickDuration;
+    }
+
+    // must be called holding presence lock
+    private void schedule(Presence presence) {
+        if (presence.deadline == Long.MAX_VALUE) {
+            presence.scheduledTick = NOT_SCHEDULED;
+            return;
+        }
+        synchronized (wheelLock) {
+            // a tick is processed once elapsed, a deadline in an already processed tick goes in the next one
+            long tick = Math.max(tickOf(presence.deadline), processedTick + 1);
+            presence.scheduledTick = tick;
+            wheel[(int) (tick & wheelMask)].add(presence);
+        }
+    }
+
+    /**
+     * Process all the buckets of elapsed ticks : send expired clients to sleep and move others to the bucket of their
+     * new deadline.
+     */
+    private void processExpiredTicks() {
+        long now = System.nanoTime();
+        long lastElapsedTick = tickOf(now) - 1;
+        List<Registration> sleepingRegistrations = new ArrayList<>();
+
+        while (true) {
+            long tick;
+            ArrayDeque<Presence> bucket;
+            synchronized (wheelLock) {
+                if (processedTick >= lastElapsedTick)
+                    break;
+                tick = ++processedTick;
+                int index = (int) (tick & wheelMask);
+                bucket = wheel[index];
+                wheel[index] = new ArrayDeque<>();
+            }
+
+            for (Presence presence : bucket) {
+                synchronized (presence) {
+                    if (presence.sleeping || presence.scheduledTick < tick) {
+                        // client is sleeping or this is a stale entry
+                        continue;
+                    }
+                    if (presence.scheduledTick > tick) {
+                        if ((presence.scheduledTick & wheelMask) == (tick & wheelMask)) {
+                            // deadline is in a next round of the wheel
+                            synchronized (wheelLock) {
+                                wheel[(int) (tick & wheelMask)].add(presence);
+                            }
+                        }
+                        // else this is a stale entry, presence was moved to an earlier bucket
+                        continue;
+                    }
+
+                    if (presence.deadline - now <= 0) {
+                        sendToSleep(presence);
+                        sleepingRegistrations.add(presence.registration);
+                    } else {
+                        // client was set awake again since it was scheduled
+                        schedule(presence);
+                    }
+                }
+            }
+        }
+
+        // notify by batch, without holding any lock
+        for (Registration registration : sleepingRegistrations) {
+            for (PresenceListener listener : listeners) {
+                listener.onSleeping(registration);
+            }
+        }
     }
 
     @Override
@@ -17,9 +17,10 @@ package org.eclipse.leshan.server.queue;
 
 import java.util.Collection;
 
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
 import org.eclipse.leshan.core.observation.Observation;
 import org.eclipse.leshan.core.response.ObserveResponse;
-import org.eclipse.leshan.server.observation.ObservationListener;
+import org.eclipse.leshan.server.observation.TimestampedNotificationListener;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.registration.RegistrationListener;
 import org.eclipse.leshan.server.registration.RegistrationUpdate;
@@ -30,7 +31,7 @@ import org.eclipse.leshan.server.registration.RegistrationUpdate;
  * sleep.
  */
 
-public class PresenceStateListener implements RegistrationListener, ObservationListener {
+public class PresenceStateListener implements RegistrationListener, TimestampedNotificationListener {
 
     PresenceServiceImpl presenceService;
 
@@ -70,6 +71,17 @@ public class PresenceStateListener implements RegistrationListener, ObservationL
         presenceService.setAwake(registration);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Content of notification is not needed to know that the client is awake.
+     */
+    @Override
+    public TimestampedNodeHandler onNotification(Observation observation, Registration registration) {
+        presenceService.setAwake(registration);
+        return null;
+    }
+
     /**
      * {@inheritDoc}
      * 
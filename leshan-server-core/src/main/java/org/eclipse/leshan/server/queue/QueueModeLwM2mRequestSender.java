@@ -15,26 +15,61 @@
  *******************************************************************************/
 package org.eclipse.leshan.server.queue;
 
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.Destroyable;
 import org.eclipse.leshan.core.request.DownlinkRequest;
 import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.request.exception.RequestCanceledException;
 import org.eclipse.leshan.core.request.exception.TimeoutException;
 import org.eclipse.leshan.core.request.exception.UnconnectedPeerException;
 import org.eclipse.leshan.core.response.ErrorCallback;
 import org.eclipse.leshan.core.response.LwM2mResponse;
 import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.core.util.NamedThreadFactory;
 import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.registration.Registration;
 import org.eclipse.leshan.server.request.LowerLayerConfig;
 import org.eclipse.leshan.server.request.LwM2mRequestSender;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * A {@link LwM2mRequestSender} which supports LWM2M Queue Mode.
+ * <p>
+ * By default, sending a request to a sleeping client raises a {@link ClientSleepingException}. If a
+ * {@link RequestQueueStore} is given, asynchronous requests to sleeping clients are queued instead and sent in order
+ * when the client wakes up. Queued requests expire after a given time to live.
+ * <p>
+ * Queued requests are only sent while the {@link PresenceService} considers the client awake, so within the awake
+ * window given by its {@link ClientAwakeTimeProvider}, which is restarted by each response as for any request. When
+ * the window ends, the remaining requests stay queued until the next wake up.
  */
-public class QueueModeLwM2mRequestSender implements LwM2mRequestSender {
+public class QueueModeLwM2mRequestSender implements LwM2mRequestSender, Destroyable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(QueueModeLwM2mRequestSender.class);
+
+    /** Default time to live of a queued request in milliseconds */
+    public static final long DEFAULT_REQUEST_TIME_TO_LIVE = 5 * 60 * 1000;
+    /** Default maximum number of queued requests sent at the same time to an awake client */
+    public static final int DEFAULT_MAX_IN_FLIGHT = 1;
 
     protected PresenceServiceImpl presenceService;
     protected LwM2mRequestSender delegatedSender;
 
+    // queue of requests for sleeping clients, null if not used.
+    private final RequestQueueStore queueStore;
+    private final long requestTimeToLive;
+    private final int maxInFlight;
+    private final ConcurrentMap<String, Drain> drains = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService expirationExecutor;
+    private final PresenceListener presenceListener;
+
     /**
      * @param presenceService the presence service object for setting the client into sleepint state when request
      *        Timeout expires and into awake state when a response arrives.
@@ -46,6 +81,67 @@ public class QueueModeLwM2mRequestSender implements LwM2mRequestSender {
 
         this.presenceService = presenceService;
         this.delegatedSender = delegatedSender;
+        this.queueStore = null;
+        this.requestTimeToLive = 0;
+        this.maxInFlight = 0;
+        this.expirationExecutor = null;
+        this.presenceListener = null;
+    }
+
+    /**
+     * Create a sender which queues asynchronous requests to sleeping clients.
+     *
+     * @param presenceService the presence service object for setting the client into sleeping state when request
+     *        Timeout expires and into awake state when a response arrives.
+     * @param delegatedSender internal sender that it is used for sending the requests, using delegation.
+     * @param queueStore the store of queued requests.
+     * @param requestTimeToLive the time in milliseconds after which a queued request expires if the client did not
+     *        wake up.
+     * @param maxInFlight the maximum number of queued requests sent at the same time when a client wakes up (next ones
+     *        are sent as soon as responses are received).
+     */
+    public QueueModeLwM2mRequestSender(PresenceServiceImpl presenceService, LwM2mRequestSender delegatedSender,
+            RequestQueueStore queueStore, long requestTimeToLive, int maxInFlight) {
+        Validate.notNull(presenceService);
+        Validate.notNull(delegatedSender);
+        Validate.notNull(queueStore);
+        Validate.isTrue(requestTimeToLive > 0, "requestTimeToLive must be positive");
+        Validate.isTrue(maxInFlight > 0, "maxInFlight must be positive");
+
+        this.presenceService = presenceService;
+        this.delegatedSender = delegatedSender;
+        this.queueStore = queueStore;
+        this.requestTimeToLive = requestTimeToLive;
+        this.maxInFlight = maxInFlight;
+
+        this.presenceListener = new PresenceListener() {
+            @Override
+            public void onAwake(Registration registration) {
+                sendQueuedRequests(registration);
+            }
+
+            @Override
+            public void onSleeping(Registration registration) {
+            }
+        };
+        presenceService.addListener(presenceListener);
+
+        this.expirationExecutor = Executors
+                .newSingleThreadScheduledExecutor(new NamedThreadFactory("Queue Mode Request Expiration"));
+        long period = Math.min(requestTimeToLive, 1000);
+        expirationExecutor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (QueuedRequest<?> request : QueueModeLwM2mRequestSender.this.queueStore
+                            .removeExpired(System.currentTimeMillis())) {
+                        expire(request);
+                    }
+                } catch (RuntimeException e) {
+                    LOG.warn("Unexpected exception while removing expired queued requests", e);
+                }
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -104,11 +200,30 @@ public class QueueModeLwM2mRequestSender implements LwM2mRequestSender {
 
         // If the client uses Q-Mode...
 
-        // If the client is sleeping, warn the user and return
+        // If the client is sleeping, queue the request or warn the user and return
         if (!presenceService.isClientAwake(destination)) {
-            throw new ClientSleepingException("The destination client is sleeping, request cannot be sent.");
+            if (queueStore == null) {
+                throw new ClientSleepingException("The destination client is sleeping, request cannot be sent.");
+            }
+            QueuedRequest<T> queuedRequest = new QueuedRequest<>(request, lowerLayerConfig, timeout,
+                    responseCallback, errorCallback, System.currentTimeMillis() + requestTimeToLive);
+            if (!queueStore.add(destination.getEndpoint(), queuedRequest)) {
+                throw new ClientSleepingException(
+                        "The destination client is sleeping and its request queue is full, request cannot be sent.");
+            }
+            // client could have woken up before the request was queued
+            if (presenceService.isClientAwake(destination)) {
+                sendQueuedRequests(destination);
+            }
+            return;
         }
 
+        sendToAwakeClient(destination, request, lowerLayerConfig, timeout, responseCallback, errorCallback);
+    }
+
+    private <T extends LwM2mResponse> void sendToAwakeClient(final Registration destination,
+            DownlinkRequest<T> request, LowerLayerConfig lowerLayerConfig, long timeout,
+            final ResponseCallback<T> responseCallback, final ErrorCallback errorCallback) {
         // Use delegation to send the request, with specific callbacks to perform Queue Mode operation
         delegatedSender.send(destination, request, lowerLayerConfig, timeout, new ResponseCallback<T>() {
             @Override
@@ -136,8 +251,157 @@ public class QueueModeLwM2mRequestSender implements LwM2mRequestSender {
         });
     }
 
+    /* *************** Queued requests **************** */
+
+    /**
+     * Number of queued requests being sent to an endpoint.
+     */
+    private static class Drain {
+        int inFlight = 0;
+        // true when removed from the map : a new drain must be created
+        boolean removed = false;
+    }
+
+    private Drain acquireDrain(String endpoint) {
+        while (true) {
+            Drain drain = drains.get(endpoint);
+            if (drain == null) {
+                drain = new Drain();
+                Drain previous = drains.putIfAbsent(endpoint, drain);
+                if (previous != null)
+                    drain = previous;
+            }
+            synchronized (drain) {
+                if (drain.removed)
+                    continue;
+                if (drain.inFlight >= maxInFlight)
+                    return null;
+                drain.inFlight++;
+                return drain;
+            }
+        }
+    }
+
+    private void releaseDrain(String endpoint, Drain drain) {
+        synchronized (drain) {
+            drain.inFlight--;
+            if (drain.inFlight == 0 && !drain.removed) {
+                drain.removed = true;
+                drains.remove(endpoint, drain);
+            }
+        }
+    }
+
+    /**
+     * Send queued requests of the given client in order, while it is awake and without exceeding the maximum number of
+     * requests in flight. Each response or error triggers the sending of the next queued request.
+     */
+    protected void sendQueuedRequests(Registration registration) {
+        if (queueStore == null)
+            return;
+
+        String endpoint = registration.getEndpoint();
+        while (presenceService.isClientAwake(registration)) {
+            Drain drain = acquireDrain(endpoint);
+            if (drain == null) {
+                // maximum number of requests in flight reached, next one will be sent on response
+                return;
+            }
+
+            QueuedRequest<?> request = queueStore.poll(endpoint);
+            if (request == null) {
+                releaseDrain(endpoint, drain);
+                // a request could have been queued concurrently
+                if (queueStore.size(endpoint) == 0)
+                    return;
+            } else if (request.isExpired(System.currentTimeMillis())) {
+                releaseDrain(endpoint, drain);
+                expire(request);
+            } else {
+                sendQueuedRequest(registration, request, drain);
+            }
+        }
+    }
+
+    private <T extends LwM2mResponse> void sendQueuedRequest(final Registration registration,
+            final QueuedRequest<T> request, final Drain drain) {
+        final String endpoint = registration.getEndpoint();
+        try {
+            sendToAwakeClient(registration, request.getRequest(), request.getLowerLayerConfig(), request.getTimeout(),
+                    new ResponseCallback<T>() {
+                        @Override
+                        public void onResponse(T response) {
+                            releaseDrain(endpoint, drain);
+                            try {
+                                request.getResponseCallback().onResponse(response);
+                            } finally {
+                                sendQueuedRequests(registration);
+                            }
+                        }
+                    }, new ErrorCallback() {
+                        @Override
+                        public void onError(Exception e) {
+                            releaseDrain(endpoint, drain);
+                            try {
+                                request.getErrorCallback().onError(e);
+                            } finally {
+                                sendQueuedRequests(registration);
+                            }
+                        }
+                    });
+        } catch (RuntimeException e) {
+            releaseDrain(endpoint, drain);
+            request.getErrorCallback().onError(e);
+        }
+    }
+
+    private void expire(QueuedRequest<?> request) {
+        request.getErrorCallback().onError(new ClientSleepingException(
+                "The destination client did not wake up before the request expired, request was not sent."));
+    }
+
+    /**
+     * Cancel ongoing requests of the given registration and drop the requests queued for its endpoint, so they are not
+     * sent to a later registration of the same client. The error callback of each queued request is called with a
+     * {@link RequestCanceledException}.
+     */
     @Override
     public void cancelOngoingRequests(Registration registration) {
         delegatedSender.cancelOngoingRequests(registration);
+
+        if (queueStore == null)
+            return;
+
+        cancel(queueStore.removeAll(registration.getEndpoint()),
+                "Registration %s was removed, queued request was not sent.", registration.getId());
+    }
+
+    private void cancel(Collection<QueuedRequest<?>> requests, String message, Object... args) {
+        for (QueuedRequest<?> request : requests) {
+            try {
+                request.getErrorCallback().onError(new RequestCanceledException(message, args));
+            } catch (RuntimeException e) {
+                LOG.warn("Unable to notify cancellation of queued request", e);
+            }
+        }
+    }
+
+    /**
+     * Stop queuing requests. The error callback of each request still queued is called with a
+     * {@link RequestCanceledException}.
+     */
+    @Override
+    public void destroy() {
+        if (queueStore == null)
+            return;
+
+        presenceService.removeListener(presenceListener);
+        expirationExecutor.shutdownNow();
+        try {
+            expirationExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            LOG.warn("Destroying queue mode request sender was interrupted.", e);
+        }
+        cancel(queueStore.removeAll(), "Server was destroyed, queued request was not sent.");
     }
 }
@@ -0,0 +1,89 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.queue;
+
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.server.request.LowerLayerConfig;
+
+/**
+ * A request waiting for a sleeping LWM2M client to wake up, with the callbacks of the caller.
+ *
+ * @see RequestQueueStore
+ */
+public class QueuedRequest<T extends LwM2mResponse> {
+
+    private final DownlinkRequest<T> request;
+    private final LowerLayerConfig lowerLayerConfig;
+    private final long timeout;
+    private final ResponseCallback<T> responseCallback;
+    private final ErrorCallback errorCallback;
+    private final long expirationTime;
+
+    /**
+     * @param request the request to send.
+     * @param lowerLayerConfig the lower layer configuration of the request, could be <code>null</code>.
+     * @param timeout the response timeout in milliseconds, once the request is sent.
+     * @param responseCallback a callback called when a response is received.
+     * @param errorCallback a callback called when an error or exception occurred, including when the request expires
+     *        before the client wakes up.
+     * @param expirationTime the time in milliseconds after which the request is not sent anymore.
+     */
+    public QueuedRequest(DownlinkRequest<T> request, LowerLayerConfig lowerLayerConfig, long timeout,
+            ResponseCallback<T> responseCallback, ErrorCallback errorCallback, long expirationTime) {
+        this.request = request;
+        this.lowerLayerConfig = lowerLayerConfig;
+        this.timeout = timeout;
+        this.responseCallback = responseCallback;
+        this.errorCallback = errorCallback;
+        this.expirationTime = expirationTime;
+    }
+
+    public DownlinkRequest<T> getRequest() {
+        return request;
+    }
+
+    public LowerLayerConfig getLowerLayerConfig() {
+        return lowerLayerConfig;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public ResponseCallback<T> getResponseCallback() {
+        return responseCallback;
+    }
+
+    public ErrorCallback getErrorCallback() {
+        return errorCallback;
+    }
+
+    public long getExpirationTime() {
+        return expirationTime;
+    }
+
+    public boolean isExpired(long now) {
+        return now >= expirationTime;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("QueuedRequest [request=%s, expirationTime=%s]", request, expirationTime);
+    }
+}
@@ -0,0 +1,73 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.queue;
+
+import java.util.Collection;
+
+/**
+ * Store the requests waiting for sleeping LWM2M clients, by endpoint.
+ * <p>
+ * Requests of an endpoint must be returned in the order they were added. Implementations must be thread-safe.
+ * <p>
+ * Queued requests can not be persisted or shared between servers : the response and error callbacks of a
+ * {@link QueuedRequest} only live in the memory of the server which queued it, so a request restored after a restart
+ * or sent by another server could never be answered. Implementations are expected to keep requests in memory.
+ *
+ * @see InMemoryRequestQueueStore
+ */
+public interface RequestQueueStore {
+
+    /**
+     * Add a request at the end of the queue of the given endpoint.
+     *
+     * @return <code>false</code> if the request was not added because the queue is full.
+     */
+    boolean add(String endpoint, QueuedRequest<?> request);
+
+    /**
+     * Remove and return the first request of the queue of the given endpoint.
+     *
+     * @return the first request or <code>null</code> if the queue is empty.
+     */
+    QueuedRequest<?> poll(String endpoint);
+
+    /**
+     * @return the number of requests queued for the given endpoint.
+     */
+    int size(String endpoint);
+
+    /**
+     * Remove all the requests queued for the given endpoint.
+     *
+     * @return the removed requests, in queue order.
+     */
+    Collection<QueuedRequest<?>> removeAll(String endpoint);
+
+    /**
+     * Remove the requests queued for all endpoints.
+     *
+     * @return the removed requests.
+     */
+    Collection<QueuedRequest<?>> removeAll();
+
+    /**
+     * Remove the requests of all endpoints which expired at the given time.
+     *
+     * @param now the current time in milliseconds.
+     * @return the expired requests.
+     */
+    Collection<QueuedRequest<?>> removeExpired(long now);
+}
@@ -0,0 +1,31 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ * 
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ * 
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ * 
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.registration;
+
+import java.util.Collection;
+
+/**
+ * An {@link ExpirationListener} which can be notified of several registration expirations at once.
+ * <p>
+ * {@link RegistrationStore} which remove expired registrations by batch should call
+ * {@link #registrationsExpired(Collection)} once per batch when the listener implements this interface.
+ * 
+ * @see RegistrationStore
+ */
+public interface BatchExpirationListener extends ExpirationListener {
+
+    void registrationsExpired(Collection<Deregistration> deregistrations);
+}
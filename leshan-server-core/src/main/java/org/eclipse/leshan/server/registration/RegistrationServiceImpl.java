@@ -25,7 +25,7 @@ import org.eclipse.leshan.core.observation.Observation;
 /**
  * An implementation of {@link RegistrationService}
  */
-public class RegistrationServiceImpl implements RegistrationService, ExpirationListener {
+public class RegistrationServiceImpl implements RegistrationService, BatchExpirationListener {
 
     private final List<RegistrationListener> listeners = new CopyOnWriteArrayList<>();
 
@@ -68,6 +68,13 @@ public class RegistrationServiceImpl implements RegistrationService, ExpirationL
         }
     }
 
+    @Override
+    public void registrationsExpired(Collection<Deregistration> deregistrations) {
+        for (Deregistration deregistration : deregistrations) {
+            registrationExpired(deregistration.getRegistration(), deregistration.getObservations());
+        }
+    }
+
     public void fireRegistered(Registration registration, Registration previousReg,
             Collection<Observation> previousObsersations) {
         for (RegistrationListener l : listeners) {
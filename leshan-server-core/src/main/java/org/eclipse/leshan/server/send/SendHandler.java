@@ -22,9 +22,16 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.eclipse.leshan.core.model.LwM2mModel;
 import org.eclipse.leshan.core.node.LwM2mNode;
 import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.node.codec.CodecException;
+import org.eclipse.leshan.core.node.codec.LwM2mDecoder;
+import org.eclipse.leshan.core.node.codec.TimestampedNodeHandler;
+import org.eclipse.leshan.core.request.ContentFormat;
 import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.core.request.exception.InvalidRequestException;
 import org.eclipse.leshan.core.response.SendResponse;
 import org.eclipse.leshan.core.response.SendableResponse;
 import org.eclipse.leshan.server.registration.Registration;
@@ -37,15 +44,80 @@ import org.eclipse.leshan.server.registration.Registration;
 public class SendHandler implements SendService {
 
     private final List<SendListener> listeners = new CopyOnWriteArrayList<>();;
+    private final List<TimestampedSendListener> timestampedListeners = new CopyOnWriteArrayList<>();
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * A {@link TimestampedSendListener} receives the values of each "Send" request one by one, while the payload is
+     * decoded.
+     */
     @Override
     public void addListener(SendListener listener) {
-        listeners.add(listener);
+        if (listener instanceof TimestampedSendListener) {
+            timestampedListeners.add((TimestampedSendListener) listener);
+        } else {
+            listeners.add(listener);
+        }
     }
 
     @Override
     public void removeListener(SendListener listener) {
-        listeners.remove(listener);
+        if (listener instanceof TimestampedSendListener) {
+            timestampedListeners.remove(listener);
+        } else {
+            listeners.remove(listener);
+        }
+    }
+
+    /**
+     * Handle a "Send" request which payload is not decoded yet.
+     * <p>
+     * Payload is decoded in a {@link SendRequest} for {@link SendListener}s, which are notified once the response is
+     * sent. It is decoded value by value for {@link TimestampedSendListener}s, which are notified during the decoding,
+     * so without keeping all the values in memory if there is no {@link SendListener}. When both kinds of listener are
+     * registered, the payload is decoded only once.
+     * 
+     * @param registration Registration of the client which send the data.
+     * @param format the content format of the payload
+     * @param payload the payload of the request
+     * @param model the model used to decode the payload
+     * @param decoder the decoder used to decode the payload
+     * @param coapRequest the underlying request
+     * @return the response to send
+     * @throws CodecException if payload is malformed.
+     * @throws InvalidRequestException if content format is not supported by "Send" operation.
+     */
+    public SendableResponse<SendResponse> handleSend(final Registration registration, ContentFormat format,
+            byte[] payload, LwM2mModel model, LwM2mDecoder decoder, Object coapRequest) throws CodecException {
+        if (timestampedListeners.isEmpty()) {
+            Map<LwM2mPath, LwM2mNode> data = decoder.decodeNodes(payload, format, null, model);
+            return handleSend(registration, new SendRequest(format, data, coapRequest));
+        }
+
+        if (!format.equals(ContentFormat.SENML_CBOR) && !format.equals(ContentFormat.SENML_JSON)) {
+            throw new InvalidRequestException("Content format MUST be SenML_CBOR or SenML_JSON but was " + format);
+        }
+
+        // give values to streaming listeners while decoding, and keep them for non streaming listeners if any
+        final Map<LwM2mPath, LwM2mNode> data = listeners.isEmpty() ? null : new HashMap<LwM2mPath, LwM2mNode>();
+        decoder.decodeTimestampedData(payload, format, null, model, new TimestampedNodeHandler() {
+            @Override
+            public void onNode(LwM2mPath path, TimestampedLwM2mNode node) {
+                for (TimestampedSendListener listener : timestampedListeners) {
+                    listener.dataReceived(registration, path, node);
+                }
+                if (data != null) {
+                    // last value of the payload wins, as with decodeNodes()
+                    data.put(path, node.getNode());
+                }
+            }
+        });
+
+        if (data == null) {
+            return new SendableResponse<>(SendResponse.success());
+        }
+        return handleSend(registration, new SendRequest(format, data, coapRequest));
     }
 
     public SendableResponse<SendResponse> handleSend(final Registration registration, final SendRequest request) {
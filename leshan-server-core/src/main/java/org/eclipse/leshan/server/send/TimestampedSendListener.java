@@ -0,0 +1,45 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.send;
+
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.node.TimestampedLwM2mNode;
+import org.eclipse.leshan.core.request.SendRequest;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * A {@link SendListener} which receives data sent by LWM2M client with "Send" Request value by value, in payload
+ * order, with their time-stamp.
+ * <p>
+ * Data does not need to be kept in memory, which is useful when client sends a lot of time-stamped values.
+ * {@link SendService}s supporting it do not call {@link #dataReceived(Registration, java.util.Map, SendRequest)} for
+ * this kind of listener.
+ * 
+ * @see SendRequest
+ */
+public interface TimestampedSendListener extends SendListener {
+
+    /**
+     * Called for each value of a {@link SendRequest} while its payload is decoded, so before the response is sent.
+     * <p>
+     * If the payload is malformed, an error response is sent even if some values was already given.
+     * 
+     * @param registration Registration of the client which send the data.
+     * @param path The path of the value
+     * @param data The value with its time-stamp, a single resource or a resource instance.
+     */
+    void dataReceived(Registration registration, LwM2mPath path, TimestampedLwM2mNode data);
+}
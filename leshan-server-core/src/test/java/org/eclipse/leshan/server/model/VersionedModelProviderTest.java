@@ -0,0 +1,72 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.model.LwM2mModel;
+import org.eclipse.leshan.core.model.ObjectModel;
+import org.eclipse.leshan.core.model.ResourceModel;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class VersionedModelProviderTest {
+
+    private final ObjectModel device10 = new ObjectModel(3, "Device", "", "1.0", false, true,
+            Collections.<ResourceModel> emptyList());
+    private final ObjectModel device11 = new ObjectModel(3, "Device", "", "1.1", false, true,
+            Collections.<ResourceModel> emptyList());
+    private final ObjectModel server = new ObjectModel(1, "Server", "", "1.0", true, true,
+            Collections.<ResourceModel> emptyList());
+
+    private final VersionedModelProvider provider = new VersionedModelProvider(
+            Arrays.asList(device10, device11, server));
+
+    @Test
+    public void resolve_model_from_supported_versions() {
+        LwM2mModel model = provider
+                .getObjectModel(registration("reg1", new Link("/1/0"), new Link("/3", "ver", "1.1")));
+
+        assertSame(device11, model.getObjectModel(3));
+        assertSame(server, model.getObjectModel(1));
+        assertNull(model.getObjectModel(5));
+        assertEquals(2, model.getObjectModels().size());
+    }
+
+    @Test
+    public void share_model_between_registrations_with_same_supported_objects() {
+        LwM2mModel model1 = provider.getObjectModel(registration("reg1", new Link("/1/0"), new Link("/3/0")));
+        LwM2mModel model2 = provider.getObjectModel(registration("reg2", new Link("/3/0"), new Link("/1/1")));
+        LwM2mModel model3 = provider.getObjectModel(registration("reg3", new Link("/3", "ver", "1.1")));
+
+        assertSame(model1, model2);
+        assertSame(device10, model1.getObjectModel(3));
+        assertSame(device11, model3.getObjectModel(3));
+    }
+
+    private Registration registration(String registrationId, Link... objectLinks) {
+        return new Registration.Builder(registrationId, "endpoint", Identity.unsecure(new InetSocketAddress(5683)))
+                .objectLinks(objectLinks).extractDataFromObjectLink(true).build();
+    }
+}
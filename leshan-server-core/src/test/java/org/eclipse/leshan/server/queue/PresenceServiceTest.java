@@ -20,6 +20,8 @@ import static org.junit.Assert.*;
 import java.net.Inet4Address;
 import java.net.UnknownHostException;
 import java.util.EnumSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.eclipse.leshan.core.request.BindingMode;
 import org.eclipse.leshan.core.request.Identity;
@@ -61,6 +63,87 @@ public class PresenceServiceTest {
         assertFalse(presenceService.isClientAwake(queueModeRegistration));
     }
 
+    @Test
+    public void client_goes_to_sleep_when_awake_time_expires() throws Exception {
+        PresenceServiceImpl presenceService = new PresenceServiceImpl(new StaticClientAwakeTimeProvider(200), 10, 8);
+        final CountDownLatch sleeping = new CountDownLatch(1);
+        presenceService.addListener(new PresenceListener() {
+
+            @Override
+            public void onAwake(Registration registration) {
+            }
+
+            @Override
+            public void onSleeping(Registration registration) {
+                sleeping.countDown();
+            }
+        });
+        try {
+            Registration registration = givenAQueueModeClient("urn:client");
+            presenceService.setAwake(registration);
+            assertEquals(1, presenceService.getAwakeClientCount());
+            assertEquals(0, presenceService.getSleepingClientCount());
+
+            assertTrue(sleeping.await(2, TimeUnit.SECONDS));
+            assertFalse(presenceService.isClientAwake(registration));
+            assertEquals(0, presenceService.getAwakeClientCount());
+            assertEquals(1, presenceService.getSleepingClientCount());
+
+            presenceService.setAwake(registration);
+            assertTrue(presenceService.isClientAwake(registration));
+            assertEquals(1, presenceService.getAwakeClientCount());
+            assertEquals(0, presenceService.getSleepingClientCount());
+        } finally {
+            presenceService.destroy();
+        }
+    }
+
+    @Test
+    public void setting_client_awake_again_extends_awake_time() throws Exception {
+        // awake time is longer than the wheel, so client is rescheduled several times
+        PresenceServiceImpl presenceService = new PresenceServiceImpl(new StaticClientAwakeTimeProvider(300), 10, 8);
+        try {
+            Registration registration = givenAQueueModeClient("urn:client");
+            presenceService.setAwake(registration);
+            for (int i = 0; i < 10; i++) {
+                Thread.sleep(100);
+                presenceService.setAwake(registration);
+                assertTrue(presenceService.isClientAwake(registration));
+            }
+            Thread.sleep(600);
+            assertFalse(presenceService.isClientAwake(registration));
+        } finally {
+            presenceService.destroy();
+        }
+    }
+
+    @Test
+    public void count_awake_and_sleeping_clients() throws Exception {
+        Registration client1 = givenAQueueModeClient("urn:client1");
+        Registration client2 = givenAQueueModeClient("urn:client2");
+        Registration client3 = givenAQueueModeClient("urn:client3");
+        presenceService.setAwake(client1);
+        presenceService.setAwake(client2);
+        presenceService.setAwake(client3);
+        assertEquals(3, presenceService.getAwakeClientCount());
+
+        presenceService.setSleeping(client1);
+        presenceService.setSleeping(client2);
+        assertEquals(1, presenceService.getAwakeClientCount());
+        assertEquals(2, presenceService.getSleepingClientCount());
+
+        presenceService.stopPresenceTracking(client1);
+        presenceService.stopPresenceTracking(client3);
+        assertEquals(0, presenceService.getAwakeClientCount());
+        assertEquals(1, presenceService.getSleepingClientCount());
+    }
+
+    private Registration givenAQueueModeClient(String endpoint) {
+        return new Registration.Builder("ID" + endpoint, endpoint,
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 12354))
+                        .bindingMode(EnumSet.of(BindingMode.U, BindingMode.Q)).build();
+    }
+
     private Registration givenASimpleClient() throws UnknownHostException {
         Registration.Builder builder = new Registration.Builder("ID", "urn:client",
                 Identity.unsecure(Inet4Address.getLoopbackAddress(), 12354));
@@ -0,0 +1,208 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.queue;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.leshan.core.request.BindingMode;
+import org.eclipse.leshan.core.request.DownlinkRequest;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.core.request.ReadRequest;
+import org.eclipse.leshan.core.request.exception.ClientSleepingException;
+import org.eclipse.leshan.core.request.exception.RequestCanceledException;
+import org.eclipse.leshan.core.response.ErrorCallback;
+import org.eclipse.leshan.core.response.LwM2mResponse;
+import org.eclipse.leshan.core.response.ReadResponse;
+import org.eclipse.leshan.core.response.ResponseCallback;
+import org.eclipse.leshan.server.registration.Registration;
+import org.eclipse.leshan.server.request.LowerLayerConfig;
+import org.eclipse.leshan.server.request.LwM2mRequestSender;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class QueueModeLwM2mRequestSenderTest {
+
+    private PresenceServiceImpl presenceService;
+    private FakeSender fakeSender;
+    private QueueModeLwM2mRequestSender sender;
+    private Registration registration;
+
+    @Before
+    public void setUp() {
+        presenceService = new PresenceServiceImpl(new StaticClientAwakeTimeProvider(60000));
+        fakeSender = new FakeSender();
+        sender = new QueueModeLwM2mRequestSender(presenceService, fakeSender, new InMemoryRequestQueueStore(2), 100,
+                1);
+        registration = new Registration.Builder("ID", "urn:client",
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 12354))
+                        .bindingMode(EnumSet.of(BindingMode.U, BindingMode.Q)).build();
+    }
+
+    @After
+    public void tearDown() {
+        sender.destroy();
+        presenceService.destroy();
+    }
+
+    @Test
+    public void requests_to_sleeping_client_are_sent_in_order_on_wake_up() {
+        final List<String> responses = new ArrayList<>();
+        sender.send(registration, new ReadRequest(3, 0, 1), null, 1000, new Callback("first", responses), null);
+        sender.send(registration, new ReadRequest(3, 0, 2), null, 1000, new Callback("second", responses), null);
+        assertTrue(fakeSender.sent.isEmpty());
+
+        presenceService.setAwake(registration);
+
+        // only one request in flight at a time
+        assertEquals(1, fakeSender.sent.size());
+        fakeSender.respond(0);
+        assertEquals(2, fakeSender.sent.size());
+        fakeSender.respond(1);
+
+        assertEquals("/3/0/1", ((ReadRequest) fakeSender.sent.get(0)).getPath().toString());
+        assertEquals("/3/0/2", ((ReadRequest) fakeSender.sent.get(1)).getPath().toString());
+        assertEquals(2, responses.size());
+        assertEquals("first", responses.get(0));
+        assertEquals("second", responses.get(1));
+    }
+
+    @Test(expected = ClientSleepingException.class)
+    public void request_is_rejected_when_queue_is_full() {
+        for (int i = 0; i < 3; i++) {
+            sender.send(registration, new ReadRequest(3, 0, i), null, 1000,
+                    new Callback("response", new ArrayList<String>()), null);
+        }
+    }
+
+    @Test
+    public void expired_request_is_not_sent() throws InterruptedException {
+        final CountDownLatch expired = new CountDownLatch(1);
+        sender.send(registration, new ReadRequest(3, 0, 1), null, 1000,
+                new Callback("response", new ArrayList<String>()), new ErrorCallback() {
+                    @Override
+                    public void onError(Exception e) {
+                        assertTrue(e instanceof ClientSleepingException);
+                        expired.countDown();
+                    }
+                });
+
+        assertTrue(expired.await(2, TimeUnit.SECONDS));
+        presenceService.setAwake(registration);
+        assertTrue(fakeSender.sent.isEmpty());
+    }
+
+    @Test
+    public void queued_requests_are_canceled_with_registration() {
+        final List<Exception> errors = new ArrayList<>();
+        ErrorCallback errorCallback = new ErrorCallback() {
+            @Override
+            public void onError(Exception e) {
+                errors.add(e);
+            }
+        };
+        sender.send(registration, new ReadRequest(3, 0, 1), null, 1000,
+                new Callback("first", new ArrayList<String>()), errorCallback);
+        sender.send(registration, new ReadRequest(3, 0, 2), null, 1000,
+                new Callback("second", new ArrayList<String>()), errorCallback);
+
+        sender.cancelOngoingRequests(registration);
+
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0) instanceof RequestCanceledException);
+        assertTrue(errors.get(1) instanceof RequestCanceledException);
+
+        // canceled requests are not sent when the client wakes up
+        presenceService.setAwake(registration);
+        assertTrue(fakeSender.sent.isEmpty());
+    }
+
+    @Test
+    public void queued_requests_are_canceled_on_destroy() {
+        final List<Exception> errors = new ArrayList<>();
+        sender.send(registration, new ReadRequest(3, 0, 1), null, 1000,
+                new Callback("first", new ArrayList<String>()), new ErrorCallback() {
+                    @Override
+                    public void onError(Exception e) {
+                        errors.add(e);
+                    }
+                });
+
+        sender.destroy();
+
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0) instanceof RequestCanceledException);
+
+        // nothing is sent when the client wakes up
+        presenceService.setAwake(registration);
+        assertTrue(fakeSender.sent.isEmpty());
+    }
+
+    @Test(expected = ClientSleepingException.class)
+    public void synchronous_request_to_sleeping_client_is_rejected() throws InterruptedException {
+        sender.send(registration, new ReadRequest(3, 0, 1), null, 1000);
+    }
+
+    private static class Callback implements ResponseCallback<ReadResponse> {
+        private final String name;
+        private final List<String> responses;
+
+        Callback(String name, List<String> responses) {
+            this.name = name;
+            this.responses = responses;
+        }
+
+        @Override
+        public void onResponse(ReadResponse response) {
+            responses.add(name);
+        }
+    }
+
+    private static class FakeSender implements LwM2mRequestSender {
+        final List<DownlinkRequest<?>> sent = new ArrayList<>();
+        final List<ResponseCallback<?>> callbacks = new ArrayList<>();
+
+        @Override
+        public <T extends LwM2mResponse> T send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeout) throws InterruptedException {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public <T extends LwM2mResponse> void send(Registration destination, DownlinkRequest<T> request,
+                LowerLayerConfig lowerLayerConfig, long timeout, ResponseCallback<T> responseCallback,
+                ErrorCallback errorCallback) {
+            sent.add(request);
+            callbacks.add(responseCallback);
+        }
+
+        @SuppressWarnings("unchecked")
+        void respond(int index) {
+            ((ResponseCallback<ReadResponse>) callbacks.get(index)).onResponse(ReadResponse.success(1, "value"));
+        }
+
+        @Override
+        public void cancelOngoingRequests(Registration registration) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.leshan.core.util.Hex;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+
+/**
+ * A Lua script executed atomically on the Redis server.
+ * <p>
+ * The script is invoked by its SHA1 digest (EVALSHA) and is only sent to the server (EVAL) the first time it is not
+ * already present in the server script cache.
+ */
+class LuaScript {
+
+    private final byte[] script;
+    private final byte[] sha1;
+
+    public LuaScript(String... lines) {
+        StringBuilder b = new StringBuilder();
+        for (String line : lines) {
+            b.append(line).append('\n');
+        }
+        this.script = b.toString().getBytes(UTF_8);
+        this.sha1 = sha1(script);
+    }
+
+    public Object eval(Jedis j, List<byte[]> keys, List<byte[]> args) {
+        try {
+            return j.evalsha(sha1, keys, args);
+        } catch (JedisNoScriptException e) {
+            // script is not in the cache of this server (first use or after a restart/SCRIPT FLUSH)
+            return j.eval(script, keys, args);
+        }
+    }
+
+    public Object eval(Jedis j, byte[][] keys, byte[]... args) {
+        return eval(j, Arrays.asList(keys), Arrays.asList(args));
+    }
+
+    public byte[] getSha1() {
+        return sha1;
+    }
+
+    public byte[] getScript() {
+        return script;
+    }
+
+    private static byte[] sha1(byte[] script) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            return new String(Hex.encodeHex(digest.digest(script), true)).getBytes(UTF_8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 must be supported by the JVM", e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local cache of values read from Redis, bounded by size (least recently used entries are evicted first) and by
+ * time to live.
+ * <p>
+ * A value read from Redis is only added if its key was not invalidated since the read started (see
+ * {@link #getVersion(Object)}), so a concurrent modification can not be hidden by a stale value. While disabled (e.g.
+ * when invalidation messages can not be received) the cache is empty and does not accept new values.
+ * <p>
+ * Large caches are split in segments with their own lock and their own least recently used order, so concurrent
+ * accesses to different keys do not contend on a single lock.
+ */
+class NearCache<K, V> {
+
+    // a segment is not smaller than this, small caches have a single segment and an exact LRU order.
+    private static final int MIN_SEGMENT_SIZE = 64;
+    private static final int MAX_SEGMENTS = 16;
+
+    // a cached value, or a version of a key being read from Redis when value is null
+    private static class Entry<V> {
+        final V value;
+        final long expiration; // in nanoseconds
+
+        Entry(V value, long expiration) {
+            this.value = value;
+            this.expiration = expiration;
+        }
+    }
+
+    private final long timeToLive; // in nanoseconds
+    private final LinkedHashMap<K, Entry<V>>[] segments;
+    private volatile boolean enabled = false;
+
+    @SuppressWarnings("unchecked")
+    public NearCache(int maxSize, long timeToLive, TimeUnit unit) {
+        this.timeToLive = unit.toNanos(timeToLive);
+        int nbSegments = Math.max(1, Math.min(MAX_SEGMENTS, maxSize / MIN_SEGMENT_SIZE));
+        final int segmentSize = (maxSize + nbSegments - 1) / nbSegments;
+        this.segments = new LinkedHashMap[nbSegments];
+        for (int i = 0; i < nbSegments; i++) {
+            segments[i] = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                    return size() > segmentSize;
+                }
+            };
+        }
+    }
+
+    private LinkedHashMap<K, Entry<V>> segment(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        return segments[(h & Integer.MAX_VALUE) % segments.length];
+    }
+
+    /**
+     * @return the cached value or <code>null</code> if there is no value or if it expired.
+     */
+    public V get(K key) {
+        LinkedHashMap<K, Entry<V>> segment = segment(key);
+        synchronized (segment) {
+            Entry<V> entry = segment.get(key);
+            if (entry == null || entry.value == null)
+                return null;
+
+            if (entry.expiration - System.nanoTime() <= 0) {
+                segment.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * @return the current version of the key, to get before reading the value to cache from Redis, or
+     *         <code>null</code> if the cache is disabled.
+     */
+    public Object getVersion(K key) {
+        LinkedHashMap<K, Entry<V>> segment = segment(key);
+        synchronized (segment) {
+            if (!enabled)
+                return null;
+            Entry<V> entry = segment.get(key);
+            if (entry == null || entry.value != null) {
+                // concurrent reads of the same key share the same version
+                entry = new Entry<>(null, 0);
+                segment.put(key, entry);
+            }
+            return entry;
+        }
+    }
+
+    /**
+     * Add a value read from Redis, if the cache is enabled and the key was not invalidated since the given version.
+     *
+     * @param version the value of {@link #getVersion(Object)} before reading the value.
+     */
+    public void put(K key, V value, Object version) {
+        if (version == null)
+            return;
+
+        LinkedHashMap<K, Entry<V>> segment = segment(key);
+        synchronized (segment) {
+            if (segment.get(key) != version)
+                return;
+
+            if (!enabled || value == null) {
+                segment.remove(key);
+            } else {
+                segment.put(key, new Entry<>(value, System.nanoTime() + timeToLive));
+            }
+        }
+    }
+
+    public void invalidate(K key) {
+        LinkedHashMap<K, Entry<V>> segment = segment(key);
+        synchronized (segment) {
+            segment.remove(key);
+        }
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        for (LinkedHashMap<K, Entry<V>> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return the number of cached values.
+     */
+    public int size() {
+        int size = 0;
+        for (LinkedHashMap<K, Entry<V>> segment : segments) {
+            synchronized (segment) {
+                for (Entry<V> entry : segment.values()) {
+                    if (entry.value != null)
+                        size++;
+                }
+            }
+        }
+        return size;
+    }
+}
@@ -29,7 +29,7 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -48,8 +48,9 @@ import org.eclipse.leshan.core.util.Validate;
 import org.eclipse.leshan.server.californium.observation.ObserveUtil;
 import org.eclipse.leshan.server.californium.registration.CaliforniumRegistrationStore;
 import org.eclipse.leshan.server.redis.serialization.IdentitySerDes;
-import org.eclipse.leshan.server.redis.serialization.ObservationSerDes;
-import org.eclipse.leshan.server.redis.serialization.RegistrationSerDes;
+import org.eclipse.leshan.server.redis.serialization.JsonRegistrationStoreSerDes;
+import org.eclipse.leshan.server.redis.serialization.RegistrationStoreSerDes;
+import org.eclipse.leshan.server.registration.BatchExpirationListener;
 import org.eclipse.leshan.server.registration.Deregistration;
 import org.eclipse.leshan.server.registration.ExpirationListener;
 import org.eclipse.leshan.server.registration.Registration;
@@ -58,14 +59,24 @@ import org.eclipse.leshan.server.registration.UpdatedRegistration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.Jedis;
+import redis.clients.jedis.Pipeline;
 import redis.clients.jedis.ScanParams;
 import redis.clients.jedis.ScanResult;
-import redis.clients.jedis.Transaction;
 import redis.clients.jedis.util.Pool;
 
 /**
  * A RegistrationStore which stores registrations and observations in Redis.
+ * <p>
+ * Registration and observation modifications are done using Lua scripts executed atomically by Redis, so they are
+ * done in one round trip without needing a lock. As those scripts access keys computed on server side, this store
+ * only supports a single Redis instance (no Redis Cluster).
+ * <p>
+ * A local near cache of registrations (by registration id) and observations (by token) can be enabled using
+ * {@link #enableNearCache(int, long, TimeUnit)}, so handling notifications mostly avoids network I/O. Each store
+ * publishes the registrations and observations it modifies on a Redis pub/sub channel, so caches of other nodes sharing
+ * the same Redis are invalidated.
  */
 public class RedisRegistrationStore implements CaliforniumRegistrationStore, Startable, Stoppable, Destroyable {
 
@@ -82,12 +93,18 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     private static final String REG_EP_REGID_IDX = "EP:REGID:"; // secondary index key (Registration ID => Endpoint)
     private static final String REG_EP_ADDR_IDX = "EP:ADDR:"; // secondary index key (Socket Address => Endpoint)
     private static final String REG_EP_IDENTITY = "EP:IDENTITY:"; // secondary index key (Identity => Endpoint)
+    private static final String REG_EP_IDX_KEYS = "EP:IDXKEYS:"; // (Endpoint => secondary index keys of registration)
     private static final String LOCK_EP = "LOCK:EP:";
     private static final byte[] OBS_TKN = "OBS:TKN:".getBytes(UTF_8);
     private static final String OBS_TKNS_REGID_IDX = "TKNS:REGID:"; // secondary index (token list by registration)
     private static final byte[] EXP_EP = "EXP:EP".getBytes(UTF_8); // a sorted set used for registration expiration
                                                                    // (expiration date, Endpoint)
 
+    // pub/sub channel used to invalidate near caches, a message is a type followed by a registration id or a token
+    private static final byte[] INVALIDATION_CHANNEL = "CACHE:INVALIDATION".getBytes(UTF_8);
+    private static final byte INVALIDATE_REG = 'R';
+    private static final byte INVALIDATE_OBS = 'O';
+
     private final Pool<Jedis> pool;
 
     // Listener use to notify when a registration expires
@@ -98,10 +115,17 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     private boolean started = false;
 
     private final long cleanPeriod; // in seconds
-    private final int cleanLimit; // maximum number to clean in a clean period
+    private final int cleanLimit; // maximum number to clean in one batch
     private final long gracePeriod; // in seconds
 
     private final JedisLock lock;
+    private final RegistrationStoreSerDes serDes;
+
+    // near cache, null if not enabled
+    private NearCache<String, Registration> registrationCache;
+    private NearCache<Token, org.eclipse.californium.core.observe.Observation> observationCache;
+    private ExecutorService invalidationExecutor;
+    private InvalidationSubscriber invalidationSubscriber;
 
     public RedisRegistrationStore(Pool<Jedis> p) {
         this(p, DEFAULT_CLEAN_PERIOD, DEFAULT_GRACE_PERIOD, DEFAULT_CLEAN_LIMIT); // default clean period 60s
@@ -123,12 +147,47 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
      */
     public RedisRegistrationStore(Pool<Jedis> p, ScheduledExecutorService schedExecutor, long cleanPeriodInSec,
             long lifetimeGracePeriodInSec, int cleanLimit, JedisLock redisLock) {
+        this(p, schedExecutor, cleanPeriodInSec, lifetimeGracePeriodInSec, cleanLimit, redisLock,
+                new JsonRegistrationStoreSerDes());
+    }
+
+    /**
+     * @param serDes the format used to store registrations and observations (JSON by default, see
+     *        {@link org.eclipse.leshan.server.redis.serialization.CompactRegistrationStoreSerDes} for a compact binary
+     *        format)
+     */
+    public RedisRegistrationStore(Pool<Jedis> p, ScheduledExecutorService schedExecutor, long cleanPeriodInSec,
+            long lifetimeGracePeriodInSec, int cleanLimit, JedisLock redisLock, RegistrationStoreSerDes serDes) {
         this.pool = p;
         this.schedExecutor = schedExecutor;
         this.cleanPeriod = cleanPeriodInSec;
         this.cleanLimit = cleanLimit;
         this.gracePeriod = lifetimeGracePeriodInSec;
         this.lock = redisLock;
+        this.serDes = serDes;
+    }
+
+    /**
+     * Enable a local cache of registrations (see {@link #getRegistration(String)}) and observations (see
+     * {@link #get(Token)} and {@link #getObservation(String, byte[])}) in front of Redis.
+     * <p>
+     * The cache is invalidated by messages published by all stores sharing the same Redis, it is only used while this
+     * store is started and subscribed to those messages. The time to live bounds the staleness of an entry if an
+     * invalidation message is lost.
+     * <p>
+     * This must be called before {@link #start()}.
+     *
+     * @param maxSize the maximum number of registrations and of observations to keep in cache.
+     * @param timeToLive the maximum time to keep an entry in cache.
+     * @param unit the time unit of the time to live.
+     */
+    public synchronized void enableNearCache(int maxSize, long timeToLive, TimeUnit unit) {
+        Validate.isTrue(!started, "near cache must be enabled before starting the store");
+        Validate.isTrue(maxSize > 0, "maxSize must be positive");
+        registrationCache = new NearCache<>(maxSize, timeToLive, unit);
+        observationCache = new NearCache<>(maxSize, timeToLive, unit);
+        invalidationExecutor = Executors
+                .newSingleThreadExecutor(new NamedThreadFactory("RedisRegistrationStore Near Cache Invalidation"));
     }
 
     /* *************** Redis Key utility function **************** */
@@ -144,81 +203,269 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
         return (prefix + registrationID).getBytes();
     }
 
-    private byte[] toLockKey(String endpoint) {
-        return toKey(LOCK_EP, endpoint);
-    }
-
     private byte[] toLockKey(byte[] endpoint) {
         return toKey(LOCK_EP.getBytes(UTF_8), endpoint);
     }
 
+    /* *************** Lua scripts **************** */
+
+    // Each write operation is done by a Lua script, so it is atomic without needing a lock and costs only one round
+    // trip. Some scripts access keys which are not given as KEYS (e.g. observations of a registration), so this is
+    // only usable with a single Redis instance.
+
+    private static final String DEL_IF_EQUALS_FUNCTION = //
+            "local function delIfEquals(key, value)\n" + //
+                    "  if redis.call('GET', key) == value then\n" + //
+                    "    redis.call('DEL', key)\n" + //
+                    "    return 1\n" + //
+                    "  end\n" + //
+                    "  return 0\n" + //
+                    "end";
+
+    private static final String REMOVE_ALL_OBSERVATIONS_FUNCTION = //
+            "local function removeAllObservations(tokensKey, obsPrefix, result)\n" + //
+                    "  for _, token in ipairs(redis.call('LRANGE', tokensKey, 0, -1)) do\n" + //
+                    "    local obs = redis.call('GET', obsPrefix .. token)\n" + //
+                    "    if obs then\n" + //
+                    "      table.insert(result, obs)\n" + //
+                    "      redis.call('DEL', obsPrefix .. token)\n" + //
+                    "    end\n" + //
+                    "  end\n" + //
+                    "  redis.call('DEL', tokensKey)\n" + //
+                    "  return result\n" + //
+                    "end";
+
+    // KEYS : endpoint, index keys, registration id index, address index, identity index, expiration
+    // ARGV : registration, endpoint, expiration timestamp, observation tokens key, observation key prefix
+    // return : {previous registration or nil, 1 if previous registration is cleaned, removed observations...}
+    private static final LuaScript ADD_REGISTRATION = new LuaScript(DEL_IF_EQUALS_FUNCTION,
+            REMOVE_ALL_OBSERVATIONS_FUNCTION, //
+            "local old = redis.call('GETSET', KEYS[1], ARGV[1])", //
+            "local oldIdx = redis.call('HMGET', KEYS[2], 'regid', 'addr', 'identity', 'tkns')", //
+            "redis.call('SET', KEYS[3], ARGV[2])", //
+            "redis.call('SET', KEYS[4], ARGV[2])", //
+            "redis.call('SET', KEYS[5], ARGV[2])", //
+            "redis.call('HMSET', KEYS[2], 'regid', KEYS[3], 'addr', KEYS[4], 'identity', KEYS[5], 'tkns', ARGV[4])", //
+            "redis.call('ZADD', KEYS[6], ARGV[3], ARGV[2])", //
+            "if not old then", //
+            "  return {false}", //
+            "end", //
+            "if not oldIdx[4] then", //
+            "  -- index keys of previous registration are unknown, it must be cleaned by the client", //
+            "  return {old, 0}", //
+            "end", //
+            "if oldIdx[1] ~= KEYS[3] then", //
+            "  redis.call('DEL', oldIdx[1])", //
+            "end", //
+            "if oldIdx[2] ~= KEYS[4] then", //
+            "  delIfEquals(oldIdx[2], ARGV[2])", //
+            "end", //
+            "if oldIdx[3] ~= KEYS[5] then", //
+            "  delIfEquals(oldIdx[3], ARGV[2])", //
+            "end", //
+            "return removeAllObservations(oldIdx[4], ARGV[5], {old, 1})");
+
+    // KEYS : endpoint, index keys, address index, identity index, expiration
+    // ARGV : expected registration, updated registration, endpoint, expiration timestamp, previous address index,
+    // previous identity index
+    // return : 1 if registration is updated, 0 if expected registration is not the current one.
+    private static final LuaScript UPDATE_REGISTRATION = new LuaScript(DEL_IF_EQUALS_FUNCTION, //
+            "if redis.call('GET', KEYS[1]) ~= ARGV[1] then", //
+            "  return 0", //
+            "end", //
+            "redis.call('SET', KEYS[1], ARGV[2])", //
+            "redis.call('ZADD', KEYS[5], ARGV[4], ARGV[3])", //
+            "redis.call('SET', KEYS[3], ARGV[3])", //
+            "if KEYS[3] ~= ARGV[5] then", //
+            "  delIfEquals(ARGV[5], ARGV[3])", //
+            "end", //
+            "redis.call('SET', KEYS[4], ARGV[3])", //
+            "if KEYS[4] ~= ARGV[6] then", //
+            "  delIfEquals(ARGV[6], ARGV[3])", //
+            "end", //
+            "redis.call('HMSET', KEYS[2], 'addr', KEYS[3], 'identity', KEYS[4])", //
+            "return 1");
+
+    // KEYS : registration id index, expiration, observation tokens
+    // ARGV : endpoint key prefix, index keys prefix, observation key prefix, remove only if expired at this time or '',
+    // remove only if registration is equal to this one or ''
+    // return : {removed registration or nil, 1 if registration is cleaned, removed observations...}
+    private static final LuaScript REMOVE_REGISTRATION = new LuaScript(DEL_IF_EQUALS_FUNCTION,
+            REMOVE_ALL_OBSERVATIONS_FUNCTION, //
+            "local ep = redis.call('GET', KEYS[1])", //
+            "if not ep then", //
+            "  return {false}", //
+            "end", //
+            "local reg = redis.call('GET', ARGV[1] .. ep)", //
+            "if not reg or (ARGV[5] ~= '' and reg ~= ARGV[5]) then", //
+            "  return {false}", //
+            "end", //
+            "if ARGV[4] ~= '' then", //
+            "  local expiration = redis.call('ZSCORE', KEYS[2], ep)", //
+            "  if not expiration or tonumber(expiration) > tonumber(ARGV[4]) then", //
+            "    return {false}", //
+            "  end", //
+            "end", //
+            "redis.call('DEL', KEYS[1])", //
+            "redis.call('DEL', ARGV[1] .. ep)", //
+            "redis.call('ZREM', KEYS[2], ep)", //
+            "local idxKey = ARGV[2] .. ep", //
+            "local idx = redis.call('HMGET', idxKey, 'addr', 'identity')", //
+            "redis.call('DEL', idxKey)", //
+            "local result = {reg, 0}", //
+            "if idx[1] and idx[2] then", //
+            "  delIfEquals(idx[1], ep)", //
+            "  delIfEquals(idx[2], ep)", //
+            "  result[2] = 1", //
+            "end", //
+            "return removeAllObservations(KEYS[3], ARGV[3], result)");
+
+    // KEYS : expiration
+    // ARGV : current time, max number of registrations to remove, endpoint key prefix, index keys prefix,
+    // observation key prefix
+    // return : {number of expired endpoints processed, {removed registration, 1 if registration is cleaned, removed
+    // observations...}...}
+    private static final LuaScript EXPIRE_REGISTRATIONS = new LuaScript(DEL_IF_EQUALS_FUNCTION,
+            REMOVE_ALL_OBSERVATIONS_FUNCTION, //
+            "local endpoints = redis.call('ZRANGEBYSCORE', KEYS[1], '-inf', ARGV[1], 'LIMIT', 0, ARGV[2])", //
+            "local result = {#endpoints}", //
+            "for _, ep in ipairs(endpoints) do", //
+            "  local reg = redis.call('GET', ARGV[3] .. ep)", //
+            "  local idxKey = ARGV[4] .. ep", //
+            "  local idx = redis.call('HMGET', idxKey, 'regid', 'addr', 'identity', 'tkns')", //
+            "  if not reg then", //
+            "    redis.call('ZREM', KEYS[1], ep)", //
+            "  elseif not (idx[1] and idx[2] and idx[3] and idx[4]) then", //
+            "    -- index keys of registration are unknown, it must be removed by the client", //
+            "    redis.call('ZREM', KEYS[1], ep)", //
+            "    table.insert(result, {reg, 0})", //
+            "  else", //
+            "    redis.call('DEL', idx[1])", //
+            "    redis.call('DEL', ARGV[3] .. ep)", //
+            "    redis.call('ZREM', KEYS[1], ep)", //
+            "    redis.call('DEL', idxKey)", //
+            "    delIfEquals(idx[2], ep)", //
+            "    delIfEquals(idx[3], ep)", //
+            "    table.insert(result, removeAllObservations(idx[4], ARGV[5], {reg, 1}))", //
+            "  end", //
+            "end", //
+            "return result");
+
+    // KEYS : secondary index
+    // ARGV : endpoint key prefix
+    // return : the registration or nil
+    private static final LuaScript GET_BY_INDEX = new LuaScript( //
+            "local ep = redis.call('GET', KEYS[1])", //
+            "if not ep then", //
+            "  return false", //
+            "end", //
+            "return redis.call('GET', ARGV[1] .. ep)");
+
+    // KEYS : key to delete
+    // ARGV : expected value (e.g. endpoint for a secondary index)
+    // return : 1 if the key was deleted
+    private static final LuaScript DEL_IF_EQUALS = new LuaScript(DEL_IF_EQUALS_FUNCTION, //
+            "return delIfEquals(KEYS[1], ARGV[1])");
+
+    // KEYS : registration id index, observation, observation tokens
+    // ARGV : observation, token, '1' if observation must be added only if absent
+    // return : -1 if there is no registration or {previous observation or nil, 1 if observation was added}
+    private static final LuaScript ADD_OBSERVATION = new LuaScript( //
+            "if redis.call('EXISTS', KEYS[1]) == 0 then", //
+            "  return -1", //
+            "end", //
+            "local previous", //
+            "if ARGV[3] == '1' then", //
+            "  previous = redis.call('GET', KEYS[2])", //
+            "  if previous and string.len(previous) > 0 then", //
+            "    return {previous, 0}", //
+            "  end", //
+            "  redis.call('SET', KEYS[2], ARGV[1])", //
+            "else", //
+            "  previous = redis.call('GETSET', KEYS[2], ARGV[1])", //
+            "end", //
+            "redis.call('LPUSH', KEYS[3], ARGV[2])", //
+            "return {previous, 1}");
+
+    // KEYS : observation, observation tokens
+    // ARGV : token
+    private static final LuaScript REMOVE_OBSERVATION = new LuaScript( //
+            "if redis.call('DEL', KEYS[1]) > 0 then", //
+            "  redis.call('LREM', KEYS[2], 0, ARGV[1])", //
+            "  return 1", //
+            "end", //
+            "return 0");
+
+    // KEYS : observation tokens
+    // ARGV : observation key prefix
+    private static final LuaScript GET_OBSERVATIONS = new LuaScript( //
+            "local result = {}", //
+            "for _, token in ipairs(redis.call('LRANGE', KEYS[1], 0, -1)) do", //
+            "  local obs = redis.call('GET', ARGV[1] .. token)", //
+            "  if obs then", //
+            "    table.insert(result, obs)", //
+            "  end", //
+            "end", //
+            "return result");
+
+    // KEYS : observation tokens
+    // ARGV : observation key prefix
+    private static final LuaScript REMOVE_ALL_OBSERVATIONS = new LuaScript(REMOVE_ALL_OBSERVATIONS_FUNCTION, //
+            "return removeAllObservations(KEYS[1], ARGV[1], {})");
+
+    private static byte[][] keys(byte[]... keys) {
+        return keys;
+    }
+
     /* *************** Leshan Registration API **************** */
 
     @Override
     public Deregistration addRegistration(Registration registration) {
         try (Jedis j = pool.getResource()) {
-            byte[] lockValue = null;
-            byte[] lockKey = toLockKey(registration.getEndpoint());
+            byte[] ep = registration.getEndpoint().getBytes(UTF_8);
 
-            try {
-                lockValue = lock.acquire(j, lockKey);
+            List<?> result = (List<?>) ADD_REGISTRATION.eval(j,
+                    keys(toEndpointKey(ep), toIndexKeysKey(ep), toRegIdKey(registration.getId()),
+                            toRegAddrKey(registration.getSocketAddress()),
+                            toRegIdentityKey(registration.getIdentity()), EXP_EP),
+                    serializeReg(registration), ep, toExpiration(registration),
+                    toObservationsKey(registration.getId()), OBS_TKN);
 
-                // add registration
-                byte[] k = toEndpointKey(registration.getEndpoint());
-                byte[] old = j.getSet(k, serializeReg(registration));
-
-                // add registration: secondary indexes
-                byte[] regid_idx = toRegIdKey(registration.getId());
-                j.set(regid_idx, registration.getEndpoint().getBytes(UTF_8));
-                byte[] addr_idx = toRegAddrKey(registration.getSocketAddress());
-                j.set(addr_idx, registration.getEndpoint().getBytes(UTF_8));
-                byte[] identity_idx = toRegIdentityKey(registration.getIdentity());
-                j.set(identity_idx, registration.getEndpoint().getBytes(UTF_8));
-
-                // Add or update expiration
-                addOrUpdateExpiration(j, registration);
-
-                if (old != null) {
-                    Registration oldRegistration = deserializeReg(old);
-                    // remove old secondary index
-                    if (!registration.getId().equals(oldRegistration.getId()))
-                        j.del(toRegIdKey(oldRegistration.getId()));
-                    if (!oldRegistration.getSocketAddress().equals(registration.getSocketAddress())) {
-                        removeAddrIndex(j, oldRegistration);
-                    }
-                    if (!oldRegistration.getIdentity().equals(registration.getIdentity())) {
-                        removeIdentityIndex(j, oldRegistration);
-                    }
-                    // remove old observation
-                    Collection<Observation> obsRemoved = unsafeRemoveAllObservations(j, oldRegistration.getId());
+            byte[] old = (byte[]) result.get(0);
+            if (old == null) {
+                return null;
+            }
 
-                    return new Deregistration(oldRegistration, obsRemoved);
+            Registration oldRegistration = deserializeReg(old);
+            Collection<Observation> obsRemoved;
+            if (isCleaned(result)) {
+                obsRemoved = toObservations(result);
+            } else {
+                // previous registration was stored without the keys of its secondary indexes
+                if (!registration.getId().equals(oldRegistration.getId()))
+                    j.del(toRegIdKey(oldRegistration.getId()));
+                if (!oldRegistration.getSocketAddress().equals(registration.getSocketAddress())) {
+                    removeAddrIndex(j, oldRegistration);
                 }
-
-                return null;
-            } finally {
-                lock.release(j, lockKey, lockValue);
+                if (!oldRegistration.getIdentity().equals(registration.getIdentity())) {
+                    removeIdentityIndex(j, oldRegistration);
+                }
+                // remove old observation
+                obsRemoved = removeAllObservations(j, oldRegistration.getId());
             }
+            Deregistration deregistration = new Deregistration(oldRegistration, obsRemoved);
+            invalidate(j, Collections.singleton(deregistration));
+            return deregistration;
         }
     }
 
     @Override
     public UpdatedRegistration updateRegistration(RegistrationUpdate update) {
         try (Jedis j = pool.getResource()) {
-
-            // Fetch the registration ep by registration ID index
-            byte[] ep = j.get(toRegIdKey(update.getRegistrationId()));
-            if (ep == null) {
-                return null;
-            }
-
-            byte[] lockValue = null;
-            byte[] lockKey = toLockKey(ep);
-            try {
-                lockValue = lock.acquire(j, lockKey);
-
-                // Fetch the registration
-                byte[] data = j.get(toEndpointKey(ep));
+            while (true) {
+                // Fetch the registration by registration ID index
+                byte[] data = (byte[]) GET_BY_INDEX.eval(j, keys(toRegIdKey(update.getRegistrationId())),
+                        REG_EP.getBytes(UTF_8));
                 if (data == null) {
                     return null;
                 }
@@ -226,37 +473,43 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
                 Registration r = deserializeReg(data);
 
                 Registration updatedRegistration = update.update(r);
-
-                // Store the new registration
-                j.set(toEndpointKey(updatedRegistration.getEndpoint()), serializeReg(updatedRegistration));
-
-                // Add or update expiration
-                addOrUpdateExpiration(j, updatedRegistration);
-
-                // Update secondary index :
-                // If registration is already associated to this address we don't care as we only want to keep the most
-                // recent binding.
-                byte[] addr_idx = toRegAddrKey(updatedRegistration.getSocketAddress());
-                j.set(addr_idx, updatedRegistration.getEndpoint().getBytes(UTF_8));
-                if (!r.getSocketAddress().equals(updatedRegistration.getSocketAddress())) {
-                    removeAddrIndex(j, r);
-                }
-                if (!r.getIdentity().equals(updatedRegistration.getIdentity())) {
-                    removeIdentityIndex(j, r);
+                byte[] ep = updatedRegistration.getEndpoint().getBytes(UTF_8);
+
+                // Store the new registration only if it was not modified since we read it.
+                // If registration is already associated to this address we don't care as we only want to keep the
+                // most recent binding.
+                Long updated = (Long) UPDATE_REGISTRATION.eval(j,
+                        keys(toEndpointKey(ep), toIndexKeysKey(ep),
+                                toRegAddrKey(updatedRegistration.getSocketAddress()),
+                                toRegIdentityKey(updatedRegistration.getIdentity()), EXP_EP),
+                        data, serializeReg(updatedRegistration), ep, toExpiration(updatedRegistration),
+                        toRegAddrKey(r.getSocketAddress()), toRegIdentityKey(r.getIdentity()));
+
+                if (updated == 1L) {
+                    publishInvalidations(j, Collections.singletonList(toInvalidation(INVALIDATE_REG,
+                            update.getRegistrationId().getBytes(UTF_8))));
+                    return new UpdatedRegistration(r, updatedRegistration);
                 }
-
-                return new UpdatedRegistration(r, updatedRegistration);
-
-            } finally {
-                lock.release(j, lockKey, lockValue);
+                // registration was modified concurrently, retry with the new value
             }
         }
     }
 
     @Override
     public Registration getRegistration(String registrationId) {
+        NearCache<String, Registration> cache = registrationCache;
+        if (cache != null) {
+            Registration registration = cache.get(registrationId);
+            if (registration != null)
+                return registration;
+        }
+
+        Object version = cache != null ? cache.getVersion(registrationId) : null;
         try (Jedis j = pool.getResource()) {
-            return getRegistration(j, registrationId);
+            Registration registration = getRegistration(j, registrationId);
+            if (cache != null)
+                cache.put(registrationId, registration, version);
+            return registration;
         }
     }
 
@@ -276,15 +529,7 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     public Registration getRegistrationByAdress(InetSocketAddress address) {
         Validate.notNull(address);
         try (Jedis j = pool.getResource()) {
-            byte[] ep = j.get(toRegAddrKey(address));
-            if (ep == null) {
-                return null;
-            }
-            byte[] data = j.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            return deserializeReg(data);
+            return getRegistrationByIndex(j, toRegAddrKey(address));
         }
     }
 
@@ -292,15 +537,7 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     public Registration getRegistrationByIdentity(Identity identity) {
         Validate.notNull(identity);
         try (Jedis j = pool.getResource()) {
-            byte[] ep = j.get(toRegIdentityKey(identity));
-            if (ep == null) {
-                return null;
-            }
-            byte[] data = j.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            return deserializeReg(data);
+            return getRegistrationByIndex(j, toRegIdentityKey(identity));
         }
     }
 
@@ -375,44 +612,55 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     @Override
     public Deregistration removeRegistration(String registrationId) {
         try (Jedis j = pool.getResource()) {
-            return removeRegistration(j, registrationId, false);
+            Deregistration deregistration = removeRegistration(j, registrationId, false);
+            if (deregistration != null)
+                invalidate(j, Collections.singleton(deregistration));
+            return deregistration;
         }
     }
 
     private Deregistration removeRegistration(Jedis j, String registrationId, boolean removeOnlyIfNotAlive) {
-        // fetch the client ep by registration ID index
-        byte[] ep = j.get(toRegIdKey(registrationId));
-        if (ep == null) {
+        return removeRegistration(j, registrationId,
+                removeOnlyIfNotAlive ? Long.toString(System.currentTimeMillis()).getBytes(UTF_8) : new byte[0],
+                new byte[0]);
+    }
+
+    /**
+     * Remove a registration only if it is still equal to the given serialized registration.
+     */
+    private Deregistration removeRegistration(Jedis j, String registrationId, byte[] expectedData) {
+        return removeRegistration(j, registrationId, new byte[0], expectedData);
+    }
+
+    private Deregistration removeRegistration(Jedis j, String registrationId, byte[] aliveLimit,
+            byte[] expectedData) {
+        List<?> result = (List<?>) REMOVE_REGISTRATION.eval(j,
+                keys(toRegIdKey(registrationId), EXP_EP, toObservationsKey(registrationId)), REG_EP.getBytes(UTF_8),
+                REG_EP_IDX_KEYS.getBytes(UTF_8), OBS_TKN, aliveLimit, expectedData);
+
+        byte[] data = (byte[]) result.get(0);
+        if (data == null) {
             return null;
         }
+        Registration r = deserializeReg(data);
+        if (!isCleaned(result)) {
+            // registration was stored without the keys of its secondary indexes
+            removeAddrIndex(j, r);
+            removeIdentityIndex(j, r);
+        }
+        return new Deregistration(r, toObservations(result));
+    }
 
-        byte[] lockValue = null;
-        byte[] lockKey = toLockKey(ep);
-        try {
-            lockValue = lock.acquire(j, lockKey);
+    private boolean isCleaned(List<?> scriptResult) {
+        return Long.valueOf(1L).equals(scriptResult.get(1));
+    }
 
-            // fetch the client
-            byte[] data = j.get(toEndpointKey(ep));
-            if (data == null) {
-                return null;
-            }
-            Registration r = deserializeReg(data);
-
-            if (!removeOnlyIfNotAlive || !r.isAlive(gracePeriod)) {
-                long nbRemoved = j.del(toRegIdKey(r.getId()));
-                if (nbRemoved > 0) {
-                    j.del(toEndpointKey(r.getEndpoint()));
-                    Collection<Observation> obsRemoved = unsafeRemoveAllObservations(j, r.getId());
-                    removeAddrIndex(j, r);
-                    removeIdentityIndex(j, r);
-                    removeExpiration(j, r);
-                    return new Deregistration(r, obsRemoved);
-                }
-            }
-            return null;
-        } finally {
-            lock.release(j, lockKey, lockValue);
+    private Collection<Observation> toObservations(List<?> scriptResult) {
+        Collection<Observation> observations = new ArrayList<>();
+        for (int i = 2; i < scriptResult.size(); i++) {
+            observations.add(build(deserializeObs((byte[]) scriptResult.get(i))));
         }
+        return observations;
     }
 
     private void removeAddrIndex(Jedis j, Registration r) {
@@ -424,30 +672,12 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     }
 
     private void removeSecondaryIndex(Jedis j, byte[] indexKey, String endpointName) {
-        // Watch the key to remove.
-        j.watch(indexKey);
-
-        byte[] epFromAddr = j.get(indexKey);
-        // Delete the key if needed.
-        if (Arrays.equals(epFromAddr, endpointName.getBytes(UTF_8))) {
-            // Try to delete the key
-            Transaction transaction = j.multi();
-            transaction.del(indexKey);
-            transaction.exec();
-            // if transaction failed this is not an issue as the index is probably reused and we don't need to
-            // delete it anymore.
-        } else {
-            // the key must not be deleted.
-            j.unwatch();
-        }
+        // Delete the key only if it is not reused by another endpoint
+        DEL_IF_EQUALS.eval(j, keys(indexKey), endpointName.getBytes(UTF_8));
     }
 
-    private void addOrUpdateExpiration(Jedis j, Registration registration) {
-        j.zadd(EXP_EP, registration.getExpirationTimeStamp(gracePeriod), registration.getEndpoint().getBytes(UTF_8));
-    }
-
-    private void removeExpiration(Jedis j, Registration registration) {
-        j.zrem(EXP_EP, registration.getEndpoint().getBytes(UTF_8));
+    private byte[] toExpiration(Registration registration) {
+        return Long.toString(registration.getExpirationTimeStamp(gracePeriod)).getBytes(UTF_8);
     }
 
     private byte[] toRegIdKey(String registrationId) {
@@ -470,12 +700,20 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
         return toKey(REG_EP.getBytes(UTF_8), endpoint);
     }
 
+    private byte[] toIndexKeysKey(byte[] endpoint) {
+        return toKey(REG_EP_IDX_KEYS.getBytes(UTF_8), endpoint);
+    }
+
+    private byte[] toObservationsKey(String registrationId) {
+        return toKey(OBS_TKNS_REGID_IDX, registrationId);
+    }
+
     private byte[] serializeReg(Registration registration) {
-        return RegistrationSerDes.bSerialize(registration);
+        return serDes.serializeRegistration(registration);
     }
 
     private Registration deserializeReg(byte[] data) {
-        return RegistrationSerDes.deserialize(data);
+        return serDes.deserializeRegistration(data);
     }
 
     /* *************** Leshan Observation API **************** */
@@ -496,6 +734,7 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
                 return null;
             }
 
+            // lock is still needed as we need to read all observations of the registration to find the ones to cancel.
             byte[] lockValue = null;
             byte[] lockKey = toLockKey(ep);
 
@@ -507,7 +746,7 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
                     if (observation.getPath().equals(obs.getPath())
                             && !Arrays.equals(observation.getId(), obs.getId())) {
                         removed.add(obs);
-                        unsafeRemoveObservation(j, registrationId, obs.getId());
+                        deleteObservation(j, registrationId, obs.getId());
                     }
                 }
 
@@ -521,29 +760,12 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     @Override
     public Observation removeObservation(String registrationId, byte[] observationId) {
         try (Jedis j = pool.getResource()) {
-
-            // fetch the client ep by registration ID index
-            byte[] ep = j.get(toRegIdKey(registrationId));
-            if (ep == null) {
-                return null;
-            }
-
-            // remove observation
-            byte[] lockValue = null;
-            byte[] lockKey = toLockKey(ep);
-            try {
-                lockValue = lock.acquire(j, lockKey);
-
-                Observation observation = build(get(new Token(observationId)));
-                if (observation != null && registrationId.equals(observation.getRegistrationId())) {
-                    unsafeRemoveObservation(j, registrationId, observationId);
-                    return observation;
-                }
-                return null;
-
-            } finally {
-                lock.release(j, lockKey, lockValue);
+            Observation observation = build(get(j, new Token(observationId)));
+            if (observation != null && registrationId.equals(observation.getRegistrationId())) {
+                deleteObservation(j, registrationId, observationId);
+                return observation;
             }
+            return null;
         }
     }
 
@@ -561,11 +783,9 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
 
     private Collection<Observation> getObservations(Jedis j, String registrationId) {
         Collection<Observation> result = new ArrayList<>();
-        for (byte[] token : j.lrange(toKey(OBS_TKNS_REGID_IDX, registrationId), 0, -1)) {
-            byte[] obs = j.get(toKey(OBS_TKN, token));
-            if (obs != null) {
-                result.add(build(deserializeObs(obs)));
-            }
+        List<?> observations = (List<?>) GET_OBSERVATIONS.eval(j, keys(toObservationsKey(registrationId)), OBS_TKN);
+        for (Object obs : observations) {
+            result.add(build(deserializeObs((byte[]) obs)));
         }
         return result;
     }
@@ -573,22 +793,13 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     @Override
     public Collection<Observation> removeObservations(String registrationId) {
         try (Jedis j = pool.getResource()) {
-            // check registration exists
-            Registration registration = getRegistration(j, registrationId);
-            if (registration == null)
-                return Collections.emptyList();
-
-            // get endpoint and create lock
-            String endpoint = registration.getEndpoint();
-            byte[] lockValue = null;
-            byte[] lockKey = toKey(LOCK_EP, endpoint);
-            try {
-                lockValue = lock.acquire(j, lockKey);
-
-                return unsafeRemoveAllObservations(j, registrationId);
-            } finally {
-                lock.release(j, lockKey, lockValue);
+            Collection<Observation> removed = removeAllObservations(j, registrationId);
+            List<byte[]> invalidations = new ArrayList<>(removed.size());
+            for (Observation observation : removed) {
+                invalidations.add(toInvalidation(INVALIDATE_OBS, observation.getId()));
             }
+            publishInvalidations(j, invalidations);
+            return removed;
         }
     }
 
@@ -608,44 +819,34 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
 
     private org.eclipse.californium.core.observe.Observation add(Token token,
             org.eclipse.californium.core.observe.Observation obs, boolean ifAbsent) throws ObservationStoreException {
-        String endpoint = ObserveUtil.validateCoapObservation(obs);
+        ObserveUtil.validateCoapObservation(obs);
         org.eclipse.californium.core.observe.Observation previousObservation = null;
 
         try (Jedis j = pool.getResource()) {
-            byte[] lockValue = null;
-            byte[] lockKey = toKey(LOCK_EP, endpoint);
-            try {
-                lockValue = lock.acquire(j, lockKey);
+            String registrationId = ObserveUtil.extractRegistrationId(obs);
+            byte[] tokenBytes = obs.getRequest().getToken().getBytes();
 
-                String registrationId = ObserveUtil.extractRegistrationId(obs);
-                if (!j.exists(toRegIdKey(registrationId)))
-                    throw new ObservationStoreException("no registration for this Id");
-                byte[] key = toKey(OBS_TKN, obs.getRequest().getToken().getBytes());
-                byte[] serializeObs = serializeObs(obs);
-                byte[] previousValue = null;
-                if (ifAbsent) {
-                    previousValue = j.get(key);
-                    if (previousValue == null || previousValue.length == 0) {
-                        j.set(key, serializeObs);
-                    } else {
-                        return deserializeObs(previousValue);
-                    }
-                } else {
-                    previousValue = j.getSet(key, serializeObs);
-                }
+            Object result = ADD_OBSERVATION.eval(j,
+                    keys(toRegIdKey(registrationId), toKey(OBS_TKN, tokenBytes), toObservationsKey(registrationId)),
+                    serializeObs(obs), tokenBytes, (ifAbsent ? "1" : "0").getBytes(UTF_8));
+            if (!(result instanceof List)) {
+                throw new ObservationStoreException("no registration for this Id");
+            }
 
-                // secondary index to get the list by registrationId
-                j.lpush(toKey(OBS_TKNS_REGID_IDX, registrationId), obs.getRequest().getToken().getBytes());
+            List<?> values = (List<?>) result;
+            byte[] previousValue = (byte[]) values.get(0);
+            if (previousValue != null && previousValue.length != 0) {
+                previousObservation = deserializeObs(previousValue);
+                if (ifAbsent && Long.valueOf(0L).equals(values.get(1))) {
+                    // observation was already present
+                    return previousObservation;
+                }
 
                 // log any collisions
-                if (previousValue != null && previousValue.length != 0) {
-                    previousObservation = deserializeObs(previousValue);
-                    LOG.warn(
-                            "Token collision ? observation from request [{}] will be replaced by observation from request [{}] ",
-                            previousObservation.getRequest(), obs.getRequest());
-                }
-            } finally {
-                lock.release(j, lockKey, lockValue);
+                LOG.warn(
+                        "Token collision ? observation from request [{}] will be replaced by observation from request [{}] ",
+                        previousObservation.getRequest(), obs.getRequest());
+                publishInvalidations(j, Collections.singletonList(toInvalidation(INVALIDATE_OBS, tokenBytes)));
             }
         }
         return previousObservation;
@@ -654,83 +855,69 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     @Override
     public void remove(Token token) {
         try (Jedis j = pool.getResource()) {
-            byte[] tokenKey = toKey(OBS_TKN, token.getBytes());
-
             // fetch the observation by token
-            byte[] serializedObs = j.get(tokenKey);
-            if (serializedObs == null)
+            org.eclipse.californium.core.observe.Observation obs = get(j, token);
+            if (obs == null)
                 return;
 
-            org.eclipse.californium.core.observe.Observation obs = deserializeObs(serializedObs);
-            String registrationId = ObserveUtil.extractRegistrationId(obs);
-            Registration registration = getRegistration(j, registrationId);
-            if (registration == null) {
-                LOG.warn("Unable to remove observation {}, registration {} does not exist anymore", obs.getRequest(),
-                        registrationId);
-                return;
-            }
-
-            String endpoint = registration.getEndpoint();
-            byte[] lockValue = null;
-            byte[] lockKey = toKey(LOCK_EP, endpoint);
-            try {
-                lockValue = lock.acquire(j, lockKey);
-
-                unsafeRemoveObservation(j, registrationId, token.getBytes());
-            } finally {
-                lock.release(j, lockKey, lockValue);
-            }
+            deleteObservation(j, ObserveUtil.extractRegistrationId(obs), token.getBytes());
         }
-
     }
 
     @Override
     public org.eclipse.californium.core.observe.Observation get(Token token) {
+        NearCache<Token, org.eclipse.californium.core.observe.Observation> cache = observationCache;
+        if (cache != null) {
+            org.eclipse.californium.core.observe.Observation observation = cache.get(token);
+            if (observation != null)
+                return observation;
+        }
+
+        Object version = cache != null ? cache.getVersion(token) : null;
         try (Jedis j = pool.getResource()) {
-            byte[] obs = j.get(toKey(OBS_TKN, token.getBytes()));
-            if (obs == null) {
-                return null;
-            } else {
-                return deserializeObs(obs);
-            }
+            org.eclipse.californium.core.observe.Observation observation = get(j, token);
+            if (cache != null)
+                cache.put(token, observation, version);
+            return observation;
         }
     }
 
     /* *************** Observation utility functions **************** */
 
-    private Registration getRegistration(Jedis j, String registrationId) {
-        byte[] ep = j.get(toRegIdKey(registrationId));
-        if (ep == null) {
+    private org.eclipse.californium.core.observe.Observation get(Jedis j, Token token) {
+        byte[] obs = j.get(toKey(OBS_TKN, token.getBytes()));
+        if (obs == null) {
             return null;
+        } else {
+            return deserializeObs(obs);
         }
-        byte[] data = j.get(toEndpointKey(ep));
+    }
+
+    private Registration getRegistration(Jedis j, String registrationId) {
+        return getRegistrationByIndex(j, toRegIdKey(registrationId));
+    }
+
+    private Registration getRegistrationByIndex(Jedis j, byte[] indexKey) {
+        byte[] data = (byte[]) GET_BY_INDEX.eval(j, keys(indexKey), REG_EP.getBytes(UTF_8));
         if (data == null) {
             return null;
         }
-
         return deserializeReg(data);
     }
 
-    private void unsafeRemoveObservation(Jedis j, String registrationId, byte[] observationId) {
-        if (j.del(toKey(OBS_TKN, observationId)) > 0L) {
-            j.lrem(toKey(OBS_TKNS_REGID_IDX, registrationId), 0, observationId);
-        }
+    private void deleteObservation(Jedis j, String registrationId, byte[] observationId) {
+        REMOVE_OBSERVATION.eval(j, keys(toKey(OBS_TKN, observationId), toObservationsKey(registrationId)),
+                observationId);
+        publishInvalidations(j, Collections.singletonList(toInvalidation(INVALIDATE_OBS, observationId)));
     }
 
-    private Collection<Observation> unsafeRemoveAllObservations(Jedis j, String registrationId) {
+    private Collection<Observation> removeAllObservations(Jedis j, String registrationId) {
         Collection<Observation> removed = new ArrayList<>();
-        byte[] regIdKey = toKey(OBS_TKNS_REGID_IDX, registrationId);
-
-        // fetch all observations by token
-        for (byte[] token : j.lrange(regIdKey, 0, -1)) {
-            byte[] obs = j.get(toKey(OBS_TKN, token));
-            if (obs != null) {
-                removed.add(build(deserializeObs(obs)));
-            }
-            j.del(toKey(OBS_TKN, token));
+        List<?> observations = (List<?>) REMOVE_ALL_OBSERVATIONS.eval(j, keys(toObservationsKey(registrationId)),
+                OBS_TKN);
+        for (Object obs : observations) {
+            removed.add(build(deserializeObs((byte[]) obs)));
         }
-        j.del(regIdKey);
-
         return removed;
     }
 
@@ -740,11 +927,11 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     }
 
     private byte[] serializeObs(org.eclipse.californium.core.observe.Observation obs) {
-        return ObservationSerDes.serialize(obs);
+        return serDes.serializeObservation(obs);
     }
 
     private org.eclipse.californium.core.observe.Observation deserializeObs(byte[] data) {
-        return ObservationSerDes.deserialize(data);
+        return serDes.deserializeObservation(data);
     }
 
     private Observation build(org.eclipse.californium.core.observe.Observation cfObs) {
@@ -764,6 +951,10 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
         if (!started) {
             started = true;
             cleanerTask = schedExecutor.scheduleAtFixedRate(new Cleaner(), cleanPeriod, cleanPeriod, TimeUnit.SECONDS);
+            if (invalidationExecutor != null) {
+                invalidationSubscriber = new InvalidationSubscriber();
+                invalidationExecutor.execute(invalidationSubscriber);
+            }
         }
     }
 
@@ -778,6 +969,10 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
                 cleanerTask.cancel(false);
                 cleanerTask = null;
             }
+            if (invalidationSubscriber != null) {
+                invalidationSubscriber.stop();
+                invalidationSubscriber = null;
+            }
         }
     }
 
@@ -787,7 +982,14 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
     @Override
     public synchronized void destroy() {
         started = false;
+        if (invalidationSubscriber != null) {
+            invalidationSubscriber.stop();
+            invalidationSubscriber = null;
+        }
         schedExecutor.shutdownNow();
+        if (invalidationExecutor != null) {
+            invalidationExecutor.shutdownNow();
+        }
         try {
             schedExecutor.awaitTermination(5, TimeUnit.SECONDS);
         } catch (InterruptedException e) {
@@ -801,23 +1003,211 @@ public class RedisRegistrationStore implements CaliforniumRegistrationStore, Sta
         public void run() {
 
             try (Jedis j = pool.getResource()) {
-                Set<byte[]> endpointsExpired = j.zrangeByScore(EXP_EP, Double.NEGATIVE_INFINITY,
-                        System.currentTimeMillis(), 0, cleanLimit);
-
-                for (byte[] endpoint : endpointsExpired) {
-                    Registration r = deserializeReg(j.get(toEndpointKey(endpoint)));
-                    if (!r.isAlive(gracePeriod)) {
-                        Deregistration dereg = removeRegistration(j, r.getId(), true);
-                        if (dereg != null)
-                            expirationListener.registrationExpired(dereg.getRegistration(), dereg.getObservations());
+                // process batches until there is no more expired registration, as after a network outage a lot of
+                // registrations could expire at the same time.
+                int processed;
+                List<Deregistration> deregistrations;
+                do {
+                    deregistrations = new ArrayList<>();
+                    processed = removeExpiredRegistrations(j, System.currentTimeMillis(), deregistrations);
+                    if (!deregistrations.isEmpty()) {
+                        invalidate(j, deregistrations);
+                        notifyExpiration(deregistrations);
                     }
-                }
+                } while (processed >= cleanLimit && !Thread.currentThread().isInterrupted());
             } catch (Exception e) {
                 LOG.warn("Unexpected Exception while registration cleaning", e);
             }
         }
     }
 
+    /**
+     * Remove at most cleanLimit registrations expired at the given time. The whole batch is removed by one
+     * Lua script.
+     * 
+     * @return the number of expired endpoints processed.
+     */
+    private int removeExpiredRegistrations(Jedis j, long now, List<Deregistration> deregistrations) {
+        List<?> result = (List<?>) EXPIRE_REGISTRATIONS.eval(j, keys(EXP_EP),
+                Long.toString(now).getBytes(UTF_8), Integer.toString(cleanLimit).getBytes(UTF_8),
+                REG_EP.getBytes(UTF_8), REG_EP_IDX_KEYS.getBytes(UTF_8), OBS_TKN);
+
+        for (int i = 1; i < result.size(); i++) {
+            List<?> removed = (List<?>) result.get(i);
+            Registration r = deserializeReg((byte[]) removed.get(0));
+            if (isCleaned(removed)) {
+                deregistrations.add(new Deregistration(r, toObservations(removed)));
+            } else {
+                // registration was stored without the keys of its secondary indexes
+                Deregistration dereg = removeLegacyRegistration(j, r, (byte[]) removed.get(0));
+                if (dereg != null)
+                    deregistrations.add(dereg);
+            }
+        }
+        return ((Long) result.get(0)).intValue();
+    }
+
+    /**
+     * Remove an expired registration stored without the keys of its secondary indexes. It was already removed from the
+     * expiration set, so it is only removed if it was not modified since.
+     */
+    private Deregistration removeLegacyRegistration(Jedis j, Registration r, byte[] data) {
+        Deregistration dereg = removeRegistration(j, r.getId(), data);
+        if (dereg == null) {
+            // registration id index is missing too, remove what is left of the registration
+            Long deleted = (Long) DEL_IF_EQUALS.eval(j, keys(toEndpointKey(r.getEndpoint())), data);
+            if (deleted == 1L) {
+                j.del(toIndexKeysKey(r.getEndpoint().getBytes(UTF_8)));
+                removeAddrIndex(j, r);
+                removeIdentityIndex(j, r);
+                dereg = new Deregistration(r, Collections.<Observation> emptyList());
+            }
+        }
+        return dereg;
+    }
+
+    private void notifyExpiration(List<Deregistration> deregistrations) {
+        if (expirationListener instanceof BatchExpirationListener) {
+            ((BatchExpirationListener) expirationListener).registrationsExpired(deregistrations);
+        } else {
+            for (Deregistration dereg : deregistrations) {
+                expirationListener.registrationExpired(dereg.getRegistration(), dereg.getObservations());
+            }
+        }
+    }
+
+    /* *************** Near cache invalidation **************** */
+
+    private static byte[] toInvalidation(byte type, byte[] id) {
+        byte[] message = new byte[id.length + 1];
+        message[0] = type;
+        System.arraycopy(id, 0, message, 1, id.length);
+        return message;
+    }
+
+    private void invalidate(Jedis j, Collection<Deregistration> deregistrations) {
+        List<byte[]> invalidations = new ArrayList<>();
+        for (Deregistration deregistration : deregistrations) {
+            invalidations.add(toInvalidation(INVALIDATE_REG, deregistration.getRegistration().getId().getBytes(UTF_8)));
+            for (Observation observation : deregistration.getObservations()) {
+                invalidations.add(toInvalidation(INVALIDATE_OBS, observation.getId()));
+            }
+        }
+        publishInvalidations(j, invalidations);
+    }
+
+    /**
+     * Invalidate the local near cache and publish the invalidations to other stores. Invalidations are published even
+     * if the near cache is not enabled on this store, as it could be enabled on other ones.
+     */
+    private void publishInvalidations(Jedis j, List<byte[]> invalidations) {
+        if (invalidations.isEmpty())
+            return;
+
+        for (byte[] invalidation : invalidations) {
+            applyInvalidation(invalidation);
+        }
+        if (invalidations.size() == 1) {
+            j.publish(INVALIDATION_CHANNEL, invalidations.get(0));
+        } else {
+            Pipeline pipeline = j.pipelined();
+            for (byte[] invalidation : invalidations) {
+                pipeline.publish(INVALIDATION_CHANNEL, invalidation);
+            }
+            pipeline.sync();
+        }
+    }
+
+    private void applyInvalidation(byte[] invalidation) {
+        if (registrationCache == null || invalidation.length == 0)
+            return;
+
+        switch (invalidation[0]) {
+        case INVALIDATE_REG:
+            registrationCache.invalidate(new String(invalidation, 1, invalidation.length - 1, UTF_8));
+            break;
+        case INVALIDATE_OBS:
+            observationCache.invalidate(new Token(Arrays.copyOfRange(invalidation, 1, invalidation.length)));
+            break;
+        default:
+            LOG.warn("Unexpected near cache invalidation message of type {}", invalidation[0]);
+        }
+    }
+
+    private void setNearCacheEnabled(boolean enabled) {
+        registrationCache.setEnabled(enabled);
+        observationCache.setEnabled(enabled);
+    }
+
+    /**
+     * Listen to invalidation messages. The near cache is only enabled while subscribed, as invalidations could be
+     * missed otherwise.
+     */
+    private class InvalidationSubscriber implements Runnable {
+
+        private final Object subscriptionLock = new Object();
+        private boolean running = true;
+        private BinaryJedisPubSub subscription;
+
+        @Override
+        public void run() {
+            while (isRunning()) {
+                try (Jedis j = pool.getResource()) {
+                    j.subscribe(new BinaryJedisPubSub() {
+                        @Override
+                        public void onSubscribe(byte[] channel, int subscribedChannels) {
+                            synchronized (subscriptionLock) {
+                                if (!running) {
+                                    unsubscribe();
+                                    return;
+                                }
+                                subscription = this;
+                            }
+                            setNearCacheEnabled(true);
+                        }
+
+                        @Override
+                        public void onMessage(byte[] channel, byte[] message) {
+                            applyInvalidation(message);
+                        }
+                    }, INVALIDATION_CHANNEL);
+                } catch (RuntimeException e) {
+                    if (isRunning())
+                        LOG.warn("Near cache invalidation subscription lost, near cache is disabled until restored", e);
+                } finally {
+                    synchronized (subscriptionLock) {
+                        subscription = null;
+                    }
+                    setNearCacheEnabled(false);
+                }
+
+                if (isRunning()) {
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        private boolean isRunning() {
+            synchronized (subscriptionLock) {
+                return running && !Thread.currentThread().isInterrupted();
+            }
+        }
+
+        public void stop() {
+            synchronized (subscriptionLock) {
+                running = false;
+                if (subscription != null) {
+                    subscription.unsubscribe();
+                    subscription = null;
+                }
+            }
+        }
+    }
+
     @Override
     public void setExpirationListener(ExpirationListener listener) {
         expirationListener = listener;
@@ -0,0 +1,106 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+
+/**
+ * Read data written by {@link CompactOutput}.
+ */
+class CompactInput {
+
+    private final byte[] data;
+    private int position;
+
+    /**
+     * Create an input for data written by {@link CompactOutput}, reading and checking its format header.
+     */
+    public CompactInput(byte[] data) {
+        this.data = data;
+        this.position = 0;
+        int header = readByte();
+        if (header != CompactOutput.HEADER) {
+            throw new IllegalArgumentException(
+                    String.format("Unsupported compact format version %d", header & ~CompactOutput.COMPACT_FLAG));
+        }
+    }
+
+    /**
+     * @return true if the data was written by {@link CompactOutput}, false if it is JSON.
+     */
+    public static boolean isCompact(byte[] data) {
+        // a JSON object always starts with an ASCII character
+        return data.length > 0 && (data[0] & CompactOutput.COMPACT_FLAG) != 0;
+    }
+
+    private void require(int length) {
+        if (length < 0 || position + length > data.length) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid compact data : %d bytes expected at position %d", length, position));
+        }
+    }
+
+    public int readByte() {
+        require(1);
+        return data[position++] & 0xFF;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Invalid compact data : varint is too long");
+    }
+
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    public byte[] readBytes() {
+        int length = readVarInt();
+        require(length);
+        byte[] value = Arrays.copyOfRange(data, position, position + length);
+        position += length;
+        return value;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        return readString(length);
+    }
+
+    public String readNullableString() {
+        int length = readVarInt();
+        if (length == 0) {
+            return null;
+        }
+        return readString(length - 1);
+    }
+
+    private String readString(int length) {
+        require(length);
+        String value = new String(data, position, length, UTF_8);
+        position += length;
+        return value;
+    }
+}
@@ -0,0 +1,101 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer used to write the compact binary format.
+ * <p>
+ * Integers are written as unsigned varints (7 bits by byte, least significant group first), byte arrays and strings
+ * are prefixed by their length. A nullable string is prefixed by its length + 1, 0 meaning <code>null</code>.
+ *
+ * @see CompactInput
+ */
+class CompactOutput {
+
+    // first byte of compact data : a flag which can not start JSON data and the format version
+    static final int COMPACT_FLAG = 0x80;
+    static final int VERSION = 1;
+    static final int HEADER = COMPACT_FLAG | VERSION;
+
+    private byte[] buffer;
+    private int size = 0;
+
+    /**
+     * Create an output starting with the format header.
+     */
+    public CompactOutput(int initialCapacity) {
+        buffer = new byte[Math.max(initialCapacity, 1)];
+        writeByte(HEADER);
+    }
+
+    private void ensureCapacity(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+
+    public CompactOutput writeByte(int b) {
+        ensureCapacity(1);
+        buffer[size++] = (byte) b;
+        return this;
+    }
+
+    public CompactOutput writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[size++] = (byte) value;
+        return this;
+    }
+
+    public CompactOutput writeVarInt(int value) {
+        return writeVarLong(value & 0xFFFFFFFFL);
+    }
+
+    public CompactOutput writeBytes(byte[] value) {
+        writeVarInt(value.length);
+        ensureCapacity(value.length);
+        System.arraycopy(value, 0, buffer, size, value.length);
+        size += value.length;
+        return this;
+    }
+
+    public CompactOutput writeString(String value) {
+        return writeBytes(value.getBytes(UTF_8));
+    }
+
+    public CompactOutput writeNullableString(String value) {
+        if (value == null) {
+            return writeVarInt(0);
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        writeVarInt(bytes.length + 1);
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+        return this;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+}
@@ -0,0 +1,56 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import org.eclipse.californium.core.observe.Observation;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * A {@link RegistrationStoreSerDes} writing a compact binary format (see {@link RegistrationCompactSerDes} and
+ * {@link ObservationCompactSerDes}), smaller and faster to decode than JSON.
+ * <p>
+ * Data previously written in JSON is still readable, so an existing Redis database can be migrated progressively :
+ * each registration or observation is written in the compact format the next time it is modified. All the servers
+ * sharing the same Redis must be able to read the compact format before using it.
+ */
+public class CompactRegistrationStoreSerDes implements RegistrationStoreSerDes {
+
+    @Override
+    public byte[] serializeRegistration(Registration registration) {
+        return RegistrationCompactSerDes.serialize(registration);
+    }
+
+    @Override
+    public Registration deserializeRegistration(byte[] data) {
+        if (CompactInput.isCompact(data)) {
+            return RegistrationCompactSerDes.deserialize(data);
+        }
+        return RegistrationSerDes.deserialize(data);
+    }
+
+    @Override
+    public byte[] serializeObservation(Observation observation) {
+        return ObservationCompactSerDes.serialize(observation);
+    }
+
+    @Override
+    public Observation deserializeObservation(byte[] data) {
+        if (CompactInput.isCompact(data)) {
+            return ObservationCompactSerDes.deserialize(data);
+        }
+        return ObservationSerDes.deserialize(data);
+    }
+}
@@ -79,11 +79,7 @@ public class EndpointContextSerDes {
             JsonObject attContext = Json.object();
             for (String key : attributes.keySet()) {
                 // write all values as string
-                Object value = attributes.get(key);
-                if (value instanceof Bytes) {
-                    value = ((Bytes) value).getAsString();
-                }
-                attContext.set(key, value.toString());
+                attContext.set(key, attributeToString(attributes.get(key)));
             }
             peer.set(KEY_ATTRIBUTES, attContext);
         }
@@ -120,29 +116,38 @@ public class EndpointContextSerDes {
         } else {
             Attributes attributes = new Attributes();
             for (Member member : value.asObject()) {
-                String name = member.getName();
-                String attributeValue = member.getValue().asString();
-                // convert the text values into typed values according their name
-                if (name.equals(UdpEndpointContext.KEY_PLAIN)) {
-                    attributes.add(name, attributeValue);
-                } else if (name.equals(DtlsEndpointContext.KEY_SESSION_ID)) {
-                    attributes.add(name, new SessionId(StringUtil.hex2ByteArray(attributeValue)));
-                } else if (name.equals(DtlsEndpointContext.KEY_EPOCH)) {
-                    attributes.add(name, Integer.parseInt(attributeValue));
-                } else if (name.equals(DtlsEndpointContext.KEY_CIPHER)) {
-                    attributes.add(name, attributeValue);
-                } else if (name.equals(DtlsEndpointContext.KEY_HANDSHAKE_TIMESTAMP)) {
-                    attributes.add(name, Long.parseLong(attributeValue));
-                } else if (name.equals(DtlsEndpointContext.KEY_READ_CONNECTION_ID)) {
-                    attributes.add(name, new ConnectionId(StringUtil.hex2ByteArray(attributeValue)));
-                } else if (name.equals(DtlsEndpointContext.KEY_WRITE_CONNECTION_ID)) {
-                    attributes.add(name, new ConnectionId(StringUtil.hex2ByteArray(attributeValue)));
-                }
-                attributes.add(name, attributeValue);
+                addAttribute(attributes, member.getName(), member.getValue().asString());
             }
             endpointContext = new MapBasedEndpointContext(socketAddress, principal, attributes);
         }
         return endpointContext;
     }
 
+    static String attributeToString(Object value) {
+        if (value instanceof Bytes) {
+            return ((Bytes) value).getAsString();
+        }
+        return value.toString();
+    }
+
+    static void addAttribute(Attributes attributes, String name, String attributeValue) {
+        // convert the text values into typed values according their name
+        if (name.equals(UdpEndpointContext.KEY_PLAIN)) {
+            attributes.add(name, attributeValue);
+        } else if (name.equals(DtlsEndpointContext.KEY_SESSION_ID)) {
+            attributes.add(name, new SessionId(StringUtil.hex2ByteArray(attributeValue)));
+        } else if (name.equals(DtlsEndpointContext.KEY_EPOCH)) {
+            attributes.add(name, Integer.parseInt(attributeValue));
+        } else if (name.equals(DtlsEndpointContext.KEY_CIPHER)) {
+            attributes.add(name, attributeValue);
+        } else if (name.equals(DtlsEndpointContext.KEY_HANDSHAKE_TIMESTAMP)) {
+            attributes.add(name, Long.parseLong(attributeValue));
+        } else if (name.equals(DtlsEndpointContext.KEY_READ_CONNECTION_ID)) {
+            attributes.add(name, new ConnectionId(StringUtil.hex2ByteArray(attributeValue)));
+        } else if (name.equals(DtlsEndpointContext.KEY_WRITE_CONNECTION_ID)) {
+            attributes.add(name, new ConnectionId(StringUtil.hex2ByteArray(attributeValue)));
+        }
+        attributes.add(name, attributeValue);
+    }
+
 }
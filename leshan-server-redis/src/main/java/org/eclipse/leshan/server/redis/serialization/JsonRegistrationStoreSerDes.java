@@ -0,0 +1,53 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import org.eclipse.californium.core.observe.Observation;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * A {@link RegistrationStoreSerDes} writing JSON (see {@link RegistrationSerDes} and {@link ObservationSerDes}).
+ * <p>
+ * This is the default format. Data written in the compact format is still readable, so a store can go back to JSON.
+ */
+public class JsonRegistrationStoreSerDes implements RegistrationStoreSerDes {
+
+    @Override
+    public byte[] serializeRegistration(Registration registration) {
+        return RegistrationSerDes.bSerialize(registration);
+    }
+
+    @Override
+    public Registration deserializeRegistration(byte[] data) {
+        if (CompactInput.isCompact(data)) {
+            return RegistrationCompactSerDes.deserialize(data);
+        }
+        return RegistrationSerDes.deserialize(data);
+    }
+
+    @Override
+    public byte[] serializeObservation(Observation observation) {
+        return ObservationSerDes.serialize(observation);
+    }
+
+    @Override
+    public Observation deserializeObservation(byte[] data) {
+        if (CompactInput.isCompact(data)) {
+            return ObservationCompactSerDes.deserialize(data);
+        }
+        return ObservationSerDes.deserialize(data);
+    }
+}
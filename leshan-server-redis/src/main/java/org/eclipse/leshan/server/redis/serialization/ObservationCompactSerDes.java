@@ -0,0 +1,165 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import java.net.InetSocketAddress;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import javax.security.auth.x500.X500Principal;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.network.serialization.DataParser;
+import org.eclipse.californium.core.network.serialization.DataSerializer;
+import org.eclipse.californium.core.network.serialization.UdpDataParser;
+import org.eclipse.californium.core.network.serialization.UdpDataSerializer;
+import org.eclipse.californium.core.observe.Observation;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.EndpointContext;
+import org.eclipse.californium.elements.MapBasedEndpointContext;
+import org.eclipse.californium.elements.MapBasedEndpointContext.Attributes;
+import org.eclipse.californium.elements.auth.PreSharedKeyIdentity;
+import org.eclipse.californium.elements.auth.RawPublicKeyIdentity;
+import org.eclipse.californium.elements.auth.X509CertPath;
+
+/**
+ * Functions for serializing and deserializing a Californium {@link Observation} in a compact binary format.
+ * <p>
+ * The embedded CoAP request is stored as raw bytes using the Californium network serialization instead of an hex
+ * string as done by {@link ObservationSerDes}.
+ */
+public class ObservationCompactSerDes {
+
+    private static final DataSerializer serializer = new UdpDataSerializer();
+    private static final DataParser parser = new UdpDataParser();
+
+    private static final int PRINCIPAL_NONE = 0;
+    private static final int PRINCIPAL_PSK = 1;
+    private static final int PRINCIPAL_RPK = 2;
+    private static final int PRINCIPAL_DN = 3;
+
+    public static byte[] serialize(Observation obs) {
+        byte[] request = serializer.serializeRequest(obs.getRequest()).bytes;
+        CompactOutput out = new CompactOutput(request.length + 128);
+
+        out.writeBytes(request);
+        writeEndpointContext(out,
+                obs.getContext() != null ? obs.getContext() : obs.getRequest().getDestinationContext());
+
+        Map<String, String> userContext = obs.getRequest().getUserContext();
+        if (userContext == null) {
+            out.writeVarInt(0);
+        } else {
+            out.writeVarInt(userContext.size() + 1);
+            for (Entry<String, String> e : userContext.entrySet()) {
+                out.writeString(e.getKey());
+                out.writeNullableString(e.getValue());
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static Observation deserialize(byte[] data) {
+        CompactInput in = new CompactInput(data);
+
+        Request request = (Request) parser.parseMessage(in.readBytes());
+        EndpointContext endpointContext = readEndpointContext(in);
+        request.setDestinationContext(endpointContext);
+
+        int userContextSize = in.readVarInt();
+        if (userContextSize > 0) {
+            Map<String, String> context = new HashMap<>();
+            for (int i = 0; i < userContextSize - 1; i++) {
+                context.put(in.readString(), in.readNullableString());
+            }
+            request.setUserContext(context);
+        }
+
+        return new Observation(request, endpointContext);
+    }
+
+    private static void writeEndpointContext(CompactOutput out, EndpointContext context) {
+        out.writeString(context.getPeerAddress().getHostString());
+        out.writeVarInt(context.getPeerAddress().getPort());
+
+        Principal principal = context.getPeerIdentity();
+        if (principal instanceof PreSharedKeyIdentity) {
+            out.writeByte(PRINCIPAL_PSK);
+            out.writeString(((PreSharedKeyIdentity) principal).getIdentity());
+        } else if (principal instanceof RawPublicKeyIdentity) {
+            out.writeByte(PRINCIPAL_RPK);
+            out.writeBytes(((RawPublicKeyIdentity) principal).getKey().getEncoded());
+        } else if (principal instanceof X500Principal || principal instanceof X509CertPath) {
+            out.writeByte(PRINCIPAL_DN);
+            out.writeString(principal.getName());
+        } else {
+            out.writeByte(PRINCIPAL_NONE);
+        }
+
+        Map<String, Object> attributes = context.entries();
+        out.writeVarInt(attributes.size());
+        for (Entry<String, Object> attribute : attributes.entrySet()) {
+            out.writeString(attribute.getKey());
+            out.writeString(EndpointContextSerDes.attributeToString(attribute.getValue()));
+        }
+    }
+
+    private static EndpointContext readEndpointContext(CompactInput in) {
+        InetSocketAddress socketAddress = new InetSocketAddress(in.readString(), in.readVarInt());
+
+        Principal principal;
+        int principalType = in.readByte();
+        switch (principalType) {
+        case PRINCIPAL_NONE:
+            principal = null;
+            break;
+        case PRINCIPAL_PSK:
+            principal = new PreSharedKeyIdentity(in.readString());
+            break;
+        case PRINCIPAL_RPK:
+            try {
+                X509EncodedKeySpec spec = new X509EncodedKeySpec(in.readBytes());
+                PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(spec);
+                principal = new RawPublicKeyIdentity(publicKey);
+            } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Invalid security info content", e);
+            }
+            break;
+        case PRINCIPAL_DN:
+            principal = new X500Principal(in.readString());
+            break;
+        default:
+            throw new IllegalArgumentException("Invalid compact data : unknown principal type " + principalType);
+        }
+
+        int nbAttributes = in.readVarInt();
+        if (nbAttributes == 0) {
+            return new AddressEndpointContext(socketAddress, principal);
+        }
+        Attributes attributes = new Attributes();
+        for (int i = 0; i < nbAttributes; i++) {
+            EndpointContextSerDes.addAttribute(attributes, in.readString(), in.readString());
+        }
+        return new MapBasedEndpointContext(socketAddress, principal, attributes);
+    }
+}
@@ -0,0 +1,283 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import java.net.InetSocketAddress;
+import java.security.KeyFactory;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.security.spec.InvalidKeySpecException;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.LwM2m.Version;
+import org.eclipse.leshan.core.attributes.Attribute;
+import org.eclipse.leshan.core.node.LwM2mPath;
+import org.eclipse.leshan.core.request.BindingMode;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Functions for serialize and deserialize a Registration in a compact binary format.
+ * <p>
+ * Compared to the JSON format of {@link RegistrationSerDes}, integers are written as varints and object links are
+ * written as a table where attribute keys are only written once: well-known keys are replaced by their index in
+ * {@link #WELL_KNOWN_KEYS} and other keys are written once in a key table.
+ */
+public class RegistrationCompactSerDes {
+
+    // Index of a key is part of the format : new keys must only be added at the end.
+    private static final String[] WELL_KNOWN_KEYS = { "rt", "ct", Attribute.OBJECT_VERSION, Attribute.DIMENSION,
+            Attribute.MINIMUM_PERIOD, Attribute.MAXIMUM_PERIOD, Attribute.GREATER_THAN, Attribute.LESSER_THAN,
+            Attribute.STEP, Attribute.EVALUATE_MINIMUM_PERIOD, Attribute.EVALUATE_MAXIMUM_PERIOD, "ssid", "uri", "obs",
+            "if", "title" };
+    private static final Map<String, Integer> WELL_KNOWN_KEY_INDEXES = new HashMap<>();
+    static {
+        for (int i = 0; i < WELL_KNOWN_KEYS.length; i++) {
+            WELL_KNOWN_KEY_INDEXES.put(WELL_KNOWN_KEYS[i], i);
+        }
+    }
+
+    private static final int IDENTITY_UNSECURE = 0;
+    private static final int IDENTITY_PSK = 1;
+    private static final int IDENTITY_RPK = 2;
+    private static final int IDENTITY_X509 = 3;
+
+    public static byte[] serialize(Registration r) {
+        Link[] objectLinks = r.getObjectLinks();
+        CompactOutput out = new CompactOutput(128 + (objectLinks == null ? 0 : objectLinks.length * 16));
+
+        out.writeString(r.getId());
+        out.writeString(r.getEndpoint());
+        writeIdentity(out, r.getIdentity());
+        out.writeVarLong(r.getRegistrationDate().getTime());
+        out.writeVarLong(r.getLastUpdate().getTime());
+        out.writeVarLong(r.getLifeTimeInSec());
+        out.writeNullableString(r.getSmsNumber());
+        out.writeString(r.getLwM2mVersion().toString());
+        out.writeString(BindingMode.toString(r.getBindingMode()));
+        out.writeByte(r.getQueueMode() == null ? 0 : r.getQueueMode() ? 2 : 1);
+        out.writeString(r.getRootPath());
+
+        writeObjectLinks(out, objectLinks);
+        writeMap(out, r.getAdditionalRegistrationAttributes());
+
+        Set<ContentFormat> supportedContentFormats = r.getSupportedContentFormats();
+        out.writeVarInt(supportedContentFormats.size());
+        for (ContentFormat contentFormat : supportedContentFormats) {
+            out.writeVarInt(contentFormat.getCode());
+        }
+
+        Map<Integer, String> supportedObjects = r.getSupportedObject();
+        out.writeVarInt(supportedObjects.size());
+        for (Entry<Integer, String> supportedObject : supportedObjects.entrySet()) {
+            out.writeVarInt(supportedObject.getKey());
+            out.writeString(supportedObject.getValue());
+        }
+
+        Set<LwM2mPath> availableInstances = r.getAvailableInstances();
+        out.writeVarInt(availableInstances.size());
+        for (LwM2mPath instance : availableInstances) {
+            out.writeVarInt(instance.getObjectId());
+            out.writeVarInt(instance.getObjectInstanceId());
+        }
+
+        writeMap(out, r.getApplicationData());
+        return out.toByteArray();
+    }
+
+    public static Registration deserialize(byte[] data) {
+        CompactInput in = new CompactInput(data);
+
+        String registrationId = in.readString();
+        String endpoint = in.readString();
+        Registration.Builder b = new Registration.Builder(registrationId, endpoint, readIdentity(in));
+        b.registrationDate(new Date(in.readVarLong()));
+        b.lastUpdate(new Date(in.readVarLong()));
+        b.lifeTimeInSec(in.readVarLong());
+        b.smsNumber(in.readNullableString());
+        b.lwM2mVersion(Version.get(in.readString()));
+        b.bindingMode(BindingMode.parse(in.readString()));
+        int queueMode = in.readByte();
+        if (queueMode != 0)
+            b.queueMode(queueMode == 2);
+        b.rootPath(in.readString());
+
+        b.objectLinks(readObjectLinks(in));
+        b.additionalRegistrationAttributes(readMap(in));
+
+        int nbContentFormats = in.readVarInt();
+        Set<ContentFormat> supportedContentFormats = new HashSet<>(nbContentFormats * 2);
+        for (int i = 0; i < nbContentFormats; i++) {
+            supportedContentFormats.add(ContentFormat.fromCode(in.readVarInt()));
+        }
+        b.supportedContentFormats(supportedContentFormats);
+
+        int nbSupportedObjects = in.readVarInt();
+        Map<Integer, String> supportedObjects = new HashMap<>(nbSupportedObjects * 2);
+        for (int i = 0; i < nbSupportedObjects; i++) {
+            supportedObjects.put(in.readVarInt(), in.readString());
+        }
+        b.supportedObjects(supportedObjects);
+
+        int nbAvailableInstances = in.readVarInt();
+        Set<LwM2mPath> availableInstances = new HashSet<>(nbAvailableInstances * 2);
+        for (int i = 0; i < nbAvailableInstances; i++) {
+            availableInstances.add(new LwM2mPath(in.readVarInt(), in.readVarInt()));
+        }
+        b.availableInstances(availableInstances);
+
+        b.applicationData(readMap(in));
+        return b.build();
+    }
+
+    private static void writeObjectLinks(CompactOutput out, Link[] links) {
+        if (links == null) {
+            // no key and no link
+            out.writeVarInt(0);
+            out.writeVarInt(0);
+            return;
+        }
+
+        // key table : keys which are not well-known are written only once
+        Map<String, Integer> keyIndexes = new LinkedHashMap<>();
+        for (Link link : links) {
+            for (String key : link.getAttributes().keySet()) {
+                if (!keyIndexes.containsKey(key) && !WELL_KNOWN_KEY_INDEXES.containsKey(key)) {
+                    keyIndexes.put(key, WELL_KNOWN_KEYS.length + keyIndexes.size());
+                }
+            }
+        }
+        out.writeVarInt(keyIndexes.size());
+        for (String key : keyIndexes.keySet()) {
+            out.writeString(key);
+        }
+
+        // link table
+        out.writeVarInt(links.length);
+        for (Link link : links) {
+            out.writeString(link.getUrl());
+            Map<String, String> attributes = link.getAttributes();
+            out.writeVarInt(attributes.size());
+            for (Entry<String, String> attribute : attributes.entrySet()) {
+                Integer index = WELL_KNOWN_KEY_INDEXES.get(attribute.getKey());
+                out.writeVarInt(index != null ? index : keyIndexes.get(attribute.getKey()));
+                out.writeNullableString(attribute.getValue());
+            }
+        }
+    }
+
+    private static Link[] readObjectLinks(CompactInput in) {
+        int nbKeys = in.readVarInt();
+        if (nbKeys < 0)
+            throw new IllegalArgumentException("Invalid compact data : negative number of keys");
+        String[] keys = new String[WELL_KNOWN_KEYS.length + nbKeys];
+        System.arraycopy(WELL_KNOWN_KEYS, 0, keys, 0, WELL_KNOWN_KEYS.length);
+        for (int i = WELL_KNOWN_KEYS.length; i < keys.length; i++) {
+            keys[i] = in.readString();
+        }
+
+        int nbLinks = in.readVarInt();
+        if (nbLinks < 0)
+            throw new IllegalArgumentException("Invalid compact data : negative number of links");
+        Link[] links = new Link[nbLinks];
+        for (int i = 0; i < nbLinks; i++) {
+            String url = in.readString();
+            int nbAttributes = in.readVarInt();
+            Map<String, String> attributes = null;
+            if (nbAttributes > 0) {
+                attributes = new HashMap<>(nbAttributes * 2);
+                for (int j = 0; j < nbAttributes; j++) {
+                    int keyIndex = in.readVarInt();
+                    if (keyIndex < 0 || keyIndex >= keys.length)
+                        throw new IllegalArgumentException("Invalid compact data : unknown attribute key " + keyIndex);
+                    attributes.put(keys[keyIndex], in.readNullableString());
+                }
+            }
+            links[i] = new Link(url, attributes);
+        }
+        return links;
+    }
+
+    private static void writeMap(CompactOutput out, Map<String, String> map) {
+        out.writeVarInt(map.size());
+        for (Entry<String, String> entry : map.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeNullableString(entry.getValue());
+        }
+    }
+
+    private static Map<String, String> readMap(CompactInput in) {
+        int size = in.readVarInt();
+        Map<String, String> map = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            map.put(in.readString(), in.readNullableString());
+        }
+        return map;
+    }
+
+    private static void writeIdentity(CompactOutput out, Identity identity) {
+        if (identity.isPSK()) {
+            out.writeByte(IDENTITY_PSK);
+        } else if (identity.isRPK()) {
+            out.writeByte(IDENTITY_RPK);
+        } else if (identity.isX509()) {
+            out.writeByte(IDENTITY_X509);
+        } else {
+            out.writeByte(IDENTITY_UNSECURE);
+        }
+        out.writeString(identity.getPeerAddress().getHostString());
+        out.writeVarInt(identity.getPeerAddress().getPort());
+        if (identity.isPSK()) {
+            out.writeString(identity.getPskIdentity());
+        } else if (identity.isRPK()) {
+            out.writeBytes(identity.getRawPublicKey().getEncoded());
+        } else if (identity.isX509()) {
+            out.writeString(identity.getX509CommonName());
+        }
+    }
+
+    private static Identity readIdentity(CompactInput in) {
+        int type = in.readByte();
+        InetSocketAddress address = new InetSocketAddress(in.readString(), in.readVarInt());
+        switch (type) {
+        case IDENTITY_UNSECURE:
+            return Identity.unsecure(address);
+        case IDENTITY_PSK:
+            return Identity.psk(address, in.readString());
+        case IDENTITY_RPK:
+            try {
+                X509EncodedKeySpec spec = new X509EncodedKeySpec(in.readBytes());
+                PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(spec);
+                return Identity.rpk(address, publicKey);
+            } catch (InvalidKeySpecException | NoSuchAlgorithmException e) {
+                throw new IllegalStateException("Invalid security info content", e);
+            }
+        case IDENTITY_X509:
+            return Identity.x509(address, in.readString());
+        default:
+            throw new IllegalArgumentException("Invalid compact data : unknown identity type " + type);
+        }
+    }
+}
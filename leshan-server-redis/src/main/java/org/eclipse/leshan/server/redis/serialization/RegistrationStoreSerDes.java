@@ -0,0 +1,40 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import org.eclipse.californium.core.observe.Observation;
+import org.eclipse.leshan.server.registration.Registration;
+
+/**
+ * Serialize and deserialize the registrations and observations stored in Redis by
+ * {@link org.eclipse.leshan.server.redis.RedisRegistrationStore}.
+ * <p>
+ * As several formats could be stored in the same Redis (e.g. during a migration), implementations should be able to
+ * deserialize all the formats provided by Leshan.
+ *
+ * @see JsonRegistrationStoreSerDes
+ * @see CompactRegistrationStoreSerDes
+ */
+public interface RegistrationStoreSerDes {
+
+    byte[] serializeRegistration(Registration registration);
+
+    Registration deserializeRegistration(byte[] data);
+
+    byte[] serializeObservation(Observation observation);
+
+    Observation deserializeObservation(byte[] data);
+}
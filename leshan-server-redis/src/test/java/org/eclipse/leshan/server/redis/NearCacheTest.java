@@ -0,0 +1,109 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NearCacheTest {
+
+    private NearCache<String, String> cache;
+
+    @Before
+    public void setUp() {
+        cache = new NearCache<>(2, 1, TimeUnit.HOURS);
+        cache.setEnabled(true);
+    }
+
+    @Test
+    public void value_is_cached() {
+        cache.put("key", "value", cache.getVersion("key"));
+        assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    public void value_read_before_an_invalidation_is_not_cached() {
+        Object version = cache.getVersion("key");
+        cache.invalidate("key");
+        cache.put("key", "stale", version);
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void invalidation_of_another_key_does_not_prevent_caching() {
+        Object version = cache.getVersion("key");
+        cache.invalidate("other");
+        cache.put("key", "value", version);
+
+        assertEquals("value", cache.get("key"));
+    }
+
+    @Test
+    public void large_cache_size_is_bounded() {
+        cache = new NearCache<>(1024, 1, TimeUnit.HOURS);
+        cache.setEnabled(true);
+        for (int i = 0; i < 4096; i++) {
+            cache.put("key" + i, "value" + i, cache.getVersion("key" + i));
+        }
+
+        assertTrue(cache.size() <= 1024);
+        assertEquals("value4095", cache.get("key4095"));
+    }
+
+    @Test
+    public void invalidated_value_is_removed() {
+        cache.put("key", "value", cache.getVersion("key"));
+        cache.invalidate("key");
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void least_recently_used_value_is_evicted() {
+        cache.put("key1", "value1", cache.getVersion("key1"));
+        cache.put("key2", "value2", cache.getVersion("key2"));
+        cache.get("key1");
+        cache.put("key3", "value3", cache.getVersion("key3"));
+
+        assertEquals(2, cache.size());
+        assertEquals("value1", cache.get("key1"));
+        assertNull(cache.get("key2"));
+    }
+
+    @Test
+    public void expired_value_is_not_returned() throws InterruptedException {
+        cache = new NearCache<>(2, 10, TimeUnit.MILLISECONDS);
+        cache.setEnabled(true);
+        cache.put("key", "value", cache.getVersion("key"));
+        Thread.sleep(20);
+
+        assertNull(cache.get("key"));
+    }
+
+    @Test
+    public void disabled_cache_is_empty() {
+        cache.put("key", "value", cache.getVersion("key"));
+        cache.setEnabled(false);
+        cache.put("key", "value", cache.getVersion("key"));
+
+        assertNull(cache.get("key"));
+    }
+}
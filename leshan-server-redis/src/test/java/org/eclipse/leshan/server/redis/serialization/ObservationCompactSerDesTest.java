@@ -0,0 +1,83 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import static org.junit.Assert.*;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.californium.core.coap.Request;
+import org.eclipse.californium.core.coap.Token;
+import org.eclipse.californium.core.observe.Observation;
+import org.eclipse.californium.elements.AddressEndpointContext;
+import org.eclipse.californium.elements.auth.PreSharedKeyIdentity;
+import org.junit.Test;
+
+public class ObservationCompactSerDesTest {
+
+    @Test
+    public void ser_and_des_are_equals() throws Exception {
+        Observation obs = givenAnObservation();
+
+        Observation obs2 = ObservationCompactSerDes.deserialize(ObservationCompactSerDes.serialize(obs));
+
+        assertObservationEquals(obs, obs2);
+    }
+
+    @Test
+    public void both_formats_are_readable() throws Exception {
+        Observation obs = givenAnObservation();
+        RegistrationStoreSerDes compact = new CompactRegistrationStoreSerDes();
+        RegistrationStoreSerDes json = new JsonRegistrationStoreSerDes();
+
+        assertObservationEquals(obs, compact.deserializeObservation(json.serializeObservation(obs)));
+        assertObservationEquals(obs, json.deserializeObservation(compact.serializeObservation(obs)));
+    }
+
+    @Test
+    public void compact_format_is_smaller_than_json() throws Exception {
+        Observation obs = givenAnObservation();
+
+        assertTrue(ObservationCompactSerDes.serialize(obs).length < ObservationSerDes.serialize(obs).length);
+    }
+
+    private Observation givenAnObservation() {
+        Request request = Request.newGet();
+        request.setToken(new Token(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+        request.setMID(1);
+        request.setObserve();
+        request.getOptions().setUriPath("3/0/9");
+        request.setDestinationContext(new AddressEndpointContext(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 5684), new PreSharedKeyIdentity("client")));
+        Map<String, String> userContext = new HashMap<>();
+        userContext.put("leshan-regId", "registrationId");
+        userContext.put("leshan-path", "/3/0/9");
+        request.setUserContext(userContext);
+        return new Observation(request, request.getDestinationContext());
+    }
+
+    private void assertObservationEquals(Observation expected, Observation actual) {
+        assertEquals(expected.getRequest().getToken(), actual.getRequest().getToken());
+        assertEquals(expected.getRequest().getOptions().getUriPathString(),
+                actual.getRequest().getOptions().getUriPathString());
+        assertEquals(expected.getRequest().getUserContext(), actual.getRequest().getUserContext());
+        assertEquals(expected.getContext().getPeerAddress(), actual.getContext().getPeerAddress());
+        assertEquals(expected.getContext().getPeerIdentity(), actual.getContext().getPeerIdentity());
+    }
+}
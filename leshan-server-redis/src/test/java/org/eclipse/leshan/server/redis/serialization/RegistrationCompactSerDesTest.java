@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2021 Sierra Wireless and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v2.0
+ * and Eclipse Distribution License v1.0 which accompany this distribution.
+ *
+ * The Eclipse Public License is available at
+ *    http://www.eclipse.org/legal/epl-v20.html
+ * and the Eclipse Distribution License is available at
+ *    http://www.eclipse.org/org/documents/edl-v10.html.
+ *
+ * Contributors:
+ *     Sierra Wireless - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.leshan.server.redis.serialization;
+
+import static org.junit.Assert.*;
+
+import java.net.Inet4Address;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.eclipse.leshan.core.Link;
+import org.eclipse.leshan.core.request.ContentFormat;
+import org.eclipse.leshan.core.request.Identity;
+import org.eclipse.leshan.server.registration.Registration;
+import org.junit.Test;
+
+public class RegistrationCompactSerDesTest {
+
+    @Test
+    public void ser_and_des_are_equals() throws Exception {
+        Registration r = givenARegistration(Identity.unsecure(Inet4Address.getLoopbackAddress(), 1));
+
+        byte[] ser = RegistrationCompactSerDes.serialize(r);
+        Registration r2 = RegistrationCompactSerDes.deserialize(ser);
+
+        assertEquals(r, r2);
+    }
+
+    @Test
+    public void ser_and_des_are_equals_with_psk_identity() throws Exception {
+        Registration r = givenARegistration(Identity.psk(Inet4Address.getLoopbackAddress(), 1, "pskIdentity"));
+
+        byte[] ser = RegistrationCompactSerDes.serialize(r);
+        Registration r2 = RegistrationCompactSerDes.deserialize(ser);
+
+        assertEquals(r, r2);
+    }
+
+    @Test
+    public void ser_and_des_keep_available_instances() throws Exception {
+        Registration r = new Registration.Builder("registrationId", "endpoint",
+                Identity.unsecure(Inet4Address.getLoopbackAddress(), 1))
+                        .objectLinks(Link.parse("</>;rt=\"oma.lwm2m\",</1/0>,</3/0>,</3442>;ver=1.1".getBytes()))
+                        .extractDataFromObjectLink(true).build();
+
+        Registration r2 = RegistrationCompactSerDes.deserialize(RegistrationCompactSerDes.serialize(r));
+
+        assertEquals(r.getAvailableInstances(), r2.getAvailableInstances());
+        assertEquals(r.getSupportedObject(), r2.getSupportedObject());
+        assertEquals(r, r2);
+    }
+
+    @Test
+    public void compact_format_is_smaller_than_json() throws Exception {
+        Registration r = givenARegistration(Identity.unsecure(Inet4Address.getLoopbackAddress(), 1));
+
+        assertTrue(RegistrationCompactSerDes.serialize(r).length < RegistrationSerDes.bSerialize(r).length);
+    }
+
+    @Test
+    public void both_formats_are_readable() throws Exception {
+        Registration r = givenARegistration(Identity.unsecure(Inet4Address.getLoopbackAddress(), 1));
+        RegistrationStoreSerDes compact = new CompactRegistrationStoreSerDes();
+        RegistrationStoreSerDes json = new JsonRegistrationStoreSerDes();
+
+        assertEquals(r, compact.deserializeRegistration(json.serializeRegistration(r)));
+        assertEquals(r, json.deserializeRegistration(compact.serializeRegistration(r)));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknown_format_version_is_rejected() throws Exception {
+        byte[] ser = RegistrationCompactSerDes
+                .serialize(givenARegistration(Identity.unsecure(Inet4Address.getLoopbackAddress(), 1)));
+        ser[0] = (byte) 0x82;
+
+        RegistrationCompactSerDes.deserialize(ser);
+    }
+
+    private Registration givenARegistration(Identity identity) {
+        Link[] objs = new Link[3];
+        Map<String, Object> att = new HashMap<>();
+        att.put("ts", 12);
+        att.put("rt", "test");
+        att.put("hb", null);
+        objs[0] = new Link("/0/1024/2", att, Object.class);
+        objs[1] = new Link("/0/2");
+        objs[2] = new Link("/3442", "ver", "1.1", "ts", "13");
+
+        Map<String, String> appData = new HashMap<>();
+        appData.put("string", "string test");
+        appData.put("null", null);
+
+        Registration.Builder builder = new Registration.Builder("registrationId", "endpoint", identity)
+                .objectLinks(objs).rootPath("/").supportedContentFormats(ContentFormat.TLV, ContentFormat.TEXT)
+                .applicationData(appData).smsNumber("0123456789");
+
+        builder.registrationDate(new Date(100L));
+        builder.lastUpdate(new Date(101L));
+        return builder.build();
+    }
+}